@@ -0,0 +1,116 @@
+package com.example.HotelBooking.assignment;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+/**
+ * Packs the stays of one room type onto its rooms so that the gaps left between stays are either zero
+ * or long enough to sell. Stays are closed day intervals, the same way the availability queries treat
+ * them: a stay ending on day d and one starting on day d cannot share a room.
+ * Holds no Spring state, so it can be driven with synthetic booking streams.
+ */
+public final class RoomAssignmentEngine {
+
+    private RoomAssignmentEngine() {
+    }
+
+    /**
+     * @param fixed stays that keep their room, e.g. guests already checked in. All of them must start no
+     *              later than the earliest movable stay.
+     */
+    public record Stay(long bookingId, long roomId, long firstDay, long lastDay, boolean fixed) {
+    }
+
+    public record Plan(Map<Long, Long> moves, int orphanGapsBefore, int orphanGapsAfter) {
+    }
+
+    /**
+     * Interval partitioning in order of arrival with best fit: each stay goes to the free room whose
+     * previous stay ends closest before it, unless that would leave a gap shorter than
+     * {@code orphanGapDays}. Greedy partitioning by start day never needs more rooms than the peak
+     * overlap, so any feasible assignment stays feasible. The plan is empty unless it leaves fewer
+     * orphan gaps than the current assignment.
+     */
+    public static Plan reshuffle(Collection<Long> roomIds, List<Stay> stays, int orphanGapDays) {
+        int before = countOrphanGaps(stays, Stay::roomId, orphanGapDays);
+
+        Map<Long, Long> frontiers = new HashMap<>(); //room -> last occupied day
+        roomIds.forEach(roomId -> frontiers.put(roomId, Long.MIN_VALUE / 2));
+        List<Stay> movable = new ArrayList<>();
+        for (Stay stay : stays) {
+            if (stay.fixed()) {
+                frontiers.merge(stay.roomId(), stay.lastDay(), Math::max);
+            } else {
+                movable.add(stay);
+            }
+        }
+        TreeMap<Long, LinkedHashSet<Long>> roomsByFrontier = new TreeMap<>();
+        frontiers.forEach((roomId, frontier) -> roomsByFrontier.computeIfAbsent(frontier, key -> new LinkedHashSet<>()).add(roomId));
+
+        movable.sort(Comparator.comparingLong(Stay::firstDay)
+                .thenComparing(Comparator.comparingLong(Stay::lastDay).reversed()));
+        Map<Long, Long> assignment = new HashMap<>();
+        for (Stay stay : movable) {
+            Long frontier = pickFrontier(roomsByFrontier, stay.firstDay(), orphanGapDays);
+            if (frontier == null) {
+                return new Plan(Map.of(), before, before); //current data is already overbooked, leave it alone
+            }
+            LinkedHashSet<Long> candidates = roomsByFrontier.get(frontier);
+            long roomId = candidates.contains(stay.roomId()) ? stay.roomId() : candidates.getFirst();
+            candidates.remove(roomId);
+            if (candidates.isEmpty()) roomsByFrontier.remove(frontier);
+            roomsByFrontier.computeIfAbsent(stay.lastDay(), key -> new LinkedHashSet<>()).add(roomId);
+            assignment.put(stay.bookingId(), roomId);
+        }
+
+        int after = countOrphanGaps(stays, stay -> assignment.getOrDefault(stay.bookingId(), stay.roomId()), orphanGapDays);
+        if (after >= before) {
+            return new Plan(Map.of(), before, before);
+        }
+        Map<Long, Long> moves = new HashMap<>();
+        for (Stay stay : movable) {
+            long roomId = assignment.get(stay.bookingId());
+            if (roomId != stay.roomId()) moves.put(stay.bookingId(), roomId);
+        }
+        return new Plan(moves, before, after);
+    }
+
+    /**
+     * Cost of placing a stay between two neighbours, lower is better: 0 for a seamless fit, 1 when the
+     * gaps left can still be sold, more for every orphan gap. A null neighbour means none nearby.
+     */
+    public static int placementCost(Long previousLastDay, Long nextFirstDay, long firstDay, long lastDay, int orphanGapDays) {
+        return gapCost(previousLastDay == null ? null : firstDay - previousLastDay - 1, orphanGapDays)
+                + gapCost(nextFirstDay == null ? null : nextFirstDay - lastDay - 1, orphanGapDays);
+    }
+
+    private static int gapCost(Long gap, int orphanGapDays) {
+        if (gap == null || gap >= orphanGapDays) return 1;
+        return gap == 0 ? 0 : 100;
+    }
+
+    private static Long pickFrontier(TreeMap<Long, LinkedHashSet<Long>> roomsByFrontier, long firstDay, int orphanGapDays) {
+        if (roomsByFrontier.containsKey(firstDay - 1)) {
+            return firstDay - 1; //seamless
+        }
+        Long sellableGap = roomsByFrontier.floorKey(firstDay - 1 - orphanGapDays);
+        if (sellableGap != null) {
+            return sellableGap;
+        }
+        return roomsByFrontier.floorKey(firstDay - 1); //an orphan gap is unavoidable, keep it as short as possible
+    }
+
+    private static int countOrphanGaps(List<Stay> stays, ToLongFunction<Stay> roomOf, int orphanGapDays) {
+        Map<Long, List<Stay>> byRoom = new HashMap<>();
+        stays.forEach(stay -> byRoom.computeIfAbsent(roomOf.applyAsLong(stay), key -> new ArrayList<>()).add(stay));
+        int orphans = 0;
+        for (List<Stay> roomStays : byRoom.values()) {
+            roomStays.sort(Comparator.comparingLong(Stay::firstDay));
+            for (int i = 1; i < roomStays.size(); i++) {
+                long gap = roomStays.get(i).firstDay() - roomStays.get(i - 1).lastDay() - 1;
+                if (gap > 0 && gap < orphanGapDays) orphans++;
+            }
+        }
+        return orphans;
+    }
+}
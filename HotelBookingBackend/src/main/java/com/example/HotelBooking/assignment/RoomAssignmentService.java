@@ -0,0 +1,190 @@
+package com.example.HotelBooking.assignment;
+
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.dtos.RoomHoldDTO;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.holds.RoomHoldService;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses concrete rooms for stays sold by type and, on the leader, periodically repacks future stays
+ * within each room type of each property so that the calendar is left with sellable gaps instead of
+ * single nights. Each property and room type is repacked in its own short transaction, and rooms a guest
+ * picked for a stay still to come are left out of it. Live holds stay where they are, nothing is moved onto them.
+ */
+@Service
+@Slf4j
+public class RoomAssignmentService {
+
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final ClusterService clusterService;
+    private final BookingEventLog bookingEventLog;
+    private final RoomHoldService roomHoldService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter movesCounter;
+    private final Timer reshuffleTimer;
+
+    @Value("${assignment.orphan-gap-days:3}")
+    private int orphanGapDays; //gaps shorter than this many days cannot hold even a one night stay
+
+    public RoomAssignmentService(RoomRepository roomRepository, BookingRepository bookingRepository,
+                                 ClusterService clusterService, BookingEventLog bookingEventLog, RoomHoldService roomHoldService,
+                                 TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.clusterService = clusterService;
+        this.bookingEventLog = bookingEventLog;
+        this.roomHoldService = roomHoldService;
+        this.transactionTemplate = transactionTemplate;
+        this.movesCounter = meterRegistry.counter("bookings.assignment.moves");
+        this.reshuffleTimer = meterRegistry.timer("bookings.assignment.reshuffle");
+    }
+
+    /**
+     * Best free room of the type for the stay, locked for the rest of the caller's transaction.
+     * Empty when every room of the type is taken, e.g. for a stay sold from an overbooked allotment.
+     */
+    @Transactional
+    public Optional<Room> chooseRoom(Long propertyId, RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Room> candidates = roomRepository.findAvailableRooms(propertyId, checkInDate, checkOutDate, roomType);
+        if (candidates.isEmpty()) return Optional.empty();
+
+        Map<Long, List<BookingRepository.BookedIntervalView>> neighbours = bookingRepository
+                .findActiveIntervals(propertyId, checkInDate.minusDays(orphanGapDays + 1L), checkOutDate.plusDays(orphanGapDays + 1L))
+                .stream()
+                .collect(Collectors.groupingBy(BookingRepository.BookedIntervalView::getRoomId));
+        long firstDay = checkInDate.toEpochDay();
+        long lastDay = checkOutDate.toEpochDay();
+
+        List<Room> ranked = candidates.stream()
+                .sorted(Comparator.comparingInt((Room room) -> placementCost(neighbours.get(room.getId()), firstDay, lastDay))
+                        .thenComparing(Room::getPricePerNight)
+                        .thenComparing(Room::getRoomNumber))
+                .toList();
+        for (Room candidate : ranked) {
+            //a room locked by another booking is passed over rather than waited on and locked as well,
+            //and a room taken between the scan and the lock is checked again once it is locked
+            Optional<Room> locked = roomRepository.findByIdForUpdateSkipLocked(candidate.getId());
+            if (locked.isEmpty()) continue;
+            if (bookingRepository.isRoomAvailable(candidate.getId(), checkInDate, checkOutDate)
+                    && !roomHoldService.isHeldByOthers(candidate.getId(), checkInDate, checkOutDate, null)) {
+                return locked;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${assignment.reshuffle-interval-ms:3600000}", initialDelayString = "${assignment.reshuffle-interval-ms:3600000}")
+    public void reshuffle() {
+        if (!clusterService.isLeader()) return;
+        int moved = reshuffleTimer.record(() -> roomRepository.findPropertyRoomTypes().stream()
+                .mapToInt(group -> reshuffleLocked(group.getPropertyId(), group.getRoomType()))
+                .sum());
+        if (moved > 0) {
+            movesCounter.increment(moved);
+        }
+    }
+
+    // one property and room type per transaction, so bookings only ever wait on the rooms of one group
+    private int reshuffleLocked(Long propertyId, RoomType roomType) {
+        try {
+            Integer moved = transactionTemplate.execute(status -> reshuffle(propertyId, roomType));
+            if (moved != null && moved > 0) {
+                clusterService.broadcast(CacheRegion.BOOKING, null); //old rooms of the moved stays are stale too
+            }
+            return moved != null ? moved : 0;
+        } catch (PessimisticLockingFailureException e) {
+            log.debug("Rooms of type {} at property {} are being booked, repacking them next time", roomType, propertyId);
+            return 0;
+        }
+    }
+
+    private int reshuffle(Long propertyId, RoomType roomType) {
+        List<Long> lockedRoomIds = roomRepository.lockByType(propertyId, roomType).stream().map(Room::getId).toList();
+        if (lockedRoomIds.size() < 2) return 0;
+
+        LocalDate today = LocalDate.now();
+        List<BookingRepository.AssignedStayView> assigned = bookingRepository.findAssignedStays(propertyId, roomType, today);
+        //a room the guest picked keeps all of its stays, the rest are packed around it on the other rooms
+        Set<Long> pickedRoomIds = assigned.stream()
+                .filter(stay -> !Boolean.FALSE.equals(stay.getRoomChosen()) && !inHouse(stay, today))
+                .map(BookingRepository.AssignedStayView::getRoomId)
+                .collect(Collectors.toSet());
+        List<Long> roomIds = lockedRoomIds.stream().filter(roomId -> !pickedRoomIds.contains(roomId)).toList();
+        if (roomIds.size() < 2) return 0;
+
+        List<RoomAssignmentEngine.Stay> stays = new ArrayList<>(assigned.stream()
+                .filter(stay -> !pickedRoomIds.contains(stay.getRoomId()))
+                .map(stay -> new RoomAssignmentEngine.Stay(
+                        stay.getId(),
+                        stay.getRoomId(),
+                        stay.getCheckInDate().toEpochDay(),
+                        stay.getCheckOutDate().toEpochDay(),
+                        inHouse(stay, today)))
+                .toList());
+        //a hold becomes a booking of its room once paid, so it is packed around like a stay that cannot move;
+        //the rooms are locked, no hold can be placed on them until this transaction ends
+        long holdId = 0;
+        for (RoomHoldDTO hold : roomHoldService.findActiveForRooms(roomIds)) {
+            stays.add(new RoomAssignmentEngine.Stay(--holdId, hold.getRoomId(),
+                    hold.getCheckInDate().toEpochDay(), hold.getCheckOutDate().toEpochDay(), true));
+        }
+        RoomAssignmentEngine.Plan plan = RoomAssignmentEngine.reshuffle(roomIds, stays, orphanGapDays);
+        if (plan.moves().isEmpty()) return 0;
+
+        Map<Long, List<Long>> bookingsByRoom = plan.moves().entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        bookingsByRoom.forEach((roomId, bookingIds) -> {
+            bookingRepository.reassignRoom(bookingIds, roomRepository.getReferenceById(roomId));
+            bookingEventLog.recordUpdated(bookingIds, BookingEventType.ROOM_CHANGED);
+        });
+        log.info("Moved {} {} bookings at property {}, orphan gaps {} -> {}", plan.moves().size(), roomType, propertyId,
+                plan.orphanGapsBefore(), plan.orphanGapsAfter());
+        return plan.moves().size();
+    }
+
+    // guests in house, and arrivals due today whose room may already be prepared
+    private static boolean inHouse(BookingRepository.AssignedStayView stay, LocalDate today) {
+        return stay.getBookingStatus() == BookingStatus.CHECKED_IN || !stay.getCheckInDate().isAfter(today);
+    }
+
+    private int placementCost(List<BookingRepository.BookedIntervalView> roomIntervals, long firstDay, long lastDay) {
+        Long previousLastDay = null;
+        Long nextFirstDay = null;
+        if (roomIntervals != null) {
+            for (BookingRepository.BookedIntervalView interval : roomIntervals) {
+                long intervalFirst = interval.getCheckInDate().toEpochDay();
+                long intervalLast = interval.getCheckOutDate().toEpochDay();
+                if (intervalLast < firstDay && (previousLastDay == null || intervalLast > previousLastDay)) {
+                    previousLastDay = intervalLast;
+                }
+                if (intervalFirst > lastDay && (nextFirstDay == null || intervalFirst < nextFirstDay)) {
+                    nextFirstDay = intervalFirst;
+                }
+            }
+        }
+        return RoomAssignmentEngine.placementCost(previousLastDay, nextFirstDay, firstDay, lastDay, orphanGapDays);
+    }
+}
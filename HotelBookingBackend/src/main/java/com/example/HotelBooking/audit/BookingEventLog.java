@@ -0,0 +1,68 @@
+package com.example.HotelBooking.audit;
+
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.BookingEvent;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.repositories.BookingEventRepository;
+import com.example.HotelBooking.security.AuthPrincipal;
+import com.example.HotelBooking.security.CurrentPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Appends to booking_events. Every method joins the transaction that changes the booking, so an event
+ * exists exactly when its change committed; calling one outside a transaction is a bug and fails.
+ * The actor is whoever the current request is authenticated as, nobody for system jobs.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingEventLog {
+
+    private final BookingEventRepository bookingEventRepository;
+    private final CurrentPrincipal currentPrincipal;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Booking booking, BookingEventType type) {
+        record(booking, type, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Booking booking, BookingEventType type, BigDecimal amount) {
+        bookingEventRepository.save(BookingEvent.builder()
+                .bookingId(booking.getId())
+                .type(type)
+                .actorId(actorId())
+                .occurredAt(LocalDateTime.now())
+                .bookingStatus(booking.getBookingStatus())
+                .paymentStatus(booking.getPaymentStatus())
+                .roomId(booking.getRoom() != null ? booking.getRoom().getId() : null)
+                .checkInDate(booking.getCheckInDate())
+                .checkOutDate(booking.getCheckOutDate())
+                .totalPrice(booking.getTotalPrice())
+                .amount(amount)
+                .build());
+    }
+
+    /** For bulk updates: one event per booking among the ids that this transaction's update actually changed. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int recordUpdated(Collection<Long> bookingIds, BookingEventType type) {
+        if (bookingIds.isEmpty()) return 0;
+        return bookingEventRepository.appendUpdated(bookingIds, type.name(), actorId(), LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int recordUpdatedByReferences(Collection<String> bookingReferences, BookingEventType type) {
+        if (bookingReferences.isEmpty()) return 0;
+        return bookingEventRepository.appendUpdatedByReferences(bookingReferences, type.name(), actorId(), LocalDateTime.now());
+    }
+
+    private Long actorId() {
+        return currentPrincipal.find().map(AuthPrincipal::userId).orElse(null);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.HotelBooking.audit;
+
+import com.example.HotelBooking.entities.BookingEvent;
+
+import java.util.List;
+
+/**
+ * A view derived from booking_events, fed by {@link ProjectionRunner}. Implementations keep their state in
+ * the database so it commits together with the offset that says how far they got.
+ */
+public interface BookingProjection {
+
+    /** Key of the stored offset, changing it makes the projection start over from the first event. */
+    String name();
+
+    /**
+     * Applies events in id order, in the caller's transaction. During a rebuild several threads call this at
+     * once, each with the events of a disjoint set of bookings, so changes to shared rows must commute.
+     */
+    void apply(List<BookingEvent> events);
+
+    /** Drops everything derived so far, right before a replay from the first event. */
+    void reset();
+}
@@ -0,0 +1,62 @@
+package com.example.HotelBooking.audit;
+
+import com.example.HotelBooking.entities.BookingEvent;
+import com.example.HotelBooking.repositories.BookingDailyStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Daily booking, payment and refund totals for reporting, by the day the event happened.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingStatsProjection implements BookingProjection {
+
+    private final BookingDailyStatsRepository bookingDailyStatsRepository;
+
+    @Override
+    public String name() {
+        return "booking-daily-stats";
+    }
+
+    @Override
+    public void apply(List<BookingEvent> events) {
+        //sorted, so concurrent replay partitions lock the day rows in the same order and cannot deadlock
+        Map<LocalDate, long[]> counts = new TreeMap<>();
+        Map<LocalDate, BigDecimal[]> amounts = new TreeMap<>();
+        for (BookingEvent event : events) {
+            LocalDate day = event.getOccurredAt().toLocalDate();
+            long[] dayCounts = counts.computeIfAbsent(day, d -> new long[5]);
+            BigDecimal[] dayAmounts = amounts.computeIfAbsent(day, d -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            BigDecimal amount = event.getTotalPrice() != null ? event.getTotalPrice() : BigDecimal.ZERO;
+            switch (event.getType()) {
+                case CREATED -> dayCounts[0]++;
+                case CANCELLED, EXPIRED -> dayCounts[1]++;
+                case PAID -> {
+                    dayCounts[2]++;
+                    dayAmounts[0] = dayAmounts[0].add(amount);
+                }
+                case PAYMENT_FAILED -> dayCounts[3]++;
+                case REFUNDED, PARTLY_REFUNDED -> {
+                    dayCounts[4]++;
+                    dayAmounts[1] = dayAmounts[1].add(event.getAmount() != null ? event.getAmount() : amount);
+                }
+                default -> {
+                }
+            }
+        }
+        counts.forEach((day, c) -> bookingDailyStatsRepository.add(day, c[0], c[1], c[2], c[3], c[4],
+                amounts.get(day)[0], amounts.get(day)[1]));
+    }
+
+    @Override
+    public void reset() {
+        bookingDailyStatsRepository.deleteAllDays();
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.HotelBooking.audit;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.entities.BookingEvent;
+import com.example.HotelBooking.entities.ProjectionOffset;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.exceptions.ServiceBusyException;
+import com.example.HotelBooking.repositories.BookingEventRepository;
+import com.example.HotelBooking.repositories.ProjectionOffsetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Feeds booking_events to every {@link BookingProjection}. The leader reads each projection forward from
+ * its stored offset in small batches, applying a batch and moving the offset in one transaction. A rebuild
+ * resets the projection and replays the whole log, split by booking over several threads so per booking
+ * order is kept while the log is read once.
+ *
+ * Identity ids are handed out at insert but become visible at commit, so a lower id can still show up after
+ * a higher one was read. A gap in the ids is only skipped once every transaction that was running when it
+ * was first seen has ended, going by the database's transaction snapshot; a missing id is then one that
+ * rolled back. The settle lag is kept as a floor on that wait, for the instant between an insert taking its
+ * id and its transaction taking an xid.
+ */
+@Service
+@Slf4j
+public class ProjectionRunner {
+
+    private final Map<String, BookingProjection> projections;
+    private final BookingEventRepository bookingEventRepository;
+    private final ProjectionOffsetRepository projectionOffsetRepository;
+    private final ClusterService clusterService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>(); //one batch or rebuild at a time per projection
+    private final Map<String, Gap> gaps = new ConcurrentHashMap<>(); //the gap each projection is waiting on
+
+    @Value("${projections.rebuild-settle-timeout-ms:60000}")
+    private long rebuildSettleTimeoutMs;
+
+    @Value("${projections.batch-size:500}")
+    private int batchSize;
+
+    @Value("${projections.settle-lag-ms:5000}")
+    private long settleLagMs;
+
+    @Value("${projections.replay-partitions:4}")
+    private int replayPartitions;
+
+    public ProjectionRunner(List<BookingProjection> projections, BookingEventRepository bookingEventRepository,
+                            ProjectionOffsetRepository projectionOffsetRepository, ClusterService clusterService,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.projections = projections.stream().collect(Collectors.toMap(BookingProjection::name, Function.identity()));
+        this.bookingEventRepository = bookingEventRepository;
+        this.projectionOffsetRepository = projectionOffsetRepository;
+        this.clusterService = clusterService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${projections.poll-interval-ms:2000}")
+    public void poll() {
+        if (!clusterService.isLeader()) return;
+        for (BookingProjection projection : projections.values()) {
+            ReentrantLock lock = lock(projection.name());
+            if (!lock.tryLock()) continue; //being rebuilt on this node
+            try {
+                while (Boolean.TRUE.equals(transactionTemplate.execute(status -> applyNextBatch(projection)))) {
+                    //keep going while full batches come back
+                }
+            } catch (ObjectOptimisticLockingFailureException e) {
+                log.info("Projection {} was reset while a batch was applied, batch rolled back", projection.name());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replays the log into a freshly reset projection. Runs on the calling thread until done; the offset stays
+     * marked as rebuilding if it fails, which keeps the leader from reading on until the rebuild is repeated.
+     */
+    public Response rebuild(String name) {
+        BookingProjection projection = projections.get(name);
+        if (projection == null) throw new NotFoundException("Projection " + name + " not found");
+
+        ReentrantLock lock = lock(name);
+        lock.lock();
+        try {
+            LocalDateTime started = LocalDateTime.now();
+            long upToId = settledUpTo(name);
+            transactionTemplate.executeWithoutResult(status -> {
+                projection.reset();
+                ProjectionOffset offset = findOffset(name);
+                offset.setLastEventId(0L);
+                offset.setRebuilding(true);
+                projectionOffsetRepository.save(offset);
+            });
+
+            long replayed = replay(projection, upToId);
+            transactionTemplate.executeWithoutResult(status -> {
+                ProjectionOffset offset = findOffset(name);
+                offset.setLastEventId(upToId);
+                offset.setRebuilding(false);
+                projectionOffsetRepository.save(offset);
+            });
+            log.info("Rebuilt projection {} from {} events in {} ms", name, replayed,
+                    ChronoUnit.MILLIS.between(started, LocalDateTime.now()));
+            return Response.builder()
+                    .status(200)
+                    .message("Projection Rebuilt Successfully")
+                    .totalElements(replayed)
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean applyNextBatch(BookingProjection projection) {
+        ProjectionOffset offset = findOffset(projection.name());
+        if (offset.isRebuilding()) return false;
+        List<BookingEvent> events = bookingEventRepository.findAfter(offset.getLastEventId(), PageRequest.of(0, batchSize));
+        List<BookingEvent> settled = settled(projection.name(), events, offset.getLastEventId());
+        if (settled.isEmpty()) return false;
+
+        projection.apply(settled);
+        offset.setLastEventId(settled.get(settled.size() - 1).getId());
+        projectionOffsetRepository.save(offset);
+        meterRegistry.counter("projections.events.applied", "projection", projection.name()).increment(settled.size());
+        return settled.size() == batchSize;
+    }
+
+    // the events up to the first gap that may still fill in
+    private List<BookingEvent> settled(String name, List<BookingEvent> events, long afterId) {
+        long expectedId = afterId + 1;
+        List<BookingEvent> settled = new ArrayList<>(events.size());
+        for (BookingEvent event : events) {
+            if (event.getId() != expectedId && !gapClosed(name, expectedId)) break;
+            settled.add(event);
+            expectedId = event.getId() + 1;
+        }
+        return settled;
+    }
+
+    /*
+     * The ids of a gap were taken before the event after it committed, so by transactions that were running
+     * when the gap was first seen. Once the oldest running xid has passed the next xid of that moment they
+     * have all ended, and what is still missing rolled back.
+     */
+    private boolean gapClosed(String name, long missingId) {
+        LocalDateTime now = LocalDateTime.now();
+        Gap gap = gaps.get(name);
+        if (gap == null || gap.firstMissingId() != missingId) {
+            gaps.put(name, new Gap(missingId, bookingEventRepository.findNextXid(), now));
+            return false;
+        }
+        boolean closed = !gap.seenAt().isAfter(now.minus(settleLagMs, ChronoUnit.MILLIS))
+                && bookingEventRepository.findOldestRunningXid() >= gap.waitForXid();
+        if (closed) {
+            gaps.remove(name);
+            log.info("Projection {} skipping event ids from {} left by rolled back transactions", name, missingId);
+        }
+        return closed;
+    }
+
+    /*
+     * The last id handed out before the rebuild, once every transaction that may still commit an id up to it
+     * has ended; replaying to there and reading on from it cannot miss an event that commits late.
+     */
+    private long settledUpTo(String name) {
+        Long lastAllocated = bookingEventRepository.findLastAllocatedId();
+        long waitForXid = bookingEventRepository.findNextXid();
+        long deadline = System.currentTimeMillis() + rebuildSettleTimeoutMs;
+        try {
+            Thread.sleep(settleLagMs);
+            while (bookingEventRepository.findOldestRunningXid() < waitForXid) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new ServiceBusyException("A long running transaction is still writing booking events, rebuild projection "
+                            + name + " again shortly");
+                }
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rebuild of projection " + name + " was interrupted", e);
+        }
+        return lastAllocated != null ? lastAllocated : 0L;
+    }
+
+    private long replay(BookingProjection projection, long upToId) {
+        long afterId = 0L;
+        long replayed = 0L;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (afterId < upToId) {
+                List<BookingEvent> page = bookingEventRepository.findBetween(afterId, upToId,
+                        PageRequest.of(0, batchSize * replayPartitions));
+                if (page.isEmpty()) break;
+
+                //stays in id order within each partition, and all events of a booking land in the same one
+                Map<Integer, List<BookingEvent>> partitions = page.stream().collect(Collectors.groupingBy(
+                        event -> (int) Math.floorMod(event.getBookingId(), (long) replayPartitions)));
+                List<Future<?>> applied = partitions.values().stream()
+                        .map(events -> executor.submit(() -> transactionTemplate.executeWithoutResult(
+                                status -> projection.apply(events))))
+                        .collect(Collectors.toList());
+                for (Future<?> future : applied) {
+                    future.get();
+                }
+                afterId = page.get(page.size() - 1).getId();
+                replayed += page.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rebuild of projection " + projection.name() + " was interrupted", e);
+        } catch (ExecutionException e) {
+            log.error("Rebuild of projection {} failed after {} events", projection.name(), replayed, e.getCause());
+            throw new IllegalStateException("Rebuild of projection " + projection.name() + " failed", e.getCause());
+        }
+        meterRegistry.counter("projections.events.replayed", "projection", projection.name()).increment(replayed);
+        return replayed;
+    }
+
+    private ProjectionOffset findOffset(String name) {
+        return projectionOffsetRepository.findById(name)
+                .orElseGet(() -> ProjectionOffset.builder().name(name).lastEventId(0L).build());
+    }
+
+    private ReentrantLock lock(String name) {
+        return locks.computeIfAbsent(name, key -> new ReentrantLock());
+    }
+
+    private record Gap(long firstMissingId, long waitForXid, LocalDateTime seenAt) {}
+}
@@ -0,0 +1,80 @@
+package com.example.HotelBooking.changes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Installs the triggers that feed change_log. Hibernate owns the tables, so this runs once they exist.
+ *
+ * The triggers are deferred to commit and take their number from a single counter row, whose lock is held
+ * until the commit completes. Numbers are therefore handed out in commit order and a reader can never see
+ * change n + 1 before change n; the price is that committing writers to bookings and payments queue on that
+ * row for the few microseconds between the trigger and the end of their commit.
+ */
+@Component
+@Slf4j
+public class ChangeCaptureInstaller {
+
+    private static final List<String> CAPTURED_TABLES = List.of("bookings", "payments");
+    private static final String TRIGGER_NAME = "capture_change";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${changes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${changes.install-lock-key:726355}")
+    private long installLockKey;
+
+    public ChangeCaptureInstaller(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void install() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + installLockKey + ")"); //nodes starting together take turns
+        if (!enabled) {
+            CAPTURED_TABLES.forEach(table -> jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + TRIGGER_NAME + " ON " + table));
+            log.info("Change capture disabled");
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS change_sequence (id integer PRIMARY KEY, value bigint NOT NULL)");
+        jdbcTemplate.execute("""
+                INSERT INTO change_sequence (id, value)
+                VALUES (1, COALESCE((SELECT MAX(seq) FROM change_log), 0))
+                ON CONFLICT (id) DO NOTHING
+                """);
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION capture_change() RETURNS trigger LANGUAGE plpgsql AS $$
+                DECLARE
+                    next_seq bigint;
+                BEGIN
+                    UPDATE change_sequence SET value = value + 1 WHERE id = 1 RETURNING value INTO next_seq;
+                    INSERT INTO change_log (seq, entity_type, entity_id, operation, changed_at)
+                    VALUES (next_seq, TG_ARGV[0], CASE WHEN TG_OP = 'DELETE' THEN OLD.id ELSE NEW.id END, TG_OP,
+                            clock_timestamp()::timestamp);
+                    RETURN NULL;
+                END
+                $$
+                """);
+        for (String table : CAPTURED_TABLES) {
+            Integer installed = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_trigger WHERE tgname = ? AND tgrelid = ?::regclass",
+                    Integer.class, TRIGGER_NAME, table);
+            if (installed != null && installed > 0) continue; //creating it again would lock the table
+            String entityType = table.equals("bookings") ? "BOOKING" : "PAYMENT";
+            jdbcTemplate.execute("CREATE CONSTRAINT TRIGGER " + TRIGGER_NAME
+                    + " AFTER INSERT OR UPDATE OR DELETE ON " + table
+                    + " DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION capture_change('" + entityType + "')");
+            log.info("Installed change capture on {}", table);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.HotelBooking.changes;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.ChangeDTO;
+import com.example.HotelBooking.dtos.PaymentDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.entities.ChangeLogEntry;
+import com.example.HotelBooking.enums.ChangeEntityType;
+import com.example.HotelBooking.exceptions.ChangeCursorExpiredException;
+import com.example.HotelBooking.exceptions.ServiceBusyException;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.ChangeLogRepository;
+import com.example.HotelBooking.repositories.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental feed of booking and payment changes for the channel manager and reporting, instead of them
+ * reloading every booking to spot what moved. Consumers keep the last seq they processed and ask for what
+ * came after it, either page by page or as a server-sent event stream.
+ *
+ * Delivery is at least once: each change carries the row as it is when the page is read, so a later change
+ * to the same row may already show, and is delivered again when its own seq comes up.
+ *
+ * Every stream subscriber has its own writer on a virtual thread, so one consumer on a slow connection only
+ * holds up itself. The poller just watches the counter and wakes the writers that are behind.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+    private static final long KEEP_ALIVE_MS = 15_000;
+    private static final int RECENT_BATCHES = 64;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+    private final ClusterService clusterService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Counter sentCounter;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<Long, Batch> recentBatches = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Batch> eldest) {
+            return size() > RECENT_BATCHES;
+        }
+    }); //by the cursor they follow, so writers at the same cursor share one read
+    private volatile long head;
+
+    @Value("${changes.batch-size:500}")
+    private int batchSize;
+
+    @Value("${changes.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${changes.stream.max-subscribers:50}")
+    private int maxSubscribers; //a handful of back office consumers, not browsers
+
+    @Value("${changes.stream.timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    @Value("${changes.stream.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+
+    public ChangeFeedService(ChangeLogRepository changeLogRepository, BookingRepository bookingRepository,
+                             PaymentRepository paymentRepository, ClusterService clusterService,
+                             PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.changeLogRepository = changeLogRepository;
+        this.bookingRepository = bookingRepository;
+        this.paymentRepository = paymentRepository;
+        this.clusterService = clusterService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.sentCounter = meterRegistry.counter("changes.stream.sent");
+        meterRegistry.gauge("changes.stream.subscribers", subscribers, List::size);
+    }
+
+    @Transactional(readOnly = true)
+    public Response getChanges(long after, int limit) {
+        Batch batch = read(after, Math.min(Math.max(limit, 1), batchSize));
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .changes(batch.changes())
+                .cursor(batch.cursor())
+                .build();
+    }
+
+    public SseEmitter subscribe(long after) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceBusyException("Too many change stream subscribers, use the paged feed instead");
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, after);
+        emitter.onCompletion(() -> leave(subscriber));
+        emitter.onTimeout(() -> leave(subscriber));
+        emitter.onError(error -> leave(subscriber));
+        subscribers.add(subscriber);
+        Thread.ofVirtual().name("change-stream-" + after).start(subscriber::write);
+        subscriber.signal.release(); //catches up to the last known head without waiting for the counter to move
+        return emitter;
+    }
+
+    /**
+     * Wakes the writers of subscribers that are behind the counter. Only the counter is read here, the
+     * writers read and send the changes themselves; nothing is read while the counter has not moved.
+     */
+    @Scheduled(fixedDelayString = "${changes.stream.poll-interval-ms:500}")
+    public void pushToSubscribers() {
+        if (subscribers.isEmpty()) return;
+        Long current = changeLogRepository.findHead();
+        if (current == null) return;
+        head = current;
+        subscribers.stream()
+                .filter(subscriber -> subscriber.cursor < current)
+                .forEach(subscriber -> subscriber.signal.release());
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        subscribers.forEach(Subscriber::close);
+    }
+
+    @Scheduled(fixedDelayString = "${changes.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        if (!clusterService.isLeader()) return;
+        int purged = changeLogRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) log.info("Purged {} change log entries older than {} days", purged, retentionDays);
+    }
+
+    private Batch read(long after, int limit) {
+        List<ChangeLogEntry> entries = changeLogRepository.findAfter(after, PageRequest.of(0, limit));
+        if (entries.isEmpty()) return new Batch(List.of(), after);
+        //numbers have no gaps, so a jump right after the cursor means the entries were purged
+        if (after > 0 && entries.get(0).getSeq() != after + 1) {
+            throw new ChangeCursorExpiredException("Changes after " + after + " are no longer kept, reload and start from the latest cursor");
+        }
+
+        //only the last change per row is sent, it carries the current state anyway
+        Map<String, ChangeLogEntry> latest = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : entries) {
+            String key = entry.getEntityType() + ":" + entry.getEntityId();
+            latest.remove(key);
+            latest.put(key, entry);
+        }
+        Set<Long> bookingIds = ids(latest.values(), ChangeEntityType.BOOKING);
+        Map<Long, BookingDTO> bookings = bookingIds.isEmpty() ? Map.of() : bookingRepository.findChangeViews(bookingIds)
+                .stream()
+                .collect(Collectors.toMap(BookingRepository.ChangeView::getId, ChangeFeedService::toBooking));
+        Set<Long> paymentIds = ids(latest.values(), ChangeEntityType.PAYMENT);
+        Map<Long, PaymentDTO> payments = paymentIds.isEmpty() ? Map.of() : paymentRepository.findChangeViews(paymentIds)
+                .stream()
+                .collect(Collectors.toMap(PaymentRepository.ChangeView::getId, ChangeFeedService::toPayment));
+
+        List<ChangeDTO> changes = latest.values().stream()
+                .map(entry -> ChangeDTO.builder()
+                        .seq(entry.getSeq())
+                        .entityType(entry.getEntityType())
+                        .entityId(entry.getEntityId())
+                        .operation(entry.getOperation())
+                        .changedAt(entry.getChangedAt())
+                        .booking(entry.getEntityType() == ChangeEntityType.BOOKING ? bookings.get(entry.getEntityId()) : null)
+                        .payment(entry.getEntityType() == ChangeEntityType.PAYMENT ? payments.get(entry.getEntityId()) : null)
+                        .build())
+                .toList();
+        return new Batch(changes, entries.get(entries.size() - 1).getSeq());
+    }
+
+    private void leave(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.close();
+    }
+
+    // a batch read once is the same for every writer at its cursor: numbers are handed out in commit order
+    private Batch batchAfter(long cursor) {
+        Batch cached = recentBatches.get(cursor);
+        if (cached != null) return cached;
+        Batch batch = readOnlyTransaction.execute(status -> read(cursor, batchSize));
+        if (!batch.changes().isEmpty()) recentBatches.put(cursor, batch);
+        return batch;
+    }
+
+    private static Set<Long> ids(Collection<ChangeLogEntry> entries, ChangeEntityType entityType) {
+        return entries.stream()
+                .filter(entry -> entry.getEntityType() == entityType)
+                .map(ChangeLogEntry::getEntityId)
+                .collect(Collectors.toSet());
+    }
+
+    private static BookingDTO toBooking(BookingRepository.ChangeView booking) {
+        return BookingDTO.builder()
+                .id(booking.getId())
+                .bookingReference(booking.getBookingReference())
+                .roomId(booking.getRoomId())
+                .propertyId(booking.getPropertyId())
+                .roomType(booking.getRoomType())
+                .channel(booking.getChannel())
+                .bookingStatus(booking.getBookingStatus())
+                .paymentStatus(booking.getPaymentStatus())
+                .checkInDate(booking.getCheckInDate())
+                .checkOutDate(booking.getCheckOutDate())
+                .totalPrice(booking.getTotalPrice())
+                .createdAt(booking.getCreatedAt())
+                .build();
+    }
+
+    private static PaymentDTO toPayment(PaymentRepository.ChangeView payment) {
+        return PaymentDTO.builder()
+                .id(payment.getId())
+                .transactionId(payment.getTransactionId())
+                .amount(payment.getAmount())
+                .paymentMethod(payment.getPaymentGateway())
+                .paymentDate(payment.getPaymentDate())
+                .status(payment.getPaymentStatus())
+                .bookingReference(payment.getBookingReference())
+                .failureReason(payment.getFailureReason())
+                .build();
+    }
+
+    private record Batch(List<ChangeDTO> changes, long cursor) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Semaphore signal = new Semaphore(0);
+        private volatile long cursor;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        void close() {
+            closed = true;
+            signal.release();
+        }
+
+        // runs on the subscriber's own virtual thread, a blocked send only parks this one
+        void write() {
+            long lastSentMillis = System.currentTimeMillis();
+            try {
+                while (!closed) {
+                    signal.tryAcquire(KEEP_ALIVE_MS, TimeUnit.MILLISECONDS);
+                    signal.drainPermits();
+                    if (closed) break;
+                    for (int round = 0; round < maxBatchesPerPoll && cursor < head; round++) {
+                        Batch batch = batchAfter(cursor);
+                        if (batch.changes().isEmpty()) break;
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(batch.cursor())) //comes back as Last-Event-ID when the client reconnects
+                                .name("changes")
+                                .data(batch.changes()));
+                        cursor = batch.cursor();
+                        lastSentMillis = System.currentTimeMillis();
+                        sentCounter.increment(batch.changes().size());
+                    }
+                    if (cursor < head) {
+                        signal.release(); //more to catch up on, after giving the other writers a turn
+                    } else if (System.currentTimeMillis() - lastSentMillis >= KEEP_ALIVE_MS) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                        lastSentMillis = System.currentTimeMillis();
+                    }
+                }
+            } catch (ChangeCursorExpiredException e) {
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this); //client went away
+            } catch (RuntimeException e) {
+                log.warn("Change stream writer stopped: {}", e.getMessage());
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
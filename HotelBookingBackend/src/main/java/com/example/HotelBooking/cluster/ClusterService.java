@@ -0,0 +1,10 @@
+package com.example.HotelBooking.cluster;
+
+import com.example.HotelBooking.enums.CacheRegion;
+
+public interface ClusterService {
+
+    void broadcast(CacheRegion region, Object key);
+
+    boolean isLeader();
+}
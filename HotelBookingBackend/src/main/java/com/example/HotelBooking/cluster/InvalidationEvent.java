@@ -0,0 +1,20 @@
+package com.example.HotelBooking.cluster;
+
+import com.example.HotelBooking.enums.CacheRegion;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class InvalidationEvent {
+
+    private CacheRegion region;
+
+    private String key; //id of the changed row, null means the whole region is stale
+
+    private boolean remote; //true when the change was made by another node
+
+    public Long getKeyAsLong() {
+        return key == null ? null : Long.valueOf(key);
+    }
+}
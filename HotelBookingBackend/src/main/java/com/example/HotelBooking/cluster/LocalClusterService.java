@@ -0,0 +1,28 @@
+package com.example.HotelBooking.cluster;
+
+import com.example.HotelBooking.enums.CacheRegion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single instance deployments: invalidations stay in this JVM and this node runs every scheduled job.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "false", matchIfMissing = true)
+public class LocalClusterService implements ClusterService {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void broadcast(CacheRegion region, Object key) {
+        applicationEventPublisher.publishEvent(new InvalidationEvent(region, key == null ? null : key.toString(), false));
+    }
+
+    @Override
+    public boolean isLeader() {
+        return true;
+    }
+}
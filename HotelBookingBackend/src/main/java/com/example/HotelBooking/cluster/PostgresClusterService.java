@@ -0,0 +1,171 @@
+package com.example.HotelBooking.cluster;
+
+import com.example.HotelBooking.enums.CacheRegion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Cluster coordination over the database we already have: invalidations travel as Postgres NOTIFY messages
+ * (delivered on commit when sent inside a transaction) and the leader is whichever node holds a session
+ * level advisory lock. Both live on one dedicated connection outside the pool, so losing that connection
+ * also drops leadership.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class PostgresClusterService implements ClusterService {
+
+    private static final String SEPARATOR = "|";
+
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${cluster.channel:hotel_invalidation}")
+    private String channel;
+
+    @Value("${cluster.leader-lock-key:726354}")
+    private long leaderLockKey;
+
+    @Value("${cluster.poll-interval-ms:500}")
+    private int pollIntervalMs;
+
+    @Value("${cluster.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean leader;
+    private volatile boolean running;
+    private volatile Connection listenerConnection;
+    private Thread listenerThread;
+
+    public PostgresClusterService(DataSourceProperties dataSourceProperties,
+                                  JdbcTemplate jdbcTemplate,
+                                  ApplicationEventPublisher applicationEventPublisher) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @PostConstruct
+    private void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform().name("cluster-listener").daemon().start(this::listen);
+        log.info("Cluster mode enabled, node id {}", nodeId);
+    }
+
+    @PreDestroy
+    private void stop() {
+        running = false;
+        leader = false;
+        listenerThread.interrupt();
+        closeQuietly(listenerConnection);
+    }
+
+    @Override
+    public void broadcast(CacheRegion region, Object key) {
+        String value = key == null ? null : key.toString();
+        applicationEventPublisher.publishEvent(new InvalidationEvent(region, value, false));
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)",
+                channel, nodeId + SEPARATOR + region.name() + SEPARATOR + (value == null ? "" : value));
+    }
+
+    @Override
+    public boolean isLeader() {
+        return leader;
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                listenerConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (reconnecting) {
+                    flushAllRegions(); //anything sent while we were disconnected is lost
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    if (!leader) {
+                        leader = tryAcquireLeadership(connection);
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications(pollIntervalMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (leader) log.warn("Lost cluster leadership with the listener connection");
+                leader = false; //the advisory lock died with the session
+                if (!running) return;
+                log.warn("Cluster listener connection failed: {}", e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean tryAcquireLeadership(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, leaderLockKey);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                boolean acquired = resultSet.next() && resultSet.getBoolean(1);
+                if (acquired) log.info("Node {} is now the cluster leader", nodeId);
+                return acquired;
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) return; //already applied locally when it was sent
+        try {
+            CacheRegion region = CacheRegion.valueOf(parts[1]);
+            applicationEventPublisher.publishEvent(new InvalidationEvent(region, parts[2].isEmpty() ? null : parts[2], true));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalidation for unknown region {}", parts[1]);
+        } catch (RuntimeException e) {
+            log.error("Invalidation handler failed for {}: {}", payload, e.getMessage());
+        }
+    }
+
+    private void flushAllRegions() {
+        for (CacheRegion region : CacheRegion.values()) {
+            applicationEventPublisher.publishEvent(new InvalidationEvent(region, null, true));
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.HotelBooking.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Startup sanity check of pool sizing against the configured request concurrency. It only logs: a
+ * misconfigured pool shows up as connection-timeout errors under load, which is far harder to trace back.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DataSourcePoolSelfCheck {
+
+    private final List<HikariDataSource> pools;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int requestThreads;
+
+    @Value("${datasource.pool.db-time-ratio:0.1}")
+    private double dbTimeRatio; //share of a request's time spent holding a connection
+
+    @Value("${datasource.pool.expected-instances:1}")
+    private int expectedInstances;
+
+    @Value("${spring.jpa.open-in-view:true}")
+    private boolean openInView;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkPoolSizing() {
+        if (openInView) {
+            log.warn("spring.jpa.open-in-view is enabled: connections are held for the whole request, not just the transaction");
+        }
+        int required = (int) Math.ceil(requestThreads * dbTimeRatio);
+        for (HikariDataSource pool : pools) {
+            int maximumPoolSize = pool.getMaximumPoolSize();
+            if (maximumPoolSize < required) {
+                log.warn("Pool {} allows {} connections but {} request threads at a db time ratio of {} need about {}",
+                        pool.getPoolName(), maximumPoolSize, requestThreads, dbTimeRatio, required);
+            }
+            checkServerLimit(pool, maximumPoolSize);
+        }
+    }
+
+    private void checkServerLimit(HikariDataSource pool, int maximumPoolSize) {
+        try {
+            Integer maxConnections = new JdbcTemplate(pool).queryForObject("SHOW max_connections", Integer.class);
+            if (maxConnections != null && (long) maximumPoolSize * expectedInstances > maxConnections) {
+                log.warn("Pool {} x {} instances ({} connections) exceeds the server max_connections of {}",
+                        pool.getPoolName(), expectedInstances, (long) maximumPoolSize * expectedInstances, maxConnections);
+            }
+        } catch (Exception e) {
+            log.warn("Could not read max_connections for pool {}: {}", pool.getPoolName(), e.getMessage());
+        }
+    }
+}
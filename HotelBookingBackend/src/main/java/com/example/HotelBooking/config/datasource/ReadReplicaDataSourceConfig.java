@@ -0,0 +1,79 @@
+package com.example.HotelBooking.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured pool with a primary and a replica pool. Service methods marked
+ * readOnly go to the replica unless it is lagging or the user has just written something.
+ * The lazy proxy matters: the routing decision has to wait until the transaction's
+ * read-only flag and name are set, which happens after the transaction manager asks for a connection.
+ * Repository calls made outside a service transaction carry Spring Data's readOnly default but
+ * stay on the primary, see {@link ReadReplicaRoutingDataSource#isServiceTransaction}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties,
+                                              @Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username:}") String username,
+                                              @Value("${datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(dataSourceProperties.determineDriverClassName())
+                .url(url)
+                .username(username.isEmpty() ? dataSourceProperties.determineUsername() : username)
+                .password(password.isEmpty() ? dataSourceProperties.determinePassword() : password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource replicaDataSource,
+                                               @Value("${datasource.replica.max-lag-ms:2000}") long maxLagMs,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaDataSource, maxLagMs, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 HikariDataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource(replicaLagMonitor, readYourWritesTracker);
+        routingDataSource.setTargetDataSources(Map.of(
+                ReadReplicaRoutingDataSource.PRIMARY, primaryDataSource,
+                ReadReplicaRoutingDataSource.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.HotelBooking.config.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RequiredArgsConstructor
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    // transactions Spring Data opens around bare repository calls are named after its repository implementation
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return PRIMARY;
+        if (!isServiceTransaction(TransactionSynchronizationManager.getCurrentTransactionName())) return PRIMARY;
+        if (!replicaLagMonitor.isReplicaUsable()) return PRIMARY;
+        if (readYourWritesTracker.isCurrentUserPinned()) return PRIMARY;
+        return REPLICA;
+    }
+
+    /**
+     * Only a read-only transaction the application declared itself may read stale data. The readOnly default
+     * of a repository method called without one, e.g. the user lookup at login or the duplicate check of a
+     * payment webhook, has no such intent and stays on the primary.
+     */
+    static boolean isServiceTransaction(String transactionName) {
+        return transactionName != null && !transactionName.startsWith(REPOSITORY_TRANSACTION_PREFIX);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.HotelBooking.config.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers users who just wrote something, so their own reads stay on the primary until a replica
+ * has had time to catch up (e.g. a booking shows up in "my bookings" right after it was made).
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    @Value("${datasource.replica.sticky-window-ms:5000}")
+    private long stickyWindowMs;
+
+    public void recordWrite(String username) {
+        if (username != null) {
+            pinnedUntil.put(username, System.currentTimeMillis() + stickyWindowMs);
+        }
+    }
+
+    public boolean isCurrentUserPinned() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) return false;
+        Long until = pinnedUntil.get(authentication.getName());
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        pinnedUntil.values().removeIf(until -> until <= now);
+    }
+}
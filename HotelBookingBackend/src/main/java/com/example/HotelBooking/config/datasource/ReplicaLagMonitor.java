@@ -0,0 +1,46 @@
+package com.example.HotelBooking.config.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // zero when the replica has replayed everything it received, so an idle primary does not look like lag
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() THEN 0
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0)
+                   END
+            """;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMs;
+    private volatile long lagMs = Long.MAX_VALUE; //unknown until the first check succeeds
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMs, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagMs = maxLagMs;
+        meterRegistry.gauge("datasource.replica.lag", this, monitor -> monitor.lagMs == Long.MAX_VALUE ? -1 : monitor.lagMs);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public void measureLag() {
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Number.class);
+            lagMs = lag == null ? 0 : lag.longValue();
+        } catch (Exception e) {
+            lagMs = Long.MAX_VALUE;
+            log.warn("Replica lag check failed, routing reads to the primary: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return lagMs <= maxLagMs;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.HotelBooking.controllers;
 
 import com.example.HotelBooking.dtos.LoginRequest;
+import com.example.HotelBooking.dtos.RefreshTokenRequest;
 import com.example.HotelBooking.dtos.RegistrationRequest;
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.services.UserService;
@@ -9,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -26,4 +28,16 @@ public class AuthController {
     public ResponseEntity<Response> loginUser(@RequestBody @Valid LoginRequest loginRequest){
         return ResponseEntity.ok(userService.loginUser(loginRequest));
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<Response> refreshToken(@RequestBody @Valid RefreshTokenRequest refreshTokenRequest){
+        return ResponseEntity.ok(userService.refreshToken(refreshTokenRequest));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Response> logout(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                           @RequestBody(required = false) RefreshTokenRequest refreshTokenRequest){
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        return ResponseEntity.ok(userService.logout(accessToken, refreshTokenRequest));
+    }
 }
\ No newline at end of file
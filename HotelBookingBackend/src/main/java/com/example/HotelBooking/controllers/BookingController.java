@@ -1,19 +1,31 @@
 package com.example.HotelBooking.controllers;
 
 import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.BulkStatusRequest;
+import com.example.HotelBooking.audit.ProjectionRunner;
 import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.holds.RoomHoldService;
+import com.example.HotelBooking.services.BookingLifecycleService;
 import com.example.HotelBooking.services.BookingService;
+import com.example.HotelBooking.services.FrontDeskService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.repository.query.Param;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/bookings")
 @RequiredArgsConstructor
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingLifecycleService bookingLifecycleService;
+    private final FrontDeskService frontDeskService;
+    private final ProjectionRunner projectionRunner;
+    private final RoomHoldService roomHoldService;
 
     @GetMapping("/all")
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -27,6 +39,18 @@ public class BookingController {
         return  ResponseEntity.ok(bookingService.createBooking(bookingDTO));
     }
 
+    @PostMapping("/holds")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> holdRoom(@RequestBody BookingDTO bookingDTO){
+        return  ResponseEntity.ok(roomHoldService.holdRoom(bookingDTO));
+    }
+
+    @DeleteMapping("/holds/{reference}")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> releaseHold(@PathVariable String reference){
+        return  ResponseEntity.ok(roomHoldService.releaseHold(reference));
+    }
+
     @GetMapping("/{reference}")
     public ResponseEntity<Response> getBookingByReference(@PathVariable String reference){
         return  ResponseEntity.ok(bookingService.findBookingByReferenceNo(reference));
@@ -38,4 +62,56 @@ public class BookingController {
         return  ResponseEntity.ok(bookingService.updateBooking(bookingDTO));
     }
 
+    @GetMapping("/{reference}/events")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getBookingEvents(@PathVariable String reference){
+        return  ResponseEntity.ok(bookingService.getBookingEvents(reference));
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getDailyStats(@RequestParam LocalDate from, @RequestParam LocalDate to){
+        return  ResponseEntity.ok(bookingService.getDailyStats(from, to));
+    }
+
+    @PostMapping("/projections/{name}/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> rebuildProjection(@PathVariable String name){
+        return  ResponseEntity.ok(projectionRunner.rebuild(name));
+    }
+
+    @PostMapping("/status/bulk")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> transitionBookings(@Valid @RequestBody BulkStatusRequest bulkStatusRequest){
+        return  ResponseEntity.ok(frontDeskService.transitionBookings(bulkStatusRequest));
+    }
+
+    @GetMapping("/front-desk")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getArrivalsAndDepartures(@RequestParam(required = false) LocalDate date){
+        return  ResponseEntity.ok(frontDeskService.getArrivalsAndDepartures(date != null ? date : LocalDate.now()));
+    }
+
+    @PostMapping("/{reference}/cancel")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> cancelBooking(@PathVariable String reference){
+        return  ResponseEntity.ok(bookingLifecycleService.cancelBooking(reference));
+    }
+
+    @PutMapping("/{reference}/dates")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public ResponseEntity<Response> changeBookingDates(@PathVariable String reference, @RequestBody BookingDTO bookingDTO){
+        return  ResponseEntity.ok(bookingLifecycleService.changeBookingDates(reference, bookingDTO));
+    }
+
+    @PostMapping("/rooms/{roomId}/cancel")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> cancelBookingsForRoom(
+            @PathVariable Long roomId,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate
+    ){
+        return  ResponseEntity.ok(bookingLifecycleService.cancelBookingsForRoom(roomId, startDate, endDate));
+    }
+
 }
@@ -0,0 +1,33 @@
+package com.example.HotelBooking.controllers;
+
+import com.example.HotelBooking.changes.ChangeFeedService;
+import com.example.HotelBooking.dtos.Response;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    @GetMapping
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getChanges(@RequestParam(defaultValue = "0") long after,
+                                               @RequestParam(defaultValue = "500") int limit){
+        return  ResponseEntity.ok(changeFeedService.getChanges(after, limit));
+    }
+
+    // a reconnecting EventSource sends the id of the last event it got instead of the original cursor
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public SseEmitter streamChanges(@RequestParam(defaultValue = "0") long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        return changeFeedService.subscribe(lastEventId != null ? lastEventId : after);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.HotelBooking.controllers;
+
+import com.example.HotelBooking.dtos.AllotmentRequest;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.services.InventoryService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/inventory")
+@RequiredArgsConstructor
+public class InventoryController {
+
+    private final InventoryService inventoryService;
+
+    @PutMapping("/allotments")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> setAllotments(@Valid @RequestBody AllotmentRequest allotmentRequest){
+        return ResponseEntity.ok(inventoryService.setAllotments(allotmentRequest));
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getInventory(
+            @RequestParam RoomType roomType,
+            @RequestParam(defaultValue = InventoryService.DIRECT_CHANNEL) String channel,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate
+    ){
+        return ResponseEntity.ok(inventoryService.getInventory(roomType, channel, startDate, endDate));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.HotelBooking.controllers;
+
+import com.example.HotelBooking.dtos.PropertyDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.tenancy.PropertyDirectory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/properties")
+@RequiredArgsConstructor
+public class PropertyController {
+
+    private final PropertyDirectory propertyDirectory;
+
+    @GetMapping
+    public ResponseEntity<Response> getAllProperties(){
+        return ResponseEntity.ok(propertyDirectory.getAllProperties());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> addProperty(@RequestBody PropertyDTO propertyDTO){
+        return ResponseEntity.ok(propertyDirectory.addProperty(propertyDTO));
+    }
+}
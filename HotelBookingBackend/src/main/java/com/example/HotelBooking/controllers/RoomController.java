@@ -3,15 +3,21 @@ package com.example.HotelBooking.controllers;
 
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.dtos.RoomSearchRequest;
 import com.example.HotelBooking.entities.Room;
 import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.search.AvailabilityStreamService;
 import com.example.HotelBooking.services.RoomService;
+import com.example.HotelBooking.tenancy.TenantContext;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -24,6 +30,8 @@ import java.util.List;
 public class RoomController {
     private final RoomService roomService;
     private final ModelMapper modelMapper;
+    private final AvailabilityStreamService availabilityStreamService;
+    private final TenantContext tenantContext;
     @PostMapping("/add")
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<Response> addRoom(
@@ -95,6 +103,29 @@ public class RoomController {
         return ResponseEntity.ok(roomService.getAvailableRooms(checkInDate,checkOutDate,roomType));
     }
 
+    // open to guests like the room list itself, a browser EventSource cannot send the bearer header anyway
+    @GetMapping(value = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(
+            @RequestParam LocalDate checkInDate,
+            @RequestParam LocalDate checkOutDate,
+            @RequestParam(required = false) RoomType roomType
+    ){
+        return availabilityStreamService.subscribe(tenantContext.getPropertyId(), checkInDate, checkOutDate, roomType);
+    }
+
+    @GetMapping("/availability/search")
+    public ResponseEntity<Response> searchAvailableRooms(@Valid RoomSearchRequest roomSearchRequest){
+        return ResponseEntity.ok(roomService.searchAvailableRooms(roomSearchRequest));
+    }
+
+    @GetMapping("/availability/calendar")
+    public ResponseEntity<Response> getAvailabilityCalendar(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate
+    ){
+        return ResponseEntity.ok(roomService.getAvailabilityCalendar(startDate, endDate));
+    }
+
     @GetMapping("/types")
     public ResponseEntity<List<RoomType>> getAllRoomTypes(){
         return ResponseEntity.ok(roomService.getAllRoomTypes());
@@ -4,9 +4,11 @@ import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.dtos.UserDTO;
 import com.example.HotelBooking.services.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 
 @RestController
@@ -37,8 +39,15 @@ public class UserController {
     }
 
     @GetMapping("/bookings")
-    public ResponseEntity<Response> getMyBookingHistory(){
-        return ResponseEntity.ok(userService.getMyBookingHistory());
+    public ResponseEntity<Response> getMyBookingHistory(@RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "20") int size,
+                                                        WebRequest webRequest){
+        //polling clients send If-Modified-Since and get a 304 without the page being read
+        long lastModified = userService.getMyBookingHistoryLastModified();
+        if(lastModified > 0 && webRequest.checkNotModified(lastModified)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok(userService.getMyBookingHistory(page, size));
     }
 
 }
\ No newline at end of file
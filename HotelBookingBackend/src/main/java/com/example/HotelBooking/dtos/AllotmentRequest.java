@@ -0,0 +1,38 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.RoomType;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AllotmentRequest {
+
+    @NotNull(message = "Room type is required")
+    private RoomType roomType;
+
+    @NotBlank(message = "Channel is required")
+    private String channel;
+
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+
+    @NotNull(message = "End date is required")
+    private LocalDate endDate; //exclusive, the last night set is the one before this date
+
+    @NotNull(message = "Rooms is required")
+    @Min(value = 0, message = "rooms cannot be negative")
+    private Integer rooms;
+
+    @Min(value = 0, message = "overbookingPercent cannot be negative")
+    @Max(value = 50, message = "overbookingPercent cannot be more than 50")
+    private Integer overbookingPercent; //falls back to inventory.overbooking-percent
+}
@@ -0,0 +1,28 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.RoomType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityUpdateDTO {
+
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+    private RoomType roomType; //absent when every type is watched
+
+    private boolean snapshot; //true when availableRoomIds is the complete list rather than a change
+
+    private List<Long> availableRoomIds;
+    private List<Long> takenRoomIds;
+}
@@ -3,6 +3,7 @@ package com.example.HotelBooking.dtos;
 
 import com.example.HotelBooking.enums.BookingStatus;
 import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
@@ -29,6 +30,10 @@ public class BookingDTO {
 
     private RoomDTO room;
     private Long roomId;
+    private Long propertyId;
+
+    private RoomType roomType; //book by type from the allotment counters when no roomId is given
+    private String channel;
 
     private PaymentStatus paymentStatus;
 
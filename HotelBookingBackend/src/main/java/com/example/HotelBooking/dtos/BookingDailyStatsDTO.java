@@ -0,0 +1,27 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingDailyStatsDTO {
+
+    private LocalDate day;
+    private long bookingsCreated;
+    private long bookingsCancelled;
+    private long paymentsCompleted;
+    private long paymentsFailed;
+    private long refunds;
+    private BigDecimal revenue;
+    private BigDecimal refundedAmount;
+}
@@ -0,0 +1,40 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingEventDTO {
+
+    private Long id;
+
+    private BookingEventType type;
+
+    private Long actorId; //absent when the system made the change
+
+    private LocalDateTime occurredAt;
+
+    //the booking right after the change
+    private BookingStatus bookingStatus;
+    private PaymentStatus paymentStatus;
+    private Long roomId;
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+    private BigDecimal totalPrice;
+
+    private BigDecimal amount; //only for events that moved part of the price
+}
@@ -0,0 +1,26 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingTransitionResultDTO {
+
+    private String bookingReference;
+
+    private boolean success;
+
+    private BookingStatus bookingStatus; //status after the request, whether it changed or not
+
+    private Integer roomNumber; //room assigned at check in
+
+    private String message; //why the transition was refused
+}
@@ -0,0 +1,24 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkStatusRequest {
+
+    @NotNull(message = "Booking status is required")
+    private BookingStatus bookingStatus; //CHECKED_IN or CHECKED_OUT
+
+    @NotEmpty(message = "At least one booking reference is required")
+    @Size(max = 5000, message = "At most 5000 bookings can be updated at once")
+    private List<String> bookingReferences;
+}
@@ -0,0 +1,26 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.RoomType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CalendarDayDTO {
+
+    private LocalDate date; //the night starting on this date
+
+    private Map<RoomType, Integer> freeRooms;
+
+    private Map<RoomType, BigDecimal> lowestPrice; //only types with at least one free room
+}
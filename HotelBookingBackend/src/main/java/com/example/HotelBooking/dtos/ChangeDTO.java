@@ -0,0 +1,33 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.ChangeEntityType;
+import com.example.HotelBooking.enums.ChangeOperation;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+
+    private Long seq;
+
+    private ChangeEntityType entityType;
+
+    private Long entityId;
+
+    private ChangeOperation operation;
+
+    private LocalDateTime changedAt;
+
+    //current state, absent once the row is gone
+    private BookingDTO booking;
+    private PaymentDTO payment;
+}
@@ -0,0 +1,25 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.RoomType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InventoryAllotmentDTO {
+
+    private Long propertyId;
+    private LocalDate stayDate;
+    private RoomType roomType;
+    private String channel;
+    private Integer allotment;
+    private Integer remaining;
+}
@@ -0,0 +1,25 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PropertyDTO {
+
+    private Long id; //send it as the tenant header
+
+    private String code;
+
+    private String name;
+
+    private LocalDateTime createdAt;
+}
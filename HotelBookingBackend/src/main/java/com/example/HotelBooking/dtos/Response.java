@@ -24,6 +24,7 @@ public class Response {
 
     //for login
     private String token;
+    private String refreshToken;
     private UserRole role;
     private Boolean isActive;
     private String expirationTime;
@@ -35,11 +36,33 @@ public class Response {
     //Booking data output
     private BookingDTO booking;
     private List<BookingDTO> bookings;
+    private List<BookingDTO> arrivals;
+    private List<BookingDTO> departures;
+    private List<BookingTransitionResultDTO> transitionResults;
+    private List<BookingEventDTO> bookingEvents;
+    private List<BookingDailyStatsDTO> dailyStats;
+    private RoomHoldDTO hold;
+
+    //Change feed output
+    private List<ChangeDTO> changes;
+    private Long cursor; //pass back as after to continue
+
+    //Property data output
+    private PropertyDTO property;
+    private List<PropertyDTO> properties;
 
     //Room data output
     private RoomDTO room;
     private List<RoomDTO> rooms;
 
+    //Room search output
+    private List<RoomSearchResultDTO> searchResults;
+    private Long totalElements;
+    private List<CalendarDayDTO> calendar;
+
+    //Inventory data output
+    private List<InventoryAllotmentDTO> inventory;
+
     //Payment data output
     private PaymentDTO payment;
     private List<PaymentDTO> payments;
@@ -21,6 +21,8 @@ public class RoomDTO {
 
     private Long id;
 
+    private Long propertyId;
+
     private Integer roomNumber;
 
     private RoomType type;
@@ -0,0 +1,31 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomHoldDTO {
+
+    private String holdReference; //pay with it as the booking reference, the booking keeps it
+
+    private Long roomId;
+
+    private LocalDate checkInDate;
+
+    private LocalDate checkOutDate;
+
+    private BigDecimal totalPrice;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,47 @@
+package com.example.HotelBooking.dtos;
+
+import com.example.HotelBooking.enums.RoomType;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomSearchRequest {
+
+    @NotNull(message = "CheckIn date is required")
+    private LocalDate checkInDate;
+
+    @NotNull(message = "CheckOut date is required")
+    private LocalDate checkOutDate;
+
+    @Min(value = 1, message = "guests must be at least 1")
+    private Integer guests = 1;
+
+    @Min(value = 1, message = "rooms must be at least 1")
+    private Integer rooms = 1; //number of rooms the party needs, the guests are spread across them
+
+    private BigDecimal minPrice; //per night
+    private BigDecimal maxPrice; //per night
+
+    private List<RoomType> roomTypes; //empty means any type
+
+    @Min(value = 0, message = "flexibleDays cannot be negative")
+    @Max(value = 7, message = "flexibleDays cannot be more than 7")
+    private Integer flexibleDays = 0; //also try the same stay shifted up to this many days earlier or later
+
+    @Min(value = 0, message = "page cannot be negative")
+    private Integer page = 0;
+
+    @Min(value = 1, message = "size must be at least 1")
+    @Max(value = 100, message = "size cannot be more than 100")
+    private Integer size = 20;
+}
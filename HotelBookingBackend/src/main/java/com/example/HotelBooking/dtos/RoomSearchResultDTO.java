@@ -0,0 +1,26 @@
+package com.example.HotelBooking.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomSearchResultDTO {
+
+    private RoomDTO room;
+
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+    private Integer dateShift; //days away from the requested check in, 0 for the exact dates
+
+    private BigDecimal totalPrice;
+}
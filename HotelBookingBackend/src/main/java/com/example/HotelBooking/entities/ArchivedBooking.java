@@ -0,0 +1,69 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.tenancy.DefaultProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A checked out or cancelled booking moved out of the bookings table once it is old enough.
+ * Keeps the original id and plain user and room ids, since neither has to exist anymore.
+ */
+@Entity
+@Data
+@Table(name = "bookings_archive", indexes = {
+        @Index(name = "idx_bookings_archive_user_id", columnList = "user_id"),
+        @Index(name = "idx_bookings_archive_booking_reference", columnList = "booking_reference", unique = true)
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedBooking {
+
+    @Id
+    private Long id; //same id it had in bookings
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "room_id")
+    private Long roomId;
+
+    @Column(name = "property_id", nullable = false)
+    @DefaultProperty
+    private Long propertyId;
+
+    @Enumerated(EnumType.STRING)
+    private RoomType roomType;
+
+    private String channel;
+
+    private Boolean inventoryReserved;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus paymentStatus;
+
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+
+    private BigDecimal totalPrice;
+
+    @Column(name = "booking_reference")
+    private String bookingReference;
+
+    private LocalDateTime createdAt;
+
+    @Enumerated(EnumType.STRING)
+    private BookingStatus bookingStatus;
+
+    private LocalDateTime archivedAt;
+}
@@ -3,7 +3,10 @@ package com.example.HotelBooking.entities;
 
 import com.example.HotelBooking.enums.BookingStatus;
 import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.tenancy.DefaultProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,7 +18,12 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_check_in_date", columnList = "check_in_date"),
+        @Index(name = "idx_bookings_check_out_date", columnList = "check_out_date"),
+        @Index(name = "idx_bookings_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_bookings_property_id", columnList = "property_id, check_in_date")
+})
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -34,6 +42,20 @@ public class Booking {
     @JoinColumn(name = "room_id")
     private Room room;
 
+    @Column(name = "property_id", nullable = false)
+    @DefaultProperty
+    private Long propertyId; //copied from the room, or the property sold from while no room is assigned
+
+    @Enumerated(EnumType.STRING)
+    private RoomType roomType; //sold type, the room itself can be assigned as late as check in
+
+    private String channel; //e.g DIRECT or a partner code
+
+    private Boolean inventoryReserved; //true when the nights were taken from the allotment counters
+
+    @ColumnDefault("true")
+    private Boolean roomChosen; //true when the guest booked this very room, the reshuffle never moves it
+
     @Enumerated(EnumType.STRING)
     private PaymentStatus paymentStatus;
 
@@ -43,8 +65,18 @@ public class Booking {
     private BigDecimal totalPrice;
     private String bookingReference;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt; //high-water mark for in-memory copies, bulk updates must set it too
 
     @Enumerated(EnumType.STRING)
     private BookingStatus bookingStatus;
 
+    @Version
+    @ColumnDefault("0")
+    private Long version; //bulk updates must bump it too, so a stale copy is never saved over them
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        updatedAt = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,34 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per day booking and payment totals, derived from booking_events by the stats projection. Can be dropped
+ * and replayed at any time.
+ */
+@Entity
+@Data
+@Table(name = "booking_daily_stats")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDailyStats {
+
+    @Id
+    private LocalDate day;
+
+    private long bookingsCreated;
+    private long bookingsCancelled; //by the guest or the hotel, expired holds included
+    private long paymentsCompleted;
+    private long paymentsFailed;
+    private long refunds;
+    private BigDecimal revenue;
+    private BigDecimal refundedAmount;
+}
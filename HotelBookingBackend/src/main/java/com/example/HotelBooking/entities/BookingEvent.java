@@ -0,0 +1,61 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the append-only booking log: what happened, who did it and the booking as it was right after.
+ * Rows are never updated, the identity id gives the order projections read them in. There is no foreign key
+ * to bookings, the trail has to outlive archival.
+ */
+@Entity
+@Data
+@Table(name = "booking_events", indexes = {
+        @Index(name = "idx_booking_events_booking_id", columnList = "booking_id, id")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BookingEventType type;
+
+    private Long actorId; //null when the system did it, e.g. the payment webhook or an expired hold
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private BookingStatus bookingStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PaymentStatus paymentStatus;
+
+    private Long roomId;
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+    private BigDecimal totalPrice;
+
+    private BigDecimal amount; //money the event moved when it is not the total price, e.g. a partial refund
+}
@@ -0,0 +1,45 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.ChangeEntityType;
+import com.example.HotelBooking.enums.ChangeOperation;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed write to bookings or payments, numbered without gaps in commit order. Only the database
+ * triggers installed by ChangeCaptureInstaller write here, the application just reads.
+ */
+@Entity
+@Immutable
+@Data
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_changed_at", columnList = "changed_at")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeLogEntry {
+
+    @Id
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private ChangeEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private ChangeOperation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,46 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.tenancy.DefaultProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Data
+@Table(name = "inventory_allotments", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_inventory_allotments_property_night", columnNames = {"property_id", "stay_date", "room_type", "channel"})
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryAllotment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "property_id", nullable = false)
+    @DefaultProperty //allotments from before multi-property belong to the default property
+    private Long propertyId;
+
+    @Column(name = "stay_date", nullable = false)
+    private LocalDate stayDate; //the night starting on this date
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "room_type", nullable = false)
+    private RoomType roomType;
+
+    @Column(nullable = false)
+    private String channel; //e.g DIRECT or a partner code
+
+    @Column(nullable = false)
+    private Integer allotment; //units sold on this channel for the night, overbooking already included
+
+    @Column(nullable = false)
+    private Integer remaining;
+}
@@ -0,0 +1,58 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "payment_webhook_events", indexes = {
+        @Index(name = "idx_payment_webhook_events_processed", columnList = "processed")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentWebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private String eventId; //id assigned by the gateway, used to drop duplicate deliveries
+
+    @Column(nullable = false)
+    private String bookingReference;
+
+    private String transactionId;
+
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus paymentStatus;
+
+    private String failureReason;
+
+    private LocalDateTime eventCreatedAt; //when the gateway produced the event, not when we received it
+    private LocalDateTime receivedAt;
+
+    private boolean processed;
+
+    @ColumnDefault("0")
+    private int attempts; //failed attempts to apply it on its own
+
+    private LocalDateTime nextAttemptAt;
+
+    private String lastError;
+
+    @ColumnDefault("false")
+    private boolean poisoned; //gave up after too many attempts, needs someone to look at it
+
+}
@@ -0,0 +1,31 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How far a booking event projection has read. Versioned, so a batch applied while a rebuild reset the
+ * projection rolls back instead of landing on top of the replay.
+ */
+@Entity
+@Data
+@Table(name = "projection_offsets")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectionOffset {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private long lastEventId; //every event up to and including this one is applied
+
+    private boolean rebuilding; //set while a replay runs, and left set if it failed half way
+
+    @Version
+    private Long version;
+}
@@ -0,0 +1,36 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One hotel of the chain. Rooms and bookings carry its id, and a request works on the property named in its
+ * tenant header, or on the default one when there is none.
+ */
+@Entity
+@Data
+@Table(name = "properties")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class Property {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Code is required")
+    @Column(unique = true, nullable = false)
+    private String code; //short and stable, e.g. LIS01
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,31 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevokedToken {
+
+    @Id
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt; //after this the token is rejected anyway and the row can go
+
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    private Boolean refresh; //a used refresh token, only ever checked here and never loaded into the denylist
+}
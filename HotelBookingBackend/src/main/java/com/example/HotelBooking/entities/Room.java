@@ -1,6 +1,7 @@
 package com.example.HotelBooking.entities;
 
 import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.tenancy.DefaultProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -14,7 +15,10 @@ import java.math.BigDecimal;
 
 @Entity
 @Data
-@Table(name = "rooms")
+@Table(name = "rooms", uniqueConstraints = {
+        //room numbers repeat across hotels, the legacy unique on room_number alone is dropped by TenancyInstaller
+        @UniqueConstraint(name = "uk_rooms_property_room_number", columnNames = {"property_id", "room_number"})
+})
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -25,8 +29,12 @@ public class Room {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(name = "property_id", nullable = false)
+    @DefaultProperty //rooms from before multi-property belong to the default property
+    private Long propertyId;
+
     @Min(value = 1, message = "Room Number must be at least 1")
-    @Column(unique = true)
+    @Column(name = "room_number")
     private Integer roomNumber;
 
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,54 @@
+package com.example.HotelBooking.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A room kept aside for a guest while they pay. The hold reference becomes the booking reference when the
+ * payment goes through, so the payment flow can stay keyed by reference. The row is deleted when the hold
+ * is converted or released, and swept by the leader once it expired.
+ */
+@Entity
+@Data
+@Table(name = "room_holds", indexes = {
+        @Index(name = "idx_room_holds_room_id", columnList = "room_id, expires_at"),
+        @Index(name = "idx_room_holds_expires_at", columnList = "expires_at")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String holdReference;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDate checkInDate;
+
+    @Column(nullable = false)
+    private LocalDate checkOutDate;
+
+    private BigDecimal totalPrice;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,63 @@
+package com.example.HotelBooking.entities;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read model behind a user's booking history: one narrow row per booking with the room columns the list
+ * shows copied in, so a page is one range scan of (user_id, id) with no joins. Maintained from booking and
+ * room invalidations and kept when the booking itself is archived.
+ */
+@Entity
+@Data
+@Table(name = "user_booking_summaries", indexes = {
+        @Index(name = "idx_user_booking_summaries_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_user_booking_summaries_user_updated_at", columnList = "user_id, updated_at")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserBookingSummary {
+
+    @Id
+    private Long id; //the booking id
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String bookingReference;
+
+    @Enumerated(EnumType.STRING)
+    private BookingStatus bookingStatus;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus paymentStatus;
+
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+
+    private BigDecimal totalPrice;
+
+    private Long roomId;
+    private Integer roomNumber;
+
+    @Enumerated(EnumType.STRING)
+    private RoomType roomType;
+
+    private String roomImageUrl;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt; //of the booking, drives Last-Modified
+}
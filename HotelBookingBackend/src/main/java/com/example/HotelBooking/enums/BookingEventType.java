@@ -0,0 +1,25 @@
+package com.example.HotelBooking.enums;
+
+public enum BookingEventType {
+    CREATED, PAID, PAYMENT_FAILED, CHECKED_IN, CHECKED_OUT, CANCELLED, EXPIRED, REFUNDED, DATES_CHANGED, ROOM_CHANGED,
+    PARTLY_REFUNDED, //money went back but the booking is not refunded as a whole, e.g. a cheaper date change
+    STATUS_CHANGED; //an admin correction with no meaning of its own, e.g. back to BOOKED
+
+    public static BookingEventType of(BookingStatus bookingStatus) {
+        return switch (bookingStatus) {
+            case CHECKED_IN -> CHECKED_IN;
+            case CHECKED_OUT -> CHECKED_OUT;
+            case CANCELLED -> CANCELLED;
+            default -> STATUS_CHANGED;
+        };
+    }
+
+    public static BookingEventType of(PaymentStatus paymentStatus) {
+        return switch (paymentStatus) {
+            case COMPLETED -> PAID;
+            case FAILED -> PAYMENT_FAILED;
+            case REFUNDED -> REFUNDED;
+            default -> STATUS_CHANGED;
+        };
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.HotelBooking.enums;
+
+public enum CacheRegion {
+    ROOM, USER, BOOKING, INVENTORY, TOKEN, HOLD, PROPERTY
+}
@@ -0,0 +1,5 @@
+package com.example.HotelBooking.enums;
+
+public enum ChangeOperation {
+    INSERT, UPDATE, DELETE //a booking is deleted when it is archived
+}
@@ -0,0 +1,7 @@
+package com.example.HotelBooking.exceptions;
+
+public class ChangeCursorExpiredException extends RuntimeException {
+    public ChangeCursorExpiredException(String message) {
+        super(message);
+    }
+}
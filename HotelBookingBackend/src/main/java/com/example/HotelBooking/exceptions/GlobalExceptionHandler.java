@@ -4,6 +4,7 @@ import com.example.HotelBooking.dtos.Response;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @ControllerAdvice
@@ -54,4 +55,31 @@ public class GlobalExceptionHandler {
                 .build();
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Response> handleServiceBusyException(ServiceBusyException ex) {
+        Response response = Response.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // a property over its share of connections is refused while the transaction opens, which wraps the reason
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<Response> handleCannotCreateTransactionException(CannotCreateTransactionException ex) {
+        if (ex.getCause() instanceof ServiceBusyException busy) {
+            return handleServiceBusyException(busy);
+        }
+        return handleAllUnknowExceptions(ex);
+    }
+
+    @ExceptionHandler(ChangeCursorExpiredException.class)
+    public ResponseEntity<Response> handleChangeCursorExpiredException(ChangeCursorExpiredException ex) {
+        Response response = Response.builder()
+                .status(HttpStatus.GONE.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(response, HttpStatus.GONE);
+    }
 }
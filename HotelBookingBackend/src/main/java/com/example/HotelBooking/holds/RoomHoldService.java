@@ -0,0 +1,395 @@
+package com.example.HotelBooking.holds;
+
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.dtos.RoomHoldDTO;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.RoomHold;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.UserRole;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.payments.refund.RefundRequestedEvent;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.RoomHoldRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.repositories.UserRepository;
+import com.example.HotelBooking.security.AuthPrincipal;
+import com.example.HotelBooking.security.CurrentPrincipal;
+import com.example.HotelBooking.services.BookingCodeGenerator;
+import com.example.HotelBooking.services.BookingDateValidator;
+import com.example.HotelBooking.services.InventoryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a room aside for a few minutes while the guest pays, so it cannot be sold to somebody else between
+ * choosing it and the payment coming back. Nothing is booked until the payment goes through; the hold is
+ * then turned into a paid booking in the same transaction that records the payment.
+ *
+ * room_holds is what the nodes agree on: holds are placed and converted under the room lock against the
+ * table. Each node also keeps the live holds per room in memory, so searches answered from the occupancy
+ * index leave held rooms out without a query. A node reloads a room's holds whenever they change anywhere
+ * in the cluster, and expired holds stop counting on their own before the sweep removes them.
+ *
+ * Opening a payment pins the hold for the payment window, so a guest still typing in card details does
+ * not lose the room. A payment that comes back when the hold can no longer be turned into a booking is
+ * refunded.
+ *
+ * The conversion rate is holds.converted over holds.created, summed over the nodes.
+ */
+@Service
+@Slf4j
+public class RoomHoldService {
+
+    private final RoomHoldRepository roomHoldRepository;
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final CurrentPrincipal currentPrincipal;
+    private final BookingCodeGenerator bookingCodeGenerator;
+    private final BookingEventLog bookingEventLog;
+    private final ClusterService clusterService;
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final Map<Long, List<ActiveHold>> holdsByRoom = new ConcurrentHashMap<>();
+    private final DelayQueue<ActiveHold> expiring = new DelayQueue<>();
+    private final Counter createdCounter;
+    private final Counter convertedCounter;
+    private final Counter releasedCounter;
+    private final Counter expiredCounter;
+
+    @Value("${holds.duration-minutes:10}")
+    private long holdMinutes;
+
+    @Value("${holds.max-per-user:3}")
+    private int maxHoldsPerUser; //one guest cannot take the hotel off sale by opening checkouts
+
+    @Value("${holds.payment-window-minutes:30}")
+    private long paymentWindowMinutes; //counted from when the hold was placed, so reopening the payment cannot keep it forever
+
+    public RoomHoldService(RoomHoldRepository roomHoldRepository, RoomRepository roomRepository,
+                           BookingRepository bookingRepository, UserRepository userRepository,
+                           CurrentPrincipal currentPrincipal, BookingCodeGenerator bookingCodeGenerator,
+                           BookingEventLog bookingEventLog, ClusterService clusterService, InventoryService inventoryService,
+                           ApplicationEventPublisher applicationEventPublisher, MeterRegistry meterRegistry) {
+        this.roomHoldRepository = roomHoldRepository;
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.currentPrincipal = currentPrincipal;
+        this.bookingCodeGenerator = bookingCodeGenerator;
+        this.bookingEventLog = bookingEventLog;
+        this.clusterService = clusterService;
+        this.inventoryService = inventoryService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.createdCounter = meterRegistry.counter("holds.created");
+        this.convertedCounter = meterRegistry.counter("holds.converted");
+        this.releasedCounter = meterRegistry.counter("holds.released");
+        this.expiredCounter = meterRegistry.counter("holds.expired");
+        meterRegistry.gauge("holds.active", holdsByRoom, holds -> holds.values().stream().mapToInt(List::size).sum());
+    }
+
+    @Transactional
+    public Response holdRoom(BookingDTO bookingDTO) {
+        AuthPrincipal currentUser = currentPrincipal.get();
+        LocalDate checkInDate = bookingDTO.getCheckInDate();
+        LocalDate checkOutDate = bookingDTO.getCheckOutDate();
+        BookingDateValidator.validate(checkInDate, checkOutDate);
+        if (bookingDTO.getRoomId() == null) throw new NotFoundException("Room Id is required");
+
+        Room room = roomRepository.findByIdForUpdate(bookingDTO.getRoomId())
+                .orElseThrow(() -> new NotFoundException("Room not Found"));
+        Optional<RoomHold> existing = roomHoldRepository.findActiveOwnHold(room.getId(), checkInDate, checkOutDate, currentUser.userId());
+        if (existing.isPresent()) {
+            return toResponse(existing.get(), "Room Held Successfully"); //a retried request keeps the first expiry
+        }
+        if (!bookingRepository.isRoomAvailable(room.getId(), checkInDate, checkOutDate)
+                || roomHoldRepository.isHeldByOthers(room.getId(), checkInDate, checkOutDate, currentUser.userId())) {
+            throw new NotFoundException("Room not available for the give date ranges");
+        }
+        if (roomHoldRepository.countActiveByUserId(currentUser.userId()) >= maxHoldsPerUser) {
+            throw new InvalidBookingStateAndDateException("You already hold " + maxHoldsPerUser + " rooms, pay for or release one first");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        RoomHold hold = RoomHold.builder()
+                .holdReference(bookingCodeGenerator.generateBookingReference())
+                .roomId(room.getId())
+                .userId(currentUser.userId())
+                .checkInDate(checkInDate)
+                .checkOutDate(checkOutDate)
+                .totalPrice(room.getPricePerNight().multiply(BigDecimal.valueOf(ChronoUnit.DAYS.between(checkInDate, checkOutDate))))
+                .createdAt(now)
+                .expiresAt(now.plusMinutes(holdMinutes))
+                .build();
+        roomHoldRepository.save(hold);
+        createdCounter.increment();
+        clusterService.broadcast(CacheRegion.HOLD, room.getId());
+        return toResponse(hold, "Room Held Successfully");
+    }
+
+    @Transactional
+    public Response releaseHold(String holdReference) {
+        AuthPrincipal currentUser = currentPrincipal.get();
+        RoomHold hold = roomHoldRepository.findByHoldReferenceForUpdate(holdReference)
+                .filter(found -> found.getUserId().equals(currentUser.userId()) || currentUser.role() == UserRole.ADMIN)
+                .orElseThrow(() -> new NotFoundException("Hold with reference " + holdReference + " not found"));
+        roomHoldRepository.delete(hold);
+        releasedCounter.increment();
+        clusterService.broadcast(CacheRegion.HOLD, hold.getRoomId());
+        return Response.builder()
+                .status(200)
+                .message("Hold Released Successfully")
+                .build();
+    }
+
+    /** The hold a payment is about to be taken for, empty when there is none or it ran out. */
+    @Transactional(readOnly = true)
+    public Optional<RoomHoldDTO> findActive(String holdReference) {
+        return roomHoldRepository.findByHoldReference(holdReference)
+                .filter(hold -> hold.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(RoomHoldService::toDTO);
+    }
+
+    /**
+     * Keeps the hold for the payment that is being opened: it does not run out before the payment window
+     * counted from when it was placed. Fails when the hold is gone or already ran out.
+     */
+    @Transactional
+    public RoomHoldDTO pinForPayment(String holdReference) {
+        RoomHold hold = roomHoldRepository.findByHoldReferenceForUpdate(holdReference)
+                .filter(found -> found.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new NotFoundException("Booking Not Found, or the room hold has expired"));
+        LocalDateTime pinnedUntil = hold.getCreatedAt().plusMinutes(paymentWindowMinutes);
+        if (pinnedUntil.isAfter(hold.getExpiresAt())) {
+            hold.setExpiresAt(pinnedUntil);
+            roomHoldRepository.save(hold);
+            clusterService.broadcast(CacheRegion.HOLD, hold.getRoomId());
+        }
+        return toDTO(hold);
+    }
+
+    /**
+     * Turns a paid hold into a booking inside the caller's transaction, which records the payment. The
+     * booking takes over the hold reference and starts out pending, the caller marks it paid. A hold that
+     * ran out but was not swept yet is still converted as long as the room was not booked or held by another guest
+     * meanwhile. Empty when the hold is gone, the amount paid is not its total, its room was deleted, booked or
+     * held again, or its type sold out;
+     * the charge is then refunded once the caller's transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Booking> convert(String holdReference, String transactionId, BigDecimal amount) {
+        Optional<RoomHold> found = roomHoldRepository.findByHoldReferenceForUpdate(holdReference);
+        if (found.isEmpty()) {
+            //converted by another event for the same charge while this one waited for the lock
+            Optional<Booking> converted = bookingRepository.findByBookingReference(holdReference);
+            if (converted.isPresent()) return converted;
+            log.warn("Payment {} arrived for hold {} that is gone, refunding it", transactionId, holdReference);
+            refund(holdReference, null, transactionId, amount);
+            return Optional.empty();
+        }
+        RoomHold hold = found.get();
+        if (amount.compareTo(hold.getTotalPrice()) != 0) {
+            log.error("Payment {} of {} does not match the total {} of hold {}, refunding it", transactionId, amount,
+                    hold.getTotalPrice(), holdReference);
+            refund(holdReference, hold.getUserId(), transactionId, amount);
+            return Optional.empty();
+        }
+        Optional<Room> room = roomRepository.findByIdForUpdate(hold.getRoomId());
+        //once run out, the nights were offered to everyone again and another guest may hold them now
+        boolean heldByOthers = !hold.getExpiresAt().isAfter(LocalDateTime.now())
+                && isHeldByOthers(hold.getRoomId(), hold.getCheckInDate(), hold.getCheckOutDate(), hold.getUserId());
+        if (room.isEmpty() || heldByOthers
+                || !bookingRepository.isRoomAvailable(hold.getRoomId(), hold.getCheckInDate(), hold.getCheckOutDate())) {
+            log.warn("Hold {} was paid after its room was deleted, booked or held again, refunding payment {}", holdReference, transactionId);
+            refund(holdReference, hold.getUserId(), transactionId, amount);
+            return Optional.empty();
+        }
+        InventoryService.RoomClaim claim = inventoryService.claimRoom(room.get(), hold.getCheckInDate(), hold.getCheckOutDate());
+        if (claim == InventoryService.RoomClaim.SOLD_OUT) {
+            log.warn("Hold {} was paid after its room type sold out, refunding payment {}", holdReference, transactionId);
+            refund(holdReference, hold.getUserId(), transactionId, amount);
+            return Optional.empty();
+        }
+
+        Booking booking = new Booking();
+        booking.setRoom(room.get());
+        booking.setRoomChosen(true);
+        booking.setPropertyId(room.get().getPropertyId());
+        booking.setRoomType(room.get().getType());
+        booking.setChannel(InventoryService.DIRECT_CHANNEL);
+        booking.setInventoryReserved(claim == InventoryService.RoomClaim.COUNTED);
+        booking.setBookingStatus(BookingStatus.BOOKED);
+        booking.setBookingReference(holdReference);
+        booking.setCreatedAt(LocalDateTime.now());
+        booking.setPaymentStatus(PaymentStatus.PENDING);
+        booking.setUser(userRepository.getReferenceById(hold.getUserId()));
+        booking.setCheckInDate(hold.getCheckInDate());
+        booking.setCheckOutDate(hold.getCheckOutDate());
+        booking.setTotalPrice(hold.getTotalPrice());
+        bookingRepository.save(booking);
+        roomHoldRepository.delete(hold);
+        bookingEventLog.record(booking, BookingEventType.CREATED);
+
+        convertedCounter.increment();
+        clusterService.broadcast(CacheRegion.BOOKING, booking.getId());
+        clusterService.broadcast(CacheRegion.HOLD, hold.getRoomId());
+        return Optional.of(booking);
+    }
+
+    private void refund(String holdReference, Long userId, String transactionId, BigDecimal amount) {
+        String recipient = userId == null ? null : userRepository.findById(userId).map(user -> user.getEmail()).orElse(null);
+        applicationEventPublisher.publishEvent(new RefundRequestedEvent(List.of(
+                new RefundRequestedEvent.Refund(null, holdReference, recipient, amount, false, transactionId))));
+    }
+
+    /** Whether a live hold overlaps the stay, from this node's copy. Same inclusive overlap rule as bookings. */
+    public boolean isHeld(Long roomId, long firstDay, long lastDay) {
+        List<ActiveHold> holds = holdsByRoom.get(roomId);
+        if (holds == null) return false;
+        long now = System.currentTimeMillis();
+        for (ActiveHold hold : holds) {
+            if (hold.expiresAtMillis() > now && firstDay <= hold.lastDay() && lastDay >= hold.firstDay()) return true;
+        }
+        return false;
+    }
+
+    /** Checked against the table, for writes made under the room lock. A null user means any guest's hold. */
+    public boolean isHeldByOthers(Long roomId, LocalDate checkInDate, LocalDate checkOutDate, Long userId) {
+        return roomHoldRepository.isHeldByOthers(roomId, checkInDate, checkOutDate, userId);
+    }
+
+    /** Live holds on any of the rooms, checked against the table for writes made under the rooms' locks. */
+    @Transactional(readOnly = true)
+    public List<RoomHoldDTO> findActiveForRooms(Collection<Long> roomIds) {
+        return roomHoldRepository.findActiveByRoomIdIn(roomIds).stream().map(RoomHoldService::toDTO).toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadActiveHolds() {
+        List<RoomHold> active = roomHoldRepository.findActive();
+        replaceAll(active);
+        log.info("Tracking {} active room holds", active.size());
+    }
+
+    // ahead of the availability streams, which recompute their windows from this copy
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getRegion() != CacheRegion.HOLD) return;
+        if (event.getKey() == null) {
+            replaceAll(roomHoldRepository.findActive());
+            return;
+        }
+        Long roomId = event.getKeyAsLong();
+        replaceRoom(roomId, roomHoldRepository.findActiveByRoomId(roomId));
+    }
+
+    @Scheduled(fixedDelayString = "${holds.sweep-interval-ms:30000}")
+    @Transactional
+    public void sweepExpired() {
+        List<ActiveHold> due = new ArrayList<>();
+        expiring.drainTo(due);
+        due.forEach(hold -> holdsByRoom.computeIfPresent(hold.roomId(), (roomId, holds) -> {
+            List<ActiveHold> remaining = holds.stream().filter(other -> !other.equals(hold)).toList();
+            return remaining.isEmpty() ? null : remaining;
+        }));
+        if (!clusterService.isLeader()) return;
+
+        int expired = roomHoldRepository.deleteExpired(LocalDateTime.now());
+        if (expired > 0) {
+            expiredCounter.increment(expired);
+            clusterService.broadcast(CacheRegion.HOLD, null); //tells the availability streams the rooms came free
+            log.info("Released {} expired room holds", expired);
+        }
+    }
+
+    private void replaceRoom(Long roomId, List<RoomHold> active) {
+        List<ActiveHold> holds = active.stream().map(ActiveHold::of).toList();
+        List<ActiveHold> previous = holds.isEmpty() ? holdsByRoom.remove(roomId) : holdsByRoom.put(roomId, holds);
+        holds.stream()
+                .filter(hold -> previous == null || !previous.contains(hold)) //already waiting in the queue
+                .forEach(expiring::offer);
+    }
+
+    private void replaceAll(List<RoomHold> active) {
+        Map<Long, List<ActiveHold>> byRoom = active.stream()
+                .map(ActiveHold::of)
+                .collect(Collectors.groupingBy(ActiveHold::roomId));
+        holdsByRoom.keySet().retainAll(byRoom.keySet());
+        holdsByRoom.putAll(byRoom);
+        expiring.clear();
+        byRoom.values().forEach(expiring::addAll);
+    }
+
+    private Response toResponse(RoomHold hold, String message) {
+        return Response.builder()
+                .status(200)
+                .message(message)
+                .hold(toDTO(hold))
+                .build();
+    }
+
+    private static RoomHoldDTO toDTO(RoomHold hold) {
+        return RoomHoldDTO.builder()
+                .holdReference(hold.getHoldReference())
+                .roomId(hold.getRoomId())
+                .checkInDate(hold.getCheckInDate())
+                .checkOutDate(hold.getCheckOutDate())
+                .totalPrice(hold.getTotalPrice())
+                .expiresAt(hold.getExpiresAt())
+                .build();
+    }
+
+    private record ActiveHold(String reference, Long roomId, long firstDay, long lastDay, long expiresAtMillis) implements Delayed {
+
+        static ActiveHold of(RoomHold hold) {
+            return new ActiveHold(hold.getHoldReference(), hold.getRoomId(), hold.getCheckInDate().toEpochDay(),
+                    hold.getCheckOutDate().toEpochDay(), hold.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtMillis, ((ActiveHold) other).expiresAtMillis);
+        }
+    }
+}
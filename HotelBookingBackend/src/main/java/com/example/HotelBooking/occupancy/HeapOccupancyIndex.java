@@ -0,0 +1,120 @@
+package com.example.HotelBooking.occupancy;
+
+import java.nio.LongBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link OccupancyIndex} backed by one long[] bitset per room on the heap. Each room's array is its own
+ * lock, so writers on different rooms never contend.
+ */
+public class HeapOccupancyIndex implements OccupancyIndex {
+
+    private final long baseDay;
+    private final int horizonDays;
+    private final ConcurrentHashMap<Long, long[]> rooms = new ConcurrentHashMap<>();
+
+    public HeapOccupancyIndex(long baseDay, int horizonDays) {
+        this.baseDay = baseDay;
+        this.horizonDays = horizonDays;
+    }
+
+    @Override
+    public long baseDay() {
+        return baseDay;
+    }
+
+    @Override
+    public int horizonDays() {
+        return horizonDays;
+    }
+
+    @Override
+    public void occupy(long roomId, long firstDay, long lastDay) {
+        int from = (int) Math.max(0, firstDay - baseDay);
+        int to = (int) Math.min(horizonDays - 1L, lastDay - baseDay);
+        if (from > to) return;
+        long[] words = rooms.computeIfAbsent(roomId, id -> new long[wordsPerRoom()]);
+        synchronized (words) {
+            Bits.set(words, from, to, true);
+        }
+    }
+
+    @Override
+    public void clear(long roomId, long firstDay, long lastDay) {
+        int from = (int) Math.max(0, firstDay - baseDay);
+        int to = (int) Math.min(horizonDays - 1L, lastDay - baseDay);
+        long[] words = rooms.get(roomId);
+        if (words == null || from > to) return;
+        synchronized (words) {
+            Bits.set(words, from, to, false);
+        }
+    }
+
+    @Override
+    public boolean isFree(long roomId, long firstDay, long lastDay) {
+        long[] words = rooms.get(roomId);
+        if (words == null) return true;
+        synchronized (words) {
+            return Bits.noneSet(words, (int) (firstDay - baseDay), (int) (lastDay - baseDay));
+        }
+    }
+
+    @Override
+    public long[] roomIds() {
+        return rooms.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    @Override
+    public void readWords(long roomId, LongBuffer target) {
+        long[] words = rooms.get(roomId);
+        if (words == null) {
+            target.put(new long[wordsPerRoom()]);
+            return;
+        }
+        synchronized (words) {
+            target.put(words);
+        }
+    }
+
+    @Override
+    public void writeWords(long roomId, LongBuffer source) {
+        long[] words = new long[wordsPerRoom()];
+        source.get(words);
+        rooms.put(roomId, words);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return (long) rooms.size() * (16 + 8L * wordsPerRoom());
+    }
+
+    /**
+     * Bit range helpers over long words, shared by the index implementations.
+     */
+    static final class Bits {
+
+        private Bits() {
+        }
+
+        static void set(long[] words, int from, int to, boolean value) {
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                long mask = mask(word, from, to);
+                words[word] = value ? words[word] | mask : words[word] & ~mask;
+            }
+        }
+
+        static boolean noneSet(long[] words, int from, int to) {
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                if ((words[word] & mask(word, from, to)) != 0) return false;
+            }
+            return true;
+        }
+
+        // bits of [from, to] that fall into the given word
+        static long mask(int word, int from, int to) {
+            int low = Math.max(from, word << 6) & 63;
+            int high = Math.min(to, (word << 6) + 63) & 63;
+            return (-1L >>> (63 - high)) & (-1L << low);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.HotelBooking.occupancy;
+
+import java.nio.LongBuffer;
+
+/**
+ * Per room, one bit per day over a fixed horizon starting at {@link #baseDay()}. A stay occupies its
+ * check in and check out days inclusive, so {@link #isFree} answers exactly what
+ * BookingRepository.isRoomAvailable does. Days are epoch days.
+ */
+public interface OccupancyIndex {
+
+    long baseDay();
+
+    int horizonDays();
+
+    default int wordsPerRoom() {
+        return (horizonDays() + 63) >>> 6;
+    }
+
+    default boolean covers(long firstDay, long lastDay) {
+        return firstDay >= baseDay() && lastDay < baseDay() + horizonDays();
+    }
+
+    /** Days outside the horizon are ignored. */
+    void occupy(long roomId, long firstDay, long lastDay);
+
+    void clear(long roomId, long firstDay, long lastDay);
+
+    /** Only meaningful when the index {@link #covers} the range. Unknown rooms are free. */
+    boolean isFree(long roomId, long firstDay, long lastDay);
+
+    long[] roomIds();
+
+    /** Copies the words of one room, {@link #wordsPerRoom()} longs, into the buffer. */
+    void readWords(long roomId, LongBuffer target);
+
+    /** Replaces the words of one room, used to restore a snapshot. */
+    void writeWords(long roomId, LongBuffer source);
+
+    long memoryBytes();
+}
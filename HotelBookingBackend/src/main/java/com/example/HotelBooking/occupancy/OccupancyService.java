@@ -0,0 +1,241 @@
+package com.example.HotelBooking.occupancy;
+
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.repositories.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps an {@link OccupancyIndex} of every active stay with a room, so availability can be answered
+ * without reading bookings. On startup the index is restored from the last snapshot and only bookings
+ * changed after its high-water mark are read; afterwards it follows booking invalidations.
+ * Until it is ready {@link #index()} returns null and callers use the database.
+ */
+@Service
+@Slf4j
+public class OccupancyService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+
+    private final BookingRepository bookingRepository;
+    private final OccupancySnapshotStore occupancySnapshotStore;
+
+    @Value("${occupancy.horizon-days:730}")
+    private int horizonDays;
+
+    @Value("${occupancy.store:heap}")
+    private String store; //heap or offheap, the latter for inventories large enough to show up in GC pauses
+
+    @Value("${occupancy.delta-overlap-ms:60000}")
+    private long deltaOverlapMs; //covers transactions that stamped updated_at before the mark but committed after it
+
+    private final Map<Long, Stay> stays = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> staysByRoom = new ConcurrentHashMap<>();
+    private volatile OccupancyIndex index;
+    private volatile LocalDateTime highWaterMark = EPOCH;
+
+    private record Stay(long roomId, long firstDay, long lastDay) {
+    }
+
+    public OccupancyService(BookingRepository bookingRepository, OccupancySnapshotStore occupancySnapshotStore,
+                            MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.occupancySnapshotStore = occupancySnapshotStore;
+        meterRegistry.gauge("occupancy.stays", stays, Map::size);
+        meterRegistry.gauge("occupancy.index.bytes", this, service -> service.index == null ? 0 : service.index.memoryBytes());
+    }
+
+    public OccupancyIndex index() {
+        return index;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        Optional<OccupancySnapshotStore.Snapshot> snapshot = occupancySnapshotStore.read();
+        synchronized (this) {
+            if (snapshot.isPresent() && restore(snapshot.get())) {
+                int changed = applyChangesSince(highWaterMark.minus(deltaOverlapMs, ChronoUnit.MILLIS));
+                log.info("Restored occupancy of {} stays from snapshot and applied {} changed bookings in {} ms",
+                        stays.size(), changed, System.currentTimeMillis() - started);
+            } else {
+                rebuild(newBaseDay());
+                log.info("Built occupancy of {} stays from the bookings table in {} ms",
+                        stays.size(), System.currentTimeMillis() - started);
+            }
+        }
+    }
+
+    // ahead of the availability streams: a window marked dirty may be flushed at once, from this index
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getRegion() != CacheRegion.BOOKING || index == null) return;
+        synchronized (this) {
+            if (event.getKey() == null) {
+                //bulk changes, catch up from the high-water mark instead of rebuilding
+                applyChangesSince(highWaterMark.minus(deltaOverlapMs, ChronoUnit.MILLIS));
+                return;
+            }
+            Long bookingId = event.getKeyAsLong();
+            bookingRepository.findById(bookingId).ifPresentOrElse(
+                    booking -> apply(bookingId,
+                            booking.getRoom() == null ? null : booking.getRoom().getId(),
+                            booking.getBookingStatus(), booking.getCheckInDate(), booking.getCheckOutDate(),
+                            booking.getUpdatedAt()),
+                    () -> apply(bookingId, null, null, null, null, null));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${occupancy.snapshot-interval-ms:600000}", initialDelayString = "${occupancy.snapshot-interval-ms:600000}")
+    public void writeSnapshot() {
+        if (index == null) return;
+        OccupancyIndex current;
+        long[] flattened;
+        LocalDateTime mark;
+        synchronized (this) {
+            if (newBaseDay() - index.baseDay() > 30) {
+                reindex(newBaseDay()); //slide the horizon forward from memory, the bookings table is not read
+            }
+            current = index;
+            mark = highWaterMark;
+            flattened = new long[stays.size() * 4];
+            int i = 0;
+            for (Map.Entry<Long, Stay> entry : stays.entrySet()) {
+                flattened[i++] = entry.getKey();
+                flattened[i++] = entry.getValue().roomId();
+                flattened[i++] = entry.getValue().firstDay();
+                flattened[i++] = entry.getValue().lastDay();
+            }
+        }
+        try {
+            //room words are copied under their own locks, a write racing with this only makes the delta on restore longer
+            occupancySnapshotStore.write(current, flattened, toMillis(mark));
+        } catch (IOException e) {
+            log.warn("Unable to write occupancy snapshot: {}", e.getMessage());
+        }
+    }
+
+    private boolean restore(OccupancySnapshotStore.Snapshot snapshot) {
+        OccupancySnapshotStore.Header header = snapshot.header();
+        if (header.horizonDays() != horizonDays || newBaseDay() - header.baseDay() > 30) {
+            return false; //horizon changed or too old to slide cheaply, rebuilding is simpler
+        }
+        OccupancyIndex restored = newIndex(header.baseDay());
+        if (restored.wordsPerRoom() != header.wordsPerRoom()) return false;
+        for (int room = 0; room < header.roomCount(); room++) {
+            restored.writeWords(snapshot.roomId(room), snapshot.words(room));
+        }
+        stays.clear();
+        staysByRoom.clear();
+        snapshot.forEachStay((bookingId, roomId, firstDay, lastDay) -> track(bookingId, new Stay(roomId, firstDay, lastDay)));
+        highWaterMark = LocalDateTime.ofInstant(Instant.ofEpochMilli(header.highWaterMarkMillis()), ZoneId.systemDefault());
+        index = restored;
+        return true;
+    }
+
+    private void rebuild(long baseDay) {
+        stays.clear();
+        staysByRoom.clear();
+        OccupancyIndex rebuilt = newIndex(baseDay);
+        LocalDateTime mark = EPOCH;
+        for (BookingRepository.StayView view : bookingRepository.findActiveStays()) {
+            Stay stay = new Stay(view.getRoomId(), view.getCheckInDate().toEpochDay(), view.getCheckOutDate().toEpochDay());
+            track(view.getId(), stay);
+            rebuilt.occupy(stay.roomId(), stay.firstDay(), stay.lastDay());
+            if (view.getUpdatedAt() != null && view.getUpdatedAt().isAfter(mark)) mark = view.getUpdatedAt();
+        }
+        highWaterMark = mark;
+        index = rebuilt;
+    }
+
+    private void reindex(long baseDay) {
+        OccupancyIndex reindexed = newIndex(baseDay);
+        stays.values().forEach(stay -> reindexed.occupy(stay.roomId(), stay.firstDay(), stay.lastDay()));
+        index = reindexed;
+    }
+
+    private int applyChangesSince(LocalDateTime since) {
+        List<BookingRepository.StayView> changed = bookingRepository.findChangedSince(since);
+        changed.forEach(view -> apply(view.getId(), view.getRoomId(), view.getBookingStatus(),
+                view.getCheckInDate(), view.getCheckOutDate(), view.getUpdatedAt()));
+        return changed.size();
+    }
+
+    // idempotent: the stay is first taken out, then put back if the booking still holds its room
+    private void apply(Long bookingId, Long roomId, BookingStatus status, LocalDate checkInDate, LocalDate checkOutDate,
+                       LocalDateTime updatedAt) {
+        Stay previous = untrack(bookingId);
+        if (previous != null) {
+            index.clear(previous.roomId(), previous.firstDay(), previous.lastDay());
+            //another stay may overlap the cleared days on a double booked room
+            staysByRoom.getOrDefault(previous.roomId(), Set.of()).stream()
+                    .map(stays::get)
+                    .filter(Objects::nonNull)
+                    .filter(other -> other.firstDay() <= previous.lastDay() && other.lastDay() >= previous.firstDay())
+                    .forEach(other -> index.occupy(other.roomId(), other.firstDay(), other.lastDay()));
+        }
+        if (roomId != null && (status == BookingStatus.BOOKED || status == BookingStatus.CHECKED_IN)) {
+            Stay stay = new Stay(roomId, checkInDate.toEpochDay(), checkOutDate.toEpochDay());
+            track(bookingId, stay);
+            index.occupy(stay.roomId(), stay.firstDay(), stay.lastDay());
+        }
+        if (updatedAt != null && updatedAt.isAfter(highWaterMark)) {
+            highWaterMark = updatedAt;
+        }
+    }
+
+    private void track(long bookingId, Stay stay) {
+        stays.put(bookingId, stay);
+        staysByRoom.computeIfAbsent(stay.roomId(), id -> ConcurrentHashMap.newKeySet()).add(bookingId);
+    }
+
+    private Stay untrack(long bookingId) {
+        Stay stay = stays.remove(bookingId);
+        if (stay != null) {
+            Set<Long> roomStays = staysByRoom.get(stay.roomId());
+            if (roomStays != null) roomStays.remove(bookingId);
+        }
+        return stay;
+    }
+
+    private OccupancyIndex newIndex(long baseDay) {
+        return "offheap".equalsIgnoreCase(store)
+                ? new OffHeapOccupancyIndex(baseDay, horizonDays)
+                : new HeapOccupancyIndex(baseDay, horizonDays);
+    }
+
+    // a week of history so that stays already in house are still covered
+    private static long newBaseDay() {
+        return LocalDate.now().toEpochDay() - 7;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.HotelBooking.occupancy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads and writes the occupancy snapshot file through memory mapped buffers. Layout, little endian:
+ * <pre>
+ * header   64 bytes: magic, version, created at, high-water mark, base day, horizon days,
+ *                    words per room, room count, stay count, CRC32C of everything after the header
+ * rooms    room count x room id (long)
+ * words    room count x words per room x long, the occupancy bits of each room in the same order
+ * stays    stay count x (booking id long, room id long, first day int, last day int)
+ * </pre>
+ * A new file is written next to the old one and moved over it, so a crash never leaves a torn snapshot.
+ */
+@Component
+@Slf4j
+public class OccupancySnapshotStore {
+
+    static final int MAGIC = 0x48424F43; //"HBOC"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int STAY_BYTES = 24;
+
+    @Value("${occupancy.snapshot-path:${user.dir}/occupancy.snapshot}")
+    private Path snapshotPath;
+
+    public record Header(long createdAtMillis, long highWaterMarkMillis, long baseDay, int horizonDays,
+                         int wordsPerRoom, int roomCount, int stayCount) {
+    }
+
+    public interface StayConsumer {
+        void accept(long bookingId, long roomId, long firstDay, long lastDay);
+    }
+
+    /** A mapped snapshot; the buffers stay valid for as long as the instance is reachable. */
+    public static final class Snapshot {
+        private final Header header;
+        private final ByteBuffer body;
+
+        private Snapshot(Header header, ByteBuffer body) {
+            this.header = header;
+            this.body = body;
+        }
+
+        public Header header() {
+            return header;
+        }
+
+        public long roomId(int room) {
+            return body.getLong(room * 8);
+        }
+
+        public LongBuffer words(int room) {
+            int offset = header.roomCount() * 8 + room * header.wordsPerRoom() * 8;
+            return body.slice(offset, header.wordsPerRoom() * 8).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+
+        public void forEachStay(StayConsumer consumer) {
+            int offset = header.roomCount() * 8 + header.roomCount() * header.wordsPerRoom() * 8;
+            for (int i = 0; i < header.stayCount(); i++, offset += STAY_BYTES) {
+                consumer.accept(body.getLong(offset), body.getLong(offset + 8), body.getInt(offset + 16), body.getInt(offset + 20));
+            }
+        }
+    }
+
+    public Optional<Snapshot> read() {
+        if (!Files.exists(snapshotPath)) return Optional.empty();
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                log.warn("Ignoring occupancy snapshot {} with unexpected size {}", snapshotPath, channel.size());
+                return Optional.empty();
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                log.warn("Ignoring occupancy snapshot {} written by an incompatible version", snapshotPath);
+                return Optional.empty();
+            }
+            Header header = new Header(mapped.getLong(8), mapped.getLong(16), mapped.getLong(24), mapped.getInt(32),
+                    mapped.getInt(36), mapped.getInt(40), mapped.getInt(44));
+            ByteBuffer body = mapped.slice(HEADER_BYTES, (int) channel.size() - HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (body.capacity() != bodyBytes(header.roomCount(), header.wordsPerRoom(), header.stayCount())
+                    || checksum(body) != mapped.getLong(48)) {
+                log.warn("Ignoring corrupt occupancy snapshot {}", snapshotPath);
+                return Optional.empty();
+            }
+            return Optional.of(new Snapshot(header, body));
+        } catch (IOException e) {
+            log.warn("Unable to read occupancy snapshot {}: {}", snapshotPath, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the index and the given stays, flattened as
+     * [booking id, room id, first day, last day] quadruples.
+     */
+    public void write(OccupancyIndex index, long[] stays, long highWaterMarkMillis) throws IOException {
+        long[] roomIds = index.roomIds();
+        int wordsPerRoom = index.wordsPerRoom();
+        int stayCount = stays.length / 4;
+        long size = HEADER_BYTES + bodyBytes(roomIds.length, wordsPerRoom, stayCount);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Occupancy snapshot of " + size + " bytes is too large to map");
+        }
+
+        Path temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer body = mapped.slice(HEADER_BYTES, (int) size - HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (long roomId : roomIds) {
+                body.putLong(roomId);
+            }
+            LongBuffer words = body.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            for (long roomId : roomIds) {
+                index.readWords(roomId, words);
+            }
+            body.position(body.position() + roomIds.length * wordsPerRoom * 8);
+            for (int i = 0; i < stays.length; i += 4) {
+                body.putLong(stays[i]).putLong(stays[i + 1]).putInt((int) stays[i + 2]).putInt((int) stays[i + 3]);
+            }
+
+            mapped.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putLong(8, System.currentTimeMillis())
+                    .putLong(16, highWaterMarkMillis)
+                    .putLong(24, index.baseDay())
+                    .putInt(32, index.horizonDays())
+                    .putInt(36, wordsPerRoom)
+                    .putInt(40, roomIds.length)
+                    .putInt(44, stayCount)
+                    .putLong(48, checksum(body.clear()));
+            mapped.force();
+        }
+        Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Wrote occupancy snapshot with {} rooms and {} stays, {} bytes", roomIds.length, stayCount, size);
+    }
+
+    private static long bodyBytes(int roomCount, int wordsPerRoom, int stayCount) {
+        return roomCount * 8L + (long) roomCount * wordsPerRoom * 8 + (long) stayCount * STAY_BYTES;
+    }
+
+    private static long checksum(ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate().clear());
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.HotelBooking.occupancy;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link OccupancyIndex} kept outside the heap, so the collector never scans it. Rooms get a fixed slot
+ * of {@link #wordsPerRoom()} longs in direct buffers allocated {@value #ROOMS_PER_SEGMENT} rooms at a time.
+ * Writers take one of a fixed set of striped locks, readers take none: they read optimistically and only
+ * retry under the read lock when a writer on the same stripe got in between.
+ */
+public class OffHeapOccupancyIndex implements OccupancyIndex {
+
+    private static final int ROOMS_PER_SEGMENT = 4096;
+    private static final int STRIPES = 64;
+
+    private final long baseDay;
+    private final int horizonDays;
+    private final int roomBytes;
+    private final ConcurrentHashMap<Long, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+    private volatile ByteBuffer[] segments = new ByteBuffer[0];
+
+    public OffHeapOccupancyIndex(long baseDay, int horizonDays) {
+        this.baseDay = baseDay;
+        this.horizonDays = horizonDays;
+        this.roomBytes = wordsPerRoom() * 8;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    @Override
+    public long baseDay() {
+        return baseDay;
+    }
+
+    @Override
+    public int horizonDays() {
+        return horizonDays;
+    }
+
+    @Override
+    public void occupy(long roomId, long firstDay, long lastDay) {
+        int from = (int) Math.max(0, firstDay - baseDay);
+        int to = (int) Math.min(horizonDays - 1L, lastDay - baseDay);
+        if (from > to) return;
+        update(slotOf(roomId), from, to, true);
+    }
+
+    @Override
+    public void clear(long roomId, long firstDay, long lastDay) {
+        int from = (int) Math.max(0, firstDay - baseDay);
+        int to = (int) Math.min(horizonDays - 1L, lastDay - baseDay);
+        Integer slot = slots.get(roomId);
+        if (slot == null || from > to) return;
+        update(slot, from, to, false);
+    }
+
+    @Override
+    public boolean isFree(long roomId, long firstDay, long lastDay) {
+        Integer slot = slots.get(roomId);
+        if (slot == null) return true;
+        int from = (int) (firstDay - baseDay);
+        int to = (int) (lastDay - baseDay);
+        StampedLock lock = stripes[slot & (STRIPES - 1)];
+        long stamp = lock.tryOptimisticRead();
+        boolean free = noneSet(slot, from, to);
+        if (lock.validate(stamp)) return free;
+        stamp = lock.readLock();
+        try {
+            return noneSet(slot, from, to);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public long[] roomIds() {
+        return slots.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    @Override
+    public void readWords(long roomId, LongBuffer target) {
+        Integer slot = slots.get(roomId);
+        if (slot == null) {
+            target.put(new long[wordsPerRoom()]);
+            return;
+        }
+        StampedLock lock = stripes[slot & (STRIPES - 1)];
+        long stamp = lock.readLock();
+        try {
+            ByteBuffer segment = segmentOf(slot);
+            int offset = offsetOf(slot);
+            for (int word = 0; word < wordsPerRoom(); word++) {
+                target.put(segment.getLong(offset + word * 8));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void writeWords(long roomId, LongBuffer source) {
+        int slot = slotOf(roomId);
+        StampedLock lock = stripes[slot & (STRIPES - 1)];
+        long stamp = lock.writeLock();
+        try {
+            ByteBuffer segment = segmentOf(slot);
+            int offset = offsetOf(slot);
+            for (int word = 0; word < wordsPerRoom(); word++) {
+                segment.putLong(offset + word * 8, source.get());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public long memoryBytes() {
+        return (long) segments.length * ROOMS_PER_SEGMENT * roomBytes;
+    }
+
+    private void update(int slot, int from, int to, boolean value) {
+        StampedLock lock = stripes[slot & (STRIPES - 1)];
+        long stamp = lock.writeLock();
+        try {
+            ByteBuffer segment = segmentOf(slot);
+            int offset = offsetOf(slot);
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                long mask = HeapOccupancyIndex.Bits.mask(word, from, to);
+                long current = segment.getLong(offset + word * 8);
+                segment.putLong(offset + word * 8, value ? current | mask : current & ~mask);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean noneSet(int slot, int from, int to) {
+        ByteBuffer segment = segmentOf(slot);
+        int offset = offsetOf(slot);
+        for (int word = from >>> 6; word <= to >>> 6; word++) {
+            if ((segment.getLong(offset + word * 8) & HeapOccupancyIndex.Bits.mask(word, from, to)) != 0) return false;
+        }
+        return true;
+    }
+
+    // the segment is allocated before the slot is published, so readers never see a slot without memory
+    private int slotOf(long roomId) {
+        return slots.computeIfAbsent(roomId, id -> {
+            int slot = nextSlot.getAndIncrement();
+            ensureSegment(slot / ROOMS_PER_SEGMENT);
+            return slot;
+        });
+    }
+
+    private synchronized void ensureSegment(int segment) {
+        if (segment < segments.length) return;
+        ByteBuffer[] grown = Arrays.copyOf(segments, segment + 1);
+        for (int i = segments.length; i < grown.length; i++) {
+            grown[i] = ByteBuffer.allocateDirect(ROOMS_PER_SEGMENT * roomBytes).order(ByteOrder.nativeOrder());
+        }
+        segments = grown;
+    }
+
+    private ByteBuffer segmentOf(int slot) {
+        return segments[slot / ROOMS_PER_SEGMENT];
+    }
+
+    private int offsetOf(int slot) {
+        return (slot % ROOMS_PER_SEGMENT) * roomBytes;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.HotelBooking.payments;
+
+import com.example.HotelBooking.enums.PaymentGateway;
+
+import java.math.BigDecimal;
+
+/**
+ * Calls made to the payment provider outside of the checkout flow.
+ */
+public interface PaymentGatewayClient {
+
+    PaymentGateway gateway();
+
+    /**
+     * Refunds part or all of a captured charge. Never throws for a declined refund, the outcome is
+     * reported in the result so that a batch of refunds can carry on.
+     */
+    RefundResult refund(String transactionId, BigDecimal amount, String bookingReference);
+
+    record RefundResult(boolean success, String refundId, String failureReason) {
+    }
+}
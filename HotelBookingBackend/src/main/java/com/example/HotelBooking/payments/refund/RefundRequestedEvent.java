@@ -0,0 +1,24 @@
+package com.example.HotelBooking.payments.refund;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Published inside the transaction that cancelled or re-priced the bookings; the refunds are only
+ * sent to the gateway once that transaction has committed.
+ */
+public record RefundRequestedEvent(List<Refund> refunds) {
+
+    /**
+     * Without a transaction id the booking's captured payment is refunded. With one, that charge is refunded
+     * even if it is not recorded as the booking's payment, e.g. one that succeeded after the booking was
+     * cancelled. The booking id and recipient are null when the charge has no booking at all.
+     */
+    public record Refund(Long bookingId, String bookingReference, String recipient, BigDecimal amount, boolean full,
+                         String transactionId) {
+
+        public Refund(Long bookingId, String bookingReference, String recipient, BigDecimal amount, boolean full) {
+            this(bookingId, bookingReference, recipient, amount, full, null);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.HotelBooking.payments.refund;
+
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.dtos.NotificationDTO;
+import com.example.HotelBooking.entities.PaymentEntity;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.NotificationType;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.payments.PaymentGatewayClient;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.PaymentRepository;
+import com.example.HotelBooking.services.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Sends refunds for cancelled or cheaper bookings, and for charges that arrived after their booking was
+ * cancelled or could not become one, to the payment gateway. Gateway calls are made outside of any
+ * database transaction; the outcomes are then recorded together in one.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RefundService {
+
+    private final PaymentGatewayClient paymentGatewayClient;
+    private final PaymentRepository paymentRepository;
+    private final BookingRepository bookingRepository;
+    private final NotificationService notificationService;
+    private final ClusterService clusterService;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingEventLog bookingEventLog;
+
+    @Async
+    @TransactionalEventListener
+    public void onRefundRequested(RefundRequestedEvent event) {
+        List<RefundRequestedEvent.Refund> refunds = event.refunds();
+        Map<String, List<PaymentEntity>> charges = paymentRepository.findByBookingReferenceInAndPaymentStatus(
+                        refunds.stream().map(RefundRequestedEvent.Refund::bookingReference).toList(), PaymentStatus.COMPLETED)
+                .stream()
+                .collect(Collectors.groupingBy(PaymentEntity::getBookingReference));
+
+        List<PaymentEntity> records = new ArrayList<>();
+        List<String> fullyRefunded = new ArrayList<>();
+        Map<Long, BigDecimal> partlyRefunded = new HashMap<>();
+        List<NotificationDTO> notifications = new ArrayList<>();
+        for (RefundRequestedEvent.Refund refund : refunds) {
+            List<PaymentEntity> bookingCharges = charges.getOrDefault(refund.bookingReference(), List.of());
+            PaymentEntity charge = refund.transactionId() != null
+                    ? bookingCharges.stream().filter(found -> refund.transactionId().equals(found.getTransactionId())).findFirst().orElse(null)
+                    : bookingCharges.stream().max(Comparator.comparing(PaymentEntity::getPaymentDate)).orElse(null);
+            String transactionId = refund.transactionId() != null ? refund.transactionId()
+                    : charge != null ? charge.getTransactionId() : null;
+            if (transactionId == null) {
+                log.warn("No captured payment found to refund booking {}", refund.bookingReference());
+                continue;
+            }
+            PaymentGatewayClient.RefundResult result =
+                    paymentGatewayClient.refund(transactionId, refund.amount(), refund.bookingReference());
+            records.add(toPayment(refund, charge, result));
+            if (result.success() && refund.full()) {
+                fullyRefunded.add(refund.bookingReference());
+            } else if (result.success() && refund.bookingId() != null) {
+                partlyRefunded.merge(refund.bookingId(), refund.amount(), BigDecimal::add);
+            }
+            if (refund.recipient() != null) {
+                notifications.add(toNotification(refund, result));
+            }
+        }
+        if (records.isEmpty()) return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            paymentRepository.saveAll(records);
+            if (!fullyRefunded.isEmpty()) {
+                bookingRepository.markRefunded(fullyRefunded);
+                bookingEventLog.recordUpdatedByReferences(fullyRefunded, BookingEventType.REFUNDED);
+            }
+            //the booking row does not change, so these are recorded one by one with the amount that went back
+            bookingRepository.findAllById(partlyRefunded.keySet()).forEach(booking ->
+                    bookingEventLog.record(booking, BookingEventType.PARTLY_REFUNDED, partlyRefunded.get(booking.getId())));
+        });
+        refunds.stream()
+                .map(RefundRequestedEvent.Refund::bookingId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(bookingId -> clusterService.broadcast(CacheRegion.BOOKING, bookingId));
+        notificationService.sendEmails(notifications);
+        log.info("Processed {} refunds, {} declined", records.size(),
+                records.stream().filter(record -> record.getPaymentStatus() == PaymentStatus.FAILED).count());
+    }
+
+    private PaymentEntity toPayment(RefundRequestedEvent.Refund refund, PaymentEntity charge,
+                                    PaymentGatewayClient.RefundResult result) {
+        PaymentEntity payment = new PaymentEntity();
+        //a declined refund is kept as a failed payment row so that it shows up in the payment history
+        payment.setPaymentStatus(result.success() ? PaymentStatus.REFUNDED : PaymentStatus.FAILED);
+        payment.setPaymentGateway(paymentGatewayClient.gateway());
+        payment.setPaymentDate(LocalDateTime.now());
+        payment.setUser(charge != null ? charge.getUser() : null); //unknown for a charge that never got a booking
+        payment.setAmount(refund.amount());
+        payment.setTransactionId(result.refundId());
+        payment.setBookingReference(refund.bookingReference());
+        payment.setFailureReason(result.failureReason());
+        return payment;
+    }
+
+    private NotificationDTO toNotification(RefundRequestedEvent.Refund refund, PaymentGatewayClient.RefundResult result) {
+        NotificationDTO notificationDTO = NotificationDTO.builder()
+                .recipient(refund.recipient())
+                .type(NotificationType.EMAIL)
+                .bookingReference(refund.bookingReference())
+                .build();
+        if (result.success()) {
+            notificationDTO.setSubject("Booking Refund Issued");
+            notificationDTO.setBody("A refund of " + refund.amount() + " for booking with reference: " + refund.bookingReference() + " is on its way");
+        } else {
+            notificationDTO.setSubject("Booking Refund Delayed");
+            notificationDTO.setBody("We could not refund " + refund.amount() + " for booking with reference: " + refund.bookingReference() + " yet, our team will follow up");
+        }
+        return notificationDTO;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.HotelBooking.payments.stripe;
 
 import com.example.HotelBooking.payments.stripe.dto.PaymentRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,5 +23,14 @@ public class PaymentController {
         paymentService.updatePaymentBooking(paymentRequest);
     }
 
+    @PostMapping("/webhook")
+    public ResponseEntity<String> handleWebhook(@RequestBody String payload,
+                                                @RequestHeader("Stripe-Signature") String signature){
+        if(!paymentService.handleWebhook(payload, signature)){
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Busy, retry later");
+        }
+        return ResponseEntity.ok("Received");
+    }
+
 
 }
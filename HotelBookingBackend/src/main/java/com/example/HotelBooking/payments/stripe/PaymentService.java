@@ -1,29 +1,49 @@
 package com.example.HotelBooking.payments.stripe;
 
 
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.config.datasource.ReadYourWritesTracker;
 import com.example.HotelBooking.dtos.NotificationDTO;
 import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.entities.PaymentEntity;
+import com.example.HotelBooking.entities.PaymentWebhookEvent;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
 import com.example.HotelBooking.enums.NotificationType;
 import com.example.HotelBooking.enums.PaymentGateway;
 import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.InvalidCredentialException;
 import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.holds.RoomHoldService;
 import com.example.HotelBooking.payments.stripe.dto.PaymentRequest;
+import com.example.HotelBooking.payments.webhook.PaymentEventDispatcher;
 import com.example.HotelBooking.repositories.BookingRepository;
 import com.example.HotelBooking.repositories.PaymentRepository;
 import com.example.HotelBooking.services.NotificationService;
 import com.stripe.Stripe;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
 import com.stripe.model.PaymentIntent;
+import com.stripe.net.Webhook;
 import com.stripe.param.PaymentIntentCreateParams;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -32,21 +52,36 @@ public class PaymentService {
      private final PaymentRepository paymentRepository;
      private final ModelMapper modelMapper;
      private final NotificationService notificationService;
+     private final PaymentEventDispatcher paymentEventDispatcher;
+     private final ClusterService clusterService;
+     private final ReadYourWritesTracker readYourWritesTracker;
+     private final BookingEventLog bookingEventLog;
+     private final RoomHoldService roomHoldService;
 
      @Value("${stripe.api.public.key}")
      private String secreteKey;
 
+     @Value("${stripe.webhook.secret}")
+     private String webhookSecret;
+
      public String createPaymentIntent (PaymentRequest paymentRequest){
           Stripe.apiKey = secreteKey;
           String bookingReference = paymentRequest.getBookingReference();
-          Booking booking = bookingRepository.findByBookingReference(paymentRequest.getBookingReference())
-                  .orElseThrow(()->new NotFoundException("Booking Not Found"));
-          if(booking.getPaymentStatus() == PaymentStatus.COMPLETED){
+          Booking booking = bookingRepository.findByBookingReference(paymentRequest.getBookingReference()).orElse(null);
+          BigDecimal amount; //what is owed, never what the client asks to be charged
+          if(booking == null){
+               //paying for a held room, the booking is only made once the payment goes through, the hold is kept until then
+               amount = roomHoldService.pinForPayment(bookingReference).getTotalPrice();
+          }else if(booking.getPaymentStatus() == PaymentStatus.COMPLETED){
                throw new NotFoundException("Payment is Done for this booking");
+          }else if(booking.getBookingStatus() == BookingStatus.CANCELLED){
+               throw new InvalidBookingStateAndDateException("Booking is cancelled, the payment hold may have expired");
+          }else{
+               amount = booking.getTotalPrice();
           }
           try{
                PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
-                       .setAmount(paymentRequest.getAmount().multiply(BigDecimal.valueOf(100)).longValue())
+                       .setAmount(amount.movePointRight(2).longValueExact())
                        .setCurrency("usd")
                        .putMetadata("bookingReference",bookingReference)
                        .build();
@@ -57,31 +92,69 @@ public class PaymentService {
           }
      }
 
+     /**
+      * Applies the payment outcome the client reports after checkout, as confirmed by Stripe: the outcome and
+      * amount are read from the PaymentIntent, not taken from the request. Held rooms are only turned into
+      * bookings by the webhook, which carries the gateway's signature.
+      */
+     @Transactional
      public void updatePaymentBooking(PaymentRequest paymentRequest){
           String bookingReference = paymentRequest.getBookingReference();
-          Booking booking = bookingRepository.findByBookingReference(paymentRequest.getBookingReference())
-                  .orElseThrow(()->new NotFoundException("Booking Not Found"));
+          Booking booking = bookingRepository.findByBookingReferenceForUpdate(bookingReference).orElse(null);
+          if(booking == null){
+               if(roomHoldService.findActive(bookingReference).isPresent()){
+                    log.info("Payment for held room {} is applied when the gateway's webhook confirms it", bookingReference);
+                    return;
+               }
+               throw new NotFoundException("Booking Not Found");
+          }
+
+          PaymentIntent intent = retrievePaymentIntent(paymentRequest.getTransactionId(), bookingReference);
+          Boolean success = switch (intent.getStatus()) {
+               case "succeeded" -> true;
+               case "requires_payment_method", "canceled" -> false;
+               default -> null; //still being processed
+          };
+          if(success == null){
+               log.info("Payment {} for booking {} is {}, waiting for the gateway's webhook", intent.getId(), bookingReference, intent.getStatus());
+               return;
+          }
+          BigDecimal amount = BigDecimal.valueOf(intent.getAmount(), 2);
+          String failureReason = intent.getLastPaymentError() != null ? intent.getLastPaymentError().getMessage() : null;
 
           PaymentEntity payment = new PaymentEntity();
-          payment.setPaymentStatus(paymentRequest.isSuccess()? PaymentStatus.COMPLETED : PaymentStatus.FAILED);
+          payment.setPaymentStatus(success? PaymentStatus.COMPLETED : PaymentStatus.FAILED);
           payment.setPaymentGateway(PaymentGateway.STRIPE);
           payment.setPaymentDate(LocalDateTime.now());
           payment.setUser(booking.getUser());
-          payment.setAmount(paymentRequest.getAmount());
-          payment.setTransactionId(paymentRequest.getTransactionId());
-          payment.setBookingReference(paymentRequest.getBookingReference());
+          payment.setAmount(amount);
+          payment.setTransactionId(intent.getId());
+          payment.setBookingReference(bookingReference);
 
           paymentRepository.save(payment);
+          if(success && booking.getBookingStatus() == BookingStatus.CANCELLED
+                  && booking.getPaymentStatus() != PaymentStatus.COMPLETED){
+               //the booking stays cancelled, the refund is raised when the gateway's webhook for this charge is applied
+               log.warn("Payment {} arrived for cancelled booking {}, not marking it paid", intent.getId(), bookingReference);
+               return;
+          }
+          if(success && amount.compareTo(booking.getTotalPrice()) != 0){
+               //refunded as well when the webhook for this charge is applied
+               log.error("Payment {} of {} does not match the total {} of booking {}, not marking it paid",
+                       intent.getId(), amount, booking.getTotalPrice(), bookingReference);
+               return;
+          }
 
           NotificationDTO notificationDTO = NotificationDTO.builder()
                   .recipient(booking.getUser().getEmail())
                   .type(NotificationType.EMAIL)
-                  .bookingReference(paymentRequest.getBookingReference())
+                  .bookingReference(bookingReference)
                   .build();
 
-          if (paymentRequest.isSuccess()){
+          if (success){
                booking.setPaymentStatus(PaymentStatus.COMPLETED);
                bookingRepository.save(booking); //Update the booking
+               bookingEventLog.record(booking, BookingEventType.PAID);
 
                notificationDTO.setSubject("Booking Payment Successful");
                notificationDTO.setBody("Congratulation!! Your payment for booking with reference: " + bookingReference + "is successful");
@@ -91,11 +164,86 @@ public class PaymentService {
 
                booking.setPaymentStatus(PaymentStatus.FAILED);
                bookingRepository.save(booking); //Update the booking
+               bookingEventLog.record(booking, BookingEventType.PAYMENT_FAILED);
 
                notificationDTO.setSubject("Booking Payment Failed");
-               notificationDTO.setBody("Your payment for booking with reference: " + bookingReference + "failed with reason: " + paymentRequest.getFailureReason());
+               notificationDTO.setBody("Your payment for booking with reference: " + bookingReference + "failed with reason: " + failureReason);
                notificationService.sendEmail(notificationDTO); //send email
           }
+          clusterService.broadcast(CacheRegion.BOOKING, booking.getId());
+          readYourWritesTracker.recordWrite(booking.getUser().getEmail());
+
+     }
+
+     /**
+      * Verifies the Stripe signature and hands the payment outcome to the dispatcher.
+      * Returns false when the event could not be queued and Stripe should redeliver it.
+      */
+     public boolean handleWebhook(String payload, String signature){
+          Event event;
+          try{
+               event = Webhook.constructEvent(payload, signature, webhookSecret);
+          }catch (SignatureVerificationException e){
+               throw new InvalidCredentialException("Invalid webhook signature");
+          }
 
+          PaymentStatus paymentStatus = switch (event.getType()) {
+               case "payment_intent.succeeded" -> PaymentStatus.COMPLETED;
+               case "payment_intent.payment_failed" -> PaymentStatus.FAILED;
+               default -> null;
+          };
+          if(paymentStatus == null){
+               log.debug("Ignoring Stripe event {} of type {}", event.getId(), event.getType());
+               return true;
+          }
+
+          PaymentIntent intent = readPaymentIntent(event);
+          String bookingReference = intent.getMetadata().get("bookingReference");
+          if(bookingReference == null){
+               log.warn("Stripe event {} has no booking reference, ignoring", event.getId());
+               return true;
+          }
+
+          PaymentWebhookEvent webhookEvent = PaymentWebhookEvent.builder()
+                  .eventId(event.getId())
+                  .bookingReference(bookingReference)
+                  .transactionId(intent.getId())
+                  .amount(BigDecimal.valueOf(intent.getAmount(), 2))
+                  .paymentStatus(paymentStatus)
+                  .failureReason(intent.getLastPaymentError() != null ? intent.getLastPaymentError().getMessage() : null)
+                  .eventCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochSecond(event.getCreated()), ZoneId.systemDefault()))
+                  .receivedAt(LocalDateTime.now())
+                  .build();
+          return paymentEventDispatcher.accept(webhookEvent);
+     }
+
+     // the intent must be the one opened for this booking, so a charge for another booking cannot be replayed here
+     private PaymentIntent retrievePaymentIntent(String transactionId, String bookingReference){
+          if(transactionId == null || transactionId.isBlank()){
+               throw new InvalidCredentialException("Payment transaction id is required");
+          }
+          Stripe.apiKey = secreteKey;
+          PaymentIntent intent;
+          try{
+               intent = PaymentIntent.retrieve(transactionId);
+          }catch (StripeException e){
+               throw new RuntimeException("Error retrieving Payment intent");
+          }
+          if(!bookingReference.equals(intent.getMetadata().get("bookingReference"))){
+               throw new InvalidCredentialException("Payment does not belong to booking " + bookingReference);
+          }
+          return intent;
+     }
+
+     private PaymentIntent readPaymentIntent(Event event){
+          EventDataObjectDeserializer deserializer = event.getDataObjectDeserializer();
+          try{
+               //falls back to the raw payload when the event was sent with a different API version than the SDK
+               return (PaymentIntent) (deserializer.getObject().isPresent()
+                       ? deserializer.getObject().get()
+                       : deserializer.deserializeUnsafe());
+          }catch (EventDataObjectDeserializationException e){
+               throw new IllegalArgumentException("Unable to read payment intent from Stripe event " + event.getId());
+          }
      }
 }
@@ -0,0 +1,46 @@
+package com.example.HotelBooking.payments.stripe;
+
+import com.example.HotelBooking.enums.PaymentGateway;
+import com.example.HotelBooking.payments.PaymentGatewayClient;
+import com.stripe.Stripe;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Refund;
+import com.stripe.param.RefundCreateParams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+@Component
+@Slf4j
+public class StripePaymentGatewayClient implements PaymentGatewayClient {
+
+    @Value("${stripe.api.public.key}")
+    private String secreteKey;
+
+    @Override
+    public PaymentGateway gateway() {
+        return PaymentGateway.STRIPE;
+    }
+
+    @Override
+    public RefundResult refund(String transactionId, BigDecimal amount, String bookingReference) {
+        Stripe.apiKey = secreteKey;
+        RefundCreateParams params = RefundCreateParams.builder()
+                .setPaymentIntent(transactionId)
+                .setAmount(amount.multiply(BigDecimal.valueOf(100)).longValue())
+                .putMetadata("bookingReference", bookingReference)
+                .build();
+        try {
+            Refund refund = Refund.create(params);
+            if ("failed".equals(refund.getStatus()) || "canceled".equals(refund.getStatus())) {
+                return new RefundResult(false, refund.getId(), refund.getFailureReason());
+            }
+            return new RefundResult(true, refund.getId(), null);
+        } catch (StripeException e) {
+            log.warn("Stripe refund for booking {} failed: {}", bookingReference, e.getMessage());
+            return new RefundResult(false, null, e.getMessage());
+        }
+    }
+}
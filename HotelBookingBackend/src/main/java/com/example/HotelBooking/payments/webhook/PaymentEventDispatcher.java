@@ -0,0 +1,198 @@
+package com.example.HotelBooking.payments.webhook;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.entities.PaymentWebhookEvent;
+import com.example.HotelBooking.repositories.PaymentWebhookEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads webhook events over a fixed set of lanes keyed by booking reference, so events for one booking
+ * are always applied by the same worker in arrival order while different bookings proceed in parallel.
+ * A batch that fails is retried one event at a time, so one bad event does not hold back the rest; events
+ * that still fail are retried on a schedule with exponential backoff and parked after too many attempts.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentEventDispatcher {
+
+    private final PaymentWebhookEventRepository paymentWebhookEventRepository;
+    private final PaymentEventProcessor paymentEventProcessor;
+    private final ClusterService clusterService;
+
+    @Value("${payments.webhook.workers:4}")
+    private int workers;
+
+    @Value("${payments.webhook.batch-size:200}")
+    private int batchSize;
+
+    @Value("${payments.webhook.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${payments.webhook.enqueue-timeout-ms:500}")
+    private long enqueueTimeoutMs;
+
+    @Value("${payments.webhook.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    @Value("${payments.webhook.retry-max-backoff-ms:3600000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${payments.webhook.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${payments.webhook.stale-after-ms:600000}")
+    private long staleAfterMs;
+
+    private final List<BlockingQueue<PaymentWebhookEvent>> lanes = new ArrayList<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    private void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            BlockingQueue<PaymentWebhookEvent> lane = new ArrayBlockingQueue<>(queueCapacity);
+            lanes.add(lane);
+            workerThreads.add(Thread.ofPlatform()
+                    .name("payment-webhook-" + i)
+                    .daemon()
+                    .start(() -> drain(lane)));
+        }
+    }
+
+    @PreDestroy
+    private void stop() {
+        running = false;
+        workerThreads.forEach(Thread::interrupt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayUnprocessed() {
+        List<PaymentWebhookEvent> pending = paymentWebhookEventRepository.findByProcessedFalseAndPoisonedFalseOrderByIdAsc();
+        if (!pending.isEmpty()) {
+            log.info("Re-queueing {} payment events received before the last shutdown", pending.size());
+            pending.forEach(this::enqueue);
+        }
+    }
+
+    /**
+     * Re-queues failed events whose backoff is over, and events that never got through a lane (lost with a
+     * full lane or a crashed node). Only the leader does this so an event is not queued on every node.
+     */
+    @Scheduled(fixedDelayString = "${payments.webhook.retry-interval-ms:60000}")
+    public void retryFailed() {
+        if (!clusterService.isLeader()) return;
+        LocalDateTime now = LocalDateTime.now();
+        List<PaymentWebhookEvent> due = paymentWebhookEventRepository.findRetryable(
+                now, now.minusNanos(staleAfterMs * 1_000_000), PageRequest.of(0, batchSize));
+        if (!due.isEmpty()) {
+            log.info("Retrying {} payment events", due.size());
+            due.forEach(this::enqueue);
+        }
+    }
+
+    /**
+     * Stores the event (dropping duplicate deliveries) and queues it for processing.
+     * Returns false when the lane stays full, so the gateway is told to retry later.
+     */
+    public boolean accept(PaymentWebhookEvent event) {
+        Optional<PaymentWebhookEvent> existing = paymentWebhookEventRepository.findByEventId(event.getEventId());
+        if (existing.isPresent() && existing.get().isProcessed()) {
+            log.info("Duplicate payment event {} ignored", event.getEventId());
+            return true;
+        }
+        PaymentWebhookEvent stored;
+        try {
+            stored = existing.orElseGet(() -> paymentWebhookEventRepository.save(event));
+        } catch (DataIntegrityViolationException e) {
+            log.info("Payment event {} is being stored by a concurrent delivery", event.getEventId());
+            return true;
+        }
+        return enqueue(stored);
+    }
+
+    private boolean enqueue(PaymentWebhookEvent event) {
+        BlockingQueue<PaymentWebhookEvent> lane = lanes.get(Math.floorMod(event.getBookingReference().hashCode(), lanes.size()));
+        try {
+            return lane.offer(event, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drain(BlockingQueue<PaymentWebhookEvent> lane) {
+        List<PaymentWebhookEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PaymentWebhookEvent first = lane.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                lane.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<PaymentWebhookEvent> batch) {
+        try {
+            paymentEventProcessor.process(batch);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                recordFailure(batch.getFirst(), e);
+                return;
+            }
+            log.warn("Failed to apply {} payment events together, applying them one by one: {}", batch.size(), e.getMessage());
+            for (PaymentWebhookEvent event : batch) {
+                try {
+                    paymentEventProcessor.process(List.of(event));
+                } catch (Exception single) {
+                    recordFailure(event, single);
+                }
+            }
+        }
+    }
+
+    private void recordFailure(PaymentWebhookEvent event, Exception e) {
+        //attempts are counted from what the last call saw, the stored count is what decides
+        int attempt = event.getAttempts() + 1;
+        long backoff = Math.min(retryMaxBackoffMs, retryBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            boolean poisoned = paymentEventProcessor.recordFailure(
+                    event, e.getMessage(), LocalDateTime.now().plusNanos(backoff * 1_000_000), maxAttempts);
+            if (poisoned) {
+                log.error("Payment event {} for booking {} failed {} times, giving up on it: {}",
+                        event.getEventId(), event.getBookingReference(), maxAttempts, e.getMessage());
+            } else {
+                log.warn("Payment event {} failed, retrying in {} ms: {}", event.getEventId(), backoff, e.getMessage());
+            }
+        } catch (Exception recordError) {
+            //still unprocessed in the database, the stale sweep of retryFailed picks it up
+            log.error("Failed to record the failure of payment event {}: {}", event.getEventId(), recordError.getMessage());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.HotelBooking.payments.webhook;
+
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.dtos.NotificationDTO;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.PaymentEntity;
+import com.example.HotelBooking.entities.PaymentWebhookEvent;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.NotificationType;
+import com.example.HotelBooking.enums.PaymentGateway;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.holds.RoomHoldService;
+import com.example.HotelBooking.payments.refund.RefundRequestedEvent;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.PaymentRepository;
+import com.example.HotelBooking.repositories.PaymentWebhookEventRepository;
+import com.example.HotelBooking.services.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PaymentEventProcessor {
+
+    private final PaymentWebhookEventRepository paymentWebhookEventRepository;
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+    private final NotificationService notificationService;
+    private final ClusterService clusterService;
+    private final BookingEventLog bookingEventLog;
+    private final RoomHoldService roomHoldService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Applies a batch of webhook events in one transaction: one insert batch into payments and at most
+     * one set-based update of bookings per resulting payment status.
+     */
+    @Transactional
+    public void process(List<PaymentWebhookEvent> batch) {
+        //an event can be queued twice (gateway retry while it waited in a lane), so only trust the stored flag
+        List<PaymentWebhookEvent> events = paymentWebhookEventRepository
+                .findAllById(batch.stream().map(PaymentWebhookEvent::getId).toList())
+                .stream()
+                .filter(event -> !event.isProcessed())
+                .sorted(Comparator.comparing(PaymentWebhookEvent::getEventCreatedAt)
+                        .thenComparing(PaymentWebhookEvent::getId))
+                .toList();
+        if (events.isEmpty()) return;
+
+        //locked, so a cancellation either commits first and is seen here, or waits and sees the payment
+        Map<String, Booking> bookings = bookingRepository.lockByBookingReferenceIn(
+                        events.stream().map(PaymentWebhookEvent::getBookingReference).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Booking::getBookingReference, Function.identity()));
+        //a held room only becomes a booking once paid, failed attempts leave the hold to run out;
+        //every charge that cannot be turned into a booking is refunded by the conversion
+        for (PaymentWebhookEvent event : events) {
+            if (event.getPaymentStatus() != PaymentStatus.COMPLETED || bookings.containsKey(event.getBookingReference())) continue;
+            roomHoldService.convert(event.getBookingReference(), event.getTransactionId(), event.getAmount())
+                    .ifPresent(booking -> bookings.put(event.getBookingReference(), booking));
+        }
+
+        List<PaymentEntity> payments = new ArrayList<>();
+        Map<String, PaymentWebhookEvent> outcomes = new HashMap<>();
+        List<RefundRequestedEvent.Refund> refunds = new ArrayList<>();
+        for (PaymentWebhookEvent event : events) {
+            Booking booking = bookings.get(event.getBookingReference());
+            if (booking == null) {
+                log.warn("Dropping payment event {} for unknown booking {}, a charge is refunded", event.getEventId(), event.getBookingReference());
+                continue;
+            }
+            payments.add(toPayment(event, booking));
+            if (event.getPaymentStatus() == PaymentStatus.COMPLETED && event.getAmount().compareTo(booking.getTotalPrice()) != 0) {
+                //the intent was not opened by us for this total, the booking is not paid by it
+                log.error("Payment {} of {} does not match the total {} of booking {}, refunding it", event.getTransactionId(),
+                        event.getAmount(), booking.getTotalPrice(), event.getBookingReference());
+                refunds.add(new RefundRequestedEvent.Refund(booking.getId(), event.getBookingReference(), booking.getUser().getEmail(),
+                        event.getAmount(), false, event.getTransactionId()));
+                continue;
+            }
+            outcomes.merge(event.getBookingReference(), event, PaymentEventProcessor::latestOutcome);
+        }
+        paymentRepository.saveAll(payments); //every attempt is recorded, even the ones that do not change the booking
+
+        Map<PaymentStatus, List<String>> referencesByStatus = new EnumMap<>(PaymentStatus.class);
+        List<NotificationDTO> notifications = new ArrayList<>();
+        outcomes.forEach((reference, event) -> {
+            Booking booking = bookings.get(reference);
+            if (booking.getPaymentStatus() == PaymentStatus.COMPLETED
+                    || booking.getPaymentStatus() == event.getPaymentStatus()) {
+                return;
+            }
+            if (booking.getBookingStatus() == BookingStatus.CANCELLED) {
+                //cancelled by the guest or an expired hold while the payment was under way, the money goes back
+                if (event.getPaymentStatus() == PaymentStatus.COMPLETED) {
+                    refunds.add(new RefundRequestedEvent.Refund(booking.getId(), reference, booking.getUser().getEmail(),
+                            event.getAmount(), false, event.getTransactionId()));
+                }
+                return;
+            }
+            referencesByStatus.computeIfAbsent(event.getPaymentStatus(), status -> new ArrayList<>()).add(reference);
+            clusterService.broadcast(CacheRegion.BOOKING, booking.getId());
+            notifications.add(toNotification(event, booking));
+        });
+        referencesByStatus.forEach((status, references) -> {
+            bookingRepository.updatePaymentStatusByReferences(references, status);
+            bookingEventLog.recordUpdatedByReferences(references, BookingEventType.of(status));
+        });
+
+        if (!refunds.isEmpty()) {
+            applicationEventPublisher.publishEvent(new RefundRequestedEvent(refunds));
+        }
+
+        paymentWebhookEventRepository.markProcessed(events.stream().map(PaymentWebhookEvent::getId).toList());
+        notificationService.sendEmails(notifications);
+        log.info("Applied {} payment events, {} booking payment statuses changed, {} late charges refunded",
+                events.size(), notifications.size(), refunds.size());
+    }
+
+    // gateways deliver out of order: a success always wins, otherwise the most recent attempt does
+    private static PaymentWebhookEvent latestOutcome(PaymentWebhookEvent current, PaymentWebhookEvent candidate) {
+        if (current.getPaymentStatus() == PaymentStatus.COMPLETED) return current;
+        if (candidate.getPaymentStatus() == PaymentStatus.COMPLETED) return candidate;
+        return candidate.getEventCreatedAt().isBefore(current.getEventCreatedAt()) ? current : candidate;
+    }
+
+    private PaymentEntity toPayment(PaymentWebhookEvent event, Booking booking) {
+        PaymentEntity payment = new PaymentEntity();
+        payment.setPaymentStatus(event.getPaymentStatus());
+        payment.setPaymentGateway(PaymentGateway.STRIPE);
+        payment.setPaymentDate(event.getEventCreatedAt());
+        payment.setUser(booking.getUser());
+        payment.setAmount(event.getAmount());
+        payment.setTransactionId(event.getTransactionId());
+        payment.setBookingReference(event.getBookingReference());
+        payment.setFailureReason(event.getFailureReason());
+        return payment;
+    }
+
+    /**
+     * Counts a failed attempt at applying one event and schedules the next one. Returns true when the
+     * event has now failed too often and is parked for someone to look at.
+     */
+    @Transactional
+    public boolean recordFailure(PaymentWebhookEvent event, String error, LocalDateTime nextAttemptAt, int maxAttempts) {
+        String reason = error != null && error.length() > 255 ? error.substring(0, 255) : error;
+        paymentWebhookEventRepository.recordFailure(event.getId(), reason, nextAttemptAt, maxAttempts);
+        return paymentWebhookEventRepository.findById(event.getId())
+                .map(PaymentWebhookEvent::isPoisoned)
+                .orElse(false);
+    }
+
+    private NotificationDTO toNotification(PaymentWebhookEvent event, Booking booking) {
+        NotificationDTO notificationDTO = NotificationDTO.builder()
+                .recipient(booking.getUser().getEmail())
+                .type(NotificationType.EMAIL)
+                .bookingReference(event.getBookingReference())
+                .build();
+        if (event.getPaymentStatus() == PaymentStatus.COMPLETED) {
+            notificationDTO.setSubject("Booking Payment Successful");
+            notificationDTO.setBody("Congratulation!! Your payment for booking with reference: " + event.getBookingReference() + " is successful");
+        } else {
+            notificationDTO.setSubject("Booking Payment Failed");
+            notificationDTO.setBody("Your payment for booking with reference: " + event.getBookingReference() + " failed with reason: " + event.getFailureReason());
+        }
+        return notificationDTO;
+    }
+}
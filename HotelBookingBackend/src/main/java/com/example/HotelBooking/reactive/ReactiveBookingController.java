@@ -0,0 +1,45 @@
+package com.example.HotelBooking.reactive;
+
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.tenancy.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+@Profile("reactive")
+public class ReactiveBookingController {
+
+    private final ReactiveRoomService reactiveRoomService;
+    private final ReactiveBookingService reactiveBookingService;
+    private final TenantContext tenantContext;
+
+    @GetMapping("/rooms/available")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public Mono<ResponseEntity<Response>> getAvailableRooms(
+            @RequestParam LocalDate checkInDate,
+            @RequestParam LocalDate checkOutDate,
+            @RequestParam(required = false) RoomType roomType
+    ){
+        //the tenant lives on the request thread like the security context
+        return reactiveRoomService.getAvailableRooms(tenantContext.getPropertyId(),checkInDate,checkOutDate,roomType).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/bookings/create")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('CUSTOMER')")
+    public Mono<ResponseEntity<Response>> createBooking(@RequestBody BookingDTO bookingDTO){
+        //read on the request thread, the security context is not carried onto reactor threads
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return reactiveBookingService.createBooking(bookingDTO, email).map(ResponseEntity::ok);
+    }
+}
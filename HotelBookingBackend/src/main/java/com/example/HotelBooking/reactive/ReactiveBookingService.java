@@ -0,0 +1,186 @@
+package com.example.HotelBooking.reactive;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.NotificationDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.NotificationType;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.services.BookingCodeGenerator;
+import com.example.HotelBooking.services.BookingDateValidator;
+import com.example.HotelBooking.services.BookingHoldExpiryService;
+import com.example.HotelBooking.services.InventoryService;
+import com.example.HotelBooking.services.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Non-blocking twin of BookingServiceImpl.createBooking. The room row is locked for the duration of the
+ * transaction, so two concurrent requests for the same room cannot both pass the availability check.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveBookingService {
+
+    private final ReactiveDatabase reactiveDatabase;
+    private final BookingCodeGenerator bookingCodeGenerator;
+    private final BookingHoldExpiryService bookingHoldExpiryService;
+    private final NotificationService notificationService;
+    private final ClusterService clusterService;
+
+    public Mono<Response> createBooking(BookingDTO bookingDTO, String email) {
+        DatabaseClient databaseClient = reactiveDatabase.getDatabaseClient();
+        LocalDateTime createdAt = LocalDateTime.now();
+
+        Mono<CreatedBooking> created = Mono.fromRunnable(() -> BookingDateValidator.validate(bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate()))
+                .then(Mono.zip(findUserId(databaseClient, email), lockRoomPrice(databaseClient, bookingDTO.getRoomId())))
+                .flatMap(userAndPrice -> ensureAvailable(databaseClient, bookingDTO, userAndPrice.getT1())
+                        .then(generateReference())
+                        .flatMap(reference -> {
+                            BigDecimal totalPrice = calculateTotalPrice(userAndPrice.getT2(), bookingDTO);
+                            return insertBooking(databaseClient, bookingDTO, userAndPrice.getT1(), totalPrice, reference, createdAt)
+                                    .flatMap(id -> appendCreatedEvent(databaseClient, id, userAndPrice.getT1(), createdAt).thenReturn(id))
+                                    .map(id -> new CreatedBooking(id, reference, totalPrice));
+                        }))
+                .as(reactiveDatabase.getTransactionalOperator()::transactional);
+
+        //side effects only once the booking is committed
+        return created
+                .flatMap(booking -> Mono.fromRunnable(() -> {
+                            bookingHoldExpiryService.track(booking.id(), createdAt);
+                            clusterService.broadcast(CacheRegion.BOOKING, booking.id());
+                            sendConfirmation(email, booking.reference(), booking.totalPrice());
+                        })
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then(Mono.fromSupplier(() -> Response.builder()
+                        .status(200)
+                        .message("Booking Successfull")
+                        .booking(bookingDTO)
+                        .build()));
+    }
+
+    private Mono<Long> findUserId(DatabaseClient databaseClient, String email) {
+        return databaseClient.sql("SELECT id FROM users WHERE email = :email")
+                .bind("email", email)
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .switchIfEmpty(Mono.error(new NotFoundException("User not Found")));
+    }
+
+    private Mono<BigDecimal> lockRoomPrice(DatabaseClient databaseClient, Long roomId) {
+        return databaseClient.sql("SELECT price_per_night FROM rooms WHERE id = :roomId FOR UPDATE")
+                .bind("roomId", roomId)
+                .map(row -> row.get("price_per_night", BigDecimal.class))
+                .one()
+                .switchIfEmpty(Mono.error(new NotFoundException("Room not Found")));
+    }
+
+    // under the room lock, so neither a booking nor another guest's hold can be added meanwhile
+    private Mono<Void> ensureAvailable(DatabaseClient databaseClient, BookingDTO bookingDTO, Long userId) {
+        return databaseClient.sql("""
+                        SELECT (SELECT COUNT(*) FROM bookings
+                                WHERE room_id = :roomId
+                                  AND :checkInDate <= check_out_date
+                                  AND :checkOutDate >= check_in_date
+                                  AND booking_status IN ('BOOKED', 'CHECKED_IN'))
+                             + (SELECT COUNT(*) FROM room_holds
+                                WHERE room_id = :roomId
+                                  AND user_id <> :userId
+                                  AND expires_at > localtimestamp
+                                  AND :checkInDate <= check_out_date
+                                  AND :checkOutDate >= check_in_date) AS clashes
+                        """)
+                .bind("roomId", bookingDTO.getRoomId())
+                .bind("userId", userId)
+                .bind("checkInDate", bookingDTO.getCheckInDate())
+                .bind("checkOutDate", bookingDTO.getCheckOutDate())
+                .map(row -> row.get("clashes", Long.class))
+                .one()
+                .flatMap(clashes -> clashes == 0
+                        ? Mono.<Void>empty()
+                        : Mono.error(new NotFoundException("Room not available for the give date ranges")));
+    }
+
+    private Mono<String> generateReference() {
+        return Mono.fromCallable(bookingCodeGenerator::generateBookingReference)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Long> insertBooking(DatabaseClient databaseClient, BookingDTO bookingDTO, Long userId,
+                                     BigDecimal totalPrice, String reference, LocalDateTime createdAt) {
+        return databaseClient.sql("""
+                        INSERT INTO bookings (booking_reference, booking_status, payment_status, check_in_date,
+                                              check_out_date, total_price, created_at, updated_at, room_id, user_id,
+                                              room_type, property_id, channel, inventory_reserved, room_chosen)
+                        VALUES (:reference, :bookingStatus, :paymentStatus, :checkInDate,
+                                :checkOutDate, :totalPrice, :createdAt, :createdAt, :roomId, :userId,
+                                (SELECT room_type FROM rooms WHERE id = :roomId),
+                                (SELECT property_id FROM rooms WHERE id = :roomId), :channel, false, true)
+                        RETURNING id
+                        """)
+                .bind("reference", reference)
+                .bind("bookingStatus", BookingStatus.BOOKED.name())
+                .bind("paymentStatus", PaymentStatus.PENDING.name())
+                .bind("checkInDate", bookingDTO.getCheckInDate())
+                .bind("checkOutDate", bookingDTO.getCheckOutDate())
+                .bind("totalPrice", totalPrice)
+                .bind("createdAt", createdAt)
+                .bind("roomId", bookingDTO.getRoomId())
+                .bind("userId", userId)
+                .bind("channel", InventoryService.DIRECT_CHANNEL)
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    // same row BookingEventLog writes for the blocking path, inside the same transaction as the insert
+    private Mono<Void> appendCreatedEvent(DatabaseClient databaseClient, Long bookingId, Long userId, LocalDateTime createdAt) {
+        return databaseClient.sql("""
+                        INSERT INTO booking_events (booking_id, type, actor_id, occurred_at, booking_status, payment_status,
+                                                    room_id, check_in_date, check_out_date, total_price)
+                        SELECT id, :type, :actorId, :occurredAt, booking_status, payment_status,
+                               room_id, check_in_date, check_out_date, total_price
+                        FROM bookings
+                        WHERE id = :bookingId
+                        """)
+                .bind("type", BookingEventType.CREATED.name())
+                .bind("actorId", userId)
+                .bind("occurredAt", createdAt)
+                .bind("bookingId", bookingId)
+                .then();
+    }
+
+    private BigDecimal calculateTotalPrice(BigDecimal pricePerNight, BookingDTO bookingDTO) {
+        long days = ChronoUnit.DAYS.between(bookingDTO.getCheckInDate(), bookingDTO.getCheckOutDate());
+        return pricePerNight.multiply(BigDecimal.valueOf(days));
+    }
+
+    private void sendConfirmation(String email, String bookingReference, BigDecimal totalPrice) {
+        String paymentUrl = "http://localhost:3000/payment"+bookingReference+"/"+totalPrice;
+        notificationService.sendEmail(NotificationDTO.builder()
+                .type(NotificationType.EMAIL)
+                .recipient(email)
+                .body(String.format("Your booking has been created. Proceed with your payment using the link below "+
+                        "\nn%s",paymentUrl))
+                .subject("Booking Confirmation")
+                .bookingReference(bookingReference)
+                .build());
+    }
+
+    private record CreatedBooking(Long id, String reference, BigDecimal totalPrice) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.HotelBooking.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.Getter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * R2DBC access for the reactive endpoints. The pool and its transaction manager are deliberately not
+ * beans: a ConnectionFactory bean switches off the JDBC DataSource auto-configuration, and a second
+ * transaction manager bean would take over the JPA one used by every @Transactional service.
+ */
+@Component
+@Profile("reactive")
+@Getter
+public class ReactiveDatabase implements DisposableBean {
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveDatabase(@Value("${reactive.r2dbc.url}") String url,
+                            @Value("${reactive.r2dbc.username}") String username,
+                            @Value("${reactive.r2dbc.password}") String password,
+                            @Value("${reactive.r2dbc.pool.initial-size:5}") int initialSize,
+                            @Value("${reactive.r2dbc.pool.max-size:20}") int maxSize) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
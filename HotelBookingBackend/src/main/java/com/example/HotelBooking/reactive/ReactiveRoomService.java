@@ -0,0 +1,78 @@
+package com.example.HotelBooking.reactive;
+
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.services.BookingDateValidator;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveRoomService {
+
+    // same rule as RoomRepository.findAvailableRooms
+    private static final String AVAILABLE_ROOMS_SQL = """
+            SELECT r.id, r.property_id, r.room_number, r.room_type, r.price_per_night, r.capacity, r.description, r.image_url
+            FROM rooms r
+            WHERE r.property_id = :propertyId
+              AND NOT EXISTS (
+                    SELECT 1 FROM bookings b
+                    WHERE b.room_id = r.id
+                      AND :checkInDate <= b.check_out_date
+                      AND :checkOutDate >= b.check_in_date
+                      AND b.booking_status IN ('BOOKED', 'CHECKED_IN')
+                  )
+              AND NOT EXISTS (
+                    SELECT 1 FROM room_holds h
+                    WHERE h.room_id = r.id
+                      AND h.expires_at > localtimestamp
+                      AND :checkInDate <= h.check_out_date
+                      AND :checkOutDate >= h.check_in_date
+                  )
+              AND (CAST(:roomType AS VARCHAR) IS NULL OR r.room_type = :roomType)
+            """;
+
+    private final ReactiveDatabase reactiveDatabase;
+
+    public Mono<Response> getAvailableRooms(Long propertyId, LocalDate checkInDate, LocalDate checkOutDate, RoomType roomType) {
+        return Mono.fromRunnable(() -> BookingDateValidator.validate(checkInDate, checkOutDate))
+                .thenMany(bindRoomType(reactiveDatabase.getDatabaseClient().sql(AVAILABLE_ROOMS_SQL)
+                        .bind("propertyId", propertyId)
+                        .bind("checkInDate", checkInDate)
+                        .bind("checkOutDate", checkOutDate), roomType)
+                        .map(ReactiveRoomService::toRoomDTO)
+                        .all())
+                .collectList()
+                .map(rooms -> Response.builder()
+                        .status(200)
+                        .message("Success")
+                        .rooms(rooms)
+                        .build());
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindRoomType(DatabaseClient.GenericExecuteSpec spec, RoomType roomType) {
+        return roomType == null ? spec.bindNull("roomType", String.class) : spec.bind("roomType", roomType.name());
+    }
+
+    private static RoomDTO toRoomDTO(Readable row) {
+        return RoomDTO.builder()
+                .id(row.get("id", Long.class))
+                .propertyId(row.get("property_id", Long.class))
+                .roomNumber(row.get("room_number", Integer.class))
+                .type(RoomType.valueOf(row.get("room_type", String.class)))
+                .pricePerNight(row.get("price_per_night", BigDecimal.class))
+                .capacity(row.get("capacity", Integer.class))
+                .description(row.get("description", String.class))
+                .imageUrl(row.get("image_url", String.class))
+                .build();
+    }
+}
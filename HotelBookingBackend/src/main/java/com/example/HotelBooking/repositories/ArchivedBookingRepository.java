@@ -0,0 +1,48 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.ArchivedBooking;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+
+    Optional<ArchivedBooking> findByBookingReference(String bookingReference);
+
+    List<ArchivedBooking> findByUserId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedBooking a WHERE a.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // delete and insert in one statement, so a batch is either fully moved or not at all
+    @Modifying
+    @Query(value = """
+                WITH moved AS (
+                    DELETE FROM bookings
+                    WHERE id IN (
+                        SELECT id FROM bookings
+                        WHERE booking_status IN ('CHECKED_OUT', 'CANCELLED')
+                          AND check_out_date < :cutoffDate
+                        ORDER BY id
+                        LIMIT :batchSize
+                        FOR UPDATE SKIP LOCKED
+                    )
+                    RETURNING id, user_id, room_id, property_id, room_type, channel, inventory_reserved, payment_status,
+                              check_in_date, check_out_date, total_price, booking_reference, created_at, booking_status
+                )
+                INSERT INTO bookings_archive (id, user_id, room_id, property_id, room_type, channel, inventory_reserved, payment_status,
+                                              check_in_date, check_out_date, total_price, booking_reference, created_at,
+                                              booking_status, archived_at)
+                SELECT id, user_id, room_id, property_id, room_type, channel, inventory_reserved, payment_status,
+                       check_in_date, check_out_date, total_price, booking_reference, created_at,
+                       booking_status, now()
+                FROM moved
+            """, nativeQuery = true)
+    int archiveClosedBookings(@Param("cutoffDate") LocalDate cutoffDate, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,39 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.BookingDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BookingDailyStatsRepository extends JpaRepository<BookingDailyStats, LocalDate> {
+
+    List<BookingDailyStats> findByDayBetweenOrderByDay(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM BookingDailyStats s")
+    int deleteAllDays();
+
+    // increments commute, so replay partitions can add to the same day in any order
+    @Modifying
+    @Query(value = """
+                INSERT INTO booking_daily_stats (day, bookings_created, bookings_cancelled, payments_completed,
+                                                 payments_failed, refunds, revenue, refunded_amount)
+                VALUES (:day, :created, :cancelled, :paid, :failed, :refunds, :revenue, :refundedAmount)
+                ON CONFLICT (day) DO UPDATE SET
+                    bookings_created = booking_daily_stats.bookings_created + EXCLUDED.bookings_created,
+                    bookings_cancelled = booking_daily_stats.bookings_cancelled + EXCLUDED.bookings_cancelled,
+                    payments_completed = booking_daily_stats.payments_completed + EXCLUDED.payments_completed,
+                    payments_failed = booking_daily_stats.payments_failed + EXCLUDED.payments_failed,
+                    refunds = booking_daily_stats.refunds + EXCLUDED.refunds,
+                    revenue = booking_daily_stats.revenue + EXCLUDED.revenue,
+                    refunded_amount = booking_daily_stats.refunded_amount + EXCLUDED.refunded_amount
+            """, nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("created") long created, @Param("cancelled") long cancelled,
+            @Param("paid") long paid, @Param("failed") long failed, @Param("refunds") long refunds,
+            @Param("revenue") BigDecimal revenue, @Param("refundedAmount") BigDecimal refundedAmount);
+}
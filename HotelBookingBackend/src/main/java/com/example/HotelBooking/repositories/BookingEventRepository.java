@@ -0,0 +1,70 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.BookingEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+
+    List<BookingEvent> findByBookingIdOrderById(Long bookingId);
+
+    @Query("SELECT e FROM BookingEvent e WHERE e.id > :afterId ORDER BY e.id")
+    List<BookingEvent> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT e FROM BookingEvent e WHERE e.id > :afterId AND e.id <= :upToId ORDER BY e.id")
+    List<BookingEvent> findBetween(@Param("afterId") long afterId, @Param("upToId") long upToId, Pageable pageable);
+
+    /*
+     * Transaction visibility, for telling an id that is still being written from one that rolled back.
+     * Every transaction below the oldest running xid has ended; none at or above the next xid had started.
+     */
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long findOldestRunningXid();
+
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmax(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long findNextXid();
+
+    //the last id handed out, committed or not; null before the first insert
+    @Query(value = "SELECT pg_sequence_last_value(CAST(pg_get_serial_sequence('booking_events', 'id') AS regclass))", nativeQuery = true)
+    Long findLastAllocatedId();
+
+    /*
+     * Bulk JPQL updates stamp updated_at with LOCAL DATETIME, which Postgres fixes at the start of the
+     * transaction. Matching on it picks exactly the rows this transaction's update changed, not the ids
+     * the guard of the update skipped.
+     */
+    @Modifying
+    @Query(value = """
+                INSERT INTO booking_events (booking_id, type, actor_id, occurred_at, booking_status, payment_status,
+                                            room_id, check_in_date, check_out_date, total_price)
+                SELECT b.id, CAST(:type AS varchar), CAST(:actorId AS bigint), :occurredAt, b.booking_status, b.payment_status,
+                       b.room_id, b.check_in_date, b.check_out_date, b.total_price
+                FROM bookings b
+                WHERE b.id IN :ids
+                  AND b.updated_at = LOCALTIMESTAMP
+                ORDER BY b.id
+            """, nativeQuery = true)
+    int appendUpdated(@Param("ids") Collection<Long> ids, @Param("type") String type, @Param("actorId") Long actorId,
+                      @Param("occurredAt") LocalDateTime occurredAt);
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO booking_events (booking_id, type, actor_id, occurred_at, booking_status, payment_status,
+                                            room_id, check_in_date, check_out_date, total_price)
+                SELECT b.id, CAST(:type AS varchar), CAST(:actorId AS bigint), :occurredAt, b.booking_status, b.payment_status,
+                       b.room_id, b.check_in_date, b.check_out_date, b.total_price
+                FROM bookings b
+                WHERE b.booking_reference IN :references
+                  AND b.updated_at = LOCALTIMESTAMP
+                ORDER BY b.id
+            """, nativeQuery = true)
+    int appendUpdatedByReferences(@Param("references") Collection<String> references, @Param("type") String type,
+                                  @Param("actorId") Long actorId, @Param("occurredAt") LocalDateTime occurredAt);
+}
@@ -1,11 +1,22 @@
 package com.example.HotelBooking.repositories;
 
 import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,9 +24,25 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     List<Booking> findByUserId(Long userId); // Fetch all bookings for a specific user
 
+    List<Booking> findByPropertyId(Long propertyId, Sort sort);
+
 
     Optional<Booking> findByBookingReference(String bookingReference);
 
+    // serializes cancellations, date changes and payments of one booking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.bookingReference = :bookingReference")
+    Optional<Booking> findByBookingReferenceForUpdate(@Param("bookingReference") String bookingReference);
+
+    // in id order, so two batches sharing bookings cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.bookingReference IN :bookingReferences ORDER BY b.id")
+    List<Booking> lockByBookingReferenceIn(@Param("bookingReferences") Collection<String> bookingReferences);
+
+    List<Booking> findByBookingReferenceIn(Collection<String> bookingReferences);
+
+    List<BookingHoldView> findByBookingStatusAndPaymentStatusNot(BookingStatus bookingStatus, PaymentStatus paymentStatus);
+
 
     @Query("""
                SELECT CASE WHEN COUNT(b) = 0 THEN true ELSE false END
@@ -28,4 +55,286 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     boolean isRoomAvailable(@Param("roomId") Long roomId,
                             @Param("checkInDate") LocalDate checkInDate,
                             @Param("checkOutDate") LocalDate checkOutDate);
+
+    // a completed payment is final, so a late or replayed failure never downgrades it; a cancelled booking is refunded, not paid
+    @Modifying
+    @Query("""
+                UPDATE Booking b
+                SET b.paymentStatus = :paymentStatus, b.updatedAt = LOCAL DATETIME, b.version = b.version + 1
+                WHERE b.bookingReference IN :bookingReferences
+                  AND b.paymentStatus <> 'COMPLETED'
+                  AND b.bookingStatus <> 'CANCELLED'
+            """)
+    int updatePaymentStatusByReferences(@Param("bookingReferences") Collection<String> bookingReferences,
+                                        @Param("paymentStatus") PaymentStatus paymentStatus);
+
+    /*
+     * Guarded so that a booking paid while its hold was waiting in the queue is left alone; one whose payment
+     * failed expires like one never paid. The payment status stays as it was, the EXPIRED event says why it was
+     * cancelled. Returns the ids it actually expired, so only their inventory is given back; updated_at uses the
+     * same transaction timestamp as the JPQL updates for the booking event log.
+     */
+    @Query(value = """
+                UPDATE bookings
+                SET booking_status = 'CANCELLED', updated_at = LOCALTIMESTAMP, version = version + 1
+                WHERE id IN :ids
+                  AND booking_status = 'BOOKED'
+                  AND payment_status <> 'COMPLETED'
+                RETURNING id
+            """, nativeQuery = true)
+    List<Long> expireUnpaidBookings(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+                SELECT b.propertyId AS propertyId, b.roomType AS roomType, b.channel AS channel,
+                       b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate
+                FROM Booking b
+                WHERE b.id IN :ids
+                  AND b.inventoryReserved = true
+            """)
+    List<InventoryClaimView> findInventoryClaims(@Param("ids") Collection<Long> ids);
+
+    // sold by type and still waiting for a room, each needs one of the free rooms of its type
+    @Query("""
+                SELECT COUNT(b) FROM Booking b
+                WHERE b.propertyId = :propertyId
+                  AND b.roomType = :roomType
+                  AND b.room IS NULL
+                  AND :checkInDate <= b.checkOutDate
+                  AND :checkOutDate >= b.checkInDate
+                  AND b.bookingStatus IN ('BOOKED', 'CHECKED_IN')
+            """)
+    long countUnassigned(@Param("propertyId") Long propertyId,
+                         @Param("roomType") RoomType roomType,
+                         @Param("checkInDate") LocalDate checkInDate,
+                         @Param("checkOutDate") LocalDate checkOutDate);
+
+    @Modifying
+    @Query("""
+                UPDATE Booking b
+                SET b.paymentStatus = 'REFUNDED', b.updatedAt = LOCAL DATETIME, b.version = b.version + 1
+                WHERE b.bookingReference IN :bookingReferences
+                  AND b.paymentStatus = 'COMPLETED'
+            """)
+    int markRefunded(@Param("bookingReferences") Collection<String> bookingReferences);
+
+    @Query("""
+               SELECT CASE WHEN COUNT(b) = 0 THEN true ELSE false END
+                FROM Booking b
+                WHERE b.room.id = :roomId
+                  AND b.id <> :bookingId
+                  AND :checkInDate <= b.checkOutDate
+                  AND :checkOutDate >= b.checkInDate
+                  AND b.bookingStatus IN ('BOOKED', 'CHECKED_IN')
+            """)
+    boolean isRoomAvailableExcluding(@Param("roomId") Long roomId,
+                                     @Param("checkInDate") LocalDate checkInDate,
+                                     @Param("checkOutDate") LocalDate checkOutDate,
+                                     @Param("bookingId") Long bookingId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+                SELECT b FROM Booking b
+                JOIN FETCH b.user
+                WHERE b.room.id = :roomId
+                  AND :fromDate <= b.checkOutDate
+                  AND (:toDate IS NULL OR :toDate >= b.checkInDate)
+                  AND b.bookingStatus = 'BOOKED'
+            """)
+    List<Booking> lockBookedForRoom(@Param("roomId") Long roomId,
+                                    @Param("fromDate") LocalDate fromDate,
+                                    @Param("toDate") LocalDate toDate);
+
+    @Modifying
+    @Query("""
+                UPDATE Booking b
+                SET b.bookingStatus = 'CANCELLED', b.updatedAt = LOCAL DATETIME, b.version = b.version + 1
+                WHERE b.id IN :ids
+                  AND b.bookingStatus = 'BOOKED'
+            """)
+    int cancelBookings(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+                SELECT b.id AS id, b.bookingReference AS bookingReference, b.bookingStatus AS bookingStatus,
+                       r.id AS roomId, r.roomNumber AS roomNumber, b.propertyId AS propertyId, b.roomType AS roomType,
+                       b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate
+                FROM Booking b
+                LEFT JOIN b.room r
+                WHERE b.bookingReference IN :bookingReferences
+            """)
+    List<TransitionView> findTransitionViews(@Param("bookingReferences") Collection<String> bookingReferences);
+
+    // the from status guard is the state machine: a row moved by someone else in the meantime is left alone
+    @Modifying
+    @Query("""
+                UPDATE Booking b
+                SET b.bookingStatus = :toStatus, b.updatedAt = LOCAL DATETIME, b.version = b.version + 1
+                WHERE b.id IN :ids
+                  AND b.bookingStatus = :fromStatus
+            """)
+    int transitionStatus(@Param("ids") Collection<Long> ids,
+                         @Param("fromStatus") BookingStatus fromStatus,
+                         @Param("toStatus") BookingStatus toStatus);
+
+    @Query("""
+                SELECT b.id AS id, b.bookingReference AS bookingReference, b.bookingStatus AS bookingStatus,
+                       b.paymentStatus AS paymentStatus, b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate,
+                       b.roomType AS roomType, r.id AS roomId, r.roomNumber AS roomNumber,
+                       u.firstName AS firstName, u.lastName AS lastName, u.email AS email, u.phoneNumber AS phoneNumber
+                FROM Booking b
+                JOIN b.user u
+                LEFT JOIN b.room r
+                WHERE b.propertyId = :propertyId
+                  AND ((b.checkInDate = :date AND b.bookingStatus = 'BOOKED')
+                   OR (b.checkOutDate = :date AND b.bookingStatus = 'CHECKED_IN'))
+                ORDER BY r.roomNumber, b.id
+            """)
+    List<FrontDeskView> findArrivalsAndDepartures(@Param("propertyId") Long propertyId, @Param("date") LocalDate date);
+
+    @Query("""
+                SELECT b.room.id AS roomId, b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate
+                FROM Booking b
+                WHERE b.propertyId = :propertyId
+                  AND b.room IS NOT NULL
+                  AND :fromDate <= b.checkOutDate
+                  AND :toDate >= b.checkInDate
+                  AND b.bookingStatus IN ('BOOKED', 'CHECKED_IN')
+            """)
+    List<BookedIntervalView> findActiveIntervals(@Param("propertyId") Long propertyId,
+                                                 @Param("fromDate") LocalDate fromDate,
+                                                 @Param("toDate") LocalDate toDate);
+
+    @Query("""
+                SELECT b.id AS id, b.room.id AS roomId, b.checkInDate AS checkInDate,
+                       b.checkOutDate AS checkOutDate, b.bookingStatus AS bookingStatus, b.roomChosen AS roomChosen
+                FROM Booking b
+                WHERE b.room.propertyId = :propertyId
+                  AND b.room.type = :roomType
+                  AND b.checkOutDate >= :fromDate
+                  AND b.bookingStatus IN ('BOOKED', 'CHECKED_IN')
+            """)
+    List<AssignedStayView> findAssignedStays(@Param("propertyId") Long propertyId,
+                                             @Param("roomType") RoomType roomType,
+                                             @Param("fromDate") LocalDate fromDate);
+
+    // only stays that have not started, and whose room the guest did not pick, can change room
+    @Modifying
+    @Query("""
+                UPDATE Booking b
+                SET b.room = :room, b.updatedAt = LOCAL DATETIME, b.version = b.version + 1
+                WHERE b.id IN :ids
+                  AND b.bookingStatus = 'BOOKED'
+                  AND b.roomChosen = false
+            """)
+    int reassignRoom(@Param("ids") Collection<Long> ids, @Param("room") Room room);
+
+    @Query("""
+                SELECT b.id AS id, b.room.id AS roomId, b.bookingStatus AS bookingStatus,
+                       b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate, b.updatedAt AS updatedAt
+                FROM Booking b
+                WHERE b.room IS NOT NULL
+                  AND b.bookingStatus IN ('BOOKED', 'CHECKED_IN')
+            """)
+    List<StayView> findActiveStays();
+
+    // every status, so that stays which were cancelled or checked out since are dropped as well
+    @Query("""
+                SELECT b.id AS id, r.id AS roomId, b.bookingStatus AS bookingStatus,
+                       b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate, b.updatedAt AS updatedAt
+                FROM Booking b
+                LEFT JOIN b.room r
+                WHERE b.updatedAt > :since
+            """)
+    List<StayView> findChangedSince(@Param("since") LocalDateTime since);
+
+    // flat columns for the change feed, no user or room entities behind them
+    @Query("""
+                SELECT b.id AS id, b.bookingReference AS bookingReference, r.id AS roomId, b.propertyId AS propertyId,
+                       b.roomType AS roomType, b.channel AS channel, b.bookingStatus AS bookingStatus, b.paymentStatus AS paymentStatus,
+                       b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate, b.totalPrice AS totalPrice,
+                       b.createdAt AS createdAt
+                FROM Booking b
+                LEFT JOIN b.room r
+                WHERE b.id IN :ids
+            """)
+    List<ChangeView> findChangeViews(@Param("ids") Collection<Long> ids);
+
+    interface StayView {
+        Long getId();
+        Long getRoomId();
+        BookingStatus getBookingStatus();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+        LocalDateTime getUpdatedAt();
+    }
+
+    interface ChangeView {
+        Long getId();
+        String getBookingReference();
+        Long getRoomId();
+        Long getPropertyId();
+        RoomType getRoomType();
+        String getChannel();
+        BookingStatus getBookingStatus();
+        PaymentStatus getPaymentStatus();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+        BigDecimal getTotalPrice();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface BookedIntervalView {
+        Long getRoomId();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+    }
+
+    interface TransitionView {
+        Long getId();
+        String getBookingReference();
+        BookingStatus getBookingStatus();
+        Long getRoomId();
+        Integer getRoomNumber();
+        Long getPropertyId();
+        RoomType getRoomType();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+    }
+
+    interface FrontDeskView {
+        Long getId();
+        String getBookingReference();
+        BookingStatus getBookingStatus();
+        PaymentStatus getPaymentStatus();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+        RoomType getRoomType();
+        Long getRoomId();
+        Integer getRoomNumber();
+        String getFirstName();
+        String getLastName();
+        String getEmail();
+        String getPhoneNumber();
+    }
+
+    interface AssignedStayView {
+        Long getId();
+        Long getRoomId();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+        BookingStatus getBookingStatus();
+        Boolean getRoomChosen();
+    }
+
+    interface InventoryClaimView {
+        Long getPropertyId();
+        RoomType getRoomType();
+        String getChannel();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+    }
+
+    interface BookingHoldView {
+        Long getId();
+        LocalDateTime getCreatedAt();
+    }
 }
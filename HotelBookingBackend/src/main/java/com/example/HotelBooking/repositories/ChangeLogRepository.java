@@ -0,0 +1,25 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("SELECT c FROM ChangeLogEntry c WHERE c.seq > :after ORDER BY c.seq")
+    List<ChangeLogEntry> findAfter(@Param("after") long after, Pageable pageable);
+
+    // the counter only moves on commit, so this is the newest change anyone can see
+    @Query(value = "SELECT value FROM change_sequence WHERE id = 1", nativeQuery = true)
+    Long findHead();
+
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.changedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,65 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.InventoryAllotment;
+import com.example.HotelBooking.enums.RoomType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface InventoryAllotmentRepository extends JpaRepository<InventoryAllotment, Long> {
+
+    List<InventoryAllotment> findByPropertyIdAndRoomTypeAndChannelAndStayDateBetweenOrderByStayDate(Long propertyId, RoomType roomType,
+                                                                                                      String channel, LocalDate fromDate,
+                                                                                                      LocalDate toDate);
+
+    @Query("""
+                SELECT COUNT(a) FROM InventoryAllotment a
+                WHERE a.propertyId = :propertyId
+                  AND a.roomType = :roomType
+                  AND a.channel = :channel
+                  AND a.stayDate >= :fromDate
+                  AND a.stayDate < :toDate
+            """)
+    long countNights(@Param("propertyId") Long propertyId,
+                     @Param("roomType") RoomType roomType,
+                     @Param("channel") String channel,
+                     @Param("fromDate") LocalDate fromDate,
+                     @Param("toDate") LocalDate toDate);
+
+    // takes one unit of the night unless it is sold out; 0 rows updated means nothing was taken
+    @Modifying
+    @Query("""
+                UPDATE InventoryAllotment a
+                SET a.remaining = a.remaining - 1
+                WHERE a.propertyId = :propertyId
+                  AND a.roomType = :roomType
+                  AND a.channel = :channel
+                  AND a.stayDate = :stayDate
+                  AND a.remaining > 0
+            """)
+    int takeNight(@Param("propertyId") Long propertyId,
+                  @Param("roomType") RoomType roomType,
+                  @Param("channel") String channel,
+                  @Param("stayDate") LocalDate stayDate);
+
+    @Modifying
+    @Query("""
+                UPDATE InventoryAllotment a
+                SET a.remaining = a.remaining + 1
+                WHERE a.propertyId = :propertyId
+                  AND a.roomType = :roomType
+                  AND a.channel = :channel
+                  AND a.stayDate >= :fromDate
+                  AND a.stayDate < :toDate
+                  AND a.remaining < a.allotment
+            """)
+    int releaseNights(@Param("propertyId") Long propertyId,
+                      @Param("roomType") RoomType roomType,
+                      @Param("channel") String channel,
+                      @Param("fromDate") LocalDate fromDate,
+                      @Param("toDate") LocalDate toDate);
+}
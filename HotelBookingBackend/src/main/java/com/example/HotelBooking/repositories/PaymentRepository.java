@@ -1,7 +1,39 @@
 package com.example.HotelBooking.repositories;
 
 import com.example.HotelBooking.entities.PaymentEntity;
+import com.example.HotelBooking.enums.PaymentGateway;
+import com.example.HotelBooking.enums.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<PaymentEntity, Long> {
+
+    List<PaymentEntity> findByBookingReferenceInAndPaymentStatus(Collection<String> bookingReferences, PaymentStatus paymentStatus);
+
+    // flat columns for the change feed, the user behind a payment is not loaded
+    @Query("""
+                SELECT p.id AS id, p.transactionId AS transactionId, p.amount AS amount, p.paymentGateway AS paymentGateway,
+                       p.paymentDate AS paymentDate, p.paymentStatus AS paymentStatus,
+                       p.bookingReference AS bookingReference, p.failureReason AS failureReason
+                FROM PaymentEntity p
+                WHERE p.id IN :ids
+            """)
+    List<ChangeView> findChangeViews(@Param("ids") Collection<Long> ids);
+
+    interface ChangeView {
+        Long getId();
+        String getTransactionId();
+        BigDecimal getAmount();
+        PaymentGateway getPaymentGateway();
+        LocalDateTime getPaymentDate();
+        PaymentStatus getPaymentStatus();
+        String getBookingReference();
+        String getFailureReason();
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.PaymentWebhookEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+
+    Optional<PaymentWebhookEvent> findByEventId(String eventId);
+
+    List<PaymentWebhookEvent> findByProcessedFalseAndPoisonedFalseOrderByIdAsc(); // events received but not yet applied, e.g. before a restart
+
+    // failed ones whose backoff is over, and ones that never made it through a lane at all
+    @Query("""
+                SELECT e FROM PaymentWebhookEvent e
+                WHERE e.processed = false
+                  AND e.poisoned = false
+                  AND (e.nextAttemptAt <= :now OR (e.nextAttemptAt IS NULL AND e.receivedAt < :staleBefore))
+                ORDER BY e.id
+            """)
+    List<PaymentWebhookEvent> findRetryable(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore,
+                                            Pageable pageable);
+
+    @Modifying
+    @Query("""
+                UPDATE PaymentWebhookEvent e
+                SET e.attempts = e.attempts + 1,
+                    e.nextAttemptAt = :nextAttemptAt,
+                    e.lastError = :error,
+                    e.poisoned = CASE WHEN e.attempts + 1 >= :maxAttempts THEN true ELSE false END
+                WHERE e.id = :id
+                  AND e.processed = false
+            """)
+    int recordFailure(@Param("id") Long id, @Param("error") String error, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("UPDATE PaymentWebhookEvent e SET e.processed = true WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,7 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.ProjectionOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProjectionOffsetRepository extends JpaRepository<ProjectionOffset, String> {
+}
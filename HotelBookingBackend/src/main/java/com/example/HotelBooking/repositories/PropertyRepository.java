@@ -0,0 +1,11 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.Property;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface PropertyRepository extends JpaRepository<Property, Long> {
+
+    Optional<Property> findByCode(String code);
+}
@@ -0,0 +1,28 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    List<RevokedToken> findByRefreshFalseAndExpiresAtAfter(LocalDateTime now);
+
+    // 0 when the token was revoked already, so of two concurrent uses of a refresh token only one gets 1
+    @Modifying
+    @Query(value = """
+                INSERT INTO revoked_tokens (jti, expires_at, refresh)
+                VALUES (:jti, :expiresAt, :refresh)
+                ON CONFLICT (jti) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("jti") String jti, @Param("expiresAt") LocalDateTime expiresAt, @Param("refresh") boolean refresh);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,68 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.RoomHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface RoomHoldRepository extends JpaRepository<RoomHold, Long> {
+
+    Optional<RoomHold> findByHoldReference(String holdReference);
+
+    // the payment that converts the hold and a release by the guest must not both go through
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM RoomHold h WHERE h.holdReference = :holdReference")
+    Optional<RoomHold> findByHoldReferenceForUpdate(@Param("holdReference") String holdReference);
+
+    @Query("SELECT h FROM RoomHold h WHERE h.expiresAt > LOCAL DATETIME")
+    List<RoomHold> findActive();
+
+    @Query("SELECT h FROM RoomHold h WHERE h.roomId = :roomId AND h.expiresAt > LOCAL DATETIME")
+    List<RoomHold> findActiveByRoomId(@Param("roomId") Long roomId);
+
+    @Query("SELECT h FROM RoomHold h WHERE h.roomId IN :roomIds AND h.expiresAt > LOCAL DATETIME")
+    List<RoomHold> findActiveByRoomIdIn(@Param("roomIds") Collection<Long> roomIds);
+
+    // same inclusive overlap rule as BookingRepository.isRoomAvailable, the guest's own holds do not count
+    @Query("""
+                SELECT COUNT(h) > 0 FROM RoomHold h
+                WHERE h.roomId = :roomId
+                AND (:userId IS NULL OR h.userId <> :userId)
+                AND h.expiresAt > LOCAL DATETIME
+                AND :checkInDate <= h.checkOutDate
+                AND :checkOutDate >= h.checkInDate
+            """)
+    boolean isHeldByOthers(@Param("roomId") Long roomId,
+                           @Param("checkInDate") LocalDate checkInDate,
+                           @Param("checkOutDate") LocalDate checkOutDate,
+                           @Param("userId") Long userId);
+
+    @Query("""
+                SELECT h FROM RoomHold h
+                WHERE h.roomId = :roomId
+                AND h.userId = :userId
+                AND h.checkInDate = :checkInDate
+                AND h.checkOutDate = :checkOutDate
+                AND h.expiresAt > LOCAL DATETIME
+            """)
+    Optional<RoomHold> findActiveOwnHold(@Param("roomId") Long roomId,
+                                         @Param("checkInDate") LocalDate checkInDate,
+                                         @Param("checkOutDate") LocalDate checkOutDate,
+                                         @Param("userId") Long userId);
+
+    @Query("SELECT COUNT(h) FROM RoomHold h WHERE h.userId = :userId AND h.expiresAt > LOCAL DATETIME")
+    long countActiveByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM RoomHold h WHERE h.expiresAt <= :before")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -2,12 +2,19 @@ package com.example.HotelBooking.repositories;
 
 import com.example.HotelBooking.entities.Room;
 import com.example.HotelBooking.enums.RoomType;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
 
@@ -15,31 +22,94 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     @Query("""
             SELECT r FROM Room r
             WHERE
-                r.id NOT IN (
+                r.propertyId = :propertyId
+                AND r.id NOT IN (
                     SELECT b.room.id
                     FROM Booking b
-                    WHERE :checkInDate <= b.checkOutDate
+                    WHERE b.propertyId = :propertyId
+                    AND b.room IS NOT NULL
+                    AND :checkInDate <= b.checkOutDate
                     AND :checkOutDate >= b.checkInDate
                     AND b.bookingStatus IN ('BOOKED', 'CHECKED_IN')
                 )
+                AND r.id NOT IN (
+                    SELECT h.roomId
+                    FROM RoomHold h
+                    WHERE h.expiresAt > LOCAL DATETIME
+                    AND :checkInDate <= h.checkOutDate
+                    AND :checkOutDate >= h.checkInDate
+                )
                 AND (:roomType IS NULL OR r.type = :roomType)
             """)
     List<Room> findAvailableRooms(
+            @Param("propertyId") Long propertyId,
             @Param("checkInDate") LocalDate checkInDate,
             @Param("checkOutDate") LocalDate checkOutDate,
             @Param("roomType") RoomType roomType
     );
 
 
+    @Query("""
+            SELECT COUNT(r) FROM Room r
+            WHERE r.propertyId = :propertyId
+                AND r.type = :roomType
+                AND r.id NOT IN (
+                    SELECT b.room.id
+                    FROM Booking b
+                    WHERE b.propertyId = :propertyId
+                    AND b.room IS NOT NULL
+                    AND :checkInDate <= b.checkOutDate
+                    AND :checkOutDate >= b.checkInDate
+                    AND b.bookingStatus IN ('BOOKED', 'CHECKED_IN')
+                    AND (:excludedBookingId IS NULL OR b.id <> :excludedBookingId)
+                )
+            """)
+    long countAvailableRooms(@Param("propertyId") Long propertyId,
+                             @Param("roomType") RoomType roomType,
+                             @Param("checkInDate") LocalDate checkInDate,
+                             @Param("checkOutDate") LocalDate checkOutDate,
+                             @Param("excludedBookingId") Long excludedBookingId);
+
+    // serializes bookings and reassignments that touch the same room
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdForUpdate(@Param("id") Long id);
+
+    // skips a room whose lock is held, it is being booked or reassigned right now
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdForUpdateSkipLocked(@Param("id") Long id);
+
+    // fails at once instead of queueing behind bookings when any room of the type is locked
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    @Query("SELECT r FROM Room r WHERE r.propertyId = :propertyId AND r.type = :roomType ORDER BY r.id")
+    List<Room> lockByType(@Param("propertyId") Long propertyId, @Param("roomType") RoomType roomType);
+
+    @Query("SELECT MIN(r.pricePerNight) FROM Room r WHERE r.propertyId = :propertyId AND r.type = :roomType")
+    Optional<BigDecimal> findLowestPricePerNight(@Param("propertyId") Long propertyId, @Param("roomType") RoomType roomType);
+
+    List<Room> findByPropertyId(Long propertyId, Sort sort);
+
+    @Query("SELECT DISTINCT r.propertyId AS propertyId, r.type AS roomType FROM Room r ORDER BY r.propertyId, r.type")
+    List<PropertyRoomTypeView> findPropertyRoomTypes();
+
     @Query("""
                 SELECT r FROM Room r
-                WHERE CAST(r.roomNumber AS string) LIKE %:searchParam%
+                WHERE r.propertyId = :propertyId
+                  AND (CAST(r.roomNumber AS string) LIKE %:searchParam%
                    OR LOWER(r.type) LIKE LOWER(:searchParam)
                    OR CAST(r.pricePerNight AS string) LIKE %:searchParam%
                    OR CAST(r.capacity AS string) LIKE %:searchParam%
-                   OR LOWER(r.description) LIKE LOWER(CONCAT('%', :searchParam, '%'))
+                   OR LOWER(r.description) LIKE LOWER(CONCAT('%', :searchParam, '%')))
             """)
-    List<Room> searchRooms(@Param("searchParam") String searchParam);
+    List<Room> searchRooms(@Param("propertyId") Long propertyId, @Param("searchParam") String searchParam);
+
+    interface PropertyRoomTypeView {
+        Long getPropertyId();
+        RoomType getRoomType();
+    }
 
 
 
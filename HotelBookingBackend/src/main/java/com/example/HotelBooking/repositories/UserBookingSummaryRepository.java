@@ -0,0 +1,99 @@
+package com.example.HotelBooking.repositories;
+
+import com.example.HotelBooking.entities.UserBookingSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UserBookingSummaryRepository extends JpaRepository<UserBookingSummary, Long> {
+
+    // newest first, walks the (user_id, id) index backwards
+    @Query("SELECT s FROM UserBookingSummary s WHERE s.userId = :userId ORDER BY s.id DESC")
+    List<UserBookingSummary> findPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT MAX(s.updatedAt) FROM UserBookingSummary s WHERE s.userId = :userId")
+    LocalDateTime findLastModified(@Param("userId") Long userId);
+
+    @Query("SELECT MAX(s.updatedAt) FROM UserBookingSummary s")
+    LocalDateTime findHighWaterMark();
+
+    @Modifying
+    @Query("DELETE FROM UserBookingSummary s WHERE s.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO user_booking_summaries (id, user_id, booking_reference, booking_status, payment_status,
+                                                    check_in_date, check_out_date, total_price, room_id, room_number,
+                                                    room_type, room_image_url, created_at, updated_at)
+                SELECT b.id, b.user_id, b.booking_reference, b.booking_status, b.payment_status,
+                       b.check_in_date, b.check_out_date, b.total_price, b.room_id, r.room_number,
+                       COALESCE(b.room_type, r.room_type), r.image_url, b.created_at, COALESCE(b.updated_at, b.created_at)
+                FROM bookings b
+                LEFT JOIN rooms r ON r.id = b.room_id
+                WHERE b.id = :bookingId
+                ON CONFLICT (id) DO UPDATE SET
+                    booking_status = EXCLUDED.booking_status, payment_status = EXCLUDED.payment_status,
+                    check_in_date = EXCLUDED.check_in_date, check_out_date = EXCLUDED.check_out_date,
+                    total_price = EXCLUDED.total_price, room_id = EXCLUDED.room_id, room_number = EXCLUDED.room_number,
+                    room_type = EXCLUDED.room_type, room_image_url = EXCLUDED.room_image_url, updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int refreshBooking(@Param("bookingId") Long bookingId);
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO user_booking_summaries (id, user_id, booking_reference, booking_status, payment_status,
+                                                    check_in_date, check_out_date, total_price, room_id, room_number,
+                                                    room_type, room_image_url, created_at, updated_at)
+                SELECT b.id, b.user_id, b.booking_reference, b.booking_status, b.payment_status,
+                       b.check_in_date, b.check_out_date, b.total_price, b.room_id, r.room_number,
+                       COALESCE(b.room_type, r.room_type), r.image_url, b.created_at, COALESCE(b.updated_at, b.created_at)
+                FROM bookings b
+                LEFT JOIN rooms r ON r.id = b.room_id
+                WHERE b.updated_at > :since
+                ON CONFLICT (id) DO UPDATE SET
+                    booking_status = EXCLUDED.booking_status, payment_status = EXCLUDED.payment_status,
+                    check_in_date = EXCLUDED.check_in_date, check_out_date = EXCLUDED.check_out_date,
+                    total_price = EXCLUDED.total_price, room_id = EXCLUDED.room_id, room_number = EXCLUDED.room_number,
+                    room_type = EXCLUDED.room_type, room_image_url = EXCLUDED.room_image_url, updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int refreshChangedSince(@Param("since") LocalDateTime since);
+
+    // first run only: every live and archived booking, rows already there are left alone
+    @Modifying
+    @Query(value = """
+                INSERT INTO user_booking_summaries (id, user_id, booking_reference, booking_status, payment_status,
+                                                    check_in_date, check_out_date, total_price, room_id, room_number,
+                                                    room_type, room_image_url, created_at, updated_at)
+                SELECT b.id, b.user_id, b.booking_reference, b.booking_status, b.payment_status,
+                       b.check_in_date, b.check_out_date, b.total_price, b.room_id, r.room_number,
+                       COALESCE(b.room_type, r.room_type), r.image_url, b.created_at, COALESCE(b.updated_at, b.created_at)
+                FROM bookings b
+                LEFT JOIN rooms r ON r.id = b.room_id
+                WHERE b.user_id IS NOT NULL
+                UNION ALL
+                SELECT a.id, a.user_id, a.booking_reference, a.booking_status, a.payment_status,
+                       a.check_in_date, a.check_out_date, a.total_price, a.room_id, r.room_number,
+                       COALESCE(a.room_type, r.room_type), r.image_url, a.created_at, a.archived_at
+                FROM bookings_archive a
+                LEFT JOIN rooms r ON r.id = a.room_id
+                WHERE a.user_id IS NOT NULL
+                ON CONFLICT (id) DO NOTHING
+            """, nativeQuery = true)
+    int backfill();
+
+    @Modifying
+    @Query(value = """
+                UPDATE user_booking_summaries s
+                SET room_number = r.room_number, room_image_url = r.image_url, updated_at = now()
+                FROM rooms r
+                WHERE r.id = :roomId AND s.room_id = r.id
+                  AND (s.room_number IS DISTINCT FROM r.room_number OR s.room_image_url IS DISTINCT FROM r.image_url)
+            """, nativeQuery = true)
+    int refreshRoom(@Param("roomId") Long roomId);
+}
@@ -0,0 +1,197 @@
+package com.example.HotelBooking.search;
+
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.dtos.CalendarDayDTO;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.repositories.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Per-night free room counts and lowest free price per room type of one property over a date window. A window is built
+ * with one bookings query and a sweep over a difference array per type, then kept in a small LRU cache
+ * and patched in place as bookings are created or released.
+ * A booking occupies every day from its check in date through its check out date, the same inclusive overlap
+ * BookingRepository checks availability with, so a day only counts a room as free when a stay touching it could
+ * be booked there.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityCalendarService {
+
+    public static final int MAX_NIGHTS = 62;
+    private static final int MAX_CACHED_WINDOWS = 64;
+
+    private final RoomSearchIndex roomSearchIndex;
+    private final BookingRepository bookingRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, CalendarWindow> windows = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CalendarWindow> eldest) {
+                    return size() > MAX_CACHED_WINDOWS;
+                }
+            });
+
+    @Transactional(readOnly = true)
+    public List<CalendarDayDTO> getCalendar(Long propertyId, LocalDate startDate, LocalDate endDate) {
+        String key = propertyId + ":" + startDate + ":" + endDate;
+        CalendarWindow window = windows.get(key);
+        if (window == null) {
+            long builtAt = generation.get();
+            window = build(propertyId, startDate, (int) (endDate.toEpochDay() - startDate.toEpochDay()));
+            if (generation.get() == builtAt) { //do not cache a window that missed an invalidation while it was built
+                windows.put(key, window);
+            }
+        }
+        return window.toDays();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getRegion() == CacheRegion.ROOM || (event.getRegion() == CacheRegion.BOOKING && event.getKey() == null)) {
+            generation.incrementAndGet();
+            windows.clear();
+            return;
+        }
+        if (event.getRegion() != CacheRegion.BOOKING) return;
+
+        //bumped even with nothing cached, a window being built right now must not be cached without this change
+        generation.incrementAndGet();
+        if (windows.isEmpty()) return;
+        Optional<Booking> changed = bookingRepository.findById(event.getKeyAsLong());
+        if (changed.isEmpty() || changed.get().getRoom() == null) return;
+        Booking booking = changed.get();
+        boolean occupies = booking.getBookingStatus() == BookingStatus.BOOKED
+                || booking.getBookingStatus() == BookingStatus.CHECKED_IN;
+        List<CalendarWindow> cached;
+        synchronized (windows) {
+            cached = new ArrayList<>(windows.values());
+        }
+        for (CalendarWindow window : cached) {
+            if (!window.propertyId.equals(booking.getPropertyId())) continue;
+            window.apply(booking.getRoom().getId(), booking.getCheckInDate().toEpochDay(),
+                    booking.getCheckOutDate().toEpochDay(), occupies);
+        }
+    }
+
+    private CalendarWindow build(Long propertyId, LocalDate startDate, int nights) {
+        CalendarWindow window = new CalendarWindow(propertyId, roomSearchIndex.snapshot(propertyId), startDate.toEpochDay(), nights);
+        int typeCount = RoomType.values().length;
+        int[][] occupiedDiff = new int[typeCount][nights + 1];
+        for (BookingRepository.BookedIntervalView interval :
+                bookingRepository.findActiveIntervals(propertyId, startDate, startDate.plusDays(nights))) {
+            Integer position = window.snapshot.positions.get(interval.getRoomId());
+            if (position == null) continue;
+            int from = window.clamp(interval.getCheckInDate().toEpochDay());
+            int to = window.clamp(interval.getCheckOutDate().toEpochDay() + 1);
+            if (from >= to) continue;
+            occupiedDiff[window.snapshot.types[position]][from]++;
+            occupiedDiff[window.snapshot.types[position]][to]--;
+            window.occupied[position].set(from, to);
+        }
+        for (int type = 0; type < typeCount; type++) {
+            int occupiedRooms = 0;
+            for (int night = 0; night < nights; night++) {
+                occupiedRooms += occupiedDiff[type][night];
+                window.freeRooms[type][night] = Math.max(0, window.roomsByPrice[type].length - occupiedRooms);
+                window.refreshLowestPrice(type, night);
+            }
+        }
+        return window;
+    }
+
+    private static final class CalendarWindow {
+        final Long propertyId;
+        final RoomSearchIndex.Snapshot snapshot;
+        final long firstDay;
+        final int nights;
+        final BitSet[] occupied; //per snapshot position, one bit per night
+        final int[][] roomsByPrice; //[type] snapshot positions, cheapest first
+        final int[][] freeRooms; //[type][night]
+        final long[][] lowestPriceCents; //[type][night], -1 when nothing is free
+
+        CalendarWindow(Long propertyId, RoomSearchIndex.Snapshot snapshot, long firstDay, int nights) {
+            this.propertyId = propertyId;
+            this.snapshot = snapshot;
+            this.firstDay = firstDay;
+            this.nights = nights;
+            int typeCount = RoomType.values().length;
+            this.occupied = new BitSet[snapshot.size()];
+            for (int i = 0; i < occupied.length; i++) occupied[i] = new BitSet(nights);
+            this.roomsByPrice = new int[typeCount][];
+            for (int type = 0; type < typeCount; type++) {
+                int currentType = type;
+                roomsByPrice[type] = IntStream.range(0, snapshot.size())
+                        .filter(position -> snapshot.types[position] == currentType)
+                        .boxed()
+                        .sorted(Comparator.comparingLong(position -> snapshot.priceCents[position]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+            this.freeRooms = new int[typeCount][nights];
+            this.lowestPriceCents = new long[typeCount][nights];
+        }
+
+        int clamp(long epochDay) {
+            return (int) Math.max(0, Math.min(nights, epochDay - firstDay));
+        }
+
+        void refreshLowestPrice(int type, int night) {
+            lowestPriceCents[type][night] = -1;
+            for (int position : roomsByPrice[type]) {
+                if (!occupied[position].get(night)) {
+                    lowestPriceCents[type][night] = snapshot.priceCents[position];
+                    return;
+                }
+            }
+        }
+
+        synchronized void apply(Long roomId, long checkInDay, long checkOutDay, boolean occupies) {
+            Integer position = snapshot.positions.get(roomId);
+            if (position == null) return;
+            int type = snapshot.types[position];
+            for (int night = clamp(checkInDay); night < clamp(checkOutDay + 1); night++) {
+                if (occupied[position].get(night) == occupies) continue;
+                occupied[position].set(night, occupies);
+                freeRooms[type][night] += occupies ? -1 : 1;
+                refreshLowestPrice(type, night);
+            }
+        }
+
+        synchronized List<CalendarDayDTO> toDays() {
+            RoomType[] types = RoomType.values();
+            List<CalendarDayDTO> days = new ArrayList<>(nights);
+            for (int night = 0; night < nights; night++) {
+                Map<RoomType, Integer> free = new EnumMap<>(RoomType.class);
+                Map<RoomType, BigDecimal> lowest = new EnumMap<>(RoomType.class);
+                for (RoomType type : types) {
+                    free.put(type, freeRooms[type.ordinal()][night]);
+                    if (lowestPriceCents[type.ordinal()][night] >= 0) {
+                        lowest.put(type, BigDecimal.valueOf(lowestPriceCents[type.ordinal()][night], 2));
+                    }
+                }
+                days.add(CalendarDayDTO.builder()
+                        .date(LocalDate.ofEpochDay(firstDay + night))
+                        .freeRooms(free)
+                        .lowestPrice(lowest)
+                        .build());
+            }
+            return days;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.HotelBooking.search;
+
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.dtos.AvailabilityUpdateDTO;
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.ServiceBusyException;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.services.BookingDateValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes room availability for a stay window to the booking UI as bookings are made and released, so a
+ * customer sees a room go before trying to book it.
+ *
+ * Clients watching the same property, window and room type share one {@link Window}. Changes only mark
+ * the windows they overlap; a flush every coalesce interval recomputes each marked window once from the
+ * occupancy index and hands the difference to its subscribers, however many bookings changed in between. Every subscriber
+ * has a virtual thread that writes to its connection, and what it has not written yet is merged per room,
+ * so a slow client holds at most one pending state per room and never holds up the others. A client that
+ * stays behind for too long is disconnected and reloads on reconnect.
+ */
+@Service
+@Slf4j
+public class AvailabilityStreamService {
+
+    private final RoomSearchEngine roomSearchEngine;
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter updatesCounter;
+    private final Counter droppedCounter;
+
+    @Value("${availability.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${availability.stream.timeout-ms:600000}")
+    private long streamTimeoutMs; //the browser reconnects on its own and gets a fresh snapshot
+
+    @Value("${availability.stream.max-lag-ms:30000}")
+    private long maxLagMs;
+
+    public AvailabilityStreamService(RoomSearchEngine roomSearchEngine, RoomRepository roomRepository,
+                                     BookingRepository bookingRepository, PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry) {
+        this.roomSearchEngine = roomSearchEngine;
+        this.roomRepository = roomRepository;
+        this.bookingRepository = bookingRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.updatesCounter = meterRegistry.counter("availability.stream.updates");
+        this.droppedCounter = meterRegistry.counter("availability.stream.dropped");
+        meterRegistry.gauge("availability.stream.subscribers", subscriberCount);
+        meterRegistry.gauge("availability.stream.windows", windows, Map::size);
+    }
+
+    public SseEmitter subscribe(Long propertyId, LocalDate checkInDate, LocalDate checkOutDate, RoomType roomType) {
+        BookingDateValidator.validate(checkInDate, checkOutDate);
+        if (checkOutDate.toEpochDay() - checkInDate.toEpochDay() > AvailabilityCalendarService.MAX_NIGHTS) {
+            throw new InvalidBookingStateAndDateException("Stays longer than " + AvailabilityCalendarService.MAX_NIGHTS + " nights cannot be watched");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ServiceBusyException("Too many live availability subscribers, please refresh instead");
+        }
+        WindowKey key = new WindowKey(propertyId, checkInDate, checkOutDate, roomType);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        Set<Long> available = windows.containsKey(key) ? null : availableRoomIds(key); //not while holding the map bin
+        Window window = windows.compute(key, (k, existing) -> {
+            Window joined = existing;
+            if (joined == null) {
+                joined = new Window(k, available != null ? available : availableRoomIds(k));
+                joined.dirty = true; //may have missed a change while it was computed
+            }
+            joined.subscribers.add(subscriber);
+            return joined;
+        });
+        subscriber.offer(window.snapshot(), true); //the list the client fetched may already be out of date
+        emitter.onCompletion(() -> leave(window, subscriber));
+        emitter.onTimeout(() -> leave(window, subscriber));
+        emitter.onError(error -> leave(window, subscriber));
+        Thread.ofVirtual().name("availability-stream-" + checkInDate + "-" + checkOutDate).start(() -> subscriber.write(window));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onInvalidation(InvalidationEvent event) {
+        if (windows.isEmpty()) return;
+        //holds change less often than bookings and are short, recomputing every window for them is cheap enough
+        if (event.getRegion() == CacheRegion.ROOM || event.getRegion() == CacheRegion.HOLD
+                || (event.getRegion() == CacheRegion.BOOKING && event.getKey() == null)) {
+            windows.values().forEach(window -> window.dirty = true);
+            return;
+        }
+        if (event.getRegion() != CacheRegion.BOOKING) return;
+        for (BookingRepository.ChangeView booking : bookingRepository.findChangeViews(List.of(event.getKeyAsLong()))) {
+            long firstDay = booking.getCheckInDate().toEpochDay();
+            long lastDay = booking.getCheckOutDate().toEpochDay();
+            for (Window window : windows.values()) {
+                //same overlap rule as isRoomAvailable, both ends inclusive
+                if (window.key.propertyId().equals(booking.getPropertyId())
+                        && (window.key.roomType() == null || window.key.roomType() == booking.getRoomType())
+                        && firstDay <= window.key.checkOutDate().toEpochDay()
+                        && lastDay >= window.key.checkInDate().toEpochDay()) {
+                    window.dirty = true;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${availability.stream.coalesce-ms:250}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Window window : windows.values()) {
+            if (window.dirty) {
+                window.dirty = false;
+                Map<Long, Boolean> changes = window.refresh(availableRoomIds(window.key));
+                if (!changes.isEmpty()) {
+                    window.subscribers.forEach(subscriber -> subscriber.offer(changes, false));
+                }
+            }
+            for (Subscriber subscriber : window.subscribers) {
+                if (subscriber.isLagging(now, maxLagMs)) {
+                    droppedCounter.increment();
+                    subscriber.emitter.complete();
+                    leave(window, subscriber);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    private void closeAll() {
+        windows.values().forEach(window -> window.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private Set<Long> availableRoomIds(WindowKey key) {
+        Optional<List<RoomDTO>> fromIndex = roomSearchEngine.findAvailableRooms(key.propertyId(), key.checkInDate(), key.checkOutDate(), key.roomType());
+        if (fromIndex.isPresent()) {
+            return fromIndex.get().stream().map(RoomDTO::getId).collect(Collectors.toSet());
+        }
+        return readOnlyTransaction.execute(status -> roomRepository
+                .findAvailableRooms(key.propertyId(), key.checkInDate(), key.checkOutDate(), key.roomType())
+                .stream()
+                .map(Room::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    private void leave(Window window, Subscriber subscriber) {
+        if (!window.subscribers.remove(subscriber)) return;
+        subscriber.close();
+        subscriberCount.decrementAndGet();
+        windows.computeIfPresent(window.key, (key, current) -> current.subscribers.isEmpty() ? null : current);
+    }
+
+    private record WindowKey(Long propertyId, LocalDate checkInDate, LocalDate checkOutDate, RoomType roomType) {
+    }
+
+    private static final class Window {
+        final WindowKey key;
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        volatile boolean dirty;
+        private Set<Long> available;
+
+        Window(WindowKey key, Set<Long> available) {
+            this.key = key;
+            this.available = available;
+        }
+
+        synchronized Map<Long, Boolean> snapshot() {
+            Map<Long, Boolean> snapshot = new HashMap<>();
+            available.forEach(roomId -> snapshot.put(roomId, true));
+            return snapshot;
+        }
+
+        // room id -> available, for the rooms that changed since the last refresh
+        synchronized Map<Long, Boolean> refresh(Set<Long> nowAvailable) {
+            Map<Long, Boolean> changes = new HashMap<>();
+            available.stream().filter(roomId -> !nowAvailable.contains(roomId)).forEach(roomId -> changes.put(roomId, false));
+            nowAvailable.stream().filter(roomId -> !available.contains(roomId)).forEach(roomId -> changes.put(roomId, true));
+            available = nowAvailable;
+            return changes;
+        }
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        private final Semaphore signal = new Semaphore(0);
+        private Map<Long, Boolean> pending = new HashMap<>(); //guarded by this, merged while the writer is busy
+        private boolean snapshotPending;
+        private long pendingSinceMillis; //oldest change the writer has not picked up yet, 0 while nothing waits
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(Map<Long, Boolean> changes, boolean snapshot) {
+            if (snapshot) {
+                pending = new HashMap<>(changes);
+                snapshotPending = true;
+            } else {
+                pending.putAll(changes); //newest state per room wins, so a backlog never grows past the window
+            }
+            if (pendingSinceMillis == 0) pendingSinceMillis = System.currentTimeMillis();
+            signal.release();
+        }
+
+        synchronized boolean isLagging(long now, long maxLagMs) {
+            return pendingSinceMillis != 0 && now - pendingSinceMillis > maxLagMs;
+        }
+
+        void close() {
+            closed = true;
+            signal.release();
+        }
+
+        // runs on the subscriber's own virtual thread, a blocked write only parks this one
+        void write(Window window) {
+            try {
+                while (!closed) {
+                    signal.acquire();
+                    signal.drainPermits();
+                    Map<Long, Boolean> changes;
+                    boolean snapshot;
+                    synchronized (this) {
+                        if (pending.isEmpty() && !snapshotPending) continue;
+                        changes = pending;
+                        snapshot = snapshotPending;
+                        pending = new HashMap<>();
+                        snapshotPending = false;
+                        pendingSinceMillis = 0;
+                    }
+                    emitter.send(SseEmitter.event()
+                            .name(snapshot ? "snapshot" : "availability")
+                            .data(toUpdate(window.key, changes, snapshot)));
+                    updatesCounter.increment();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                leave(window, this); //client went away
+            }
+        }
+    }
+
+    private static AvailabilityUpdateDTO toUpdate(WindowKey key, Map<Long, Boolean> changes, boolean snapshot) {
+        List<Long> available = new ArrayList<>();
+        List<Long> taken = new ArrayList<>();
+        changes.forEach((roomId, free) -> (free ? available : taken).add(roomId));
+        return AvailabilityUpdateDTO.builder()
+                .checkInDate(key.checkInDate())
+                .checkOutDate(key.checkOutDate())
+                .roomType(key.roomType())
+                .snapshot(snapshot)
+                .availableRoomIds(available)
+                .takenRoomIds(snapshot ? null : taken)
+                .build();
+    }
+}
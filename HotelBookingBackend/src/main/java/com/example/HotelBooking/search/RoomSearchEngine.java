@@ -0,0 +1,178 @@
+package com.example.HotelBooking.search;
+
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.dtos.RoomSearchRequest;
+import com.example.HotelBooking.dtos.RoomSearchResultDTO;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.holds.RoomHoldService;
+import com.example.HotelBooking.occupancy.OccupancyIndex;
+import com.example.HotelBooking.occupancy.OccupancyService;
+import com.example.HotelBooking.repositories.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Answers party size, price band, room types, number of rooms and flexible dates in one pass:
+ * static filters over the room snapshot, then one query for every booking touching the widened
+ * date window, then each remaining room is checked against each date shift in memory. Once the
+ * occupancy index is loaded and covers the window the bookings query is skipped altogether.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomSearchEngine {
+
+    private final RoomSearchIndex roomSearchIndex;
+    private final BookingRepository bookingRepository;
+    private final OccupancyService occupancyService;
+    private final RoomHoldService roomHoldService;
+
+    public record SearchPage(List<RoomSearchResultDTO> results, long totalElements) {
+    }
+
+    @Transactional(readOnly = true)
+    public SearchPage search(Long propertyId, RoomSearchRequest request) {
+        RoomSearchIndex.Snapshot snapshot = roomSearchIndex.snapshot(propertyId);
+        int[] candidates = filterRooms(snapshot, request);
+        if (candidates.length == 0) return new SearchPage(List.of(), 0);
+
+        int flexibleDays = request.getFlexibleDays() == null ? 0 : request.getFlexibleDays();
+        LocalDate checkIn = request.getCheckInDate();
+        LocalDate checkOut = request.getCheckOutDate();
+        long nights = checkOut.toEpochDay() - checkIn.toEpochDay();
+
+        OccupancyIndex occupancy = occupancyService.index();
+        if (occupancy != null && !occupancy.covers(checkIn.toEpochDay() - flexibleDays, checkOut.toEpochDay() + flexibleDays)) {
+            occupancy = null;
+        }
+        long[][] booked = occupancy != null
+                ? null
+                : bookedIntervalsByRoom(propertyId, snapshot, checkIn.minusDays(flexibleDays), checkOut.plusDays(flexibleDays));
+        int roomsNeeded = request.getRooms() == null ? 1 : request.getRooms();
+        long today = LocalDate.now().toEpochDay();
+
+        List<RoomSearchResultDTO> results = new ArrayList<>();
+        for (int shift = -flexibleDays; shift <= flexibleDays; shift++) {
+            long from = checkIn.toEpochDay() + shift;
+            long to = checkOut.toEpochDay() + shift;
+            if (from < today) continue;
+
+            List<RoomSearchResultDTO> free = new ArrayList<>();
+            for (int position : candidates) {
+                boolean roomFree = (occupancy != null
+                        ? occupancy.isFree(snapshot.rooms[position].getId(), from, to)
+                        : isFree(booked[position], from, to))
+                        && !roomHoldService.isHeld(snapshot.rooms[position].getId(), from, to);
+                if (roomFree) {
+                    free.add(RoomSearchResultDTO.builder()
+                            .room(snapshot.rooms[position])
+                            .checkInDate(LocalDate.ofEpochDay(from))
+                            .checkOutDate(LocalDate.ofEpochDay(to))
+                            .dateShift(shift)
+                            .totalPrice(BigDecimal.valueOf(snapshot.priceCents[position] * nights, 2))
+                            .build());
+                }
+            }
+            if (free.size() >= roomsNeeded) { //a date option is only useful if the whole party fits
+                results.addAll(free);
+            }
+        }
+
+        results.sort(Comparator.comparing(RoomSearchResultDTO::getTotalPrice)
+                .thenComparing(result -> Math.abs(result.getDateShift()))
+                .thenComparing(result -> result.getRoom().getId()));
+        int page = request.getPage() == null ? 0 : request.getPage();
+        int size = request.getSize() == null ? 20 : request.getSize();
+        int fromIndex = (int) Math.min((long) page * size, results.size());
+        int toIndex = Math.min(fromIndex + size, results.size());
+        return new SearchPage(new ArrayList<>(results.subList(fromIndex, toIndex)), results.size());
+    }
+
+    /**
+     * Same result as RoomRepository.findAvailableRooms, answered from the occupancy index and the holds
+     * this node knows about. Empty while
+     * the index is loading or when the dates fall outside its horizon, callers then go to the database.
+     */
+    public Optional<List<RoomDTO>> findAvailableRooms(Long propertyId, LocalDate checkInDate, LocalDate checkOutDate, RoomType roomType) {
+        OccupancyIndex occupancy = occupancyService.index();
+        if (occupancy == null || !occupancy.covers(checkInDate.toEpochDay(), checkOutDate.toEpochDay())) {
+            return Optional.empty();
+        }
+        RoomSearchIndex.Snapshot snapshot = roomSearchIndex.snapshot(propertyId);
+        List<RoomDTO> available = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if ((roomType == null || snapshot.types[i] == roomType.ordinal())
+                    && occupancy.isFree(snapshot.ids[i], checkInDate.toEpochDay(), checkOutDate.toEpochDay())
+                    && !roomHoldService.isHeld(snapshot.ids[i], checkInDate.toEpochDay(), checkOutDate.toEpochDay())) {
+                available.add(snapshot.rooms[i]);
+            }
+        }
+        return Optional.of(available);
+    }
+
+    private int[] filterRooms(RoomSearchIndex.Snapshot snapshot, RoomSearchRequest request) {
+        int guests = request.getGuests() == null ? 1 : request.getGuests();
+        int rooms = request.getRooms() == null ? 1 : request.getRooms();
+        int minCapacity = (guests + rooms - 1) / rooms;
+        long minPrice = request.getMinPrice() == null ? Long.MIN_VALUE : request.getMinPrice().movePointRight(2).longValue();
+        long maxPrice = request.getMaxPrice() == null ? Long.MAX_VALUE : request.getMaxPrice().movePointRight(2).longValue();
+        boolean[] allowedTypes = new boolean[RoomType.values().length];
+        if (request.getRoomTypes() == null || request.getRoomTypes().isEmpty()) {
+            Arrays.fill(allowedTypes, true);
+        } else {
+            request.getRoomTypes().forEach(type -> allowedTypes[type.ordinal()] = true);
+        }
+
+        int[] matches = new int[snapshot.size()];
+        int count = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.capacities[i] >= minCapacity
+                    && snapshot.priceCents[i] >= minPrice
+                    && snapshot.priceCents[i] <= maxPrice
+                    && allowedTypes[snapshot.types[i]]) {
+                matches[count++] = i;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    // flattened [start0, end0, start1, end1, ...] epoch days per snapshot position
+    private long[][] bookedIntervalsByRoom(Long propertyId, RoomSearchIndex.Snapshot snapshot, LocalDate from, LocalDate to) {
+        long[][] booked = new long[snapshot.size()][];
+        int[] lengths = new int[snapshot.size()];
+        for (BookingRepository.BookedIntervalView interval : bookingRepository.findActiveIntervals(propertyId, from, to)) {
+            Integer position = snapshot.positions.get(interval.getRoomId());
+            if (position == null) continue; //room created after this snapshot, it is not a candidate anyway
+            long[] current = booked[position];
+            if (current == null) {
+                current = new long[4];
+            } else if (lengths[position] == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[lengths[position]++] = interval.getCheckInDate().toEpochDay();
+            current[lengths[position]++] = interval.getCheckOutDate().toEpochDay();
+            booked[position] = current;
+        }
+        for (int i = 0; i < booked.length; i++) {
+            if (booked[i] != null) booked[i] = Arrays.copyOf(booked[i], lengths[i]);
+        }
+        return booked;
+    }
+
+    // same inclusive overlap rule as BookingRepository.isRoomAvailable
+    private static boolean isFree(long[] intervals, long from, long to) {
+        if (intervals == null) return true;
+        for (int i = 0; i < intervals.length; i += 2) {
+            if (from <= intervals[i + 1] && to >= intervals[i]) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.HotelBooking.search;
+
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.repositories.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column-oriented copy of the rooms table, one snapshot per property. Filters run over primitive arrays
+ * instead of entity lists, and the snapshots are rebuilt lazily after any room changes on any node.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RoomSearchIndex {
+
+    private final RoomRepository roomRepository;
+    private final ModelMapper modelMapper;
+
+    private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public Snapshot snapshot(Long propertyId) {
+        return snapshots.computeIfAbsent(propertyId, this::build);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getRegion() == CacheRegion.ROOM) {
+            snapshots.clear(); //the event names the room, not its property
+        }
+    }
+
+    private Snapshot build(Long propertyId) {
+        List<Room> rooms = roomRepository.findByPropertyId(propertyId, Sort.by(Sort.Direction.ASC, "id"));
+        int size = rooms.size();
+        Snapshot built = new Snapshot(size);
+        for (int i = 0; i < size; i++) {
+            Room room = rooms.get(i);
+            built.ids[i] = room.getId();
+            built.capacities[i] = room.getCapacity() == null ? 0 : room.getCapacity();
+            built.priceCents[i] = room.getPricePerNight() == null ? 0 : room.getPricePerNight().movePointRight(2).longValue();
+            built.types[i] = (byte) room.getType().ordinal();
+            built.rooms[i] = modelMapper.map(room, RoomDTO.class);
+            built.positions.put(room.getId(), i);
+        }
+        log.info("Built room search snapshot of property {} with {} rooms", propertyId, size);
+        return built;
+    }
+
+    public static final class Snapshot {
+        final long[] ids;
+        final int[] capacities;
+        final long[] priceCents;
+        final byte[] types; //RoomType ordinal
+        final RoomDTO[] rooms;
+        final Map<Long, Integer> positions;
+
+        private Snapshot(int size) {
+            ids = new long[size];
+            capacities = new int[size];
+            priceCents = new long[size];
+            types = new byte[size];
+            rooms = new RoomDTO[size];
+            positions = new HashMap<>(size * 2);
+        }
+
+        public int size() {
+            return ids.length;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.HotelBooking.security;
 
+import com.example.HotelBooking.enums.UserRole;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,14 +10,14 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @Slf4j
@@ -24,7 +27,7 @@ public class AuthFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
 
-    private final CustomUserDetailsService customUserDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
 
     @Override
@@ -36,12 +39,11 @@ public class AuthFilter extends OncePerRequestFilter {
         String token = getTokenFromRequest(request);
 
         if (token != null) {
-            String email = jwtUtils.getUsernameFromToken(token);
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
-
-            if (StringUtils.hasText(email) && jwtUtils.isTokenValid(token, userDetails)) {
+            AuthPrincipal principal = toPrincipal(token);
+            //the token alone is trusted, users removed since are shut out once it expires or through revocation
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities()
+                        principal, null, List.of(new SimpleGrantedAuthority(principal.role().name()))
                 );
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
@@ -57,6 +59,22 @@ public class AuthFilter extends OncePerRequestFilter {
 
     }
 
+    // null for anything but a valid, unrevoked access token; the request then goes on unauthenticated
+    private AuthPrincipal toPrincipal(String token) {
+        try {
+            Claims claims = jwtUtils.parseToken(token);
+            if (!JwtUtils.TYPE_ACCESS.equals(claims.get(JwtUtils.CLAIM_TYPE, String.class))
+                    || tokenRevocationService.isRevoked(claims.getId())) {
+                return null;
+            }
+            return new AuthPrincipal(claims.get(JwtUtils.CLAIM_USER_ID, Long.class), claims.getSubject(),
+                    UserRole.valueOf(claims.get(JwtUtils.CLAIM_ROLE, String.class)), claims.getId());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
+            return null;
+        }
+    }
+
 
     private String getTokenFromRequest(HttpServletRequest request) {
         String tokenWithBearer = request.getHeader("Authorization");
@@ -0,0 +1,17 @@
+package com.example.HotelBooking.security;
+
+import com.example.HotelBooking.enums.UserRole;
+
+import java.security.Principal;
+
+/**
+ * The caller as described by their access token. getName() is the email, so
+ * Authentication.getName() keeps returning what it did when the user was loaded from the database.
+ */
+public record AuthPrincipal(Long userId, String email, UserRole role, String tokenId) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
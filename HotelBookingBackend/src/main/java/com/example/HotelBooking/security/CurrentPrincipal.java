@@ -0,0 +1,45 @@
+package com.example.HotelBooking.security;
+
+import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * The caller of the current request, as {@link AuthFilter} resolved it from the access token. The security
+ * context already lives exactly as long as the request, so this reads it instead of keeping state of its own.
+ * Use it instead of looking the user up by email; load the full {@link User} only when its columns are needed.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentPrincipal {
+
+    private final UserRepository userRepository;
+
+    public AuthPrincipal get() {
+        return find().orElseThrow(() -> new NotFoundException("User not Found"));
+    }
+
+    /** Empty outside a request, e.g. in scheduled jobs and webhook processing. */
+    public Optional<AuthPrincipal> find() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthPrincipal principal)) {
+            return Optional.empty();
+        }
+        return Optional.of(principal);
+    }
+
+    public Long getUserId() {
+        return get().userId();
+    }
+
+    /** An uninitialized proxy, enough to set a foreign key without querying users. */
+    public User getUserReference() {
+        return userRepository.getReferenceById(get().userId());
+    }
+}
@@ -1,61 +1,79 @@
 package com.example.HotelBooking.security;
 
+import com.example.HotelBooking.entities.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.UUID;
 
+/**
+ * Access tokens are short lived and carry everything a request needs (user id, email, role), so they are
+ * trusted without a database lookup. Refresh tokens live long and are only accepted by the refresh
+ * endpoint, which reads the user again. Every token has a jti so it can be revoked.
+ */
 @Service
 @Slf4j
 public class JwtUtils {
 
-    private static final long EXPIRATION_TIME_IN_MILSEC = 100L * 60L * 60L * 24L * 30L * 6L; //this will expires in 6 months
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TYPE = "typ";
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
     private SecretKey key;
 
     @Value("${secreteJwtString}")
     private String secreteJwtString;
 
+    @Value("${jwt.access-token-minutes:15}")
+    private long accessTokenMinutes;
+
+    @Value("${jwt.refresh-token-days:180}")
+    private long refreshTokenDays; //6 months, what a single token used to be meant to last
+
     @PostConstruct
     private void init() {
         byte[] keyByte = secreteJwtString.getBytes(StandardCharsets.UTF_8);
         this.key = new SecretKeySpec(keyByte, "HmacSHA256");
     }
 
-    public  String generateToken(String email) {
-        return Jwts.builder()
-                .subject(email)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME_IN_MILSEC))
-                .signWith(key)
-                .compact();
+    public String generateAccessToken(User user) {
+        return generateToken(user, TYPE_ACCESS, accessTokenMinutes * 60L * 1000L);
     }
 
-    public String getUsernameFromToken(String token) {
-        return extractClaims(token, Claims::getSubject);
+    public String generateRefreshToken(User user) {
+        return generateToken(user, TYPE_REFRESH, refreshTokenDays * 24L * 60L * 60L * 1000L);
     }
 
-    private <T> T extractClaims(String token, Function<Claims, T> claimsTFunction) {
-        return claimsTFunction.apply(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload());
+    public long getAccessTokenMinutes() {
+        return accessTokenMinutes;
     }
 
-
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /** Checks signature and expiry, throws a JwtException when either fails. */
+    public Claims parseToken(String token) {
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token, Claims::getExpiration).before(new Date());
+    private String generateToken(User user, String type, long validityInMilSec) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLE, user.getRole().name())
+                .claim(CLAIM_TYPE, type)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + validityInMilSec))
+                .signWith(key)
+                .compact();
     }
-
-
 }
@@ -0,0 +1,94 @@
+package com.example.HotelBooking.security;
+
+import com.example.HotelBooking.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing on its own bounded pool. Hashing is deliberately slow, so during a login storm
+ * it is the pool that saturates instead of the request threads: work beyond the queue is refused at once
+ * with a 503, and callers give up waiting after a timeout. The queue holds a few hashes per hashing thread,
+ * far fewer than there are request threads, so only a handful of request threads ever wait on it.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Timer hashingTimer;
+
+    @Value("${hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${hashing.threads:0}") int threads,
+                                  @Value("${hashing.queue-per-thread:4}") int queuePerThread) {
+        this.passwordEncoder = passwordEncoder;
+        this.meterRegistry = meterRegistry;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * Math.max(1, queuePerThread)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.hashingTimer = meterRegistry.timer("password.hashing");
+        meterRegistry.gauge("password.hashing.queued", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /** True when the hash was made with another algorithm or a lower cost than the configured one. */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword); //only parses the hash, cheap enough for the caller's thread
+    }
+
+    private <T> T run(Callable<T> hashing) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashingTimer.recordCallable(hashing));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("password.hashing.rejected").increment();
+            throw new ServiceBusyException("Too many sign ins at the moment, please try again shortly");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            meterRegistry.counter("password.hashing.rejected").increment();
+            throw new ServiceBusyException("Too many sign ins at the moment, please try again shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceBusyException("Interrupted while checking the password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
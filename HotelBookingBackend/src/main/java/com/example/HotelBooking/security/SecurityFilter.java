@@ -2,9 +2,14 @@ package com.example.HotelBooking.security;
 
 import com.example.HotelBooking.exceptions.CustomAccessDenialHandler;
 import com.example.HotelBooking.exceptions.CustomAuthenticationEntryPoint;
+import com.example.HotelBooking.tenancy.TenantFilter;
+import com.example.HotelBooking.throttling.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -13,11 +18,15 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 @Configuration
 @EnableMethodSecurity
 @EnableWebSecurity
@@ -27,6 +36,10 @@ public class SecurityFilter {
 
     private final AuthFilter authFilter;
 
+    private final RateLimitFilter rateLimitFilter;
+
+    private final TenantFilter tenantFilter;
+
     private final CustomAccessDenialHandler customAccessDenialHandler;
 
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
@@ -41,17 +54,31 @@ public class SecurityFilter {
                                 .authenticationEntryPoint(customAuthenticationEntryPoint)
                 )
                 .authorizeHttpRequests(request -> request
-                        .requestMatchers("/api/auth/**", "/api/rooms/**", "api/bookings/**").permitAll()
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() //already authorized on the original dispatch
+                        .requestMatchers("/api/auth/**", "/api/rooms/**", "api/bookings/**", "/api/payments/webhook").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/properties").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(manager -> manager.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(authFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(tenantFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(authFilter, TenantFilter.class) //the tenant is set before anything reads the database
+                .addFilterAfter(rateLimitFilter, AuthFilter.class); //after it so logged in users are limited per account
         return httpSecurity.build();
     }
 
+    // hashes are stored as {id}hash; older ones have no prefix and are bcrypt, they get rehashed on login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${hashing.algorithm:bcrypt}") String algorithm,
+                                           @Value("${hashing.bcrypt.strength:10}") int bcryptStrength,
+                                           @Value("${hashing.argon2.memory-kib:19456}") int argon2MemoryKib,
+                                           @Value("${hashing.argon2.iterations:2}") int argon2Iterations) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", new Argon2PasswordEncoder(16, 32, 1, argon2MemoryKib, argon2Iterations));
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
     }
 
     @Bean
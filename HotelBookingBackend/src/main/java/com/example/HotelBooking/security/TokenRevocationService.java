@@ -0,0 +1,147 @@
+package com.example.HotelBooking.security;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.repositories.RevokedTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of revoked token ids, checked on every authenticated request. A bloom filter answers the usual
+ * "not revoked" without touching the exact set; only its rare positives are confirmed there. Revocations are
+ * stored in revoked_tokens until the token would have expired anyway and reach other nodes through the
+ * TOKEN invalidation region.
+ *
+ * Used refresh tokens are only claimed in revoked_tokens: every refresh consumes one, and keeping them in memory
+ * for their whole lifetime would grow the denylist with every active session. Only the refresh call checks them.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final ClusterService clusterService;
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>(); //jti -> token expiry
+    private volatile BloomFilter bloomFilter;
+
+    @Value("${jwt.revocation.expected-tokens:100000}")
+    private int expectedTokens;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, ClusterService clusterService,
+                                  MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.clusterService = clusterService;
+        meterRegistry.gauge("auth.revoked.tokens", revoked, Map::size);
+    }
+
+    public boolean isRevoked(String jti) {
+        BloomFilter filter = bloomFilter;
+        if (filter != null && !filter.mightContain(jti)) return false;
+        return revoked.containsKey(jti); //also covers the moment before the filter is first built
+    }
+
+    /**
+     * Revokes the token, claiming it atomically in revoked_tokens. Returns false when it was revoked already,
+     * including by a concurrent call, or cannot be revoked because it has no id or expired.
+     */
+    @Transactional
+    public boolean revoke(String jti, LocalDateTime expiresAt) {
+        if (jti == null || expiresAt.isBefore(LocalDateTime.now())) return false;
+        boolean claimed = revokedTokenRepository.insertIfAbsent(jti, expiresAt, false) > 0;
+        afterCommit(() -> add(jti, expiresAt)); //a rolled back revocation must not linger in memory
+        if (claimed) clusterService.broadcast(CacheRegion.TOKEN, jti);
+        return claimed;
+    }
+
+    /**
+     * Uses up a refresh token, claiming it atomically in revoked_tokens. Returns false when it was used already,
+     * including by a concurrent call, or cannot be used because it has no id or expired.
+     */
+    @Transactional
+    public boolean consumeRefreshToken(String jti, LocalDateTime expiresAt) {
+        if (jti == null || expiresAt.isBefore(LocalDateTime.now())) return false;
+        return revokedTokenRepository.insertIfAbsent(jti, expiresAt, true) > 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getRegion() != CacheRegion.TOKEN || !event.isRemote()) return;
+        if (event.getKey() == null) {
+            reload();
+            return;
+        }
+        revokedTokenRepository.findById(event.getKey())
+                .filter(token -> !token.getRefresh())
+                .ifPresent(token -> add(token.getJti(), token.getExpiresAt()));
+    }
+
+    // expired tokens fail signature checks on their own, keeping them would only fill the filter
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        if (clusterService.isLeader()) {
+            revokedTokenRepository.deleteExpired(now);
+        }
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        rebuildFilter();
+    }
+
+    private void reload() {
+        revoked.clear();
+        revokedTokenRepository.findByRefreshFalseAndExpiresAtAfter(LocalDateTime.now())
+                .forEach(token -> revoked.put(token.getJti(), token.getExpiresAt()));
+        rebuildFilter();
+        log.info("Loaded {} revoked tokens", revoked.size());
+    }
+
+    private synchronized void add(String jti, LocalDateTime expiresAt) {
+        revoked.put(jti, expiresAt);
+        if (bloomFilter != null) bloomFilter.add(jti);
+    }
+
+    // synchronized with add, so a revocation cannot slip in between building the filter and publishing it
+    private synchronized void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        bloomFilter = rebuilt;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
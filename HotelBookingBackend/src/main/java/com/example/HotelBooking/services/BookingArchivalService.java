@@ -0,0 +1,56 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.repositories.ArchivedBookingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps the bookings table down to the rows availability queries care about by moving checked out and
+ * cancelled bookings into bookings_archive once their stay is older than the retention period.
+ */
+@Service
+@Slf4j
+public class BookingArchivalService {
+
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final ClusterService clusterService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archivedCounter;
+
+    @Value("${bookings.archive.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${bookings.archive.batch-size:5000}")
+    private int batchSize;
+
+    public BookingArchivalService(ArchivedBookingRepository archivedBookingRepository, ClusterService clusterService,
+                                  TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.clusterService = clusterService;
+        this.transactionTemplate = transactionTemplate;
+        this.archivedCounter = meterRegistry.counter("bookings.archived");
+    }
+
+    // one transaction per batch keeps row locks and WAL bursts short on the live table
+    @Scheduled(cron = "${bookings.archive.cron:0 30 3 * * *}")
+    public void archiveClosedBookings() {
+        if (!clusterService.isLeader()) return;
+        LocalDate cutoffDate = LocalDate.now().minusDays(retentionDays);
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archivedBookingRepository.archiveClosedBookings(cutoffDate, batchSize));
+            total += moved;
+            archivedCounter.increment(moved);
+        } while (moved == batchSize);
+        log.info("Archived {} bookings that checked out before {}", total, cutoffDate);
+    }
+}
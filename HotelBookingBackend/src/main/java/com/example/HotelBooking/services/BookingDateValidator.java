@@ -0,0 +1,23 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+
+import java.time.LocalDate;
+
+public final class BookingDateValidator {
+
+    private BookingDateValidator() {
+    }
+
+    public static void validate(LocalDate checkInDate, LocalDate checkOutDate) {
+        if(checkInDate.isBefore(LocalDate.now())){
+            throw new InvalidBookingStateAndDateException("CheckIn date cannot be before current date");
+        }
+        if(checkOutDate.isBefore(checkInDate)){
+            throw new InvalidBookingStateAndDateException("CheckOut date cannot be before CheckIn date");
+        }
+        if(checkOutDate.isEqual(checkInDate)){
+            throw new InvalidBookingStateAndDateException("CheckOut date cannot be equal to CheckIn date");
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.repositories.BookingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases rooms held by bookings that were never paid, or whose payment failed. Unpaid bookings sit in a DelayQueue ordered by
+ * their hold deadline, so each sweep only touches the bookings that are actually due.
+ */
+@Service
+@Slf4j
+public class BookingHoldExpiryService {
+
+    private static final int RELEASE_CHUNK_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final ClusterService clusterService;
+    private final InventoryService inventoryService;
+    private final BookingEventLog bookingEventLog;
+    private final DelayQueue<PendingHold> pendingHolds = new DelayQueue<>();
+    private final Counter expiredCounter;
+    private final Timer releaseTimer;
+
+    @Value("${bookings.hold.window-minutes:30}")
+    private long holdWindowMinutes;
+
+    private volatile boolean wasLeader;
+
+    public BookingHoldExpiryService(BookingRepository bookingRepository, ClusterService clusterService,
+                                    InventoryService inventoryService, BookingEventLog bookingEventLog,
+                                    MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.clusterService = clusterService;
+        this.inventoryService = inventoryService;
+        this.bookingEventLog = bookingEventLog;
+        this.expiredCounter = meterRegistry.counter("bookings.holds.expired");
+        this.releaseTimer = meterRegistry.timer("bookings.holds.release");
+        meterRegistry.gauge("bookings.holds.pending", pendingHolds, DelayQueue::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildFromDatabase() {
+        pendingHolds.clear();
+        List<BookingRepository.BookingHoldView> unpaid =
+                bookingRepository.findByBookingStatusAndPaymentStatusNot(BookingStatus.BOOKED, PaymentStatus.COMPLETED);
+        unpaid.forEach(booking -> track(booking.getId(), booking.getCreatedAt()));
+        log.info("Tracking {} unpaid bookings for hold expiry", unpaid.size());
+    }
+
+    public void track(Long bookingId, LocalDateTime createdAt) {
+        long deadline = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                + Duration.ofMinutes(holdWindowMinutes).toMillis();
+        pendingHolds.offer(new PendingHold(bookingId, deadline));
+    }
+
+    // bookings created on other nodes, so whichever node becomes leader already knows their deadlines
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getRegion() != CacheRegion.BOOKING || !event.isRemote() || event.getKey() == null) return;
+        bookingRepository.findById(event.getKeyAsLong())
+                .filter(booking -> booking.getBookingStatus() == BookingStatus.BOOKED
+                        && booking.getPaymentStatus() != PaymentStatus.COMPLETED)
+                .ifPresent(booking -> track(booking.getId(), booking.getCreatedAt()));
+    }
+
+    @Scheduled(fixedDelayString = "${bookings.hold.sweep-interval-ms:30000}")
+    @Transactional
+    public void releaseExpiredHolds() {
+        boolean leader = clusterService.isLeader();
+        if (leader && !wasLeader) {
+            rebuildFromDatabase(); //followers drop their due holds, so a new leader starts from the table
+        }
+        wasLeader = leader;
+
+        List<PendingHold> due = new ArrayList<>();
+        pendingHolds.drainTo(due);
+        if (due.isEmpty() || !leader) return;
+
+        requeueUnlessCommitted(due);
+        List<Long> ids = due.stream().map(PendingHold::bookingId).toList();
+        int released = releaseTimer.record(() -> {
+            int count = 0;
+            for (int from = 0; from < ids.size(); from += RELEASE_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + RELEASE_CHUNK_SIZE, ids.size()));
+                //only what this update expired gives its units back, a booking paid meanwhile keeps them
+                List<Long> expired = bookingRepository.expireUnpaidBookings(chunk);
+                if (expired.isEmpty()) continue;
+                bookingRepository.findInventoryClaims(expired).forEach(claim -> inventoryService.release(claim.getPropertyId(),
+                        claim.getRoomType(), claim.getChannel(), claim.getCheckInDate(), claim.getCheckOutDate()));
+                bookingEventLog.recordUpdated(expired, BookingEventType.EXPIRED);
+                count += expired.size();
+            }
+            return count;
+        });
+        expiredCounter.increment(released);
+        ids.forEach(id -> clusterService.broadcast(CacheRegion.BOOKING, id));
+        log.info("Released {} unpaid bookings out of {} due holds", released, due.size());
+    }
+
+    // the drained holds are only gone once the expiry commits, a rollback at any point retries them on the next sweep
+    private void requeueUnlessCommitted(List<PendingHold> due) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    pendingHolds.addAll(due);
+                }
+            }
+        });
+    }
+
+    private record PendingHold(Long bookingId, long deadlineMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineMillis, ((PendingHold) other).deadlineMillis);
+        }
+    }
+}
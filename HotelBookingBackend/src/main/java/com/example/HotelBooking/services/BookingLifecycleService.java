@@ -0,0 +1,15 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.Response;
+
+import java.time.LocalDate;
+
+public interface BookingLifecycleService {
+
+    Response cancelBooking(String bookingReference);
+
+    Response changeBookingDates(String bookingReference, BookingDTO bookingDTO);
+
+    Response cancelBookingsForRoom(Long roomId, LocalDate startDate, LocalDate endDate);
+}
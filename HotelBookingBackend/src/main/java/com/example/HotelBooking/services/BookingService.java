@@ -4,9 +4,13 @@ import com.example.HotelBooking.dtos.BookingDTO;
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.entities.Booking;
 
+import java.time.LocalDate;
+
 public interface BookingService {
     Response getAllBookings();
     Response createBooking(BookingDTO bookingDTO);
     Response findBookingByReferenceNo(String bookingReference);
     Response updateBooking(BookingDTO bookingDTO);
+    Response getBookingEvents(String bookingReference);
+    Response getDailyStats(LocalDate from, LocalDate to);
 }
@@ -0,0 +1,13 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.dtos.BulkStatusRequest;
+import com.example.HotelBooking.dtos.Response;
+
+import java.time.LocalDate;
+
+public interface FrontDeskService {
+
+    Response transitionBookings(BulkStatusRequest bulkStatusRequest);
+
+    Response getArrivalsAndDepartures(LocalDate date);
+}
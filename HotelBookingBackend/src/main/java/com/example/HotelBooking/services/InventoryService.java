@@ -0,0 +1,33 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.dtos.AllotmentRequest;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.RoomType;
+
+import java.time.LocalDate;
+
+public interface InventoryService {
+
+    String DIRECT_CHANNEL = "DIRECT";
+
+    /** How a booking of one specific room was sold. */
+    enum RoomClaim {
+        COUNTED, //taken from the direct allotment, released with the booking like a type booking
+        NOT_COUNTED, //no direct allotment is set for these nights, only the room itself limits the sale
+        SOLD_OUT
+    }
+
+    Response setAllotments(AllotmentRequest allotmentRequest);
+
+    Response getInventory(RoomType roomType, String channel, LocalDate startDate, LocalDate endDate);
+
+    void reserve(Long propertyId, RoomType roomType, String channel, LocalDate checkInDate, LocalDate checkOutDate);
+
+    void release(Long propertyId, RoomType roomType, String channel, LocalDate checkInDate, LocalDate checkOutDate);
+
+    RoomClaim claimRoom(Room room, LocalDate checkInDate, LocalDate checkOutDate);
+
+    //for a booking moving to new dates, whose old dates must not count against its own room
+    RoomClaim claimRoom(Room room, LocalDate checkInDate, LocalDate checkOutDate, Long movingBookingId);
+}
@@ -2,10 +2,14 @@ package com.example.HotelBooking.services;
 
 import com.example.HotelBooking.dtos.NotificationDTO;
 
+import java.util.List;
+
 public interface NotificationService {
 
     void sendEmail(NotificationDTO notificationDTO);
 
+    void sendEmails(List<NotificationDTO> notificationDTOs); //one background task and mail session for the whole batch
+
     void sendSms();
 
     void sendWhatsapp();
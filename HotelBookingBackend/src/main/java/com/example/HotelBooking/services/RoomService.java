@@ -2,6 +2,7 @@ package com.example.HotelBooking.services;
 
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.dtos.RoomSearchRequest;
 import com.example.HotelBooking.enums.RoomType;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -24,4 +25,8 @@ public interface RoomService {
 
     Response searchRoom(String input);
 
+    Response searchAvailableRooms(RoomSearchRequest roomSearchRequest);
+
+    Response getAvailabilityCalendar(LocalDate startDate, LocalDate endDate);
+
 }
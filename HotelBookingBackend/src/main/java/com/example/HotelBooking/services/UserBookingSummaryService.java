@@ -0,0 +1,75 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.repositories.UserBookingSummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Keeps user_booking_summaries in step with bookings. Single booking changes are copied right after they
+ * commit; bulk changes, and anything an event did not cover, are picked up by updated_at. Every node shares
+ * the table, so only changes made on this node are applied here.
+ */
+@Service
+@Slf4j
+public class UserBookingSummaryService {
+
+    private final UserBookingSummaryRepository userBookingSummaryRepository;
+    private final ClusterService clusterService;
+
+    @Value("${bookings.summary.overlap-ms:60000}")
+    private long overlapMs; //clock skew between nodes and the database, and transactions committing late
+
+    private volatile LocalDateTime syncedUntil; //only advanced by the leader's catch up
+
+    public UserBookingSummaryService(UserBookingSummaryRepository userBookingSummaryRepository, ClusterService clusterService) {
+        this.userBookingSummaryRepository = userBookingSummaryRepository;
+        this.clusterService = clusterService;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.isRemote()) return;
+        if (event.getRegion() == CacheRegion.ROOM && event.getKey() != null) {
+            userBookingSummaryRepository.refreshRoom(event.getKeyAsLong());
+        } else if (event.getRegion() == CacheRegion.BOOKING) {
+            if (event.getKey() != null) {
+                userBookingSummaryRepository.refreshBooking(event.getKeyAsLong());
+            } else {
+                //a bulk change that just committed, whatever the window misses the leader's catch up gets
+                userBookingSummaryRepository.refreshChangedSince(LocalDateTime.now().minus(overlapMs, ChronoUnit.MILLIS));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bookings.summary.catch-up-interval-ms:60000}")
+    @Transactional
+    public void catchUp() {
+        if (!clusterService.isLeader()) return;
+        LocalDateTime started = LocalDateTime.now();
+        if (syncedUntil == null) {
+            LocalDateTime highWaterMark = userBookingSummaryRepository.findHighWaterMark();
+            if (highWaterMark == null) {
+                int copied = userBookingSummaryRepository.backfill();
+                log.info("Backfilled {} booking summaries", copied);
+                syncedUntil = started;
+                return;
+            }
+            syncedUntil = highWaterMark;
+        }
+        int refreshed = userBookingSummaryRepository.refreshChangedSince(syncedUntil.minus(overlapMs, ChronoUnit.MILLIS));
+        if (refreshed > 0) log.debug("Caught up {} booking summaries", refreshed);
+        syncedUntil = started;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.HotelBooking.services;
 
 import com.example.HotelBooking.dtos.LoginRequest;
+import com.example.HotelBooking.dtos.RefreshTokenRequest;
 import com.example.HotelBooking.dtos.RegistrationRequest;
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.dtos.UserDTO;
@@ -10,6 +11,8 @@ public interface UserService {
 
     Response registerUser(RegistrationRequest registrationRequest);
     Response loginUser(LoginRequest loginRequest);
+    Response refreshToken(RefreshTokenRequest refreshTokenRequest);
+    Response logout(String accessToken, RefreshTokenRequest refreshTokenRequest);
 
     Response getAllUsers();
 
@@ -17,6 +20,7 @@ public interface UserService {
     User getCurrentLoggedInUser();
     Response updateOwnAccount(UserDTO userDTO);
     Response deleteOwnAccount();
-    Response getMyBookingHistory();
+    Response getMyBookingHistory(int page, int size);
+    long getMyBookingHistoryLastModified();
 
 }
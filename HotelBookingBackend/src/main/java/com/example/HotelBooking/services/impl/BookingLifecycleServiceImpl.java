@@ -0,0 +1,262 @@
+package com.example.HotelBooking.services.impl;
+
+import com.example.HotelBooking.assignment.RoomAssignmentService;
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.config.datasource.ReadYourWritesTracker;
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.NotificationDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.NotificationType;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.UserRole;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.holds.RoomHoldService;
+import com.example.HotelBooking.payments.refund.RefundRequestedEvent;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.security.AuthPrincipal;
+import com.example.HotelBooking.security.CurrentPrincipal;
+import com.example.HotelBooking.services.BookingDateValidator;
+import com.example.HotelBooking.services.BookingLifecycleService;
+import com.example.HotelBooking.services.InventoryService;
+import com.example.HotelBooking.services.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingLifecycleServiceImpl implements BookingLifecycleService {
+
+    private final BookingRepository bookingRepository;
+    private final RoomRepository roomRepository;
+    private final CurrentPrincipal currentPrincipal;
+    private final InventoryService inventoryService;
+    private final RoomAssignmentService roomAssignmentService;
+    private final NotificationService notificationService;
+    private final ClusterService clusterService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final BookingEventLog bookingEventLog;
+    private final RoomHoldService roomHoldService;
+
+    @Value("${bookings.cancellation.free-days:2}")
+    private int freeCancellationDays; //later cancellations are charged the first night
+
+    @Override
+    @Transactional
+    public Response cancelBooking(String bookingReference) {
+        AuthPrincipal currentUser = currentPrincipal.get();
+        Booking booking = findOwnBooking(bookingReference, currentUser);
+        if (booking.getBookingStatus() != BookingStatus.BOOKED) {
+            throw new InvalidBookingStateAndDateException("Only bookings that are not checked in yet can be cancelled");
+        }
+
+        booking.setBookingStatus(BookingStatus.CANCELLED);
+        releaseInventory(booking);
+        bookingRepository.save(booking);
+        bookingEventLog.record(booking, BookingEventType.CANCELLED);
+
+        BigDecimal refund = booking.getPaymentStatus() == PaymentStatus.COMPLETED ? refundableAmount(booking) : BigDecimal.ZERO;
+        if (refund.signum() > 0) {
+            applicationEventPublisher.publishEvent(new RefundRequestedEvent(List.of(
+                    toRefund(booking, refund, refund.compareTo(booking.getTotalPrice()) == 0))));
+        }
+        clusterService.broadcast(CacheRegion.BOOKING, booking.getId());
+        readYourWritesTracker.recordWrite(currentUser.email());
+        notificationService.sendEmails(List.of(cancellationNotice(booking, refund, "at your request")));
+
+        return Response.builder()
+                .status(200)
+                .message("Booking Cancelled Successfully")
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Response changeBookingDates(String bookingReference, BookingDTO bookingDTO) {
+        AuthPrincipal currentUser = currentPrincipal.get();
+        Booking booking = findOwnBooking(bookingReference, currentUser);
+        if (booking.getBookingStatus() != BookingStatus.BOOKED) {
+            throw new InvalidBookingStateAndDateException("Only bookings that are not checked in yet can be changed");
+        }
+        LocalDate checkInDate = bookingDTO.getCheckInDate();
+        LocalDate checkOutDate = bookingDTO.getCheckOutDate();
+        BookingDateValidator.validate(checkInDate, checkOutDate);
+
+        Room room = booking.getRoom();
+        BigDecimal pricePerNight;
+        if (!Boolean.FALSE.equals(booking.getRoomChosen())) {
+            //the guest picked this room and pays its price, so the stay moves with it or not at all
+            roomRepository.findByIdForUpdate(room.getId());
+            if (!bookingRepository.isRoomAvailableExcluding(room.getId(), checkInDate, checkOutDate, booking.getId())
+                    || roomHoldService.isHeldByOthers(room.getId(), checkInDate, checkOutDate, booking.getUser().getId())) {
+                throw new NotFoundException("Room not available for the give date ranges");
+            }
+            //both run in this transaction, so a sold out stay rolls the release back as well
+            releaseInventory(booking);
+            InventoryService.RoomClaim claim = inventoryService.claimRoom(room, checkInDate, checkOutDate, booking.getId());
+            if (claim == InventoryService.RoomClaim.SOLD_OUT) {
+                throw new NotFoundException("No " + room.getType() + " rooms left for the given date ranges");
+            }
+            booking.setInventoryReserved(claim == InventoryService.RoomClaim.COUNTED);
+            pricePerNight = room.getPricePerNight();
+        } else {
+            inventoryService.release(booking.getPropertyId(), booking.getRoomType(), booking.getChannel(),
+                    booking.getCheckInDate(), booking.getCheckOutDate());
+            inventoryService.reserve(booking.getPropertyId(), booking.getRoomType(), booking.getChannel(), checkInDate, checkOutDate);
+            if (room != null) {
+                roomRepository.findByIdForUpdate(room.getId());
+                if (!bookingRepository.isRoomAvailableExcluding(room.getId(), checkInDate, checkOutDate, booking.getId())
+                        || roomHoldService.isHeldByOthers(room.getId(), checkInDate, checkOutDate, booking.getUser().getId())) {
+                    //sold by type, so any room of the type will do, or none until check in when overbooked
+                    room = roomAssignmentService.chooseRoom(booking.getPropertyId(), booking.getRoomType(), checkInDate, checkOutDate).orElse(null);
+                }
+            }
+            pricePerNight = roomRepository.findLowestPricePerNight(booking.getPropertyId(), booking.getRoomType())
+                    .orElseThrow(() -> new NotFoundException("No rooms of type " + booking.getRoomType()));
+        }
+        BigDecimal newTotalPrice = pricePerNight.multiply(BigDecimal.valueOf(ChronoUnit.DAYS.between(checkInDate, checkOutDate)));
+        BigDecimal difference = booking.getTotalPrice().subtract(newTotalPrice);
+        if (booking.getPaymentStatus() == PaymentStatus.COMPLETED) {
+            if (difference.signum() < 0) {
+                throw new InvalidBookingStateAndDateException("The new dates cost more than what was paid, please cancel and book again");
+            }
+            if (difference.signum() > 0) {
+                applicationEventPublisher.publishEvent(new RefundRequestedEvent(List.of(toRefund(booking, difference, false))));
+            }
+        }
+
+        booking.setRoom(room);
+        booking.setCheckInDate(checkInDate);
+        booking.setCheckOutDate(checkOutDate);
+        booking.setTotalPrice(newTotalPrice);
+        bookingRepository.save(booking);
+        bookingEventLog.record(booking, BookingEventType.DATES_CHANGED);
+        clusterService.broadcast(CacheRegion.BOOKING, null); //caches keyed by night still hold the old dates
+        readYourWritesTracker.recordWrite(currentUser.email());
+
+        notificationService.sendEmails(List.of(NotificationDTO.builder()
+                .type(NotificationType.EMAIL)
+                .recipient(booking.getUser().getEmail())
+                .subject("Booking Dates Changed")
+                .body("Your booking with reference: " + bookingReference + " now runs from " + checkInDate + " to " + checkOutDate
+                        + ". New total price: " + newTotalPrice)
+                .bookingReference(bookingReference)
+                .build()));
+        return Response.builder()
+                .status(200)
+                .message("Booking Updated Successfully")
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Response cancelBookingsForRoom(Long roomId, LocalDate startDate, LocalDate endDate) {
+        roomRepository.findByIdForUpdate(roomId).orElseThrow(() -> new NotFoundException("Room not Found"));
+        LocalDate fromDate = startDate != null ? startDate : LocalDate.now();
+        if (endDate != null && endDate.isBefore(fromDate)) {
+            throw new InvalidBookingStateAndDateException("End date cannot be before start date");
+        }
+
+        List<Booking> bookings = bookingRepository.lockBookedForRoom(roomId, fromDate, endDate);
+        if (bookings.isEmpty()) {
+            return Response.builder()
+                    .status(200)
+                    .message("No bookings to cancel")
+                    .totalElements(0L)
+                    .build();
+        }
+        List<Long> bookingIds = bookings.stream().map(Booking::getId).toList();
+        int cancelled = bookingRepository.cancelBookings(bookingIds);
+        bookingEventLog.recordUpdated(bookingIds, BookingEventType.CANCELLED);
+
+        List<RefundRequestedEvent.Refund> refunds = new ArrayList<>();
+        List<NotificationDTO> notifications = new ArrayList<>();
+        for (Booking booking : bookings) {
+            releaseInventory(booking);
+            boolean paid = booking.getPaymentStatus() == PaymentStatus.COMPLETED;
+            if (paid) {
+                refunds.add(toRefund(booking, booking.getTotalPrice(), true)); //not the guest's doing, always in full
+            }
+            notifications.add(cancellationNotice(booking, paid ? booking.getTotalPrice() : BigDecimal.ZERO,
+                    "because the room is unavailable"));
+            clusterService.broadcast(CacheRegion.BOOKING, booking.getId());
+        }
+        if (!refunds.isEmpty()) {
+            applicationEventPublisher.publishEvent(new RefundRequestedEvent(refunds));
+        }
+        notificationService.sendEmails(notifications);
+        log.info("Cancelled {} bookings for room {}, {} refunds requested", cancelled, roomId, refunds.size());
+
+        return Response.builder()
+                .status(200)
+                .message("Bookings Cancelled Successfully")
+                .totalElements((long) cancelled)
+                .build();
+    }
+
+    // customers only see their own bookings, an unknown and a foreign reference look the same. Locked, so a
+    // payment being applied meanwhile is either seen here or sees the change
+    private Booking findOwnBooking(String bookingReference, AuthPrincipal currentUser) {
+        Booking booking = bookingRepository.findByBookingReferenceForUpdate(bookingReference)
+                .orElseThrow(() -> new NotFoundException("Booking with reference number : " + bookingReference + " not found."));
+        if (currentUser.role() != UserRole.ADMIN && !booking.getUser().getId().equals(currentUser.userId())) {
+            throw new NotFoundException("Booking with reference number : " + bookingReference + " not found.");
+        }
+        return booking;
+    }
+
+    private void releaseInventory(Booking booking) {
+        if (Boolean.TRUE.equals(booking.getInventoryReserved())) {
+            inventoryService.release(booking.getPropertyId(), booking.getRoomType(), booking.getChannel(),
+                    booking.getCheckInDate(), booking.getCheckOutDate());
+        }
+    }
+
+    private BigDecimal refundableAmount(Booking booking) {
+        if (ChronoUnit.DAYS.between(LocalDate.now(), booking.getCheckInDate()) >= freeCancellationDays) {
+            return booking.getTotalPrice();
+        }
+        long nights = ChronoUnit.DAYS.between(booking.getCheckInDate(), booking.getCheckOutDate());
+        BigDecimal firstNight = booking.getTotalPrice().divide(BigDecimal.valueOf(nights), 2, RoundingMode.HALF_UP);
+        return booking.getTotalPrice().subtract(firstNight).max(BigDecimal.ZERO);
+    }
+
+    private RefundRequestedEvent.Refund toRefund(Booking booking, BigDecimal amount, boolean full) {
+        return new RefundRequestedEvent.Refund(booking.getId(), booking.getBookingReference(),
+                booking.getUser().getEmail(), amount, full);
+    }
+
+    private NotificationDTO cancellationNotice(Booking booking, BigDecimal refund, String reason) {
+        String body = "Your booking with reference: " + booking.getBookingReference() + " has been cancelled " + reason + ".";
+        if (refund.signum() > 0) {
+            body += " A refund of " + refund + " will be issued to your original payment method.";
+        }
+        return NotificationDTO.builder()
+                .type(NotificationType.EMAIL)
+                .recipient(booking.getUser().getEmail())
+                .subject("Booking Cancelled")
+                .body(body)
+                .bookingReference(booking.getBookingReference())
+                .build();
+    }
+}
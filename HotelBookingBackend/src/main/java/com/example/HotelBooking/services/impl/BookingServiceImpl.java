@@ -1,29 +1,48 @@
 package com.example.HotelBooking.services.impl;
 
+import com.example.HotelBooking.assignment.RoomAssignmentService;
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.config.datasource.ReadYourWritesTracker;
 import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.BookingDailyStatsDTO;
+import com.example.HotelBooking.dtos.BookingEventDTO;
 import com.example.HotelBooking.dtos.NotificationDTO;
 import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.entities.ArchivedBooking;
 import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.entities.Room;
-import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.BookingEventType;
 import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
 import com.example.HotelBooking.enums.NotificationType;
 import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.UserRole;
 import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
 import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.holds.RoomHoldService;
+import com.example.HotelBooking.repositories.ArchivedBookingRepository;
+import com.example.HotelBooking.repositories.BookingDailyStatsRepository;
+import com.example.HotelBooking.repositories.BookingEventRepository;
 import com.example.HotelBooking.repositories.BookingRepository;
 import com.example.HotelBooking.repositories.NotificationRepository;
 import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.security.AuthPrincipal;
+import com.example.HotelBooking.security.CurrentPrincipal;
 import com.example.HotelBooking.services.BookingCodeGenerator;
+import com.example.HotelBooking.services.BookingDateValidator;
+import com.example.HotelBooking.services.BookingHoldExpiryService;
 import com.example.HotelBooking.services.BookingService;
+import com.example.HotelBooking.services.InventoryService;
 import com.example.HotelBooking.services.NotificationService;
-import com.example.HotelBooking.services.UserService;
+import com.example.HotelBooking.tenancy.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.TypeToken;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -35,17 +54,28 @@ import java.util.List;
 @Slf4j
 public class BookingServiceImpl implements BookingService {
     private final  BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final RoomRepository roomRepository;
     private final ModelMapper modelMapper;
     private final NotificationRepository notificationRepository;
-    private final UserService userService;
+    private final CurrentPrincipal currentPrincipal;
     private final BookingCodeGenerator bookingCodeGenerator;
+    private final BookingHoldExpiryService bookingHoldExpiryService;
+    private final ClusterService clusterService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final InventoryService inventoryService;
+    private final RoomAssignmentService roomAssignmentService;
+    private final BookingEventLog bookingEventLog;
+    private final BookingEventRepository bookingEventRepository;
+    private final BookingDailyStatsRepository bookingDailyStatsRepository;
+    private final RoomHoldService roomHoldService;
+    private final TenantContext tenantContext;
 
     private final NotificationService notificationService;
 
     @Override
     public Response getAllBookings() {
-        List<Booking> bookingList = bookingRepository.findAll(Sort.by(Sort.Direction.DESC,"id"));
+        List<Booking> bookingList = bookingRepository.findByPropertyId(tenantContext.getPropertyId(), Sort.by(Sort.Direction.DESC,"id"));
         List<BookingDTO> bookingDTOList = modelMapper.map(bookingList, new TypeToken<List<BookingDTO>>(){}.getType());
 
         for(BookingDTO bookingDTO : bookingDTOList){
@@ -61,48 +91,73 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional
     public Response createBooking(BookingDTO bookingDTO) {
-       User currentUser = userService.getCurrentLoggedInUser();
-        Room room = roomRepository.findById(bookingDTO.getRoomId())
-                .orElseThrow(()->new NotFoundException("Room not Found"));
-
+       AuthPrincipal currentUser = currentPrincipal.get(); //from the token, no users query
         LocalDate checkInDate = bookingDTO.getCheckInDate();
         LocalDate checkOutDate = bookingDTO.getCheckOutDate();
-        if(checkInDate.isBefore(LocalDate.now())){
-            throw new InvalidBookingStateAndDateException("CheckIn date cannot be before current date");
-        }
-        if(checkOutDate.isBefore(checkInDate)){
-            throw new InvalidBookingStateAndDateException("CheckOut date cannot be before CheckIn date");
-        }
-        if(checkOutDate.isEqual(checkInDate)){
-            throw new InvalidBookingStateAndDateException("CheckOut date cannot be equal to CheckIn date");
-        }
+        BookingDateValidator.validate(checkInDate, checkOutDate);
 
-        boolean isAvailable = bookingRepository.isRoomAvailable(bookingDTO.getRoomId(),checkInDate,checkOutDate);
-        if(!isAvailable){
-            throw new NotFoundException("Room not available for the give date ranges");
+        Booking booking = new Booking();
+        BigDecimal pricePerNight;
+        if(bookingDTO.getRoomId() != null){
+            Room room = roomRepository.findByIdForUpdate(bookingDTO.getRoomId())
+                    .orElseThrow(()->new NotFoundException("Room not Found"));
+            boolean isAvailable = bookingRepository.isRoomAvailable(bookingDTO.getRoomId(),checkInDate,checkOutDate)
+                    && !roomHoldService.isHeldByOthers(bookingDTO.getRoomId(),checkInDate,checkOutDate,currentUser.userId());
+            if(!isAvailable){
+                throw new NotFoundException("Room not available for the give date ranges");
+            }
+            InventoryService.RoomClaim claim = inventoryService.claimRoom(room, checkInDate, checkOutDate);
+            if(claim == InventoryService.RoomClaim.SOLD_OUT){
+                throw new NotFoundException("No " + room.getType() + " rooms left for the given date ranges");
+            }
+            booking.setRoom(room);
+            booking.setRoomChosen(true);
+            booking.setPropertyId(room.getPropertyId());
+            booking.setRoomType(room.getType());
+            booking.setChannel(InventoryService.DIRECT_CHANNEL);
+            booking.setInventoryReserved(claim == InventoryService.RoomClaim.COUNTED);
+            pricePerNight = room.getPricePerNight();
+        }else if(bookingDTO.getRoomType() != null){
+            //sold from the allotment counters, an overbooked stay only gets its room at check in
+            String channel = resolveChannel(currentUser, bookingDTO.getChannel());
+            Long propertyId = tenantContext.getPropertyId();
+            pricePerNight = roomRepository.findLowestPricePerNight(propertyId, bookingDTO.getRoomType())
+                    .orElseThrow(()->new NotFoundException("No rooms of type "+bookingDTO.getRoomType()));
+            inventoryService.reserve(propertyId, bookingDTO.getRoomType(), channel, checkInDate, checkOutDate);
+            roomAssignmentService.chooseRoom(propertyId, bookingDTO.getRoomType(), checkInDate, checkOutDate).ifPresent(booking::setRoom);
+            booking.setRoomChosen(false);
+            booking.setPropertyId(propertyId);
+            booking.setRoomType(bookingDTO.getRoomType());
+            booking.setChannel(channel);
+            booking.setInventoryReserved(true);
+        }else{
+            throw new NotFoundException("Room Id or room type is required");
         }
 
-        BigDecimal totalPrice = calculateTotalPrice(room,bookingDTO);
+        BigDecimal totalPrice = calculateTotalPrice(pricePerNight,bookingDTO);
         String bookingReference = bookingCodeGenerator.generateBookingReference();
-        Booking booking = new Booking();
         booking.setBookingStatus(BookingStatus.BOOKED);
         booking.setBookingReference(bookingReference);
         booking.setCreatedAt(LocalDateTime.now());
-        booking.setRoom(room);
         booking.setPaymentStatus(PaymentStatus.PENDING);
-        booking.setUser(currentUser);
+        booking.setUser(currentPrincipal.getUserReference());
         booking.setCheckInDate(checkInDate);
         booking.setCheckOutDate(checkOutDate);
         booking.setTotalPrice(totalPrice);
 
         bookingRepository.save(booking);
+        bookingEventLog.record(booking, BookingEventType.CREATED);
+        bookingHoldExpiryService.track(booking.getId(), booking.getCreatedAt());
+        clusterService.broadcast(CacheRegion.BOOKING, booking.getId());
+        readYourWritesTracker.recordWrite(currentUser.email());
 
         String paymentUrl = "http://localhost:3000/payment"+bookingReference+"/"+totalPrice;
         log.info("PAYMENT URL: {}",paymentUrl);
         NotificationDTO notificationDTO = NotificationDTO.builder()
                 .type(NotificationType.EMAIL)
-                .recipient(currentUser.getEmail())
+                .recipient(currentUser.email())
                 .body(String.format("Your booking has been created. Proceed with your payment using the link below "+
                         "\nn%s",paymentUrl))
                 .subject("Booking Confirmation")
@@ -116,18 +171,28 @@ public class BookingServiceImpl implements BookingService {
                 .build();
     }
 
-    private BigDecimal calculateTotalPrice(Room room, BookingDTO bookingDTO) {
-        BigDecimal pricePerNight = room.getPricePerNight();
+    // only admins sell on behalf of a partner channel, everybody else books direct
+    private String resolveChannel(AuthPrincipal currentUser, String requestedChannel) {
+        if(requestedChannel == null || requestedChannel.isBlank() || currentUser.role() != UserRole.ADMIN){
+            return InventoryService.DIRECT_CHANNEL;
+        }
+        return requestedChannel.trim().toUpperCase();
+    }
+
+    private BigDecimal calculateTotalPrice(BigDecimal pricePerNight, BookingDTO bookingDTO) {
         long days = bookingDTO.getCheckInDate().until(bookingDTO.getCheckOutDate()).getDays();
         return pricePerNight.multiply(BigDecimal.valueOf(days));
 
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Response findBookingByReferenceNo(String bookingReference) {
-        Booking booking = bookingRepository.findByBookingReference(bookingReference)
+        BookingDTO bookingDTO = bookingRepository.findByBookingReference(bookingReference)
+                .map(booking -> modelMapper.map(booking,BookingDTO.class))
+                .or(()->archivedBookingRepository.findByBookingReference(bookingReference) //closed long ago
+                        .map(archivedBooking -> modelMapper.map(archivedBooking,BookingDTO.class)))
                 .orElseThrow(()->new NotFoundException("Booking with reference number : "+bookingReference+" not found."));
-        BookingDTO bookingDTO = modelMapper.map(booking,BookingDTO.class);
         return Response.builder()
                 .status(200)
                 .message("Success")
@@ -136,22 +201,77 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional
     public Response updateBooking(BookingDTO bookingDTO) {
        if(bookingDTO.getId() == null) throw new NotFoundException("Booking Id is required");
        Booking existingBooking = bookingRepository.findById(bookingDTO.getId())
                .orElseThrow(()->new NotFoundException("Booking Not Found"));
 
+       BookingStatus previousBookingStatus = existingBooking.getBookingStatus();
+       PaymentStatus previousPaymentStatus = existingBooking.getPaymentStatus();
        if(bookingDTO.getBookingStatus()!=null){
+           BookingStatus currentStatus = existingBooking.getBookingStatus();
+           if(bookingDTO.getBookingStatus() == BookingStatus.CHECKED_IN && existingBooking.getRoom() == null){
+               existingBooking.setRoom(assignRoom(existingBooking));
+           }
+           if(bookingDTO.getBookingStatus() == BookingStatus.CANCELLED
+                   && (currentStatus == BookingStatus.BOOKED || currentStatus == BookingStatus.CHECKED_IN)
+                   && Boolean.TRUE.equals(existingBooking.getInventoryReserved())){
+               inventoryService.release(existingBooking.getPropertyId(), existingBooking.getRoomType(), existingBooking.getChannel(),
+                       existingBooking.getCheckInDate(), existingBooking.getCheckOutDate());
+           }
            existingBooking.setBookingStatus(bookingDTO.getBookingStatus());
        }
         if(bookingDTO.getPaymentStatus()!=null){
             existingBooking.setPaymentStatus(bookingDTO.getPaymentStatus());
         }
         bookingRepository.save(existingBooking);
+        if(existingBooking.getBookingStatus() != previousBookingStatus){
+            bookingEventLog.record(existingBooking, BookingEventType.of(existingBooking.getBookingStatus()));
+        }
+        if(existingBooking.getPaymentStatus() != previousPaymentStatus){
+            bookingEventLog.record(existingBooking, BookingEventType.of(existingBooking.getPaymentStatus()));
+        }
+        clusterService.broadcast(CacheRegion.BOOKING, existingBooking.getId());
         return Response.builder()
                 .status(200)
                 .message("Booking Updated Successfully")
                 .build();
 
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Response getBookingEvents(String bookingReference) {
+        Long bookingId = bookingRepository.findByBookingReference(bookingReference)
+                .map(Booking::getId)
+                .or(()->archivedBookingRepository.findByBookingReference(bookingReference) //the trail outlives archival
+                        .map(ArchivedBooking::getId))
+                .orElseThrow(()->new NotFoundException("Booking with reference number : "+bookingReference+" not found."));
+        List<BookingEventDTO> bookingEvents = modelMapper.map(bookingEventRepository.findByBookingIdOrderById(bookingId),
+                new TypeToken<List<BookingEventDTO>>(){}.getType());
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .bookingEvents(bookingEvents)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Response getDailyStats(LocalDate from, LocalDate to) {
+        if(to.isBefore(from)) throw new InvalidBookingStateAndDateException("End date cannot be before start date");
+        List<BookingDailyStatsDTO> dailyStats = modelMapper.map(bookingDailyStatsRepository.findByDayBetweenOrderByDay(from, to),
+                new TypeToken<List<BookingDailyStatsDTO>>(){}.getType());
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .dailyStats(dailyStats)
+                .build();
+    }
+
+    private Room assignRoom(Booking booking) {
+        return roomAssignmentService.chooseRoom(booking.getPropertyId(), booking.getRoomType(), booking.getCheckInDate(), booking.getCheckOutDate())
+                .orElseThrow(()->new InvalidBookingStateAndDateException("No free "+booking.getRoomType()+" room to assign for this stay"));
+    }
 }
@@ -0,0 +1,202 @@
+package com.example.HotelBooking.services.impl;
+
+import com.example.HotelBooking.assignment.RoomAssignmentService;
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.dtos.BookingTransitionResultDTO;
+import com.example.HotelBooking.dtos.BulkStatusRequest;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.dtos.UserDTO;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.services.FrontDeskService;
+import com.example.HotelBooking.tenancy.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Morning and evening peaks at the desk: hundreds of check ins or check outs in one request, applied with
+ * one guarded update per chunk instead of loading and saving every booking.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FrontDeskServiceImpl implements FrontDeskService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final RoomAssignmentService roomAssignmentService;
+    private final ClusterService clusterService;
+    private final BookingEventLog bookingEventLog;
+    private final TenantContext tenantContext;
+
+    @Override
+    @Transactional
+    public Response transitionBookings(BulkStatusRequest bulkStatusRequest) {
+        BookingStatus toStatus = bulkStatusRequest.getBookingStatus();
+        BookingStatus fromStatus = switch (toStatus) {
+            case CHECKED_IN -> BookingStatus.BOOKED;
+            case CHECKED_OUT -> BookingStatus.CHECKED_IN;
+            default -> throw new InvalidBookingStateAndDateException("Only CHECKED_IN and CHECKED_OUT can be applied in bulk");
+        };
+        List<String> references = bulkStatusRequest.getBookingReferences().stream().distinct().toList();
+        Map<String, BookingTransitionResultDTO> results = new LinkedHashMap<>();
+        int changed = 0;
+
+        for (int from = 0; from < references.size(); from += CHUNK_SIZE) {
+            List<String> chunk = references.subList(from, Math.min(from + CHUNK_SIZE, references.size()));
+            Map<String, BookingRepository.TransitionView> bookings = bookingRepository.findTransitionViews(chunk).stream()
+                    .collect(Collectors.toMap(BookingRepository.TransitionView::getBookingReference, Function.identity()));
+
+            Map<Long, Integer> eligible = new LinkedHashMap<>(); //booking id -> room number, null when not assigned yet
+            for (String reference : chunk) {
+                BookingRepository.TransitionView booking = bookings.get(reference);
+                if (booking != null && booking.getBookingStatus() == toStatus) {
+                    results.put(reference, result(booking, true, toStatus, booking.getRoomNumber(), null)); //retried request
+                    continue;
+                }
+                String refusal = refusal(booking, fromStatus, toStatus);
+                if (refusal != null) {
+                    results.put(reference, result(booking, reference, refusal));
+                } else {
+                    eligible.put(booking.getId(), booking.getRoomNumber());
+                }
+            }
+            if (toStatus == BookingStatus.CHECKED_IN) {
+                assignMissingRooms(bookings.values(), eligible, results);
+            }
+            if (eligible.isEmpty()) continue;
+
+            int updated = bookingRepository.transitionStatus(eligible.keySet(), fromStatus, toStatus);
+            bookingEventLog.recordUpdated(eligible.keySet(), BookingEventType.of(toStatus)); //room assigned above included
+            changed += updated;
+            Map<Long, BookingStatus> statuses = updated == eligible.size()
+                    ? null //nothing raced with us, no need to read the rows back
+                    : bookingRepository.findTransitionViews(chunk).stream().collect(Collectors.toMap(
+                            BookingRepository.TransitionView::getId, BookingRepository.TransitionView::getBookingStatus));
+            for (BookingRepository.TransitionView booking : bookings.values()) {
+                if (!eligible.containsKey(booking.getId())) continue;
+                BookingStatus status = statuses == null ? toStatus : statuses.get(booking.getId());
+                results.put(booking.getBookingReference(), status == toStatus
+                        ? result(booking, true, toStatus, eligible.get(booking.getId()), null)
+                        : result(booking, false, status, booking.getRoomNumber(), "Booking was changed by another request"));
+            }
+        }
+
+        if (changed > 0) {
+            clusterService.broadcast(CacheRegion.BOOKING, null); //one invalidation for the whole batch
+        }
+        log.info("Moved {} of {} bookings to {}", changed, references.size(), toStatus);
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .transitionResults(references.stream().map(results::get).toList())
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Response getArrivalsAndDepartures(LocalDate date) {
+        List<BookingRepository.FrontDeskView> bookings = bookingRepository.findArrivalsAndDepartures(tenantContext.getPropertyId(), date);
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .arrivals(bookings.stream()
+                        .filter(booking -> booking.getBookingStatus() == BookingStatus.BOOKED)
+                        .map(FrontDeskServiceImpl::toBookingDTO)
+                        .toList())
+                .departures(bookings.stream()
+                        .filter(booking -> booking.getBookingStatus() == BookingStatus.CHECKED_IN)
+                        .map(FrontDeskServiceImpl::toBookingDTO)
+                        .toList())
+                .build();
+    }
+
+    private static String refusal(BookingRepository.TransitionView booking, BookingStatus fromStatus, BookingStatus toStatus) {
+        if (booking == null) {
+            return "Booking not found";
+        }
+        if (booking.getBookingStatus() != fromStatus) {
+            return "Booking is " + booking.getBookingStatus() + ", only " + fromStatus + " bookings can be moved to " + toStatus;
+        }
+        if (toStatus == BookingStatus.CHECKED_IN && booking.getCheckInDate().isAfter(LocalDate.now())) {
+            return "Arrival is not due before " + booking.getCheckInDate();
+        }
+        return null;
+    }
+
+    // stays sold by type that are still without a room, one at a time since each needs its own pick
+    private void assignMissingRooms(Collection<BookingRepository.TransitionView> bookings, Map<Long, Integer> eligible,
+                                    Map<String, BookingTransitionResultDTO> results) {
+        for (BookingRepository.TransitionView booking : bookings) {
+            if (!eligible.containsKey(booking.getId()) || booking.getRoomId() != null) continue;
+            Optional<Room> room = roomAssignmentService.chooseRoom(booking.getPropertyId(), booking.getRoomType(),
+                    booking.getCheckInDate(), booking.getCheckOutDate());
+            if (room.isEmpty()) {
+                eligible.remove(booking.getId());
+                results.put(booking.getBookingReference(),
+                        result(booking, booking.getBookingReference(), "No free " + booking.getRoomType() + " room to assign for this stay"));
+                continue;
+            }
+            bookingRepository.reassignRoom(List.of(booking.getId()), room.get());
+            eligible.put(booking.getId(), room.get().getRoomNumber());
+        }
+    }
+
+    private static BookingTransitionResultDTO result(BookingRepository.TransitionView booking, boolean success,
+                                                     BookingStatus status, Integer roomNumber, String message) {
+        return BookingTransitionResultDTO.builder()
+                .bookingReference(booking.getBookingReference())
+                .success(success)
+                .bookingStatus(status)
+                .roomNumber(roomNumber)
+                .message(message)
+                .build();
+    }
+
+    private static BookingTransitionResultDTO result(BookingRepository.TransitionView booking, String reference, String refusal) {
+        return BookingTransitionResultDTO.builder()
+                .bookingReference(reference)
+                .success(false)
+                .bookingStatus(booking == null ? null : booking.getBookingStatus())
+                .message(refusal)
+                .build();
+    }
+
+    private static BookingDTO toBookingDTO(BookingRepository.FrontDeskView booking) {
+        return BookingDTO.builder()
+                .id(booking.getId())
+                .bookingReference(booking.getBookingReference())
+                .bookingStatus(booking.getBookingStatus())
+                .paymentStatus(booking.getPaymentStatus())
+                .checkInDate(booking.getCheckInDate())
+                .checkOutDate(booking.getCheckOutDate())
+                .roomType(booking.getRoomType())
+                .roomId(booking.getRoomId())
+                .room(booking.getRoomId() == null ? null : RoomDTO.builder()
+                        .id(booking.getRoomId())
+                        .roomNumber(booking.getRoomNumber())
+                        .build())
+                .user(UserDTO.builder()
+                        .firstName(booking.getFirstName())
+                        .lastName(booking.getLastName())
+                        .email(booking.getEmail())
+                        .phoneNumber(booking.getPhoneNumber())
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.HotelBooking.services.impl;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.dtos.AllotmentRequest;
+import com.example.HotelBooking.dtos.InventoryAllotmentDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.entities.InventoryAllotment;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.InventoryAllotmentRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.services.InventoryService;
+import com.example.HotelBooking.tenancy.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sells rooms by property, type and channel from per-night counters instead of scanning bookings. The database row
+ * is the source of truth and is only decremented by an update that checks it is not sold out; the in-memory mirror
+ * of the remaining counts, seeded by every read and by the sold out nights reservations run into, lets a sold out
+ * night be rejected without touching the database.
+ *
+ * Bookings of a specific room count against the direct allotment too once one is set for their nights, and
+ * are only sold while the rooms of the type left free still cover the type bookings waiting for a room.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final int MAX_ALLOTMENT_NIGHTS = 366;
+
+    private final InventoryAllotmentRepository inventoryAllotmentRepository;
+    private final ClusterService clusterService;
+    private final RoomRepository roomRepository;
+    private final BookingRepository bookingRepository;
+    private final TenantContext tenantContext;
+
+    @Value("${inventory.overbooking-percent:0}")
+    private int defaultOverbookingPercent;
+
+    private final Map<NightKey, AtomicInteger> remainingMirror = new ConcurrentHashMap<>();
+
+    @Override
+    @Transactional
+    public Response setAllotments(AllotmentRequest allotmentRequest) {
+        LocalDate startDate = allotmentRequest.getStartDate();
+        LocalDate endDate = allotmentRequest.getEndDate();
+        if (!endDate.isAfter(startDate)) {
+            throw new InvalidBookingStateAndDateException("End date must be after start date");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) > MAX_ALLOTMENT_NIGHTS) {
+            throw new InvalidBookingStateAndDateException("Allotments cannot be set for more than " + MAX_ALLOTMENT_NIGHTS + " nights at once");
+        }
+        int overbookingPercent = allotmentRequest.getOverbookingPercent() != null
+                ? allotmentRequest.getOverbookingPercent() : defaultOverbookingPercent;
+        int allotment = (int) Math.ceil(allotmentRequest.getRooms() * (100 + overbookingPercent) / 100.0);
+        Long propertyId = tenantContext.getPropertyId();
+        RoomType roomType = allotmentRequest.getRoomType();
+        String channel = allotmentRequest.getChannel().trim().toUpperCase();
+
+        Map<LocalDate, InventoryAllotment> existing = inventoryAllotmentRepository
+                .findByPropertyIdAndRoomTypeAndChannelAndStayDateBetweenOrderByStayDate(propertyId, roomType, channel,
+                        startDate, endDate.minusDays(1))
+                .stream()
+                .collect(Collectors.toMap(InventoryAllotment::getStayDate, Function.identity()));
+
+        List<InventoryAllotment> nights = startDate.datesUntil(endDate)
+                .map(stayDate -> {
+                    InventoryAllotment night = existing.get(stayDate);
+                    if (night == null) {
+                        return InventoryAllotment.builder()
+                                .propertyId(propertyId)
+                                .stayDate(stayDate)
+                                .roomType(roomType)
+                                .channel(channel)
+                                .allotment(allotment)
+                                .remaining(allotment)
+                                .build();
+                    }
+                    //units already sold stay sold, shrinking an allotment below them just closes the night
+                    int sold = night.getAllotment() - night.getRemaining();
+                    night.setAllotment(allotment);
+                    night.setRemaining(Math.max(0, allotment - sold));
+                    return night;
+                })
+                .toList();
+        inventoryAllotmentRepository.saveAll(nights);
+        evictMirror(propertyId, roomType, channel);
+        clusterService.broadcast(CacheRegion.INVENTORY, mirrorPrefix(propertyId, roomType, channel));
+
+        return Response.builder()
+                .status(200)
+                .message("Allotments Updated Successfully")
+                .inventory(nights.stream().map(InventoryServiceImpl::toDTO).toList())
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Response getInventory(RoomType roomType, String channel, LocalDate startDate, LocalDate endDate) {
+        Long propertyId = tenantContext.getPropertyId();
+        String normalizedChannel = channel.trim().toUpperCase();
+        List<InventoryAllotment> nights = inventoryAllotmentRepository
+                .findByPropertyIdAndRoomTypeAndChannelAndStayDateBetweenOrderByStayDate(propertyId, roomType, normalizedChannel,
+                        startDate, endDate.minusDays(1));
+        nights.forEach(night -> remainingMirror
+                .computeIfAbsent(new NightKey(propertyId, night.getStayDate(), roomType, normalizedChannel), key -> new AtomicInteger())
+                .set(night.getRemaining()));
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .inventory(nights.stream().map(InventoryServiceImpl::toDTO).toList())
+                .build();
+    }
+
+    /**
+     * Takes one unit for every night of the stay. Must run inside the booking transaction: when any
+     * night is missing or sold out an exception is thrown and the nights already taken are rolled back.
+     */
+    @Override
+    @Transactional
+    public void reserve(Long propertyId, RoomType roomType, String channel, LocalDate checkInDate, LocalDate checkOutDate) {
+        long nights = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
+        if (isKnownSoldOut(propertyId, roomType, channel, checkInDate, checkOutDate)
+                || inventoryAllotmentRepository.countNights(propertyId, roomType, channel, checkInDate, checkOutDate) != nights
+                || !take(propertyId, roomType, channel, checkInDate, checkOutDate)) {
+            throw new NotFoundException("No " + roomType + " rooms left on channel " + channel + " for the given date ranges");
+        }
+    }
+
+    /**
+     * Checks a booking of one specific room against the rest of its type: the rooms of the type still free for
+     * the stay, this one included, must outnumber the type bookings waiting for a room on any of its nights.
+     * Then takes the direct allotment when one is set. Never throws for a sold out stay, so a caller that has
+     * taken money already can refund it instead of rolling back.
+     */
+    @Override
+    @Transactional
+    public RoomClaim claimRoom(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        return claimRoom(room, checkInDate, checkOutDate, null);
+    }
+
+    @Override
+    @Transactional
+    public RoomClaim claimRoom(Room room, LocalDate checkInDate, LocalDate checkOutDate, Long movingBookingId) {
+        Long propertyId = room.getPropertyId();
+        RoomType roomType = room.getType();
+        long freeRooms = roomRepository.countAvailableRooms(propertyId, roomType, checkInDate, checkOutDate, movingBookingId);
+        if (freeRooms <= bookingRepository.countUnassigned(propertyId, roomType, checkInDate, checkOutDate)) {
+            return RoomClaim.SOLD_OUT;
+        }
+        if (isKnownSoldOut(propertyId, roomType, DIRECT_CHANNEL, checkInDate, checkOutDate)) return RoomClaim.SOLD_OUT;
+        long nights = inventoryAllotmentRepository.countNights(propertyId, roomType, DIRECT_CHANNEL, checkInDate, checkOutDate);
+        if (nights == 0) return RoomClaim.NOT_COUNTED;
+        //a missing night cannot be sold, so neither can the stay
+        if (nights != ChronoUnit.DAYS.between(checkInDate, checkOutDate)) return RoomClaim.SOLD_OUT;
+        return take(propertyId, roomType, DIRECT_CHANNEL, checkInDate, checkOutDate) ? RoomClaim.COUNTED : RoomClaim.SOLD_OUT;
+    }
+
+    @Override
+    @Transactional
+    public void release(Long propertyId, RoomType roomType, String channel, LocalDate checkInDate, LocalDate checkOutDate) {
+        inventoryAllotmentRepository.releaseNights(propertyId, roomType, channel, checkInDate, checkOutDate);
+        afterCommit(() -> adjustMirror(propertyId, roomType, channel, checkInDate, checkOutDate, 1));
+        clusterService.broadcast(CacheRegion.INVENTORY, mirrorPrefix(propertyId, roomType, channel));
+    }
+
+    // counters changed by another node, reloaded on the next inventory read
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getRegion() != CacheRegion.INVENTORY || !event.isRemote()) return;
+        if (event.getKey() == null) {
+            remainingMirror.clear();
+            return;
+        }
+        String[] parts = event.getKey().split("\\|", 3);
+        evictMirror(Long.valueOf(parts[0]), RoomType.valueOf(parts[1]), parts[2]);
+    }
+
+    private boolean isKnownSoldOut(Long propertyId, RoomType roomType, String channel, LocalDate checkInDate, LocalDate checkOutDate) {
+        return checkInDate.datesUntil(checkOutDate).anyMatch(stayDate -> {
+            AtomicInteger remaining = remainingMirror.get(new NightKey(propertyId, stayDate, roomType, channel));
+            return remaining != null && remaining.get() <= 0;
+        });
+    }
+
+    // one guarded update per night in date order, so stays that overlap meet on their nights in the same order.
+    // A sold out night gives back the nights taken before it, the caller may not roll back
+    private boolean take(Long propertyId, RoomType roomType, String channel, LocalDate checkInDate, LocalDate checkOutDate) {
+        for (LocalDate stayDate = checkInDate; stayDate.isBefore(checkOutDate); stayDate = stayDate.plusDays(1)) {
+            if (inventoryAllotmentRepository.takeNight(propertyId, roomType, channel, stayDate) == 0) {
+                remainingMirror.put(new NightKey(propertyId, stayDate, roomType, channel), new AtomicInteger());
+                if (stayDate.isAfter(checkInDate)) {
+                    inventoryAllotmentRepository.releaseNights(propertyId, roomType, channel, checkInDate, stayDate);
+                }
+                return false;
+            }
+        }
+        afterCommit(() -> adjustMirror(propertyId, roomType, channel, checkInDate, checkOutDate, -1));
+        clusterService.broadcast(CacheRegion.INVENTORY, mirrorPrefix(propertyId, roomType, channel));
+        return true;
+    }
+
+    private void adjustMirror(Long propertyId, RoomType roomType, String channel, LocalDate checkInDate, LocalDate checkOutDate,
+                              int delta) {
+        checkInDate.datesUntil(checkOutDate).forEach(stayDate -> {
+            AtomicInteger remaining = remainingMirror.get(new NightKey(propertyId, stayDate, roomType, channel));
+            if (remaining != null) {
+                remaining.accumulateAndGet(delta, (current, change) -> Math.max(0, current + change));
+            }
+        });
+    }
+
+    private void evictMirror(Long propertyId, RoomType roomType, String channel) {
+        remainingMirror.keySet().removeIf(key -> key.propertyId().equals(propertyId)
+                && key.roomType() == roomType && key.channel().equals(channel));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String mirrorPrefix(Long propertyId, RoomType roomType, String channel) {
+        return propertyId + "|" + roomType + "|" + channel;
+    }
+
+    private static InventoryAllotmentDTO toDTO(InventoryAllotment night) {
+        return InventoryAllotmentDTO.builder()
+                .propertyId(night.getPropertyId())
+                .stayDate(night.getStayDate())
+                .roomType(night.getRoomType())
+                .channel(night.getChannel())
+                .allotment(night.getAllotment())
+                .remaining(night.getRemaining())
+                .build();
+    }
+
+    private record NightKey(Long propertyId, LocalDate stayDate, RoomType roomType, String channel) {
+    }
+}
@@ -12,6 +12,8 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -46,6 +48,36 @@ public class NotificationServiceImpl implements NotificationService {
         notificationRepository.save(notificationToSave);
     }
 
+    @Override
+    @Async
+    public void sendEmails(List<NotificationDTO> notificationDTOs) {
+        if (notificationDTOs.isEmpty()) return;
+        log.info("Sending {} emails ...", notificationDTOs.size());
+
+        SimpleMailMessage[] simpleMailMessages = notificationDTOs.stream()
+                .map(notificationDTO -> {
+                    SimpleMailMessage simpleMailMessage = new SimpleMailMessage();
+                    simpleMailMessage.setTo(notificationDTO.getRecipient());
+                    simpleMailMessage.setSubject(notificationDTO.getSubject());
+                    simpleMailMessage.setText(notificationDTO.getBody());
+                    return simpleMailMessage;
+                })
+                .toArray(SimpleMailMessage[]::new);
+
+        javaMailSender.send(simpleMailMessages);
+
+        //SAVE TO DATABSE
+        notificationRepository.saveAll(notificationDTOs.stream()
+                .map(notificationDTO -> Notification.builder()
+                        .recipient(notificationDTO.getRecipient())
+                        .subject(notificationDTO.getSubject())
+                        .body(notificationDTO.getBody())
+                        .bookingReference(notificationDTO.getBookingReference())
+                        .type(NotificationType.EMAIL)
+                        .build())
+                .toList());
+    }
+
     @Override
     public void sendSms() {
 
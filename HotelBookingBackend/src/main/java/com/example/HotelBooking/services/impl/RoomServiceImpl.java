@@ -1,19 +1,27 @@
 package com.example.HotelBooking.services.impl;
 
+import com.example.HotelBooking.cluster.ClusterService;
 import com.example.HotelBooking.dtos.Response;
 import com.example.HotelBooking.dtos.RoomDTO;
+import com.example.HotelBooking.dtos.RoomSearchRequest;
 import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.CacheRegion;
 import com.example.HotelBooking.enums.RoomType;
 import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
 import com.example.HotelBooking.exceptions.NotFoundException;
 import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.search.AvailabilityCalendarService;
+import com.example.HotelBooking.search.RoomSearchEngine;
+import com.example.HotelBooking.services.BookingDateValidator;
 import com.example.HotelBooking.services.RoomService;
+import com.example.HotelBooking.tenancy.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.TypeToken;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
@@ -30,8 +38,13 @@ public class RoomServiceImpl implements RoomService {
 
     private final RoomRepository roomRepository;
     private final ModelMapper modelMapper;
+    private final ClusterService clusterService;
+    private final RoomSearchEngine roomSearchEngine;
+    private final AvailabilityCalendarService availabilityCalendarService;
+    private final TenantContext tenantContext;
     private static final String IMAGE_DIRECTORY = System.getProperty("user.dir")+"/product-image";
     @Override
+    @Transactional
     public Response addRoom(RoomDTO roomDTO, MultipartFile imageFile) {
 
         Room roomToSave = modelMapper.map(roomDTO,Room.class);
@@ -40,11 +53,13 @@ public class RoomServiceImpl implements RoomService {
         } else {
             throw new IllegalArgumentException("Room type cannot be null");
         }
+        roomToSave.setPropertyId(tenantContext.getPropertyId());
         if(imageFile != null){
             String imagePath = saveImage(imageFile);
             roomToSave.setImageUrl(imagePath);
         }
         roomRepository.save(roomToSave);
+        clusterService.broadcast(CacheRegion.ROOM, roomToSave.getId());
         return Response.builder()
                 .status(200)
                 .message("Room Added Successfully")
@@ -52,6 +67,7 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
+    @Transactional
     public Response updateRoom(RoomDTO roomDTO, MultipartFile imageFile) {
         Room existingRoom = roomRepository.findById(roomDTO.getId())
                 .orElseThrow(()->new NotFoundException("Room Not Found"));
@@ -81,6 +97,7 @@ public class RoomServiceImpl implements RoomService {
             existingRoom.setPricePerNight(roomDTO.getPricePerNight());
         }
         roomRepository.save(existingRoom);
+        clusterService.broadcast(CacheRegion.ROOM, existingRoom.getId());
         return Response.builder()
                 .status(200)
                 .message("Room updated Successfully")
@@ -88,8 +105,9 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Response getAllRooms() {
-        List<Room> roomList = roomRepository.findAll(Sort.by(Sort.Direction.DESC,"id"));
+        List<Room> roomList = roomRepository.findByPropertyId(tenantContext.getPropertyId(), Sort.by(Sort.Direction.DESC,"id"));
         List<RoomDTO> roomDTOList = modelMapper.map(roomList,new TypeToken<List<RoomDTO>>(){}.getType());
         return Response.builder()
                 .status(200)
@@ -99,6 +117,7 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Response getRoomById(Long id) {
         Room room = roomRepository.findById(id)
                 .orElseThrow(()->new NotFoundException("Room doesn't exist"));
@@ -111,10 +130,12 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
+    @Transactional
     public Response deleteRoom(Long id) {
         Room room = roomRepository.findById(id)
                 .orElseThrow(()->new NotFoundException("Room doesn't exist"));
         roomRepository.delete(room);
+        clusterService.broadcast(CacheRegion.ROOM, room.getId());
         return Response.builder()
                 .status(200)
                 .message("Room deleted Successfully")
@@ -123,17 +144,10 @@ public class RoomServiceImpl implements RoomService {
 
     @Override
     public Response getAvailableRooms(LocalDate checkInDate, LocalDate checkOutDate, RoomType roomType) {
-        if(checkInDate.isBefore(LocalDate.now())){
-            throw new InvalidBookingStateAndDateException("CheckIn date cannot be before current date");
-        }
-        if(checkOutDate.isBefore(checkInDate)){
-            throw new InvalidBookingStateAndDateException("CheckOut date cannot be before CheckIn date");
-        }
-        if(checkOutDate.isEqual(checkInDate)){
-            throw new InvalidBookingStateAndDateException("CheckOut date cannot be equal to CheckIn date");
-        }
-        List<Room> roomsList = roomRepository.findAvailableRooms(checkInDate,checkOutDate,roomType);
-        List<RoomDTO> roomDTOList = modelMapper.map(roomsList,new TypeToken<List<RoomDTO>>(){}.getType());
+        BookingDateValidator.validate(checkInDate, checkOutDate);
+        List<RoomDTO> roomDTOList = roomSearchEngine.findAvailableRooms(tenantContext.getPropertyId(), checkInDate, checkOutDate, roomType)
+                .orElseGet(() -> modelMapper.map(roomRepository.findAvailableRooms(tenantContext.getPropertyId(),checkInDate,checkOutDate,roomType),
+                        new TypeToken<List<RoomDTO>>(){}.getType()));
         return Response.builder()
                 .status(200)
                 .message("Success")
@@ -149,8 +163,9 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Response searchRoom(String input) {
-        List<Room> roomsList = roomRepository.searchRooms(input);
+        List<Room> roomsList = roomRepository.searchRooms(tenantContext.getPropertyId(), input);
         List<RoomDTO> roomDTOList = modelMapper.map(roomsList,new TypeToken<List<RoomDTO>>(){}.getType());
         return Response.builder()
                 .status(200)
@@ -159,6 +174,31 @@ public class RoomServiceImpl implements RoomService {
                 .build();
     }
 
+    @Override
+    public Response searchAvailableRooms(RoomSearchRequest roomSearchRequest) {
+        BookingDateValidator.validate(roomSearchRequest.getCheckInDate(), roomSearchRequest.getCheckOutDate());
+        RoomSearchEngine.SearchPage searchPage = roomSearchEngine.search(tenantContext.getPropertyId(), roomSearchRequest);
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .searchResults(searchPage.results())
+                .totalElements(searchPage.totalElements())
+                .build();
+    }
+
+    @Override
+    public Response getAvailabilityCalendar(LocalDate startDate, LocalDate endDate) {
+        BookingDateValidator.validate(startDate, endDate);
+        if (startDate.plusDays(AvailabilityCalendarService.MAX_NIGHTS).isBefore(endDate)) {
+            throw new InvalidBookingStateAndDateException("Calendar window cannot exceed " + AvailabilityCalendarService.MAX_NIGHTS + " nights");
+        }
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .calendar(availabilityCalendarService.getCalendar(tenantContext.getPropertyId(), startDate, endDate))
+                .build();
+    }
+
     private String saveImage(MultipartFile imageFile){
         if(!imageFile.getContentType().startsWith("image/")){
             throw new IllegalArgumentException("Only Image Files are allowed");
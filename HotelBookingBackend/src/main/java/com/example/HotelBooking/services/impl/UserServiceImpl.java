@@ -1,26 +1,38 @@
 package com.example.HotelBooking.services.impl;
 
+import com.example.HotelBooking.cluster.ClusterService;
 import com.example.HotelBooking.dtos.*;
-import com.example.HotelBooking.entities.Booking;
 import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.entities.UserBookingSummary;
+import com.example.HotelBooking.enums.CacheRegion;
 import com.example.HotelBooking.enums.UserRole;
 import com.example.HotelBooking.exceptions.InvalidCredentialException;
 import com.example.HotelBooking.exceptions.NotFoundException;
-import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.ArchivedBookingRepository;
+import com.example.HotelBooking.repositories.UserBookingSummaryRepository;
 import com.example.HotelBooking.repositories.UserRepository;
+import com.example.HotelBooking.security.CurrentPrincipal;
 import com.example.HotelBooking.security.JwtUtils;
+import com.example.HotelBooking.security.PasswordHashingService;
+import com.example.HotelBooking.security.TokenRevocationService;
 import com.example.HotelBooking.services.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.TypeToken;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 @Data
 @RequiredArgsConstructor
 @Service
@@ -28,10 +40,14 @@ import java.util.List;
 public class UserServiceImpl implements UserService{
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtils jwtUtils;
     private final ModelMapper modelMapper;
-    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final UserBookingSummaryRepository userBookingSummaryRepository;
+    private final ClusterService clusterService;
+    private final TokenRevocationService tokenRevocationService;
+    private final CurrentPrincipal currentPrincipal;
 
     @Override
     public Response registerUser(RegistrationRequest registrationRequest) {
@@ -46,7 +62,7 @@ public class UserServiceImpl implements UserService{
                 .lastName(registrationRequest.getLastName())
                 .phoneNumber(registrationRequest.getPhoneNumber())
                 .isActive(Boolean.TRUE)
-                .password(passwordEncoder.encode(registrationRequest.getPassword()))
+                .password(passwordHashingService.encode(registrationRequest.getPassword()))
                 .build();
 
         userRepository.save(userToSave);
@@ -57,24 +73,49 @@ public class UserServiceImpl implements UserService{
     }
 
     @Override
-    public Response loginUser(LoginRequest loginRequest) {
+    public Response loginUser(LoginRequest loginRequest) { //no transaction, a connection must not wait on the hashing pool
         User user = userRepository.findByEmail(loginRequest.getEmail())
                 .orElseThrow(()->new NotFoundException("Email not Found"));
-        if(!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())){
+        if(!passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())){
             throw new InvalidCredentialException("Password doesn't match");
         }
+        if(passwordHashingService.needsRehash(user.getPassword())){
+            //the plain password is only known now, so this is the moment to move it to the configured algorithm
+            userRepository.updatePassword(user.getId(), user.getPassword(), passwordHashingService.encode(loginRequest.getPassword()));
+        }
+
+        return tokenResponse(user, "User Logged In Successfully");
+
+    }
 
-        String token = jwtUtils.generateToken(user.getEmail());
+    @Override
+    @Transactional
+    public Response refreshToken(RefreshTokenRequest refreshTokenRequest) {
+        Claims claims = parseToken(refreshTokenRequest.getRefreshToken(), JwtUtils.TYPE_REFRESH)
+                .orElseThrow(() -> new InvalidCredentialException("Refresh token is invalid or expired"));
+        //read again so that role changes and deleted accounts take effect at the latest on the next refresh
+        User user = userRepository.findById(claims.get(JwtUtils.CLAIM_USER_ID, Long.class))
+                .orElseThrow(() -> new InvalidCredentialException("Refresh token is invalid or expired"));
+        //each refresh token works once, a concurrent refresh with the same token loses the claim
+        if (!tokenRevocationService.consumeRefreshToken(claims.getId(), toLocalDateTime(claims.getExpiration()))) {
+            throw new InvalidCredentialException("Refresh token is invalid or expired");
+        }
+        return tokenResponse(user, "Token Refreshed Successfully");
+    }
 
+    @Override
+    @Transactional
+    public Response logout(String accessToken, RefreshTokenRequest refreshTokenRequest) {
+        parseToken(accessToken, JwtUtils.TYPE_ACCESS)
+                .ifPresent(claims -> tokenRevocationService.revoke(claims.getId(), toLocalDateTime(claims.getExpiration())));
+        if (refreshTokenRequest != null) {
+            parseToken(refreshTokenRequest.getRefreshToken(), JwtUtils.TYPE_REFRESH)
+                    .ifPresent(claims -> tokenRevocationService.consumeRefreshToken(claims.getId(), toLocalDateTime(claims.getExpiration())));
+        }
         return Response.builder()
                 .status(200)
-                .message("User Logged In Successfully")
-                .expirationTime("6 months")
-                .token(token)
-                .isActive(user.getIsActive())
-                .role(user.getRole())
+                .message("User Logged Out Successfully")
                 .build();
-
     }
 
     @Override
@@ -91,9 +132,7 @@ public class UserServiceImpl implements UserService{
 
     @Override
     public Response getOwnAccountDetails() {
-       String email = SecurityContextHolder.getContext().getAuthentication().getName();
-       User user = userRepository.findByEmail(email)
-               .orElseThrow(()->new NotFoundException("User not Found"));
+       User user = getCurrentLoggedInUser();
        UserDTO userDTO = modelMapper.map(user,UserDTO.class);
 
         return Response.builder()
@@ -105,12 +144,13 @@ public class UserServiceImpl implements UserService{
 
     @Override
     public User getCurrentLoggedInUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return  userRepository.findByEmail(email)
+        //by primary key, the email in the token is stale for a while after the user changes it
+        return  userRepository.findById(currentPrincipal.getUserId())
                 .orElseThrow(()->new NotFoundException("User not Found"));
     }
 
     @Override
+    @Transactional
     public Response updateOwnAccount(UserDTO userDTO) {
         User existingUser = getCurrentLoggedInUser();
         log.info("Inside update user");
@@ -120,9 +160,10 @@ public class UserServiceImpl implements UserService{
         if(userDTO.getPhoneNumber()!=null) existingUser.setPhoneNumber(userDTO.getPhoneNumber());
 
         if(userDTO.getPassword()!=null && !userDTO.getPassword().isEmpty()){
-            existingUser.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+            existingUser.setPassword(passwordHashingService.encode(userDTO.getPassword()));
         }
         userRepository.save(existingUser);
+        clusterService.broadcast(CacheRegion.USER, existingUser.getId());
         return Response.builder()
                 .status(200)
                 .message("User updated Successfully")
@@ -130,9 +171,15 @@ public class UserServiceImpl implements UserService{
     }
 
     @Override
+    @Transactional
     public Response deleteOwnAccount() {
         User user = getCurrentLoggedInUser();
+        archivedBookingRepository.deleteByUserId(user.getId()); //archived rows have no foreign key to cascade from
+        userBookingSummaryRepository.deleteByUserId(user.getId());
         userRepository.delete(user);
+        //the access token would otherwise keep working until it expires
+        tokenRevocationService.revoke(currentPrincipal.get().tokenId(), LocalDateTime.now().plusMinutes(jwtUtils.getAccessTokenMinutes()));
+        clusterService.broadcast(CacheRegion.USER, user.getId());
         return Response.builder()
                 .status(200)
                 .message("User Deleted Successfully")
@@ -140,14 +187,76 @@ public class UserServiceImpl implements UserService{
     }
 
     @Override
-    public Response getMyBookingHistory() {
-        User user = getCurrentLoggedInUser();
-        List<Booking> bookingList = bookingRepository.findByUserId(user.getId());
-        List<BookingDTO> bookingDTOList = modelMapper.map(bookingList,new TypeToken<List<BookingDTO>>(){}.getType());
+    @Transactional(readOnly = true)
+    public Response getMyBookingHistory(int page, int size) {
+        //one index range on the summaries, archived bookings included, no joins to bookings or rooms
+        List<BookingDTO> bookingDTOList = userBookingSummaryRepository
+                .findPage(currentPrincipal.getUserId(), PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100)))
+                .stream()
+                .map(UserServiceImpl::toBookingDTO)
+                .toList();
         return Response.builder()
                 .status(200)
                 .message("Success")
                 .bookings(bookingDTOList)
                 .build();
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getMyBookingHistoryLastModified() {
+        LocalDateTime lastModified = userBookingSummaryRepository.findLastModified(currentPrincipal.getUserId());
+        return lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private Response tokenResponse(User user, String message) {
+        return Response.builder()
+                .status(200)
+                .message(message)
+                .expirationTime(jwtUtils.getAccessTokenMinutes() + " minutes")
+                .token(jwtUtils.generateAccessToken(user))
+                .refreshToken(jwtUtils.generateRefreshToken(user))
+                .isActive(user.getIsActive())
+                .role(user.getRole())
+                .build();
+    }
+
+    // empty for a missing, tampered, expired, revoked or wrong kind of token
+    private Optional<Claims> parseToken(String token, String type) {
+        if (token == null || token.isBlank()) return Optional.empty();
+        try {
+            Claims claims = jwtUtils.parseToken(token);
+            if (!type.equals(claims.get(JwtUtils.CLAIM_TYPE, String.class)) || tokenRevocationService.isRevoked(claims.getId())) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static BookingDTO toBookingDTO(UserBookingSummary summary) {
+        return BookingDTO.builder()
+                .id(summary.getId())
+                .bookingReference(summary.getBookingReference())
+                .bookingStatus(summary.getBookingStatus())
+                .paymentStatus(summary.getPaymentStatus())
+                .checkInDate(summary.getCheckInDate())
+                .checkOutDate(summary.getCheckOutDate())
+                .totalPrice(summary.getTotalPrice())
+                .createdAt(summary.getCreatedAt())
+                .roomType(summary.getRoomType())
+                .roomId(summary.getRoomId())
+                .room(summary.getRoomId() == null ? null : RoomDTO.builder()
+                        .id(summary.getRoomId())
+                        .roomNumber(summary.getRoomNumber())
+                        .type(summary.getRoomType())
+                        .imageUrl(summary.getRoomImageUrl())
+                        .build())
+                .build();
+    }
+}
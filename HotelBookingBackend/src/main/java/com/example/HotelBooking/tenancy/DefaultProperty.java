@@ -0,0 +1,16 @@
+package com.example.HotelBooking.tenancy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a property id column whose database default is the configured default property, so rows written
+ * before multi-property, or by code that does not know about properties, land there.
+ * Applied by {@link DefaultPropertyColumns}.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DefaultProperty {
+}
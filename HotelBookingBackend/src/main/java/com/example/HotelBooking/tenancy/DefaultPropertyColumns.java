@@ -0,0 +1,42 @@
+package com.example.HotelBooking.tenancy;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.lang.reflect.Field;
+
+/**
+ * Gives the columns marked {@link DefaultProperty} tenancy.default-property-id as their default before
+ * Hibernate updates the schema, which an annotation value could only hard-code.
+ */
+public class DefaultPropertyColumns implements Integrator {
+
+    private final long defaultPropertyId;
+
+    public DefaultPropertyColumns(long defaultPropertyId) {
+        this.defaultPropertyId = defaultPropertyId;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        for (PersistentClass entity : metadata.getEntityBindings()) {
+            Class<?> mappedClass = entity.getMappedClass();
+            if (mappedClass == null) continue;
+            for (Field field : mappedClass.getDeclaredFields()) {
+                if (!field.isAnnotationPresent(DefaultProperty.class)) continue;
+                for (Column column : entity.getProperty(field.getName()).getColumns()) {
+                    column.setDefaultValue(String.valueOf(defaultPropertyId));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.HotelBooking.tenancy;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.dtos.PropertyDTO;
+import com.example.HotelBooking.dtos.Response;
+import com.example.HotelBooking.entities.Property;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.exceptions.NameValueRequiredException;
+import com.example.HotelBooking.repositories.PropertyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The chain's properties, kept in memory because every request with a tenant header is checked against them.
+ * They change a few times a year, a change on any node reloads the list everywhere.
+ */
+@Service
+@Slf4j
+public class PropertyDirectory {
+
+    private final PropertyRepository propertyRepository;
+    private final ClusterService clusterService;
+    private final ModelMapper modelMapper;
+    private final TenantConnectionLimiter tenantConnectionLimiter;
+
+    private volatile Map<Long, PropertyDTO> properties; //loaded on first use, the table may not exist before startup
+
+    public PropertyDirectory(PropertyRepository propertyRepository, ClusterService clusterService, ModelMapper modelMapper,
+                             TenantConnectionLimiter tenantConnectionLimiter) {
+        this.propertyRepository = propertyRepository;
+        this.clusterService = clusterService;
+        this.modelMapper = modelMapper;
+        this.tenantConnectionLimiter = tenantConnectionLimiter;
+    }
+
+    public boolean exists(long propertyId) {
+        return properties().containsKey(propertyId);
+    }
+
+    public List<Long> getPropertyIds() {
+        return properties().keySet().stream().sorted().toList();
+    }
+
+    public Response getAllProperties() {
+        List<PropertyDTO> propertyDTOList = properties().values().stream()
+                .sorted(Comparator.comparing(PropertyDTO::getId))
+                .toList();
+        return Response.builder()
+                .status(200)
+                .message("Success")
+                .properties(propertyDTOList)
+                .build();
+    }
+
+    @Transactional
+    public Response addProperty(PropertyDTO propertyDTO) {
+        if (propertyDTO.getCode() == null || propertyDTO.getCode().isBlank()) {
+            throw new NameValueRequiredException("Property code is required");
+        }
+        if (propertyDTO.getName() == null || propertyDTO.getName().isBlank()) {
+            throw new NameValueRequiredException("Property name is required");
+        }
+        String code = propertyDTO.getCode().trim().toUpperCase();
+        if (propertyRepository.findByCode(code).isPresent()) {
+            throw new NameValueRequiredException("Property code " + code + " is already in use");
+        }
+        Property property = Property.builder()
+                .code(code)
+                .name(propertyDTO.getName())
+                .createdAt(LocalDateTime.now())
+                .build();
+        propertyRepository.save(property);
+        clusterService.broadcast(CacheRegion.PROPERTY, property.getId());
+        log.info("Added property {} ({})", property.getId(), code);
+
+        return Response.builder()
+                .status(200)
+                .message("Property Added Successfully")
+                .property(modelMapper.map(property, PropertyDTO.class))
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.getRegion() == CacheRegion.PROPERTY) {
+            properties = null;
+        }
+    }
+
+    private Map<Long, PropertyDTO> properties() {
+        Map<Long, PropertyDTO> current = properties;
+        if (current == null) {
+            current = propertyRepository.findAll(Sort.by(Sort.Direction.ASC, "id")).stream()
+                    .map(property -> modelMapper.map(property, PropertyDTO.class))
+                    .collect(Collectors.toUnmodifiableMap(PropertyDTO::getId, Function.identity()));
+            tenantConnectionLimiter.setPropertyCount(current.size());
+            properties = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.HotelBooking.tenancy;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+@Configuration
+public class TenancyConfig {
+
+    // the DataSource bean itself stays as it is, the pool checks and the JdbcTemplate jobs use it directly
+    @Bean
+    public HibernatePropertiesCustomizer tenantLimitedConnections(DataSource dataSource, TenantConnectionLimiter limiter) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_PROVIDER,
+                new TenantLimitedConnectionProvider(dataSource, limiter));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer defaultPropertyColumns(@Value("${tenancy.default-property-id:1}") long defaultPropertyId) {
+        return hibernateProperties -> hibernateProperties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new DefaultPropertyColumns(defaultPropertyId)));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.HotelBooking.tenancy;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.enums.CacheRegion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Moves a single hotel database to the multi-property layout. Hibernate adds the property_id columns with the
+ * default property as their default, so existing rooms and bookings land there; this makes sure that property
+ * exists, keeps those defaults in line with tenancy.default-property-id (Hibernate only sets them when it adds
+ * the column) and drops the old unique constraints on room_number alone and on an allotment night without its
+ * property, which would stop two hotels from both having a room 101 or both selling the same night.
+ */
+@Component
+@Slf4j
+public class TenancyInstaller {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TenantContext tenantContext;
+    private final ClusterService clusterService;
+
+    @Value("${tenancy.install-lock-key:726356}")
+    private long installLockKey;
+
+    public TenancyInstaller(JdbcTemplate jdbcTemplate, TenantContext tenantContext, ClusterService clusterService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tenantContext = tenantContext;
+        this.clusterService = clusterService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void install() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + installLockKey + ")"); //nodes starting together take turns
+        int created = jdbcTemplate.update("""
+                INSERT INTO properties (id, code, name, created_at)
+                VALUES (?, 'DEFAULT', 'Default property', localtimestamp)
+                ON CONFLICT (id) DO NOTHING
+                """, tenantContext.getDefaultPropertyId());
+        if (created > 0) {
+            //the row was written with an explicit id, the identity would otherwise hand it out again
+            jdbcTemplate.execute("""
+                    SELECT setval(pg_get_serial_sequence('properties', 'id'), (SELECT MAX(id) FROM properties))
+                    """);
+            log.info("Created default property {}", tenantContext.getDefaultPropertyId());
+        }
+        for (String table : List.of("rooms", "bookings", "bookings_archive", "inventory_allotments")) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN property_id SET DEFAULT " + tenantContext.getDefaultPropertyId());
+        }
+        jdbcTemplate.execute("""
+                DO $$
+                DECLARE
+                    legacy text;
+                BEGIN
+                    FOR legacy IN
+                        SELECT c.conname FROM pg_constraint c
+                        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+                        WHERE c.conrelid = 'rooms'::regclass AND c.contype = 'u'
+                          AND array_length(c.conkey, 1) = 1 AND a.attname = 'room_number'
+                    LOOP
+                        EXECUTE format('ALTER TABLE rooms DROP CONSTRAINT %I', legacy);
+                        RAISE NOTICE 'Dropped % on rooms', legacy;
+                    END LOOP;
+                END
+                $$
+                """);
+        //replaced by uk_inventory_allotments_property_night, it would stop two hotels selling the same night
+        jdbcTemplate.execute("ALTER TABLE inventory_allotments DROP CONSTRAINT IF EXISTS uk_inventory_allotments_night");
+        clusterService.broadcast(CacheRegion.PROPERTY, null);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.HotelBooking.tenancy;
+
+import com.example.HotelBooking.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how much of the connection pool one property can hold, so a sell-out at one hotel queues behind its
+ * own requests instead of starving every other hotel of connections. Requests without a property header count
+ * against the default property. Work without a tenant, such as the scheduled jobs, is not limited, and neither is
+ * anything while {@link PropertyDirectory} knows of a single property: with no other hotel to protect, capping
+ * it would only leave half of the pool idle.
+ *
+ * The permit belongs to the thread, not the connection: a thread that already holds one, e.g. a REQUIRES_NEW
+ * listener running after its request's transaction, opens its next connection without waiting, instead of
+ * queueing behind the permit it holds itself.
+ */
+@Component
+public class TenantConnectionLimiter {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, Semaphore> permits = new ConcurrentHashMap<>();
+    private final ThreadLocal<Held> held = new ThreadLocal<>();
+    private final int permitsPerProperty;
+    private volatile boolean shared; //more than one property is using the pool
+
+    @Value("${tenancy.pool.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs; //below hikari's connection-timeout, a full share should fail before the pool does
+
+    public TenantConnectionLimiter(MeterRegistry meterRegistry,
+                                   @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                   @Value("${tenancy.pool.max-share:0.5}") double maxShare) {
+        this.meterRegistry = meterRegistry;
+        this.permitsPerProperty = Math.max(1, (int) Math.ceil(poolSize * maxShare));
+    }
+
+    /**
+     * Takes the current property's permit for this thread, or returns null when the thread has no tenant.
+     * A thread that holds the permit already only counts one more use of it. Whatever is returned goes back
+     * through {@link #release} on the same thread.
+     */
+    public Semaphore acquire() {
+        Long propertyId = TenantContext.find().orElse(null);
+        if (propertyId == null || !shared) return null;
+
+        Semaphore semaphore = permits.computeIfAbsent(propertyId, this::register);
+        Held current = held.get();
+        if (current != null && current.semaphore == semaphore) {
+            current.uses++;
+            return semaphore;
+        }
+        try {
+            if (semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                held.set(new Held(semaphore));
+                return semaphore;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        meterRegistry.counter("tenancy.pool.rejected", "property", String.valueOf(propertyId)).increment();
+        throw new ServiceBusyException("Property " + propertyId + " is using its share of database connections, please try again shortly");
+    }
+
+    public void release(Semaphore semaphore) {
+        if (semaphore == null) return;
+        Held current = held.get();
+        if (current != null && current.semaphore == semaphore) {
+            if (--current.uses > 0) return;
+            held.remove();
+        }
+        semaphore.release();
+    }
+
+    // told by the directory whenever it loads, which it does before the first request naming another property
+    void setPropertyCount(int propertyCount) {
+        shared = propertyCount > 1;
+    }
+
+    private Semaphore register(Long propertyId) {
+        Semaphore semaphore = new Semaphore(permitsPerProperty, true); //fair, so one property's requests are served in arrival order
+        meterRegistry.gauge("tenancy.pool.in-use", Tags.of("property", String.valueOf(propertyId)), semaphore,
+                held -> permitsPerProperty - held.availablePermits());
+        return semaphore;
+    }
+
+    private static final class Held {
+        private final Semaphore semaphore;
+        private int uses = 1;
+
+        private Held(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.HotelBooking.tenancy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * The property the current request works on, set by {@link TenantFilter} for the length of the request.
+ * Scheduled jobs and listeners run without one and say which property they mean explicitly.
+ */
+@Component
+public class TenantContext {
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    @Value("${tenancy.default-property-id:1}")
+    private long defaultPropertyId;
+
+    public Long getPropertyId() {
+        Long propertyId = CURRENT.get();
+        return propertyId != null ? propertyId : defaultPropertyId;
+    }
+
+    public long getDefaultPropertyId() {
+        return defaultPropertyId;
+    }
+
+    // empty outside a request, unlike getPropertyId which falls back to the default property
+    public static Optional<Long> find() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    static void set(Long propertyId) {
+        CURRENT.set(propertyId);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
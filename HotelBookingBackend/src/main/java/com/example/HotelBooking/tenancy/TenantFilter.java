@@ -0,0 +1,73 @@
+package com.example.HotelBooking.tenancy;
+
+import com.example.HotelBooking.dtos.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Picks the property of the request from the X-Property-Id header, or the propertyId parameter for clients
+ * that cannot set headers such as EventSource. Requests naming neither work on the default property, which
+ * is what the single hotel deployment has always been, and share its connections like any other property.
+ */
+@Component
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Property-Id";
+    public static final String PARAMETER = "propertyId";
+
+    private final PropertyDirectory propertyDirectory;
+    private final ObjectMapper objectMapper;
+    private final TenantContext tenantContext;
+
+    public TenantFilter(PropertyDirectory propertyDirectory, ObjectMapper objectMapper, TenantContext tenantContext) {
+        this.propertyDirectory = propertyDirectory;
+        this.objectMapper = objectMapper;
+        this.tenantContext = tenantContext;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String requested = request.getHeader(HEADER);
+        if (requested == null || requested.isBlank()) requested = request.getParameter(PARAMETER);
+        long propertyId = tenantContext.getDefaultPropertyId();
+        if (requested != null && !requested.isBlank()) {
+            try {
+                propertyId = Long.parseLong(requested.trim());
+            } catch (NumberFormatException e) {
+                reject(response, HttpStatus.BAD_REQUEST, "Invalid property id " + requested);
+                return;
+            }
+            if (!propertyDirectory.exists(propertyId)) {
+                reject(response, HttpStatus.NOT_FOUND, "Property " + propertyId + " not found");
+                return;
+            }
+        }
+
+        TenantContext.set(propertyId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Response errorResponse = Response.builder()
+                .status(status.value())
+                .message(message)
+                .build();
+
+        response.setContentType("application/json");
+        response.setStatus(status.value());
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.HotelBooking.tenancy;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Hibernate's connections, taken from the application's DataSource after {@link TenantConnectionLimiter}
+ * has let the current property through. The permit is kept with the connection until Hibernate closes it,
+ * which for a transaction is when it completes; a second connection opened on the same thread meanwhile
+ * shares the thread's permit.
+ */
+public class TenantLimitedConnectionProvider implements ConnectionProvider {
+
+    private final DataSource dataSource;
+    private final TenantConnectionLimiter limiter;
+    private final Map<Connection, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public TenantLimitedConnectionProvider(DataSource dataSource, TenantConnectionLimiter limiter) {
+        this.dataSource = dataSource;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Semaphore permit = limiter.acquire();
+        try {
+            Connection connection = dataSource.getConnection();
+            if (permit != null) permits.put(connection, permit);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            limiter.release(permit);
+            throw e;
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        try {
+            connection.close();
+        } finally {
+            limiter.release(permits.remove(connection));
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || unwrapType.isInstance(dataSource);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) return (T) this;
+        if (unwrapType.isInstance(dataSource)) return (T) dataSource;
+        throw new IllegalArgumentException("Cannot unwrap to " + unwrapType.getName());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.HotelBooking.throttling;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that follows latency (additive increase, multiplicative decrease). Every route of the
+ * class keeps its own no-load latency, the lowest smoothed latency it showed over a sliding window, so a
+ * slow report and a fast lookup in the same class are each compared with themselves and the baseline follows
+ * the system when it gets permanently slower, e.g. after the data grew. While requests take more than
+ * {@code tolerance} times their route's baseline, something downstream (usually the connection pool) is
+ * queueing: the limit shrinks and the limiter reports itself congested. Otherwise the limit grows by about
+ * one per limit's worth of requests, as long as it is actually being used.
+ *
+ * Requests only touch counters: {@link #release} adds its latency to the route's sums and returns. The limit
+ * is recomputed by {@link #tick(long)}, called on a timer, from what finished since the previous tick. It also
+ * moves the window along and lets the latency of an idle limiter fall back to its baseline, so a class that
+ * stopped receiving requests does not stay congested.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.5; //per tick, a tick already averages every request it saw
+    private static final double DECREASE = 0.9;
+    private static final double IDLE_DECAY = 0.5;
+    private static final int BASELINE_SLOTS = 6;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long slotNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger(); //highest since the previous tick
+    private final Map<String, RouteBaseline> routes = new ConcurrentHashMap<>();
+    private int slot;
+    private long slotStartedNanos;
+    private double smoothedRatio = 1.0; //latency over the route's baseline
+    private volatile double limit;
+    private volatile boolean congested;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, long baselineWindowNanos) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.slotNanos = Math.max(1, baselineWindowNanos / BASELINE_SLOTS);
+        this.slotStartedNanos = System.nanoTime();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) return false;
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > peakInFlight.get()) peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    public void release(String route, long latencyNanos) {
+        inFlight.decrementAndGet();
+        RouteBaseline baseline = routes.get(route);
+        if (baseline == null) baseline = routes.computeIfAbsent(route, key -> new RouteBaseline());
+        baseline.latencySumNanos.add(latencyNanos);
+        baseline.releases.increment();
+    }
+
+    public synchronized void tick(long nowNanos) {
+        long elapsed = nowNanos - slotStartedNanos;
+        if (elapsed >= slotNanos * BASELINE_SLOTS) {
+            resetBaseline(); //a whole window without a tick, nothing in it is worth keeping
+            slotStartedNanos = nowNanos;
+        } else {
+            for (; elapsed >= slotNanos; elapsed -= slotNanos) {
+                slot = (slot + 1) % BASELINE_SLOTS;
+                routes.values().forEach(baseline -> baseline.startSlot(slot));
+                slotStartedNanos += slotNanos;
+            }
+        }
+
+        //every route's latency over its own baseline, weighted by how many of its requests finished
+        long releases = 0;
+        double ratioSum = 0;
+        for (RouteBaseline baseline : routes.values()) {
+            long count = baseline.releases.sumThenReset();
+            double latencySum = baseline.latencySumNanos.sumThenReset();
+            if (count == 0) continue;
+            baseline.record(slot, latencySum / count);
+            ratioSum += count * (baseline.smoothedLatencyNanos / baseline.baselineNanos());
+            releases += count;
+        }
+        int peak = Math.max(peakInFlight.getAndSet(0), inFlight.get());
+
+        if (releases > 0) {
+            smoothedRatio += SMOOTHING * (ratioSum / releases - smoothedRatio);
+            congested = smoothedRatio > tolerance;
+            if (congested) {
+                limit = Math.max(minLimit, limit * DECREASE);
+            } else if (peak * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + releases / limit);
+            }
+            return;
+        }
+        //nothing finished and nothing running: idle, not slow. Requests that are stuck keep it congested
+        if (inFlight.get() == 0) {
+            smoothedRatio = 1.0 + IDLE_DECAY * (smoothedRatio - 1.0);
+            routes.values().forEach(RouteBaseline::decay);
+        }
+        congested = smoothedRatio > tolerance;
+    }
+
+    /** Starts every route's baseline over from its current latency and forgets any congestion. */
+    public synchronized void resetBaseline() {
+        routes.values().forEach(baseline -> baseline.reset(slot));
+        smoothedRatio = 1.0;
+        congested = false;
+    }
+
+    public boolean isCongested() {
+        return congested;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // the adders are written by requests, everything else only by tick under the limiter's lock
+    private static final class RouteBaseline {
+        private final LongAdder latencySumNanos = new LongAdder();
+        private final LongAdder releases = new LongAdder();
+        private final double[] slotMinimumNanos = new double[BASELINE_SLOTS]; //lowest smoothed latency per slot of the window
+        private double smoothedLatencyNanos;
+
+        private RouteBaseline() {
+            Arrays.fill(slotMinimumNanos, Double.MAX_VALUE);
+        }
+
+        void record(int slot, double latencyNanos) {
+            smoothedLatencyNanos = smoothedLatencyNanos == 0
+                    ? latencyNanos
+                    : smoothedLatencyNanos + SMOOTHING * (latencyNanos - smoothedLatencyNanos);
+            slotMinimumNanos[slot] = Math.min(slotMinimumNanos[slot], smoothedLatencyNanos);
+        }
+
+        // a new slot starts from the current latency, so the route keeps a baseline while it is quiet
+        void startSlot(int slot) {
+            slotMinimumNanos[slot] = smoothedLatencyNanos == 0 ? Double.MAX_VALUE : smoothedLatencyNanos;
+        }
+
+        void decay() {
+            double baseline = baselineNanos();
+            if (baseline != Double.MAX_VALUE && smoothedLatencyNanos > baseline) {
+                smoothedLatencyNanos = baseline + IDLE_DECAY * (smoothedLatencyNanos - baseline);
+            }
+        }
+
+        void reset(int slot) {
+            Arrays.fill(slotMinimumNanos, Double.MAX_VALUE);
+            startSlot(slot);
+        }
+
+        double baselineNanos() {
+            double baseline = Double.MAX_VALUE;
+            for (double minimum : slotMinimumNanos) baseline = Math.min(baseline, minimum);
+            return Math.max(1, baseline);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.HotelBooking.throttling;
+
+/**
+ * Groups endpoints that share a rate limit and a concurrency limit. Sheddable classes are also refused
+ * while bookings are congested, so a search flood cannot take the database pool from paying customers.
+ */
+public enum EndpointClass {
+
+    BOOKING(false), //bookings and payments, what paying customers are waiting on
+    AUTH(false),    //login and register, bcrypt makes these expensive but they are never shed
+    SEARCH(true),   //room listings and searches
+    OTHER(true);
+
+    private final boolean sheddable;
+
+    EndpointClass(boolean sheddable) {
+        this.sheddable = sheddable;
+    }
+
+    public boolean isSheddable() {
+        return sheddable;
+    }
+
+    public static EndpointClass of(String path) {
+        if (path.startsWith("/api/bookings") || path.startsWith("/api/payments")) return BOOKING;
+        if (path.startsWith("/api/auth")) return AUTH;
+        if (path.startsWith("/api/rooms")) return SEARCH;
+        return OTHER;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.HotelBooking.throttling;
+
+import com.example.HotelBooking.dtos.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs after {@link com.example.HotelBooking.security.AuthFilter}, so logged in users are limited per account
+ * and everyone else per address. Two checks per request: a token bucket per client and endpoint class
+ * (429 with Retry-After), then the adaptive concurrency limit of the class (503), which judges latency per
+ * route. Sheddable classes are also refused while the booking class is congested.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<EndpointClass, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Integer> permitsPerMinute = new EnumMap<>(EndpointClass.class);
+
+    @Value("${ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ratelimit.burst:20}")
+    private int burst;
+
+    public RateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${ratelimit.booking.per-minute:60}") int bookingPerMinute,
+                           @Value("${ratelimit.auth.per-minute:10}") int authPerMinute,
+                           @Value("${ratelimit.search.per-minute:120}") int searchPerMinute,
+                           @Value("${ratelimit.other.per-minute:120}") int otherPerMinute,
+                           @Value("${concurrency.initial-limit:20}") int initialLimit,
+                           @Value("${concurrency.min-limit:4}") int minLimit,
+                           @Value("${concurrency.max-limit:200}") int maxLimit,
+                           @Value("${concurrency.latency-tolerance:2.0}") double tolerance,
+                           @Value("${concurrency.baseline-window-ms:3600000}") long baselineWindowMs) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        permitsPerMinute.put(EndpointClass.BOOKING, bookingPerMinute);
+        permitsPerMinute.put(EndpointClass.AUTH, authPerMinute);
+        permitsPerMinute.put(EndpointClass.SEARCH, searchPerMinute);
+        permitsPerMinute.put(EndpointClass.OTHER, otherPerMinute);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance,
+                    TimeUnit.MILLISECONDS.toNanos(baselineWindowMs));
+            limiters.put(endpointClass, limiter);
+            meterRegistry.gauge("http.concurrency.limit", Tags.of("class", endpointClass.name()),
+                    limiter, AdaptiveConcurrencyLimiter::getLimit);
+            meterRegistry.gauge("http.concurrency.in-flight", Tags.of("class", endpointClass.name()),
+                    limiter, AdaptiveConcurrencyLimiter::getInFlight);
+        }
+        meterRegistry.gauge("http.ratelimit.buckets", buckets, Map::size);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        //Stripe retries on its own schedule, refusing it only delays payment confirmations
+        return !enabled || request.getRequestURI().startsWith("/api/payments/webhook");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        EndpointClass endpointClass = EndpointClass.of(request.getRequestURI());
+        TokenBucket bucket = buckets.computeIfAbsent(endpointClass.name() + ":" + clientKey(request),
+                key -> new TokenBucket(permitsPerMinute.get(endpointClass), burst));
+        long waitNanos = bucket.tryAcquire();
+        if (waitNanos > 0) {
+            meterRegistry.counter("http.ratelimit.rejected", "class", endpointClass.name()).increment();
+            response.setHeader("Retry-After", String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos))));
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please slow down");
+            return;
+        }
+
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpointClass);
+        boolean shed = endpointClass.isSheddable() && limiters.get(EndpointClass.BOOKING).isCongested();
+        if (shed || !limiter.tryAcquire()) {
+            meterRegistry.counter("http.concurrency.shed", "class", endpointClass.name()).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Service is busy, please try again shortly");
+            return;
+        }
+
+        //async requests count until their dispatch returns, a long lived stream must not look like a slow request
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(route(request, endpointClass), System.nanoTime() - started);
+        }
+    }
+
+    // buckets that have refilled completely behave exactly like new ones
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        buckets.values().removeIf(TokenBucket::isIdle);
+    }
+
+    // the limits and congestion are recomputed here, requests only add to the limiters' counters
+    @Scheduled(fixedDelayString = "${concurrency.tick-ms:1000}")
+    public void tickLimiters() {
+        long now = System.nanoTime();
+        limiters.values().forEach(limiter -> limiter.tick(now));
+    }
+
+    // the mapped pattern, not the URI, so ids in the path do not make every request a route of its own
+    private static String route(HttpServletRequest request, EndpointClass endpointClass) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? request.getMethod() + " " + pattern : endpointClass.name();
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr(); //behind a proxy, set server.forward-headers-strategy so this is the client
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Response errorResponse = Response.builder()
+                .status(status.value())
+                .message(message)
+                .build();
+
+        response.setContentType("application/json");
+        response.setStatus(status.value());
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.HotelBooking.throttling;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket kept as a single theoretical arrival time (the GCRA form): each permit pushes it
+ * one refill interval further, and a request is allowed while it is no more than the burst ahead of now.
+ * One compare-and-set per request, no refill thread and no timestamp pair to keep consistent.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(int permitsPerMinute, int burst) {
+        this.intervalNanos = 60_000_000_000L / Math.max(1, permitsPerMinute);
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return 0 when the permit was taken, otherwise how many nanoseconds to wait before the next one
+     */
+    public long tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /** A bucket that has refilled completely holds no state worth keeping. */
+    public boolean isIdle() {
+        return theoreticalArrival.get() - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.HotelBooking.assignment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomAssignmentEngineTest {
+
+    private static final int ORPHAN_GAP_DAYS = 3;
+
+    @Test
+    void placementCostPrefersSeamlessThenSellableGaps() {
+        assertEquals(0, RoomAssignmentEngine.placementCost(9L, 21L, 10, 20, ORPHAN_GAP_DAYS));
+        assertEquals(2, RoomAssignmentEngine.placementCost(null, null, 10, 20, ORPHAN_GAP_DAYS));
+        assertEquals(1, RoomAssignmentEngine.placementCost(9L, 30L, 10, 20, ORPHAN_GAP_DAYS));
+        //one night left free before the stay cannot be sold
+        assertEquals(101, RoomAssignmentEngine.placementCost(7L, null, 10, 20, ORPHAN_GAP_DAYS));
+    }
+
+    @Test
+    void reshuffleClosesOrphanGap() {
+        List<RoomAssignmentEngine.Stay> stays = List.of(
+                new RoomAssignmentEngine.Stay(1, 100, 0, 1, false),
+                new RoomAssignmentEngine.Stay(2, 200, 2, 3, false),
+                new RoomAssignmentEngine.Stay(3, 100, 4, 5, false));
+
+        RoomAssignmentEngine.Plan plan = RoomAssignmentEngine.reshuffle(List.of(100L, 200L), stays, ORPHAN_GAP_DAYS);
+
+        assertEquals(Map.of(2L, 100L), plan.moves());
+        assertEquals(1, plan.orphanGapsBefore());
+        assertEquals(0, plan.orphanGapsAfter());
+    }
+
+    @Test
+    void reshuffleKeepsFixedStaysInTheirRoom() {
+        List<RoomAssignmentEngine.Stay> stays = List.of(
+                new RoomAssignmentEngine.Stay(1, 200, 0, 1, true),
+                new RoomAssignmentEngine.Stay(2, 100, 2, 3, false),
+                new RoomAssignmentEngine.Stay(3, 200, 4, 5, false));
+
+        RoomAssignmentEngine.Plan plan = RoomAssignmentEngine.reshuffle(List.of(100L, 200L), stays, ORPHAN_GAP_DAYS);
+
+        assertEquals(Map.of(2L, 200L), plan.moves());
+        assertTrue(plan.orphanGapsAfter() < plan.orphanGapsBefore());
+    }
+
+    @Test
+    void reshuffleLeavesPackedCalendarAlone() {
+        List<RoomAssignmentEngine.Stay> stays = List.of(
+                new RoomAssignmentEngine.Stay(1, 100, 0, 1, false),
+                new RoomAssignmentEngine.Stay(2, 100, 2, 3, false),
+                new RoomAssignmentEngine.Stay(3, 200, 0, 9, false));
+
+        RoomAssignmentEngine.Plan plan = RoomAssignmentEngine.reshuffle(List.of(100L, 200L), stays, ORPHAN_GAP_DAYS);
+
+        assertTrue(plan.moves().isEmpty());
+    }
+
+    @Test
+    void reshuffleLeavesOverbookedCalendarAlone() {
+        List<RoomAssignmentEngine.Stay> stays = List.of(
+                new RoomAssignmentEngine.Stay(1, 100, 0, 3, false),
+                new RoomAssignmentEngine.Stay(2, 100, 2, 5, false),
+                new RoomAssignmentEngine.Stay(3, 200, 1, 4, false));
+
+        RoomAssignmentEngine.Plan plan = RoomAssignmentEngine.reshuffle(List.of(100L, 200L), stays, ORPHAN_GAP_DAYS);
+
+        assertTrue(plan.moves().isEmpty());
+        assertEquals(plan.orphanGapsBefore(), plan.orphanGapsAfter());
+    }
+}
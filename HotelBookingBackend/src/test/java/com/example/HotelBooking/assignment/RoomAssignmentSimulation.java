@@ -0,0 +1,173 @@
+package com.example.HotelBooking.assignment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a synthetic booking stream for one room type against three ways of placing stays: the room the
+ * guest happened to pick, the best fit chosen at booking time, and best fit followed by a reshuffle. Reports
+ * accepted stays, sold nights, nights stranded in orphan gaps and solver time.
+ *
+ * Not part of the test suite, its name does not match the surefire includes. Run it with
+ * {@code mvn test -Dtest=RoomAssignmentSimulation}, sized with -Dsim.rooms (10000), -Dsim.days (365),
+ * -Dsim.load (1.1, nights requested over nights available) and -Dsim.seed.
+ */
+class RoomAssignmentSimulation {
+
+    private static final int ORPHAN_GAP_DAYS = 3;
+    private static final int MAX_NIGHTS = 7;
+
+    private final int rooms = Integer.getInteger("sim.rooms", 10_000);
+    private final int days = Integer.getInteger("sim.days", 365);
+    private final double load = Double.parseDouble(System.getProperty("sim.load", "1.1"));
+    private final long seed = Long.getLong("sim.seed", 42L);
+
+    private record Request(long firstDay, long lastDay) {
+    }
+
+    private record Result(String strategy, List<RoomAssignmentEngine.Stay> stays, int rejected, long solverNanos) {
+    }
+
+    @Test
+    void simulate() {
+        List<Request> requests = requests();
+        System.out.printf("%,d rooms x %,d days, %,d requests%n", rooms, days, requests.size());
+
+        Result picked = place("guest picked", requests, false);
+        Result bestFit = place("best fit", requests, true);
+        report(picked);
+        report(bestFit);
+
+        long started = System.nanoTime();
+        RoomAssignmentEngine.Plan plan = RoomAssignmentEngine.reshuffle(roomIds(), bestFit.stays(), ORPHAN_GAP_DAYS);
+        long reshuffleNanos = System.nanoTime() - started;
+        Map<Long, Long> moves = plan.moves();
+        List<RoomAssignmentEngine.Stay> reshuffled = bestFit.stays().stream()
+                .map(stay -> new RoomAssignmentEngine.Stay(stay.bookingId(), moves.getOrDefault(stay.bookingId(), stay.roomId()),
+                        stay.firstDay(), stay.lastDay(), false))
+                .toList();
+        report(new Result("best fit + reshuffle", reshuffled, bestFit.rejected(), reshuffleNanos));
+        System.out.printf("reshuffle moved %,d stays, orphan gaps %,d -> %,d%n", moves.size(), plan.orphanGapsBefore(), plan.orphanGapsAfter());
+
+        assertTrue(orphanDays(reshuffled) <= orphanDays(picked.stays()));
+    }
+
+    // random stays of 1 to 7 nights in random booking order, until the nights asked for reach the load factor
+    private List<Request> requests() {
+        Random random = new Random(seed);
+        List<Request> requests = new ArrayList<>();
+        long nightsWanted = (long) (rooms * (double) days * load);
+        for (long nights = 0; nights < nightsWanted; ) {
+            int stayNights = 1 + (int) Math.min(MAX_NIGHTS - 1, Math.abs(random.nextGaussian()) * 2.5);
+            long firstDay = random.nextInt(days - stayNights);
+            requests.add(new Request(firstDay, firstDay + stayNights));
+            nights += stayNights;
+        }
+        return requests;
+    }
+
+    private Result place(String strategy, List<Request> requests, boolean bestFit) {
+        Random random = new Random(seed + 1);
+        long[][] occupied = new long[rooms][(days + 63) >>> 6];
+        List<RoomAssignmentEngine.Stay> stays = new ArrayList<>();
+        int[] free = new int[rooms];
+        int rejected = 0;
+        long solverNanos = 0;
+        for (Request request : requests) {
+            long started = System.nanoTime();
+            int chosen = -1;
+            if (bestFit) {
+                int bestCost = Integer.MAX_VALUE;
+                for (int room = 0; room < rooms; room++) {
+                    if (!isFree(occupied[room], request.firstDay(), request.lastDay())) continue;
+                    int cost = RoomAssignmentEngine.placementCost(previousOccupied(occupied[room], request.firstDay()),
+                            nextOccupied(occupied[room], request.lastDay()), request.firstDay(), request.lastDay(), ORPHAN_GAP_DAYS);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        chosen = room;
+                        if (cost == 0) break;
+                    }
+                }
+            } else {
+                int candidates = 0;
+                for (int room = 0; room < rooms; room++) {
+                    if (isFree(occupied[room], request.firstDay(), request.lastDay())) free[candidates++] = room;
+                }
+                if (candidates > 0) chosen = free[random.nextInt(candidates)];
+            }
+            solverNanos += System.nanoTime() - started;
+            if (chosen < 0) {
+                rejected++;
+                continue;
+            }
+            occupy(occupied[chosen], request.firstDay(), request.lastDay());
+            stays.add(new RoomAssignmentEngine.Stay(stays.size(), chosen, request.firstDay(), request.lastDay(), false));
+        }
+        return new Result(strategy, stays, rejected, solverNanos);
+    }
+
+    private void report(Result result) {
+        long soldNights = result.stays().stream().mapToLong(stay -> stay.lastDay() - stay.firstDay()).sum();
+        System.out.printf("%-22s accepted %,9d  rejected %,9d  sold nights %,11d (%.1f%%)  stranded days %,9d  solver %,d ms%n",
+                result.strategy(), result.stays().size(), result.rejected(), soldNights,
+                100.0 * soldNights / ((long) rooms * days), orphanDays(result.stays()), result.solverNanos() / 1_000_000);
+    }
+
+    // free days between two stays of a room that no stay fits into, the engine's orphan gaps
+    private long orphanDays(List<RoomAssignmentEngine.Stay> stays) {
+        List<List<RoomAssignmentEngine.Stay>> byRoom = new ArrayList<>(rooms);
+        for (int room = 0; room < rooms; room++) byRoom.add(new ArrayList<>());
+        stays.forEach(stay -> byRoom.get((int) stay.roomId()).add(stay));
+        long orphanDays = 0;
+        for (List<RoomAssignmentEngine.Stay> roomStays : byRoom) {
+            roomStays.sort((a, b) -> Long.compare(a.firstDay(), b.firstDay()));
+            for (int i = 1; i < roomStays.size(); i++) {
+                long gap = roomStays.get(i).firstDay() - roomStays.get(i - 1).lastDay() - 1;
+                if (gap > 0 && gap < ORPHAN_GAP_DAYS) orphanDays += gap;
+            }
+        }
+        return orphanDays;
+    }
+
+    private List<Long> roomIds() {
+        Long[] ids = new Long[rooms];
+        Arrays.setAll(ids, room -> (long) room);
+        return Arrays.asList(ids);
+    }
+
+    // days are closed intervals, as in the engine: check-in through check-out
+    private static boolean isFree(long[] words, long firstDay, long lastDay) {
+        for (long day = firstDay; day <= lastDay; day++) {
+            if ((words[(int) (day >>> 6)] & (1L << day)) != 0) return false;
+        }
+        return true;
+    }
+
+    private static void occupy(long[] words, long firstDay, long lastDay) {
+        for (long day = firstDay; day <= lastDay; day++) {
+            words[(int) (day >>> 6)] |= 1L << day;
+        }
+    }
+
+    private static Long previousOccupied(long[] words, long firstDay) {
+        for (long day = firstDay - 1; day >= Math.max(0, firstDay - 1 - ORPHAN_GAP_DAYS); day--) {
+            if ((words[(int) (day >>> 6)] & (1L << day)) != 0) return day;
+        }
+        return null; //nothing close enough to leave an orphan gap
+    }
+
+    private static Long nextOccupied(long[] words, long lastDay) {
+        long limit = Math.min((long) words.length * 64 - 1, lastDay + 1 + ORPHAN_GAP_DAYS);
+        for (long day = lastDay + 1; day <= limit; day++) {
+            if ((words[(int) (day >>> 6)] & (1L << day)) != 0) return day;
+        }
+        return null;
+    }
+}
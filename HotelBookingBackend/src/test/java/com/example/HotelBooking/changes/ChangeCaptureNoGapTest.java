@@ -0,0 +1,100 @@
+package com.example.HotelBooking.changes;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many transactions commit bookings and payments at once while a reader follows change_log the way the feed
+ * does, from its cursor onwards. Every page it reads must start right after its cursor: a gap would be a
+ * change the feed skips for good.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ChangeCaptureNoGapTest {
+
+    private static final int WRITERS = 8;
+    private static final int TRANSACTIONS_PER_WRITER = 200;
+    private static final int ROWS_PER_TRANSACTION = 3;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void installCapture() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        //the tables Hibernate would create, reduced to what the triggers touch
+        jdbcTemplate.execute("CREATE TABLE bookings (id bigserial PRIMARY KEY, booking_reference varchar(32))");
+        jdbcTemplate.execute("CREATE TABLE payments (id bigserial PRIMARY KEY, transaction_id varchar(64))");
+        jdbcTemplate.execute("""
+                CREATE TABLE change_log (seq bigint PRIMARY KEY, entity_type varchar(16) NOT NULL,
+                                         entity_id bigint NOT NULL, operation varchar(8) NOT NULL,
+                                         changed_at timestamp NOT NULL)
+                """);
+        ChangeCaptureInstaller installer = new ChangeCaptureInstaller(jdbcTemplate);
+        ReflectionTestUtils.setField(installer, "enabled", true);
+        ReflectionTestUtils.setField(installer, "installLockKey", 726355L);
+        transactionTemplate.executeWithoutResult(status -> installer.install());
+    }
+
+    @Test
+    void readerNeverSeesAGapWhileWritersCommit() throws Exception {
+        long expected = (long) WRITERS * TRANSACTIONS_PER_WRITER * ROWS_PER_TRANSACTION;
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            int current = writer;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < TRANSACTIONS_PER_WRITER; i++) {
+                    int transaction = i;
+                    transactionTemplate.executeWithoutResult(status -> {
+                        for (int row = 0; row < ROWS_PER_TRANSACTION; row++) {
+                            if ((current + transaction + row) % 2 == 0) {
+                                jdbcTemplate.update("INSERT INTO bookings (booking_reference) VALUES (?)", "B" + current + "-" + transaction);
+                            } else {
+                                jdbcTemplate.update("INSERT INTO payments (transaction_id) VALUES (?)", "T" + current + "-" + transaction);
+                            }
+                        }
+                    });
+                }
+            }));
+        }
+
+        long cursor = 0;
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (cursor < expected && System.nanoTime() < deadline) {
+            List<Long> page = jdbcTemplate.queryForList(
+                    "SELECT seq FROM change_log WHERE seq > ? ORDER BY seq LIMIT 100", Long.class, cursor);
+            for (Long seq : page) {
+                assertEquals(cursor + 1, seq, "change " + (cursor + 1) + " was skipped");
+                cursor = seq;
+            }
+        }
+        for (Future<?> writer : writers) writer.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        assertEquals(expected, cursor);
+        assertEquals(expected, jdbcTemplate.queryForObject("SELECT value FROM change_sequence WHERE id = 1", Long.class));
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.HotelBooking.holds;
+
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.RoomHold;
+import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.payments.refund.RefundRequestedEvent;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.RoomHoldRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.repositories.UserRepository;
+import com.example.HotelBooking.security.CurrentPrincipal;
+import com.example.HotelBooking.services.BookingCodeGenerator;
+import com.example.HotelBooking.services.InventoryService;
+import com.example.HotelBooking.services.InventoryService.RoomClaim;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoomHoldServiceTest {
+
+    private static final String REFERENCE = "HOLD123";
+    private static final String TRANSACTION_ID = "pi_1";
+    private static final Long ROOM_ID = 10L;
+    private static final Long USER_ID = 7L;
+    private static final LocalDate CHECK_IN = LocalDate.of(2026, 3, 1);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(2);
+    private static final BigDecimal TOTAL = new BigDecimal("200.00");
+
+    private final RoomHoldRepository roomHoldRepository = mock(RoomHoldRepository.class);
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final Room room = Room.builder().id(ROOM_ID).propertyId(1L).type(RoomType.DOUBLE).pricePerNight(new BigDecimal("100.00")).build();
+    private RoomHoldService holdService;
+
+    @BeforeEach
+    void setUp() {
+        holdService = new RoomHoldService(roomHoldRepository, roomRepository, bookingRepository, userRepository,
+                mock(CurrentPrincipal.class), mock(BookingCodeGenerator.class), mock(BookingEventLog.class),
+                mock(ClusterService.class), inventoryService, eventPublisher, new SimpleMeterRegistry());
+        when(roomRepository.findByIdForUpdate(ROOM_ID)).thenReturn(Optional.of(room));
+        when(bookingRepository.isRoomAvailable(ROOM_ID, CHECK_IN, CHECK_OUT)).thenReturn(true);
+        when(inventoryService.claimRoom(room, CHECK_IN, CHECK_OUT)).thenReturn(RoomClaim.COUNTED);
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(User.builder().id(USER_ID).email("guest@example.com").build()));
+        when(userRepository.getReferenceById(USER_ID)).thenReturn(User.builder().id(USER_ID).build());
+    }
+
+    @Test
+    void paidHoldBecomesAPendingBookingOfItsRoom() {
+        RoomHold hold = hold(LocalDateTime.now().plusMinutes(5));
+
+        Booking booking = holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL).orElseThrow();
+
+        assertSame(room, booking.getRoom());
+        assertEquals(REFERENCE, booking.getBookingReference());
+        assertEquals(BookingStatus.BOOKED, booking.getBookingStatus());
+        assertEquals(PaymentStatus.PENDING, booking.getPaymentStatus());
+        assertEquals(TOTAL, booking.getTotalPrice());
+        assertTrue(booking.getInventoryReserved());
+        verify(bookingRepository).save(booking);
+        verify(roomHoldRepository).delete(hold);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void amountOtherThanTheTotalIsRefunded() {
+        RoomHold hold = hold(LocalDateTime.now().plusMinutes(5));
+
+        assertTrue(holdService.convert(REFERENCE, TRANSACTION_ID, new BigDecimal("150.00")).isEmpty());
+
+        RefundRequestedEvent.Refund refund = refund();
+        assertEquals(new BigDecimal("150.00"), refund.amount());
+        assertEquals("guest@example.com", refund.recipient());
+        verify(bookingRepository, never()).save(any());
+        verify(roomHoldRepository, never()).delete(hold);
+    }
+
+    @Test
+    void expiredHoldIsConvertedWhileNobodyElseTookTheNights() {
+        hold(LocalDateTime.now().minusMinutes(1));
+        when(roomHoldRepository.isHeldByOthers(ROOM_ID, CHECK_IN, CHECK_OUT, USER_ID)).thenReturn(false);
+
+        assertTrue(holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL).isPresent());
+    }
+
+    @Test
+    void expiredHoldWhoseNightsAnotherGuestHoldsIsRefunded() {
+        hold(LocalDateTime.now().minusMinutes(1));
+        when(roomHoldRepository.isHeldByOthers(ROOM_ID, CHECK_IN, CHECK_OUT, USER_ID)).thenReturn(true);
+
+        assertTrue(holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL).isEmpty());
+
+        assertEquals(TOTAL, refund().amount());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void liveHoldIsNotCheckedAgainstOtherHolds() {
+        hold(LocalDateTime.now().plusMinutes(5));
+
+        holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL);
+
+        verify(roomHoldRepository, never()).isHeldByOthers(any(), any(), any(), any());
+    }
+
+    @Test
+    void roomBookedMeanwhileIsRefunded() {
+        hold(LocalDateTime.now().plusMinutes(5));
+        when(bookingRepository.isRoomAvailable(ROOM_ID, CHECK_IN, CHECK_OUT)).thenReturn(false);
+
+        assertTrue(holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL).isEmpty());
+        assertEquals(TOTAL, refund().amount());
+    }
+
+    @Test
+    void soldOutRoomTypeIsRefunded() {
+        hold(LocalDateTime.now().plusMinutes(5));
+        when(inventoryService.claimRoom(room, CHECK_IN, CHECK_OUT)).thenReturn(RoomClaim.SOLD_OUT);
+
+        assertTrue(holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL).isEmpty());
+        assertEquals(TOTAL, refund().amount());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void roomOutsideTheAllotmentIsBookedWithoutReservedInventory() {
+        hold(LocalDateTime.now().plusMinutes(5));
+        when(inventoryService.claimRoom(room, CHECK_IN, CHECK_OUT)).thenReturn(RoomClaim.NOT_COUNTED);
+
+        assertFalse(holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL).orElseThrow().getInventoryReserved());
+    }
+
+    @Test
+    void holdConvertedByAnEarlierEventReturnsItsBooking() {
+        Booking converted = new Booking();
+        when(roomHoldRepository.findByHoldReferenceForUpdate(REFERENCE)).thenReturn(Optional.empty());
+        when(bookingRepository.findByBookingReference(REFERENCE)).thenReturn(Optional.of(converted));
+
+        assertSame(converted, holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL).orElseThrow());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void paymentForAHoldThatIsGoneIsRefundedByItsCharge() {
+        when(roomHoldRepository.findByHoldReferenceForUpdate(REFERENCE)).thenReturn(Optional.empty());
+        when(bookingRepository.findByBookingReference(REFERENCE)).thenReturn(Optional.empty());
+
+        assertTrue(holdService.convert(REFERENCE, TRANSACTION_ID, TOTAL).isEmpty());
+
+        RefundRequestedEvent.Refund refund = refund();
+        assertEquals(TRANSACTION_ID, refund.transactionId());
+        assertNull(refund.bookingId());
+        assertNull(refund.recipient());
+    }
+
+    private RoomHold hold(LocalDateTime expiresAt) {
+        RoomHold hold = RoomHold.builder()
+                .holdReference(REFERENCE)
+                .roomId(ROOM_ID)
+                .userId(USER_ID)
+                .checkInDate(CHECK_IN)
+                .checkOutDate(CHECK_OUT)
+                .totalPrice(TOTAL)
+                .createdAt(expiresAt.minusMinutes(10))
+                .expiresAt(expiresAt)
+                .build();
+        when(roomHoldRepository.findByHoldReferenceForUpdate(REFERENCE)).thenReturn(Optional.of(hold));
+        return hold;
+    }
+
+    private RefundRequestedEvent.Refund refund() {
+        ArgumentCaptor<RefundRequestedEvent> event = ArgumentCaptor.forClass(RefundRequestedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        List<RefundRequestedEvent.Refund> refunds = event.getValue().refunds();
+        assertEquals(1, refunds.size());
+        return refunds.get(0);
+    }
+}
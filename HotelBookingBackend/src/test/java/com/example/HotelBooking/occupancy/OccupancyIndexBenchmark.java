@@ -0,0 +1,175 @@
+package com.example.HotelBooking.occupancy;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap and off-heap {@link OccupancyIndex} side by side under the same load: reader threads asking
+ * {@link OccupancyIndex#isFree} as a room search does, a writer booking and cancelling stays, and a thread
+ * allocating request garbage so the collector keeps running. Reports throughput, sampled read latency and
+ * the collections the run caused, count and total pause time from the GC beans.
+ *
+ * Not part of the test suite, its name does not match the surefire includes. Run it with
+ * {@code mvn test -Dtest=OccupancyIndexBenchmark -DargLine=-Xmx4g}, sized with -Dbench.rooms (100000),
+ * -Dbench.threads (4 readers), -Dbench.seconds (10 per index) and -Dbench.garbageMb (256, kept alive by the
+ * allocating thread).
+ */
+class OccupancyIndexBenchmark {
+
+    private static final int HORIZON_DAYS = 730;
+    private static final int SAMPLE_EVERY = 64;
+
+    private final int rooms = Integer.getInteger("bench.rooms", 100_000);
+    private final int threads = Integer.getInteger("bench.threads", 4);
+    private final int seconds = Integer.getInteger("bench.seconds", 10);
+    private final int garbageMb = Integer.getInteger("bench.garbageMb", 256);
+    private volatile boolean sink;
+
+    private record Result(String store, long reads, long writes, long p99Nanos, long maxNanos,
+                          long collections, long collectionMillis) {
+    }
+
+    @Test
+    void compare() throws Exception {
+        long baseDay = LocalDate.now().toEpochDay();
+        System.out.printf("%,d rooms x %,d days, %d readers, %d s per index%n", rooms, HORIZON_DAYS, threads, seconds);
+
+        //the first run warms the JIT for both, so each is measured twice and the second run counts
+        List<Result> results = new ArrayList<>();
+        for (int round = 0; round < 2; round++) {
+            results.clear();
+            results.add(run("heap", baseDay, HeapOccupancyIndex::new));
+            results.add(run("offheap", baseDay, OffHeapOccupancyIndex::new));
+        }
+        results.forEach(result -> System.out.printf(
+                "%-8s reads %,12d/s  writes %,9d/s  read p99 %,7d ns  max %,9d ns  gc %,5d collections %,7d ms%n",
+                result.store(), result.reads() / seconds, result.writes() / seconds, result.p99Nanos(),
+                result.maxNanos(), result.collections(), result.collectionMillis()));
+
+        assertTrue(results.stream().allMatch(result -> result.reads() > 0 && result.writes() > 0));
+    }
+
+    private Result run(String store, long baseDay, BiFunction<Long, Integer, OccupancyIndex> factory) throws Exception {
+        OccupancyIndex index = factory.apply(baseDay, HORIZON_DAYS);
+        fill(index, baseDay);
+        System.gc();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 2);
+        AtomicBoolean stopped = new AtomicBoolean();
+        try {
+            long collectionsBefore = collections();
+            long collectionMillisBefore = collectionMillis();
+
+            List<Future<long[]>> readers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                readers.add(executor.submit(() -> read(index, baseDay, stopped)));
+            }
+            Future<Long> writer = executor.submit(() -> write(index, baseDay, stopped));
+            Future<?> garbage = executor.submit(() -> allocate(stopped));
+
+            TimeUnit.SECONDS.sleep(seconds);
+            stopped.set(true);
+
+            long reads = 0;
+            List<long[]> samples = new ArrayList<>();
+            for (Future<long[]> reader : readers) {
+                long[] latencies = reader.get(10, TimeUnit.SECONDS);
+                reads += latencies[0];
+                samples.add(Arrays.copyOfRange(latencies, 1, latencies.length));
+            }
+            long writes = writer.get(10, TimeUnit.SECONDS);
+            garbage.get(10, TimeUnit.SECONDS);
+
+            long[] sorted = samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(store, reads, writes, sorted[(int) (sorted.length * 0.99)], sorted[sorted.length - 1],
+                    collections() - collectionsBefore, collectionMillis() - collectionMillisBefore);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // a stay every week in every room, about what a full hotel holds
+    private void fill(OccupancyIndex index, long baseDay) {
+        for (long room = 1; room <= rooms; room++) {
+            for (long day = baseDay; day < baseDay + HORIZON_DAYS - 7; day += 7) {
+                index.occupy(room, day, day + 1 + room % 5);
+            }
+        }
+    }
+
+    // operation count first, then every SAMPLE_EVERY-th latency
+    private long[] read(OccupancyIndex index, long baseDay, AtomicBoolean stopped) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1 << 20];
+        int sampled = 0;
+        long reads = 0;
+        boolean free = false;
+        while (!stopped.get()) {
+            long room = 1 + random.nextInt(rooms);
+            long firstDay = baseDay + random.nextInt(HORIZON_DAYS - 14);
+            if (reads % SAMPLE_EVERY == 0 && sampled < latencies.length - 1) {
+                long started = System.nanoTime();
+                free ^= index.isFree(room, firstDay, firstDay + 1 + random.nextInt(7));
+                latencies[++sampled] = System.nanoTime() - started;
+            } else {
+                free ^= index.isFree(room, firstDay, firstDay + 1 + random.nextInt(7));
+            }
+            reads++;
+        }
+        sink = free; //keeps the reads from being optimised away
+        latencies[0] = reads;
+        return Arrays.copyOf(latencies, sampled + 1);
+    }
+
+    // moves stays around: cancels one and books it again a few days later
+    private long write(OccupancyIndex index, long baseDay, AtomicBoolean stopped) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long writes = 0;
+        while (!stopped.get()) {
+            long room = 1 + random.nextInt(rooms);
+            long firstDay = baseDay + random.nextInt(HORIZON_DAYS - 14);
+            index.clear(room, firstDay, firstDay + 3);
+            index.occupy(room, firstDay + random.nextInt(4), firstDay + 4);
+            writes++;
+        }
+        return writes;
+    }
+
+    // short-lived request objects with a share that survives long enough to be promoted
+    private void allocate(AtomicBoolean stopped) {
+        byte[][] survivors = new byte[garbageMb * 64][];
+        int next = 0;
+        while (!stopped.get()) {
+            byte[] chunk = new byte[16 * 1024];
+            if ((next & 3) == 0) survivors[(next >>> 2) % survivors.length] = chunk;
+            next++;
+            if ((next & 1023) == 0) LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    private static long collections() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long collectionMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.HotelBooking.occupancy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.LongBuffer;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OccupancyIndexTest {
+
+    private static final long BASE_DAY = 20_000;
+    private static final int HORIZON_DAYS = 200;
+
+    static Stream<BiFunction<Long, Integer, OccupancyIndex>> indexes() {
+        return Stream.of(HeapOccupancyIndex::new, OffHeapOccupancyIndex::new);
+    }
+
+    @Test
+    void maskCoversRangeWithinWord() {
+        assertEquals(0b1110L, HeapOccupancyIndex.Bits.mask(0, 1, 3));
+        assertEquals(-1L, HeapOccupancyIndex.Bits.mask(1, 0, 200));
+        assertEquals(1L << 63, HeapOccupancyIndex.Bits.mask(0, 63, 64));
+        assertEquals(1L, HeapOccupancyIndex.Bits.mask(1, 63, 64));
+    }
+
+    @ParameterizedTest
+    @MethodSource("indexes")
+    void stayAcrossWordBoundaryOccupiesCheckInThroughCheckOut(BiFunction<Long, Integer, OccupancyIndex> factory) {
+        OccupancyIndex index = factory.apply(BASE_DAY, HORIZON_DAYS);
+        index.occupy(1, BASE_DAY + 60, BASE_DAY + 70);
+
+        assertFalse(index.isFree(1, BASE_DAY + 60, BASE_DAY + 60));
+        assertFalse(index.isFree(1, BASE_DAY + 70, BASE_DAY + 75));
+        assertFalse(index.isFree(1, BASE_DAY + 50, BASE_DAY + 63));
+        assertTrue(index.isFree(1, BASE_DAY + 50, BASE_DAY + 59));
+        assertTrue(index.isFree(1, BASE_DAY + 71, BASE_DAY + 130));
+        assertTrue(index.isFree(2, BASE_DAY + 60, BASE_DAY + 70));
+    }
+
+    @ParameterizedTest
+    @MethodSource("indexes")
+    void clearFreesOnlyTheGivenDays(BiFunction<Long, Integer, OccupancyIndex> factory) {
+        OccupancyIndex index = factory.apply(BASE_DAY, HORIZON_DAYS);
+        index.occupy(1, BASE_DAY + 10, BASE_DAY + 20);
+        index.occupy(1, BASE_DAY + 21, BASE_DAY + 25);
+
+        index.clear(1, BASE_DAY + 10, BASE_DAY + 20);
+
+        assertTrue(index.isFree(1, BASE_DAY + 10, BASE_DAY + 20));
+        assertFalse(index.isFree(1, BASE_DAY + 20, BASE_DAY + 21));
+    }
+
+    @ParameterizedTest
+    @MethodSource("indexes")
+    void daysOutsideHorizonAreIgnored(BiFunction<Long, Integer, OccupancyIndex> factory) {
+        OccupancyIndex index = factory.apply(BASE_DAY, HORIZON_DAYS);
+        index.occupy(1, BASE_DAY - 5, BASE_DAY + 1);
+        index.occupy(1, BASE_DAY + HORIZON_DAYS - 1, BASE_DAY + HORIZON_DAYS + 10);
+        index.occupy(2, BASE_DAY + HORIZON_DAYS, BASE_DAY + HORIZON_DAYS + 10);
+
+        assertFalse(index.isFree(1, BASE_DAY, BASE_DAY));
+        assertTrue(index.isFree(1, BASE_DAY + 2, BASE_DAY + HORIZON_DAYS - 2));
+        assertFalse(index.isFree(1, BASE_DAY + HORIZON_DAYS - 1, BASE_DAY + HORIZON_DAYS - 1));
+        assertTrue(index.covers(BASE_DAY, BASE_DAY + HORIZON_DAYS - 1));
+        assertFalse(index.covers(BASE_DAY, BASE_DAY + HORIZON_DAYS));
+        assertArrayEquals(new long[]{1}, index.roomIds());
+    }
+
+    @ParameterizedTest
+    @MethodSource("indexes")
+    void wordsRoundTripBetweenIndexes(BiFunction<Long, Integer, OccupancyIndex> factory) {
+        OccupancyIndex source = factory.apply(BASE_DAY, HORIZON_DAYS);
+        source.occupy(7, BASE_DAY + 3, BASE_DAY + 130);
+        LongBuffer words = LongBuffer.allocate(source.wordsPerRoom());
+        source.readWords(7, words);
+
+        OccupancyIndex restored = new HeapOccupancyIndex(BASE_DAY, HORIZON_DAYS);
+        restored.writeWords(7, words.flip());
+
+        assertTrue(restored.isFree(7, BASE_DAY, BASE_DAY + 2));
+        assertFalse(restored.isFree(7, BASE_DAY + 130, BASE_DAY + 130));
+        assertTrue(restored.isFree(7, BASE_DAY + 131, BASE_DAY + HORIZON_DAYS - 1));
+    }
+}
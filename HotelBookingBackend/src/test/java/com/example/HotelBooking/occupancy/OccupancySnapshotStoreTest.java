@@ -0,0 +1,97 @@
+package com.example.HotelBooking.occupancy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OccupancySnapshotStoreTest {
+
+    private static final long BASE_DAY = 20_000;
+    private static final int HORIZON_DAYS = 100;
+
+    @TempDir
+    Path directory;
+
+    private Path snapshotPath;
+    private OccupancySnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        snapshotPath = directory.resolve("occupancy.snapshot");
+        store = new OccupancySnapshotStore();
+        ReflectionTestUtils.setField(store, "snapshotPath", snapshotPath);
+    }
+
+    @Test
+    void writtenSnapshotReadsBack() throws IOException {
+        OccupancyIndex index = new OffHeapOccupancyIndex(BASE_DAY, HORIZON_DAYS);
+        index.occupy(3, BASE_DAY + 1, BASE_DAY + 70);
+        index.occupy(9, BASE_DAY + 90, BASE_DAY + 95);
+        long[] stays = {100, 3, BASE_DAY + 1, BASE_DAY + 70, 101, 9, BASE_DAY + 90, BASE_DAY + 95};
+
+        store.write(index, stays, 1234L);
+        OccupancySnapshotStore.Snapshot snapshot = store.read().orElseThrow();
+
+        OccupancySnapshotStore.Header header = snapshot.header();
+        assertEquals(1234L, header.highWaterMarkMillis());
+        assertEquals(BASE_DAY, header.baseDay());
+        assertEquals(HORIZON_DAYS, header.horizonDays());
+        assertEquals(index.wordsPerRoom(), header.wordsPerRoom());
+        assertEquals(2, header.roomCount());
+        assertEquals(2, header.stayCount());
+
+        OccupancyIndex restored = new HeapOccupancyIndex(header.baseDay(), header.horizonDays());
+        for (int room = 0; room < header.roomCount(); room++) {
+            restored.writeWords(snapshot.roomId(room), snapshot.words(room));
+        }
+        assertFalse(restored.isFree(3, BASE_DAY + 64, BASE_DAY + 64));
+        assertTrue(restored.isFree(3, BASE_DAY + 71, BASE_DAY + 89));
+        assertFalse(restored.isFree(9, BASE_DAY + 95, BASE_DAY + 99));
+
+        List<long[]> restoredStays = new ArrayList<>();
+        snapshot.forEachStay((bookingId, roomId, firstDay, lastDay) -> restoredStays.add(new long[]{bookingId, roomId, firstDay, lastDay}));
+        assertEquals(2, restoredStays.size());
+        assertEquals(List.of(101L, 9L, BASE_DAY + 90, BASE_DAY + 95),
+                List.of(restoredStays.get(1)[0], restoredStays.get(1)[1], restoredStays.get(1)[2], restoredStays.get(1)[3]));
+    }
+
+    @Test
+    void missingSnapshotIsEmpty() {
+        assertTrue(store.read().isEmpty());
+    }
+
+    @Test
+    void corruptSnapshotIsIgnored() throws IOException {
+        OccupancyIndex index = new HeapOccupancyIndex(BASE_DAY, HORIZON_DAYS);
+        index.occupy(3, BASE_DAY, BASE_DAY + 10);
+        store.write(index, new long[0], 0L);
+
+        try (RandomAccessFile file = new RandomAccessFile(snapshotPath.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        assertTrue(store.read().isEmpty());
+    }
+
+    @Test
+    void truncatedSnapshotIsIgnored() throws IOException {
+        Files.write(snapshotPath, new byte[16]);
+
+        assertTrue(store.read().isEmpty());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.HotelBooking.occupancy;
+
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.repositories.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Startup of {@link OccupancyService} at full size: building the occupancy from the bookings table, writing
+ * the snapshot, and restoring from it plus a delta of changed bookings. Reports time and retained heap of
+ * each. The bookings table is a generated list, so the numbers leave out the database and show what the
+ * snapshot saves on the application side.
+ *
+ * Not part of the test suite, its name does not match the surefire includes. Run it with
+ * {@code mvn test -Dtest=OccupancyStartupBenchmark -DargLine=-Xmx6g}, sized with -Dbench.bookings (10000000),
+ * -Dbench.rooms (100000), -Dbench.changed (10000) and -Dbench.store (heap or offheap).
+ */
+class OccupancyStartupBenchmark {
+
+    private static final int HORIZON_DAYS = 730;
+    private static final int STAY_SPACING_DAYS = 7;
+
+    private final int bookings = Integer.getInteger("bench.bookings", 10_000_000);
+    private final int rooms = Integer.getInteger("bench.rooms", 100_000);
+    private final int changed = Integer.getInteger("bench.changed", 10_000);
+    private final String store = System.getProperty("bench.store", "heap");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void startup() throws Exception {
+        int staysPerRoom = (bookings + rooms - 1) / rooms;
+        if (staysPerRoom * STAY_SPACING_DAYS > HORIZON_DAYS - 7) {
+            throw new IllegalArgumentException("Too many bookings per room for the horizon, add rooms");
+        }
+        LocalDateTime snapshotAt = LocalDateTime.now().minusHours(1);
+        OccupancySnapshotStore snapshotStore = new OccupancySnapshotStore();
+        Path snapshotPath = directory.resolve("occupancy.snapshot");
+        ReflectionTestUtils.setField(snapshotStore, "snapshotPath", snapshotPath);
+        System.out.printf("%,d bookings on %,d rooms, %s index%n", bookings, rooms, store);
+
+        long baseline = usedHeap();
+        OccupancyService built = service(snapshotStore, stays(staysPerRoom, snapshotAt), List.of());
+        long started = System.nanoTime();
+        built.load();
+        report("build from bookings", started, baseline, built.index());
+        assertEquals(bookings, stayCount(built));
+
+        started = System.nanoTime();
+        built.writeSnapshot();
+        System.out.printf("%-24s %,8d ms  file %,d MB%n", "write snapshot",
+                (System.nanoTime() - started) / 1_000_000, Files.size(snapshotPath) >> 20);
+        built = null;
+
+        baseline = usedHeap();
+        OccupancyService restored = service(snapshotStore, List.of(), changes(staysPerRoom));
+        started = System.nanoTime();
+        restored.load();
+        report("restore + " + changed + " changes", started, baseline, restored.index());
+        assertEquals(bookings, stayCount(restored));
+    }
+
+    private OccupancyService service(OccupancySnapshotStore snapshotStore, List<BookingRepository.StayView> activeStays,
+                                     List<BookingRepository.StayView> changes) {
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findActiveStays()).thenReturn(activeStays);
+        when(bookingRepository.findChangedSince(any())).thenReturn(changes);
+        OccupancyService service = new OccupancyService(bookingRepository, snapshotStore, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "horizonDays", HORIZON_DAYS);
+        ReflectionTestUtils.setField(service, "store", store);
+        ReflectionTestUtils.setField(service, "deltaOverlapMs", 60_000L);
+        return service;
+    }
+
+    // made up as they are read, so the table itself takes no heap
+    private List<BookingRepository.StayView> stays(int staysPerRoom, LocalDateTime updatedAt) {
+        return new AbstractList<>() {
+            @Override
+            public BookingRepository.StayView get(int index) {
+                return stay(index, staysPerRoom, 0, updatedAt);
+            }
+
+            @Override
+            public int size() {
+                return bookings;
+            }
+        };
+    }
+
+    // bookings moved by a night since the snapshot was written
+    private List<BookingRepository.StayView> changes(int staysPerRoom) {
+        LocalDateTime now = LocalDateTime.now();
+        long step = Math.max(1, bookings / Math.max(1, changed));
+        return LongStream.range(0, Math.min(changed, bookings))
+                .mapToObj(i -> stay((int) (i * step), staysPerRoom, 1, now))
+                .toList();
+    }
+
+    private BookingRepository.StayView stay(int index, int staysPerRoom, int shift, LocalDateTime updatedAt) {
+        long roomId = index / staysPerRoom + 1;
+        LocalDate checkIn = LocalDate.now().minusDays(7).plusDays((long) (index % staysPerRoom) * STAY_SPACING_DAYS + shift);
+        LocalDate checkOut = checkIn.plusDays(1 + index % 5);
+        return new BookingRepository.StayView() {
+            @Override
+            public Long getId() {
+                return (long) index + 1;
+            }
+
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public BookingStatus getBookingStatus() {
+                return BookingStatus.BOOKED;
+            }
+
+            @Override
+            public LocalDate getCheckInDate() {
+                return checkIn;
+            }
+
+            @Override
+            public LocalDate getCheckOutDate() {
+                return checkOut;
+            }
+
+            @Override
+            public LocalDateTime getUpdatedAt() {
+                return updatedAt;
+            }
+        };
+    }
+
+    private void report(String phase, long startedNanos, long baselineHeap, OccupancyIndex index) {
+        long millis = (System.nanoTime() - startedNanos) / 1_000_000;
+        System.out.printf("%-24s %,8d ms  retained heap %,d MB  index %,d MB%n",
+                phase, millis, (usedHeap() - baselineHeap) >> 20, index.memoryBytes() >> 20);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int stayCount(OccupancyService service) {
+        return ((Map<Long, ?>) ReflectionTestUtils.getField(service, "stays")).size();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
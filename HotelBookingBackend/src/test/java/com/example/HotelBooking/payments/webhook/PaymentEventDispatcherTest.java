@@ -0,0 +1,153 @@
+package com.example.HotelBooking.payments.webhook;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.entities.PaymentWebhookEvent;
+import com.example.HotelBooking.repositories.PaymentWebhookEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentEventDispatcherTest {
+
+    private final PaymentWebhookEventRepository eventRepository = mock(PaymentWebhookEventRepository.class);
+    private final PaymentEventProcessor eventProcessor = mock(PaymentEventProcessor.class);
+    private final ClusterService clusterService = mock(ClusterService.class);
+    private PaymentEventDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new PaymentEventDispatcher(eventRepository, eventProcessor, clusterService);
+        ReflectionTestUtils.setField(dispatcher, "workers", 1);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 200);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 10);
+        ReflectionTestUtils.setField(dispatcher, "enqueueTimeoutMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "retryBackoffMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "retryMaxBackoffMs", 8000L);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 5);
+        ReflectionTestUtils.setField(dispatcher, "staleAfterMs", 600_000L);
+        when(eventRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(dispatcher, "stop");
+    }
+
+    @Test
+    void acceptedEventIsStoredAndAppliedByItsLane() throws Exception {
+        BlockingQueue<PaymentWebhookEvent> applied = new LinkedBlockingQueue<>();
+        doAnswer(invocation -> applied.addAll(invocation.getArgument(0))) //the worker reuses its batch list
+                .when(eventProcessor).process(anyList());
+        ReflectionTestUtils.invokeMethod(dispatcher, "start");
+        PaymentWebhookEvent event = event("evt_1", "BOOK1", 0);
+
+        assertTrue(dispatcher.accept(event));
+
+        verify(eventRepository).save(event);
+        assertSame(event, applied.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void duplicateOfAProcessedEventIsDropped() {
+        PaymentWebhookEvent processed = event("evt_1", "BOOK1", 0);
+        processed.setProcessed(true);
+        when(eventRepository.findByEventId("evt_1")).thenReturn(Optional.of(processed));
+
+        assertTrue(dispatcher.accept(event("evt_1", "BOOK1", 0)));
+
+        verify(eventRepository, never()).save(any());
+    }
+
+    @Test
+    void fullLaneAsksTheGatewayToDeliverAgain() {
+        lanes().add(new ArrayBlockingQueue<>(1)); //no worker drains it
+
+        assertTrue(dispatcher.accept(event("evt_1", "BOOK1", 0)));
+        assertFalse(dispatcher.accept(event("evt_2", "BOOK1", 0)));
+    }
+
+    @Test
+    void failedBatchIsAppliedOneEventAtATime() {
+        PaymentWebhookEvent good = event("evt_1", "BOOK1", 0);
+        PaymentWebhookEvent bad = event("evt_2", "BOOK2", 0);
+        PaymentWebhookEvent other = event("evt_3", "BOOK3", 0);
+        List<PaymentWebhookEvent> batch = List.of(good, bad, other);
+        doThrow(new IllegalStateException("bad amount")).when(eventProcessor).process(batch);
+        doThrow(new IllegalStateException("bad amount")).when(eventProcessor).process(List.of(bad));
+
+        ReflectionTestUtils.invokeMethod(dispatcher, "processBatch", batch);
+
+        verify(eventProcessor).process(List.of(good));
+        verify(eventProcessor).process(List.of(other));
+        verify(eventProcessor).recordFailure(eq(bad), eq("bad amount"), any(), eq(5));
+        verify(eventProcessor, never()).recordFailure(eq(good), anyString(), any(), anyInt());
+        verify(eventProcessor, never()).recordFailure(eq(other), anyString(), any(), anyInt());
+    }
+
+    @Test
+    void retryBackoffDoublesPerAttemptUpToTheMaximum() {
+        assertBackoff(event("evt_1", "BOOK1", 0), Duration.ofSeconds(1));
+        assertBackoff(event("evt_2", "BOOK2", 2), Duration.ofSeconds(4));
+        assertBackoff(event("evt_3", "BOOK3", 30), Duration.ofSeconds(8));
+    }
+
+    @Test
+    void onlyTheLeaderRequeuesFailedEvents() {
+        when(clusterService.isLeader()).thenReturn(false);
+
+        dispatcher.retryFailed();
+
+        verify(eventRepository, never()).findRetryable(any(), any(), any());
+    }
+
+    private void assertBackoff(PaymentWebhookEvent event, Duration expected) {
+        doThrow(new IllegalStateException("gateway down")).when(eventProcessor).process(List.of(event));
+        LocalDateTime before = LocalDateTime.now();
+
+        ReflectionTestUtils.invokeMethod(dispatcher, "processBatch", List.of(event));
+
+        ArgumentCaptor<LocalDateTime> nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(eventProcessor).recordFailure(eq(event), eq("gateway down"), nextAttemptAt.capture(), eq(5));
+        Duration backoff = Duration.between(before, nextAttemptAt.getValue());
+        assertTrue(backoff.compareTo(expected) >= 0 && backoff.compareTo(expected.plusSeconds(1)) < 0, "backoff " + backoff);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BlockingQueue<PaymentWebhookEvent>> lanes() {
+        return (List<BlockingQueue<PaymentWebhookEvent>>) ReflectionTestUtils.getField(dispatcher, "lanes");
+    }
+
+    private static PaymentWebhookEvent event(String eventId, String bookingReference, int attempts) {
+        return PaymentWebhookEvent.builder()
+                .eventId(eventId)
+                .bookingReference(bookingReference)
+                .attempts(attempts)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.HotelBooking.search;
+
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.dtos.CalendarDayDTO;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvailabilityCalendarServiceTest {
+
+    private static final Long PROPERTY_ID = 1L;
+    private static final LocalDate START = LocalDate.of(2026, 3, 1);
+    private static final LocalDate END = START.plusDays(5);
+
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private AvailabilityCalendarService calendarService;
+
+    @BeforeEach
+    void setUp() {
+        when(roomRepository.findByPropertyId(eq(PROPERTY_ID), any(Sort.class))).thenReturn(List.of(
+                room(10L, RoomType.DOUBLE, "100.00"),
+                room(11L, RoomType.DOUBLE, "150.00"),
+                room(12L, RoomType.SINGLE, "80.00")));
+        when(bookingRepository.findActiveIntervals(PROPERTY_ID, START, END)).thenReturn(List.of(
+                interval(10L, START.plusDays(1), START.plusDays(2)),
+                interval(12L, START.minusDays(4), START)));
+        calendarService = new AvailabilityCalendarService(new RoomSearchIndex(roomRepository, new ModelMapper()), bookingRepository);
+    }
+
+    @Test
+    void sweepCountsCheckInThroughCheckOut() {
+        List<CalendarDayDTO> days = calendarService.getCalendar(PROPERTY_ID, START, END);
+
+        assertEquals(List.of(2, 1, 1, 2, 2), freeRooms(days, RoomType.DOUBLE));
+        assertEquals(List.of(0, 1, 1, 1, 1), freeRooms(days, RoomType.SINGLE));
+        assertEquals(new BigDecimal("100.00"), days.get(0).getLowestPrice().get(RoomType.DOUBLE));
+        assertEquals(new BigDecimal("150.00"), days.get(1).getLowestPrice().get(RoomType.DOUBLE));
+        assertNull(days.get(0).getLowestPrice().get(RoomType.SINGLE));
+    }
+
+    @Test
+    void bookingChangesPatchCachedWindow() {
+        calendarService.getCalendar(PROPERTY_ID, START, END);
+        Booking booking = booking(11L, START.plusDays(3), START.plusDays(3), BookingStatus.BOOKED);
+        when(bookingRepository.findById(5L)).thenReturn(Optional.of(booking));
+
+        calendarService.onInvalidation(new InvalidationEvent(CacheRegion.BOOKING, "5", false));
+        List<CalendarDayDTO> booked = calendarService.getCalendar(PROPERTY_ID, START, END);
+        assertEquals(List.of(2, 1, 1, 1, 2), freeRooms(booked, RoomType.DOUBLE));
+        assertEquals(new BigDecimal("100.00"), booked.get(3).getLowestPrice().get(RoomType.DOUBLE));
+
+        booking.setBookingStatus(BookingStatus.CANCELLED);
+        calendarService.onInvalidation(new InvalidationEvent(CacheRegion.BOOKING, "5", false));
+        List<CalendarDayDTO> released = calendarService.getCalendar(PROPERTY_ID, START, END);
+        assertEquals(List.of(2, 1, 1, 2, 2), freeRooms(released, RoomType.DOUBLE));
+
+        verify(bookingRepository, times(1)).findActiveIntervals(PROPERTY_ID, START, END);
+    }
+
+    @Test
+    void roomChangesDropCachedWindows() {
+        calendarService.getCalendar(PROPERTY_ID, START, END);
+
+        calendarService.onInvalidation(new InvalidationEvent(CacheRegion.ROOM, "10", false));
+        calendarService.getCalendar(PROPERTY_ID, START, END);
+
+        verify(bookingRepository, times(2)).findActiveIntervals(PROPERTY_ID, START, END);
+    }
+
+    private static List<Integer> freeRooms(List<CalendarDayDTO> days, RoomType type) {
+        return days.stream().map(day -> day.getFreeRooms().get(type)).toList();
+    }
+
+    private static Room room(Long id, RoomType type, String price) {
+        return Room.builder()
+                .id(id)
+                .propertyId(PROPERTY_ID)
+                .roomNumber(id.intValue())
+                .type(type)
+                .pricePerNight(new BigDecimal(price))
+                .capacity(2)
+                .build();
+    }
+
+    private static Booking booking(Long roomId, LocalDate checkInDate, LocalDate checkOutDate, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setId(5L);
+        booking.setRoom(room(roomId, RoomType.DOUBLE, "150.00"));
+        booking.setPropertyId(PROPERTY_ID);
+        booking.setCheckInDate(checkInDate);
+        booking.setCheckOutDate(checkOutDate);
+        booking.setBookingStatus(status);
+        return booking;
+    }
+
+    private static BookingRepository.BookedIntervalView interval(Long roomId, LocalDate checkInDate, LocalDate checkOutDate) {
+        return new BookingRepository.BookedIntervalView() {
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public LocalDate getCheckInDate() {
+                return checkInDate;
+            }
+
+            @Override
+            public LocalDate getCheckOutDate() {
+                return checkOutDate;
+            }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.HotelBooking.services;
+
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.cluster.InvalidationEvent;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.enums.BookingEventType;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.CacheRegion;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.repositories.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingHoldExpiryServiceTest {
+
+    private static final LocalDate CHECK_IN = LocalDate.of(2026, 3, 1);
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final ClusterService clusterService = mock(ClusterService.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final BookingEventLog bookingEventLog = mock(BookingEventLog.class);
+    private BookingHoldExpiryService expiryService;
+
+    @BeforeEach
+    void setUp() {
+        expiryService = new BookingHoldExpiryService(bookingRepository, clusterService, inventoryService, bookingEventLog,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(expiryService, "holdWindowMinutes", 30L);
+        when(clusterService.isLeader()).thenReturn(true);
+        when(bookingRepository.findByBookingStatusAndPaymentStatusNot(BookingStatus.BOOKED, PaymentStatus.COMPLETED))
+                .thenReturn(List.of());
+        TransactionSynchronizationManager.initSynchronization();
+        expiryService.releaseExpiredHolds(); //becomes leader with nothing pending
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void onlyBookingsTheUpdateExpiredGiveBackTheirNights() {
+        BookingRepository.InventoryClaimView claim = claim();
+        when(bookingRepository.expireUnpaidBookings(List.of(1L, 2L))).thenReturn(List.of(1L)); //2 was paid meanwhile
+        when(bookingRepository.findInventoryClaims(List.of(1L))).thenReturn(List.of(claim));
+        expiryService.track(1L, LocalDateTime.now().minusMinutes(32));
+        expiryService.track(2L, LocalDateTime.now().minusMinutes(31));
+        expiryService.track(3L, LocalDateTime.now());
+
+        expiryService.releaseExpiredHolds();
+
+        verify(bookingRepository).expireUnpaidBookings(List.of(1L, 2L));
+        verify(inventoryService, times(1)).release(1L, RoomType.DOUBLE, "DIRECT", CHECK_IN, CHECK_IN.plusDays(2));
+        verify(bookingEventLog).recordUpdated(List.of(1L), BookingEventType.EXPIRED);
+    }
+
+    @Test
+    void followerLeavesHoldsToTheLeader() {
+        when(clusterService.isLeader()).thenReturn(false);
+        expiryService.track(1L, LocalDateTime.now().minusMinutes(31));
+
+        expiryService.releaseExpiredHolds();
+
+        verify(bookingRepository, never()).expireUnpaidBookings(anyList());
+    }
+
+    @Test
+    void holdsOfARolledBackSweepAreRetried() {
+        when(bookingRepository.expireUnpaidBookings(List.of(1L)))
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(List.of());
+        expiryService.track(1L, LocalDateTime.now().minusMinutes(31));
+        assertThrows(IllegalStateException.class, expiryService::releaseExpiredHolds);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        expiryService.releaseExpiredHolds();
+
+        verify(bookingRepository, times(2)).expireUnpaidBookings(List.of(1L));
+    }
+
+    @Test
+    void committedSweepDoesNotRetryItsHolds() {
+        when(bookingRepository.expireUnpaidBookings(List.of(1L))).thenReturn(List.of(1L));
+        expiryService.track(1L, LocalDateTime.now().minusMinutes(31));
+        expiryService.releaseExpiredHolds();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        expiryService.releaseExpiredHolds();
+
+        verify(bookingRepository, times(1)).expireUnpaidBookings(anyList());
+    }
+
+    @Test
+    void onlyUnpaidBookingsFromOtherNodesAreTracked() {
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking(1L, PaymentStatus.COMPLETED)));
+        when(bookingRepository.findById(2L)).thenReturn(Optional.of(booking(2L, PaymentStatus.FAILED)));
+        when(bookingRepository.expireUnpaidBookings(any())).thenReturn(List.of());
+
+        expiryService.onInvalidation(new InvalidationEvent(CacheRegion.BOOKING, "1", true));
+        expiryService.onInvalidation(new InvalidationEvent(CacheRegion.BOOKING, "2", true));
+        expiryService.releaseExpiredHolds();
+
+        verify(bookingRepository).expireUnpaidBookings(List.of(2L));
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static Booking booking(Long id, PaymentStatus paymentStatus) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setBookingStatus(BookingStatus.BOOKED);
+        booking.setPaymentStatus(paymentStatus);
+        booking.setCreatedAt(LocalDateTime.now().minusMinutes(31));
+        return booking;
+    }
+
+    private static BookingRepository.InventoryClaimView claim() {
+        BookingRepository.InventoryClaimView claim = mock(BookingRepository.InventoryClaimView.class);
+        when(claim.getPropertyId()).thenReturn(1L);
+        when(claim.getRoomType()).thenReturn(RoomType.DOUBLE);
+        when(claim.getChannel()).thenReturn("DIRECT");
+        when(claim.getCheckInDate()).thenReturn(CHECK_IN);
+        when(claim.getCheckOutDate()).thenReturn(CHECK_IN.plusDays(2));
+        return claim;
+    }
+}
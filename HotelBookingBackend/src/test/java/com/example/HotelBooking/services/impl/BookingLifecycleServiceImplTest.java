@@ -0,0 +1,247 @@
+package com.example.HotelBooking.services.impl;
+
+import com.example.HotelBooking.assignment.RoomAssignmentService;
+import com.example.HotelBooking.audit.BookingEventLog;
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.config.datasource.ReadYourWritesTracker;
+import com.example.HotelBooking.dtos.BookingDTO;
+import com.example.HotelBooking.entities.Booking;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.entities.User;
+import com.example.HotelBooking.enums.BookingStatus;
+import com.example.HotelBooking.enums.PaymentStatus;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.enums.UserRole;
+import com.example.HotelBooking.exceptions.InvalidBookingStateAndDateException;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.holds.RoomHoldService;
+import com.example.HotelBooking.payments.refund.RefundRequestedEvent;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.security.AuthPrincipal;
+import com.example.HotelBooking.security.CurrentPrincipal;
+import com.example.HotelBooking.services.InventoryService;
+import com.example.HotelBooking.services.InventoryService.RoomClaim;
+import com.example.HotelBooking.services.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingLifecycleServiceImplTest {
+
+    private static final String REFERENCE = "BOOK123";
+    private static final Long GUEST_ID = 7L;
+    private static final Long PROPERTY_ID = 1L;
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final CurrentPrincipal currentPrincipal = mock(CurrentPrincipal.class);
+    private final InventoryService inventoryService = mock(InventoryService.class);
+    private final RoomAssignmentService roomAssignmentService = mock(RoomAssignmentService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final RoomHoldService roomHoldService = mock(RoomHoldService.class);
+    private final Room room = Room.builder().id(10L).propertyId(PROPERTY_ID).type(RoomType.DOUBLE)
+            .pricePerNight(new BigDecimal("100.00")).build();
+    private BookingLifecycleServiceImpl lifecycleService;
+
+    @BeforeEach
+    void setUp() {
+        lifecycleService = new BookingLifecycleServiceImpl(bookingRepository, roomRepository, currentPrincipal, inventoryService,
+                roomAssignmentService, mock(NotificationService.class), mock(ClusterService.class),
+                mock(ReadYourWritesTracker.class), eventPublisher, mock(BookingEventLog.class), roomHoldService);
+        ReflectionTestUtils.setField(lifecycleService, "freeCancellationDays", 2);
+        when(currentPrincipal.get()).thenReturn(new AuthPrincipal(GUEST_ID, "guest@example.com", UserRole.CUSTOMER, "jti"));
+        when(roomRepository.findByIdForUpdate(room.getId())).thenReturn(Optional.of(room));
+    }
+
+    @Test
+    void earlyCancellationIsRefundedInFull() {
+        Booking booking = booking(LocalDate.now().plusDays(10), 3, PaymentStatus.COMPLETED);
+
+        lifecycleService.cancelBooking(REFERENCE);
+
+        assertEquals(BookingStatus.CANCELLED, booking.getBookingStatus());
+        RefundRequestedEvent.Refund refund = refund();
+        assertEquals(new BigDecimal("300.00"), refund.amount());
+        assertTrue(refund.full());
+        verify(inventoryService).release(PROPERTY_ID, RoomType.DOUBLE, InventoryService.DIRECT_CHANNEL,
+                booking.getCheckInDate(), booking.getCheckOutDate());
+    }
+
+    @Test
+    void lateCancellationKeepsTheFirstNight() {
+        booking(LocalDate.now().plusDays(1), 3, PaymentStatus.COMPLETED);
+
+        lifecycleService.cancelBooking(REFERENCE);
+
+        RefundRequestedEvent.Refund refund = refund();
+        assertEquals(new BigDecimal("200.00"), refund.amount());
+        assertFalse(refund.full());
+    }
+
+    @Test
+    void unpaidCancellationRefundsNothing() {
+        booking(LocalDate.now().plusDays(10), 3, PaymentStatus.PENDING);
+
+        lifecycleService.cancelBooking(REFERENCE);
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void anotherGuestsBookingIsNotFound() {
+        booking(LocalDate.now().plusDays(10), 3, PaymentStatus.COMPLETED).getUser().setId(99L);
+
+        assertThrows(NotFoundException.class, () -> lifecycleService.cancelBooking(REFERENCE));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void checkedInBookingCannotBeCancelled() {
+        booking(LocalDate.now(), 3, PaymentStatus.COMPLETED).setBookingStatus(BookingStatus.CHECKED_IN);
+
+        assertThrows(InvalidBookingStateAndDateException.class, () -> lifecycleService.cancelBooking(REFERENCE));
+        verify(inventoryService, never()).release(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shorterStayInTheChosenRoomRefundsTheDifference() {
+        Booking booking = booking(LocalDate.now().plusDays(10), 3, PaymentStatus.COMPLETED);
+        LocalDate checkIn = booking.getCheckInDate();
+        LocalDate oldCheckOut = booking.getCheckOutDate();
+        roomFree(checkIn, checkIn.plusDays(2), booking.getId());
+        when(inventoryService.claimRoom(room, checkIn, checkIn.plusDays(2), booking.getId())).thenReturn(RoomClaim.COUNTED);
+
+        lifecycleService.changeBookingDates(REFERENCE, dates(checkIn, checkIn.plusDays(2)));
+
+        verify(inventoryService).release(PROPERTY_ID, RoomType.DOUBLE, InventoryService.DIRECT_CHANNEL, checkIn, oldCheckOut);
+        RefundRequestedEvent.Refund refund = refund();
+        assertEquals(new BigDecimal("100.00"), refund.amount());
+        assertFalse(refund.full());
+        assertEquals(new BigDecimal("200.00"), booking.getTotalPrice());
+        assertEquals(room, booking.getRoom());
+    }
+
+    @Test
+    void chosenRoomTakenOnTheNewDatesIsNotChanged() {
+        Booking booking = booking(LocalDate.now().plusDays(10), 3, PaymentStatus.COMPLETED);
+        LocalDate checkIn = booking.getCheckInDate().plusDays(1);
+        when(bookingRepository.isRoomAvailableExcluding(room.getId(), checkIn, checkIn.plusDays(2), booking.getId())).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> lifecycleService.changeBookingDates(REFERENCE, dates(checkIn, checkIn.plusDays(2))));
+        verify(inventoryService, never()).claimRoom(any(), any(), any(), any());
+        verify(roomAssignmentService, never()).chooseRoom(any(), any(), any(), any());
+    }
+
+    @Test
+    void soldOutTypeFailsTheChangeOfAChosenRoom() {
+        Booking booking = booking(LocalDate.now().plusDays(10), 3, PaymentStatus.COMPLETED);
+        LocalDate checkIn = booking.getCheckInDate().plusDays(1);
+        roomFree(checkIn, checkIn.plusDays(2), booking.getId());
+        when(inventoryService.claimRoom(room, checkIn, checkIn.plusDays(2), booking.getId())).thenReturn(RoomClaim.SOLD_OUT);
+
+        assertThrows(NotFoundException.class, () -> lifecycleService.changeBookingDates(REFERENCE, dates(checkIn, checkIn.plusDays(2))));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void paidChangeThatCostsMoreIsRejected() {
+        Booking booking = booking(LocalDate.now().plusDays(10), 2, PaymentStatus.COMPLETED);
+        LocalDate checkIn = booking.getCheckInDate();
+        roomFree(checkIn, checkIn.plusDays(4), booking.getId());
+        when(inventoryService.claimRoom(room, checkIn, checkIn.plusDays(4), booking.getId())).thenReturn(RoomClaim.NOT_COUNTED);
+
+        assertThrows(InvalidBookingStateAndDateException.class,
+                () -> lifecycleService.changeBookingDates(REFERENCE, dates(checkIn, checkIn.plusDays(4))));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void bookingSoldByTypeMovesItsNightsAndTakesAnotherRoomWhenItsOwnIsTaken() {
+        Booking booking = booking(LocalDate.now().plusDays(10), 3, PaymentStatus.PENDING);
+        booking.setRoomChosen(false);
+        LocalDate checkIn = booking.getCheckInDate().plusDays(7);
+        Room other = Room.builder().id(11L).propertyId(PROPERTY_ID).type(RoomType.DOUBLE).build();
+        when(bookingRepository.isRoomAvailableExcluding(room.getId(), checkIn, checkIn.plusDays(3), booking.getId())).thenReturn(false);
+        when(roomAssignmentService.chooseRoom(PROPERTY_ID, RoomType.DOUBLE, checkIn, checkIn.plusDays(3))).thenReturn(Optional.of(other));
+        when(roomRepository.findLowestPricePerNight(PROPERTY_ID, RoomType.DOUBLE)).thenReturn(Optional.of(new BigDecimal("90.00")));
+
+        lifecycleService.changeBookingDates(REFERENCE, dates(checkIn, checkIn.plusDays(3)));
+
+        verify(inventoryService).reserve(PROPERTY_ID, RoomType.DOUBLE, InventoryService.DIRECT_CHANNEL, checkIn, checkIn.plusDays(3));
+        assertEquals(other, booking.getRoom());
+        assertEquals(new BigDecimal("270.00"), booking.getTotalPrice());
+    }
+
+    @Test
+    void bookingsCancelledForTheRoomAreRefundedInFullWhenPaid() {
+        Booking paid = booking(LocalDate.now().plusDays(1), 3, PaymentStatus.COMPLETED);
+        Booking unpaid = booking(LocalDate.now().plusDays(5), 2, PaymentStatus.PENDING);
+        unpaid.setId(6L);
+        when(bookingRepository.lockBookedForRoom(room.getId(), LocalDate.now(), null)).thenReturn(List.of(paid, unpaid));
+        when(bookingRepository.cancelBookings(List.of(5L, 6L))).thenReturn(2);
+
+        lifecycleService.cancelBookingsForRoom(room.getId(), null, null);
+
+        RefundRequestedEvent.Refund refund = refund();
+        assertEquals(5L, refund.bookingId());
+        assertEquals(new BigDecimal("300.00"), refund.amount());
+        assertTrue(refund.full());
+    }
+
+    private void roomFree(LocalDate checkInDate, LocalDate checkOutDate, Long bookingId) {
+        when(bookingRepository.isRoomAvailableExcluding(room.getId(), checkInDate, checkOutDate, bookingId)).thenReturn(true);
+    }
+
+    private Booking booking(LocalDate checkInDate, int nights, PaymentStatus paymentStatus) {
+        Booking booking = new Booking();
+        booking.setId(5L);
+        booking.setBookingReference(REFERENCE);
+        booking.setUser(User.builder().id(GUEST_ID).email("guest@example.com").build());
+        booking.setRoom(room);
+        booking.setRoomChosen(true);
+        booking.setPropertyId(PROPERTY_ID);
+        booking.setRoomType(RoomType.DOUBLE);
+        booking.setChannel(InventoryService.DIRECT_CHANNEL);
+        booking.setInventoryReserved(true);
+        booking.setBookingStatus(BookingStatus.BOOKED);
+        booking.setPaymentStatus(paymentStatus);
+        booking.setCheckInDate(checkInDate);
+        booking.setCheckOutDate(checkInDate.plusDays(nights));
+        booking.setTotalPrice(room.getPricePerNight().multiply(BigDecimal.valueOf(nights)));
+        when(bookingRepository.findByBookingReferenceForUpdate(REFERENCE)).thenReturn(Optional.of(booking));
+        return booking;
+    }
+
+    private static BookingDTO dates(LocalDate checkInDate, LocalDate checkOutDate) {
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setCheckInDate(checkInDate);
+        bookingDTO.setCheckOutDate(checkOutDate);
+        return bookingDTO;
+    }
+
+    private RefundRequestedEvent.Refund refund() {
+        ArgumentCaptor<RefundRequestedEvent> event = ArgumentCaptor.forClass(RefundRequestedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        List<RefundRequestedEvent.Refund> refunds = event.getValue().refunds();
+        assertEquals(1, refunds.size());
+        return refunds.get(0);
+    }
+}
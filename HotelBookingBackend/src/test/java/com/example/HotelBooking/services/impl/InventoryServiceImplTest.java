@@ -0,0 +1,174 @@
+package com.example.HotelBooking.services.impl;
+
+import com.example.HotelBooking.cluster.ClusterService;
+import com.example.HotelBooking.entities.InventoryAllotment;
+import com.example.HotelBooking.entities.Room;
+import com.example.HotelBooking.enums.RoomType;
+import com.example.HotelBooking.exceptions.NotFoundException;
+import com.example.HotelBooking.repositories.BookingRepository;
+import com.example.HotelBooking.repositories.InventoryAllotmentRepository;
+import com.example.HotelBooking.repositories.RoomRepository;
+import com.example.HotelBooking.services.InventoryService.RoomClaim;
+import com.example.HotelBooking.tenancy.TenantContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.HotelBooking.services.InventoryService.DIRECT_CHANNEL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceImplTest {
+
+    private static final Long PROPERTY_ID = 1L;
+    private static final String CHANNEL = "AGENCY";
+    private static final LocalDate CHECK_IN = LocalDate.of(2026, 3, 1);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(3);
+
+    private final InventoryAllotmentRepository allotmentRepository = mock(InventoryAllotmentRepository.class);
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final TenantContext tenantContext = mock(TenantContext.class);
+    private InventoryServiceImpl inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        when(tenantContext.getPropertyId()).thenReturn(PROPERTY_ID);
+        when(allotmentRepository.countNights(eq(PROPERTY_ID), eq(RoomType.DOUBLE), anyString(), eq(CHECK_IN), eq(CHECK_OUT)))
+                .thenReturn(3L);
+        when(allotmentRepository.takeNight(eq(PROPERTY_ID), eq(RoomType.DOUBLE), anyString(), any())).thenReturn(1);
+        inventoryService = new InventoryServiceImpl(allotmentRepository, mock(ClusterService.class), roomRepository,
+                bookingRepository, tenantContext);
+    }
+
+    @Test
+    void reserveTakesEveryNightOfTheStay() {
+        inventoryService.reserve(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT);
+
+        CHECK_IN.datesUntil(CHECK_OUT).forEach(night ->
+                verify(allotmentRepository).takeNight(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, night));
+        verify(allotmentRepository, never()).releaseNights(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void soldOutNightGivesBackTheNightsTakenBeforeIt() {
+        when(allotmentRepository.takeNight(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN.plusDays(2))).thenReturn(0);
+
+        assertThrows(NotFoundException.class,
+                () -> inventoryService.reserve(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT));
+
+        verify(allotmentRepository).releaseNights(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_IN.plusDays(2));
+    }
+
+    @Test
+    void knownSoldOutNightIsRejectedWithoutTheDatabase() {
+        when(allotmentRepository.takeNight(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN)).thenReturn(0);
+        assertThrows(NotFoundException.class,
+                () -> inventoryService.reserve(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT));
+
+        assertThrows(NotFoundException.class,
+                () -> inventoryService.reserve(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT));
+
+        verify(allotmentRepository, times(1)).countNights(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT);
+        verify(allotmentRepository, never()).releaseNights(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void releaseReopensANightTheMirrorHadSoldOut() {
+        when(allotmentRepository.findByPropertyIdAndRoomTypeAndChannelAndStayDateBetweenOrderByStayDate(
+                PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT.minusDays(1)))
+                .thenReturn(List.of(night(CHECK_IN, 0), night(CHECK_IN.plusDays(1), 4), night(CHECK_IN.plusDays(2), 4)));
+        inventoryService.getInventory(RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT);
+        assertThrows(NotFoundException.class,
+                () -> inventoryService.reserve(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT));
+        verify(allotmentRepository, never()).takeNight(any(), any(), any(), any());
+
+        inventoryService.release(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT);
+        inventoryService.reserve(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT);
+
+        verify(allotmentRepository).releaseNights(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT);
+        verify(allotmentRepository, times(3)).takeNight(eq(PROPERTY_ID), eq(RoomType.DOUBLE), eq(CHANNEL), any());
+    }
+
+    @Test
+    void missingNightCannotBeReserved() {
+        when(allotmentRepository.countNights(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT)).thenReturn(2L);
+
+        assertThrows(NotFoundException.class,
+                () -> inventoryService.reserve(PROPERTY_ID, RoomType.DOUBLE, CHANNEL, CHECK_IN, CHECK_OUT));
+
+        verify(allotmentRepository, never()).takeNight(any(), any(), any(), any());
+    }
+
+    @Test
+    void roomWithoutDirectAllotmentIsNotCounted() {
+        freeRooms(3, 1);
+        when(allotmentRepository.countNights(PROPERTY_ID, RoomType.DOUBLE, DIRECT_CHANNEL, CHECK_IN, CHECK_OUT)).thenReturn(0L);
+
+        assertEquals(RoomClaim.NOT_COUNTED, inventoryService.claimRoom(room(), CHECK_IN, CHECK_OUT));
+        verify(allotmentRepository, never()).takeNight(any(), any(), any(), any());
+    }
+
+    @Test
+    void roomIsClaimedFromTheDirectAllotment() {
+        freeRooms(3, 1);
+
+        assertEquals(RoomClaim.COUNTED, inventoryService.claimRoom(room(), CHECK_IN, CHECK_OUT));
+        verify(allotmentRepository, times(3)).takeNight(eq(PROPERTY_ID), eq(RoomType.DOUBLE), eq(DIRECT_CHANNEL), any());
+    }
+
+    @Test
+    void roomIsSoldOutWhileTypeBookingsNeedTheFreeRooms() {
+        freeRooms(2, 2);
+
+        assertEquals(RoomClaim.SOLD_OUT, inventoryService.claimRoom(room(), CHECK_IN, CHECK_OUT));
+        verify(allotmentRepository, never()).takeNight(any(), any(), any(), any());
+    }
+
+    @Test
+    void soldOutDirectNightReturnsSoldOutWithoutKeepingTheOthers() {
+        freeRooms(3, 1);
+        when(allotmentRepository.takeNight(PROPERTY_ID, RoomType.DOUBLE, DIRECT_CHANNEL, CHECK_IN.plusDays(1))).thenReturn(0);
+
+        assertEquals(RoomClaim.SOLD_OUT, inventoryService.claimRoom(room(), CHECK_IN, CHECK_OUT));
+        verify(allotmentRepository).releaseNights(PROPERTY_ID, RoomType.DOUBLE, DIRECT_CHANNEL, CHECK_IN, CHECK_IN.plusDays(1));
+    }
+
+    @Test
+    void movingBookingIsLeftOutOfTheFreeRooms() {
+        when(roomRepository.countAvailableRooms(PROPERTY_ID, RoomType.DOUBLE, CHECK_IN, CHECK_OUT, 7L)).thenReturn(2L);
+        when(bookingRepository.countUnassigned(PROPERTY_ID, RoomType.DOUBLE, CHECK_IN, CHECK_OUT)).thenReturn(1L);
+
+        assertEquals(RoomClaim.COUNTED, inventoryService.claimRoom(room(), CHECK_IN, CHECK_OUT, 7L));
+    }
+
+    private void freeRooms(long free, long unassigned) {
+        when(roomRepository.countAvailableRooms(PROPERTY_ID, RoomType.DOUBLE, CHECK_IN, CHECK_OUT, null)).thenReturn(free);
+        when(bookingRepository.countUnassigned(PROPERTY_ID, RoomType.DOUBLE, CHECK_IN, CHECK_OUT)).thenReturn(unassigned);
+    }
+
+    private static Room room() {
+        return Room.builder().id(10L).propertyId(PROPERTY_ID).type(RoomType.DOUBLE).build();
+    }
+
+    private static InventoryAllotment night(LocalDate stayDate, int remaining) {
+        return InventoryAllotment.builder()
+                .propertyId(PROPERTY_ID)
+                .stayDate(stayDate)
+                .roomType(RoomType.DOUBLE)
+                .channel(CHANNEL)
+                .allotment(4)
+                .remaining(remaining)
+                .build();
+    }
+}
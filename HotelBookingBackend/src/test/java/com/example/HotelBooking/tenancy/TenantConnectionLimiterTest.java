@@ -0,0 +1,97 @@
+package com.example.HotelBooking.tenancy;
+
+import com.example.HotelBooking.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TenantConnectionLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory()); //a fresh thread, holding no permit, per call
+    private TenantConnectionLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new TenantConnectionLimiter(meterRegistry, 4, 0.5);
+        ReflectionTestUtils.setField(limiter, "acquireTimeoutMs", 50L);
+        limiter.setPropertyCount(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void workWithoutATenantIsNotLimited() {
+        assertNull(limiter.acquire());
+    }
+
+    @Test
+    void singlePropertyIsNotLimited() {
+        limiter.setPropertyCount(1);
+        TenantContext.set(1L);
+
+        assertNull(limiter.acquire());
+    }
+
+    @Test
+    void propertyIsCappedAtItsShareOfThePool() throws Exception {
+        assertNotNull(onThread(1L, limiter::acquire));
+        assertNotNull(onThread(1L, limiter::acquire));
+
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> onThread(1L, limiter::acquire));
+        assertInstanceOf(ServiceBusyException.class, rejected.getCause());
+        assertEquals(1.0, meterRegistry.counter("tenancy.pool.rejected", "property", "1").count());
+
+        //the other hotel still gets its connections
+        assertNotNull(onThread(2L, limiter::acquire));
+    }
+
+    @Test
+    void threadHoldingThePermitTakesItAgainWithoutWaiting() throws Exception {
+        Semaphore other = onThread(1L, limiter::acquire);
+        TenantContext.set(1L);
+
+        Semaphore first = limiter.acquire();
+        Semaphore nested = limiter.acquire();
+        assertSame(first, nested);
+        assertSame(other, first);
+        assertEquals(0, first.availablePermits());
+
+        limiter.release(nested);
+        assertEquals(0, first.availablePermits());
+        limiter.release(first);
+        assertEquals(1, first.availablePermits());
+    }
+
+    // the permit belongs to the thread, so the ones taken here stay held after it returns
+    private Semaphore onThread(Long propertyId, Callable<Semaphore> acquire) throws Exception {
+        return executor.submit(() -> {
+            TenantContext.set(propertyId);
+            try {
+                return acquire.call();
+            } finally {
+                TenantContext.clear();
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.HotelBooking.throttling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void acquireStopsAtLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, WINDOW_NANOS);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.release("/api/rooms", FAST);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void eachRouteIsComparedWithItsOwnBaseline() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100, 2.0, WINDOW_NANOS);
+
+        for (int tick = 0; tick < 20; tick++) {
+            for (int i = 0; i < 10; i++) {
+                complete(limiter, "/api/rooms/{id}", FAST);
+                complete(limiter, "/api/reports", SLOW);
+            }
+            limiter.tick(System.nanoTime());
+        }
+
+        assertFalse(limiter.isCongested());
+        assertTrue(limiter.getLimit() >= 20);
+    }
+
+    @Test
+    void queueingShrinksLimit() {
+        AdaptiveConcurrencyLimiter limiter = congested();
+
+        assertTrue(limiter.isCongested());
+        assertTrue(limiter.getLimit() < 20, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void unusedLimitDoesNotGrow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0, WINDOW_NANOS);
+
+        for (int tick = 0; tick < 10; tick++) {
+            for (int i = 0; i < 10; i++) {
+                complete(limiter, "/api/rooms", FAST);
+            }
+            limiter.tick(System.nanoTime());
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void usedLimitGrows() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 100, 2.0, WINDOW_NANOS);
+
+        for (int round = 0; round < 50; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) acquired++;
+            for (int i = 0; i < acquired; i++) {
+                limiter.release("/api/rooms", FAST);
+            }
+            limiter.tick(System.nanoTime());
+        }
+
+        assertTrue(limiter.getLimit() > 2, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void limitOnlyChangesOnTick() {
+        AdaptiveConcurrencyLimiter limiter = congested();
+        int limit = limiter.getLimit();
+
+        for (int i = 0; i < 50; i++) {
+            complete(limiter, "/api/rooms", SLOW);
+        }
+        assertEquals(limit, limiter.getLimit());
+
+        limiter.tick(System.nanoTime());
+        assertTrue(limiter.getLimit() < limit, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void concurrentRequestsAreAllCounted() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 1, 100, 2.0, WINDOW_NANOS);
+        int threads = 8;
+        int requestsPerThread = 20_000;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger overLimit = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            Future<?> ticker = executor.submit(() -> {
+                while (!done.get()) {
+                    limiter.tick(System.nanoTime());
+                    Thread.onSpinWait();
+                }
+            });
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String route = "/api/route/" + (t % 3);
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < requestsPerThread; i++) {
+                        if (!limiter.tryAcquire()) continue;
+                        if (limiter.getInFlight() > 100) overLimit.incrementAndGet();
+                        limiter.release(route, FAST);
+                        completed.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) worker.get(30, TimeUnit.SECONDS);
+            done.set(true);
+            ticker.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, overLimit.get());
+        assertTrue(completed.get() > 0);
+        assertFalse(limiter.isCongested());
+        assertTrue(limiter.getLimit() >= 1 && limiter.getLimit() <= 100, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void idleTicksClearCongestion() {
+        AdaptiveConcurrencyLimiter limiter = congested();
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tick(System.nanoTime());
+        }
+
+        assertFalse(limiter.isCongested());
+    }
+
+    @Test
+    void stuckRequestsKeepCongestion() {
+        AdaptiveConcurrencyLimiter limiter = congested();
+        assertTrue(limiter.tryAcquire());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tick(System.nanoTime());
+        }
+
+        assertTrue(limiter.isCongested());
+    }
+
+    @Test
+    void windowWithoutTicksResetsBaseline() {
+        AdaptiveConcurrencyLimiter limiter = congested();
+        assertTrue(limiter.tryAcquire());
+
+        limiter.tick(System.nanoTime() + WINDOW_NANOS);
+
+        assertFalse(limiter.isCongested());
+    }
+
+    private static AdaptiveConcurrencyLimiter congested() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100, 2.0, WINDOW_NANOS);
+        for (int tick = 0; tick < 5; tick++) {
+            for (int i = 0; i < 10; i++) {
+                complete(limiter, "/api/rooms", FAST);
+            }
+            limiter.tick(System.nanoTime());
+        }
+        for (int tick = 0; tick < 5; tick++) {
+            for (int i = 0; i < 10; i++) {
+                complete(limiter, "/api/rooms", SLOW);
+            }
+            limiter.tick(System.nanoTime());
+        }
+        return limiter;
+    }
+
+    private static void complete(AdaptiveConcurrencyLimiter limiter, String route, long latencyNanos) {
+        assertTrue(limiter.tryAcquire());
+        limiter.release(route, latencyNanos);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.HotelBooking.throttling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Floods the search endpoints while a few clients keep booking, against a simulated connection pool that
+ * both share. Booking latency must stay close to what it was without the flood: the flood is shed once
+ * bookings start queueing behind it.
+ */
+class RateLimitFilterLoadTest {
+
+    private static final int POOL_SIZE = 8;
+    private static final long BOOKING_WORK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SEARCH_WORK_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+    private static final int BOOKING_CLIENTS = 2;
+    private static final int SEARCH_CLIENTS = 48;
+
+    private final Semaphore pool = new Semaphore(POOL_SIZE, true);
+    private final FilterChain database = (request, response) -> {
+        pool.acquireUninterruptibly();
+        try {
+            String uri = ((MockHttpServletRequest) request).getRequestURI();
+            LockSupport.parkNanos(uri.startsWith("/api/bookings") ? BOOKING_WORK_NANOS : SEARCH_WORK_NANOS);
+        } finally {
+            pool.release();
+        }
+    };
+
+    @Test
+    void bookingLatencyStaysFlatUnderSearchFlood() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(),
+                1_000_000, 1_000_000, 1_000_000, 1_000_000, 20, 2, 200, 2.0, TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "burst", 1_000_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKING_CLIENTS + SEARCH_CLIENTS + 1);
+        try {
+            AtomicBoolean stopped = new AtomicBoolean();
+            Future<?> ticker = executor.submit(() -> {
+                while (!stopped.get()) {
+                    filter.tickLimiters();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                }
+            });
+
+            long quiet = p90(runBookings(filter, executor, 1000));
+
+            AtomicBoolean flooding = new AtomicBoolean(true);
+            AtomicInteger searchesServed = new AtomicInteger();
+            List<Future<?>> flood = new ArrayList<>();
+            for (int i = 0; i < SEARCH_CLIENTS; i++) {
+                String address = "10.0.0." + i;
+                flood.add(executor.submit(() -> {
+                    while (flooding.get()) {
+                        if (send(filter, "/api/rooms/search", address) == 200) searchesServed.incrementAndGet();
+                    }
+                }));
+            }
+            long flooded = p90(runBookings(filter, executor, 2000));
+            flooding.set(false);
+            for (Future<?> client : flood) client.get(10, TimeUnit.SECONDS);
+            stopped.set(true);
+            ticker.get(10, TimeUnit.SECONDS);
+
+            assertTrue(searchesServed.get() > 0, "the flood was shut out completely");
+            assertTrue(flooded <= quiet * 3 + TimeUnit.MILLISECONDS.toNanos(2),
+                    "booking p90 " + TimeUnit.NANOSECONDS.toMicros(flooded) + "us under the flood, "
+                            + TimeUnit.NANOSECONDS.toMicros(quiet) + "us without");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // latencies of the bookings served over the period; refused ones are retried by the clients
+    private List<Long> runBookings(RateLimitFilter filter, ExecutorService executor, long millis) throws Exception {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        List<Future<?>> clients = new ArrayList<>();
+        for (int i = 0; i < BOOKING_CLIENTS; i++) {
+            String user = "guest" + i;
+            clients.add(executor.submit(() -> {
+                while (System.nanoTime() < until) {
+                    long started = System.nanoTime();
+                    if (send(filter, "/api/bookings", user) == 200) latencies.add(System.nanoTime() - started);
+                }
+            }));
+        }
+        for (Future<?> client : clients) client.get(millis + 10_000, TimeUnit.MILLISECONDS);
+        return latencies;
+    }
+
+    private int send(RateLimitFilter filter, String uri, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, database);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response.getStatus();
+    }
+
+    private static long p90(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        assertTrue(!sorted.isEmpty(), "no booking was served");
+        return sorted.get((int) (sorted.size() * 0.9));
+    }
+}
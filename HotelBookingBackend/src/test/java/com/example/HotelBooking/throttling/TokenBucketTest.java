@@ -0,0 +1,42 @@
+package com.example.HotelBooking.throttling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void burstIsAllowedThenCallerWaitsOneInterval() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        long wait = bucket.tryAcquire();
+
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(59) && wait <= TimeUnit.MINUTES.toNanos(1), "waited " + wait);
+        assertFalse(bucket.isIdle());
+    }
+
+    @Test
+    void permitsRefillOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(60_000, 1); //one permit per millisecond
+
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+        Thread.sleep(5);
+
+        assertTrue(bucket.isIdle());
+        assertEquals(0, bucket.tryAcquire());
+    }
+
+    @Test
+    void newBucketIsIdle() {
+        assertTrue(new TokenBucket(10, 5).isIdle());
+    }
+}
@@ -34,9 +34,10 @@ const LoginPage = () => {
     }
 
     try {
-        const {status, token, role} = await ApiService.loginUser(formData);
+        const {status, token, refreshToken, role} = await ApiService.loginUser(formData);
         if (status === 200) {
             ApiService.saveToken(token)
+            ApiService.saveRefreshToken(refreshToken)
             ApiService.saveRole(role)
             navigate(redirectPath, {replace: true})
         }
@@ -73,16 +73,11 @@ const RoomDetailsPage = () => {
         roomId: room.id,
       };
 
-      const resp = await ApiService.bookRoom(booking);
+      //the room is held while paying, the booking is made once the payment goes through
+      const resp = await ApiService.holdRoom(booking);
 
       if (resp.status === 200) {
-        setShowMessage(
-          "Your Booking is Successful. Your booking details have been sent to your email . Please proceeed for payment"
-        );
-        setTimeout(() => {
-          setShowMessage(null);
-          navigate("/rooms");
-        }, 8000);
+        navigate(`/payment/${resp.hold.holdReference}/${resp.hold.totalPrice}`);
       }
     } catch (error) {
       setErrorMessage(error.response?.data?.message || error.message);
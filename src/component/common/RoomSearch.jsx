@@ -15,6 +15,7 @@ const RoomSearch = ({ handSearchResult }) => {
 
   const startDateRef = useRef(null);
   const endDateRef = useRef(null);
+  const availabilityRef = useRef(null);
 
   useEffect(() => {
     const fetchRoomTypes = async () => {
@@ -44,6 +45,36 @@ const RoomSearch = ({ handSearchResult }) => {
     };
   }, []);
 
+  //stop listening for live availability when the search goes away
+  useEffect(() => {
+    return () => availabilityRef.current?.close();
+  }, []);
+
+  //keeps the shown rooms in step with bookings made by others while the customer looks at them
+  const watchAvailability = (checkIn, checkOut, type, rooms) => {
+    availabilityRef.current?.close();
+    let shown = rooms;
+    availabilityRef.current = ApiService.subscribeAvailability(checkIn, checkOut, type, async (update) => {
+      const available = new Set(update.availableRoomIds);
+      const taken = new Set(update.snapshot
+        ? shown.filter((room) => !available.has(room.id)).map((room) => room.id)
+        : update.takenRoomIds);
+      const added = update.availableRoomIds.filter((id) => !shown.some((room) => room.id === id));
+
+      if (added.length > 0) {
+        //a room came free that the list does not have yet, fetch it with its details
+        try {
+          const resp = await ApiService.getAvailableRooms(checkIn, checkOut, type);
+          if (resp.status === 200) shown = resp.rooms;
+        } catch (error) {
+          console.log("Error refreshing available rooms" + error);
+        }
+      }
+      shown = shown.filter((room) => !taken.has(room.id));
+      handSearchResult(shown);
+    });
+  };
+
   //shoe error
   const showError = (message, timeout = 5000) => {
     setError(message);
@@ -80,6 +111,7 @@ const RoomSearch = ({ handSearchResult }) => {
           return;
         }
         handSearchResult(resp.rooms);
+        watchAvailability(formattedStartDate, formattedEndDate, roomType, resp.rooms);
         setError("");
       }
     } catch (error) {
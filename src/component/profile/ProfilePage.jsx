@@ -2,9 +2,14 @@ import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import ApiService from '../../service/ApiService';
 
+const BOOKINGS_PER_PAGE = 20;
+
 const ProfilePage = () => {
     const [user, setUser] = useState(null);
     const [bookings, setBookings] = useState(null);
+    const [bookingPage, setBookingPage] = useState(0);
+    const [hasMoreBookings, setHasMoreBookings] = useState(false);
+    const [loadingBookings, setLoadingBookings] = useState(false);
     const [error, setError] = useState(null);
     const navigate = useNavigate();
 
@@ -13,9 +18,11 @@ const ProfilePage = () => {
             try {
                 const myProfileResponse = await ApiService.myProfile();
                 setUser(myProfileResponse.user)
-                // Fetch user bookings using the fetched user ID
-                const myBookingResponse = await ApiService.myBookings();
-                setBookings(myBookingResponse.bookings)
+                // Fetch the first page of the user's bookings, later pages are loaded on demand
+                const myBookingResponse = await ApiService.myBookings(0, BOOKINGS_PER_PAGE);
+                const firstPage = myBookingResponse.bookings || [];
+                setBookings(firstPage)
+                setHasMoreBookings(firstPage.length === BOOKINGS_PER_PAGE);
 
             } catch (error) {
                 setError(error.response?.data?.message || error.message);
@@ -25,6 +32,22 @@ const ProfilePage = () => {
         fetchUserProfile();
     }, []);
 
+    const handleLoadMoreBookings = async () => {
+        const nextPage = bookingPage + 1;
+        setLoadingBookings(true);
+        try {
+            const myBookingResponse = await ApiService.myBookings(nextPage, BOOKINGS_PER_PAGE);
+            const nextBookings = myBookingResponse.bookings || [];
+            setBookings((current) => [...(current || []), ...nextBookings]);
+            setBookingPage(nextPage);
+            setHasMoreBookings(nextBookings.length === BOOKINGS_PER_PAGE);
+        } catch (error) {
+            setError(error.response?.data?.message || error.message);
+        } finally {
+            setLoadingBookings(false);
+        }
+    };
+
     const handleLogout = () => {
         ApiService.logout();
         navigate('/home');
@@ -70,6 +93,11 @@ const ProfilePage = () => {
                         <p>No bookings found.</p>
                     )}
                 </div>
+                {hasMoreBookings && (
+                    <button className="load-more-button" onClick={handleLoadMoreBookings} disabled={loadingBookings}>
+                        {loadingBookings ? 'Loading...' : 'Load More Bookings'}
+                    </button>
+                )}
             </div>
         </div>
     );
@@ -5,6 +5,8 @@ export default class ApiService {
 
     static BASE_URL = "http://localhost:9090/api";
     static ENCRYPTION_KEY = "dennis-secrete-key";
+    //the hotel this site sells, left unset the backend uses its default property
+    static PROPERTY_ID = process.env.REACT_APP_PROPERTY_ID;
 
     //enctyp token using cruyptojs
 
@@ -45,8 +47,21 @@ export default class ApiService {
         return this.decrypt(encrytpedRole)
     }
 
+    //save refresh token, used to get a new access token when the short lived one expires
+    static saveRefreshToken(refreshToken) {
+        const encrytpedToken = this.encrypt(refreshToken);
+        localStorage.setItem("refreshToken", encrytpedToken);
+    }
+
+    static getRefreshToken() {
+        const encrytpedToken = localStorage.getItem("refreshToken");
+        if (!encrytpedToken) return null;
+        return this.decrypt(encrytpedToken)
+    }
+
     static clearAuth() {
         localStorage.removeItem("token");
+        localStorage.removeItem("refreshToken");
         localStorage.removeItem("role");
     }
 
@@ -72,6 +87,24 @@ export default class ApiService {
         return resp.data;
     }
 
+    //concurrent 401s share one refresh, a refresh token only works once
+    static refreshing = null;
+
+    static async refreshAccessToken() {
+        if (!this.refreshing) {
+            this.refreshing = axios.post(`${this.BASE_URL}/auth/refresh`, {refreshToken: this.getRefreshToken()})
+                .then(resp => {
+                    this.saveToken(resp.data.token);
+                    this.saveRefreshToken(resp.data.refreshToken);
+                    return resp.data.token;
+                })
+                .finally(() => {
+                    this.refreshing = null;
+                });
+        }
+        return this.refreshing;
+    }
+
     // USERS
     static async myProfile() {
         const resp = await axios.get(`${this.BASE_URL}/users/account`, {
@@ -80,8 +113,9 @@ export default class ApiService {
         return resp.data;
     }
 
-    static async myBookings() {
-        const resp = await axios.get(`${this.BASE_URL}/users/bookings`, {
+    //newest first, one page at a time
+    static async myBookings(page = 0, size = 20) {
+        const resp = await axios.get(`${this.BASE_URL}/users/bookings?page=${page}&size=${size}`, {
             headers: this.getHeader()
         })
         return resp.data;
@@ -151,6 +185,17 @@ export default class ApiService {
 
     }
 
+    //live availability for the searched stay, onUpdate gets {snapshot, availableRoomIds, takenRoomIds}
+    //the browser reconnects on its own and the server answers with a fresh snapshot. call close() when done
+    static subscribeAvailability(checkInDate, checkOutDate, roomType, onUpdate) {
+        const source = new EventSource(`${this.BASE_URL}/rooms/availability/stream?checkInDate=${checkInDate}&checkOutDate=${checkOutDate}&roomType=${roomType}`
+            + (this.PROPERTY_ID ? `&propertyId=${this.PROPERTY_ID}` : "")); //EventSource cannot send the header
+        const handle = (event) => onUpdate(JSON.parse(event.data));
+        source.addEventListener("snapshot", handle);
+        source.addEventListener("availability", handle);
+        return source;
+    }
+
 
     //BOOKINGS
     static async getBookingByReference(bookingCode) {
@@ -165,6 +210,14 @@ export default class ApiService {
         return resp.data;
     }
 
+    //keeps the room aside for a few minutes while paying, pay with the hold reference as the booking reference
+    static async holdRoom(booking) {
+        const resp = await axios.post(`${this.BASE_URL}/bookings/holds`, booking, {
+            headers: this.getHeader()
+        });
+        return resp.data;
+    }
+
     static async getAllBookings() {
         const resp = await axios.get(`${this.BASE_URL}/bookings/all`, {
             headers: this.getHeader()
@@ -200,6 +253,10 @@ export default class ApiService {
 
     //AUTHENTICATION CHECKER
     static logout(){
+        //revoke both tokens on the server, the local copies are gone either way
+        axios.post(`${this.BASE_URL}/auth/logout`, {refreshToken: this.getRefreshToken()}, {
+            headers: this.getHeader()
+        }).catch(() => {});
         this.clearAuth();
     }
 
@@ -220,4 +277,33 @@ export default class ApiService {
 
 
 
-}
\ No newline at end of file
+}
+
+//access tokens are short lived: on a 401, refresh once and replay the request with the new token
+//every call to the backend names the property, the endpoints themselves do not take it
+axios.interceptors.request.use(request => {
+    if (ApiService.PROPERTY_ID && request.url?.startsWith(ApiService.BASE_URL)) {
+        request.headers["X-Property-Id"] = ApiService.PROPERTY_ID;
+    }
+    return request;
+});
+
+axios.interceptors.response.use(
+    response => response,
+    async error => {
+        const request = error.config;
+        if (error.response?.status !== 401 || !request || request._retried
+            || request.url?.includes("/auth/") || !ApiService.getRefreshToken()) {
+            return Promise.reject(error);
+        }
+        request._retried = true;
+        try {
+            const token = await ApiService.refreshAccessToken();
+            request.headers = {...request.headers, Authorization: `Bearer ${token}`};
+            return axios(request);
+        } catch (refreshError) {
+            ApiService.clearAuth();
+            return Promise.reject(error);
+        }
+    }
+);